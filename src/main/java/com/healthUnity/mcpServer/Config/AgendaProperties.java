@@ -0,0 +1,35 @@
+package com.healthUnity.mcpServer.Config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Configuración de la agenda: duración de los slots y límites de consulta.
+ * Las duraciones se expresan en minutos y se ajustan a múltiplos de 5.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "healthunity.agenda")
+public class AgendaProperties {
+
+    // Duración de un slot cuando la especialidad no define una propia
+    private int duracionSlotMinutos = 30;
+
+    // id_especialidad -> minutos, ej: healthunity.agenda.duracion-por-especialidad.3=20
+    private Map<Long, Integer> duracionPorEspecialidad = new HashMap<>();
+
+    // Máximo de días que se pueden pedir en una sola consulta de rango
+    private int maxDiasRango = 62;
+
+    // Tiempo que un slot queda retenido para un paciente antes de confirmar la cita
+    private int retencionSegundos = 180;
+
+    public int duracionPara(Long idEspecialidad) {
+        Integer minutos = idEspecialidad != null ? duracionPorEspecialidad.get(idEspecialidad) : null;
+        return minutos != null && minutos > 0 ? minutos : duracionSlotMinutos;
+    }
+}
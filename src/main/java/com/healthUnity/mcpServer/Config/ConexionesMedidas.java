@@ -0,0 +1,62 @@
+package com.healthUnity.mcpServer.Config;
+
+import com.healthUnity.mcpServer.Service.MedicionHerramientas;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Envuelve el DataSource para medir cuánto tiempo queda tomada cada conexión, desde que se pide
+ * hasta que se cierra (vuelve al pool), y pasárselo a MedicionHerramientas.
+ */
+@Component
+public class ConexionesMedidas implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof Medido)) {
+            return new Medido(dataSource);
+        }
+        return bean;
+    }
+
+    private static final class Medido extends DelegatingDataSource {
+
+        Medido(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return medir(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String usuario, String clave) throws SQLException {
+            return medir(super.getConnection(usuario, clave));
+        }
+
+        private static Connection medir(Connection conexion) {
+            long tomada = System.nanoTime();
+            boolean[] cerrada = {false};
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        if (metodo.getName().equals("close") && !cerrada[0]) {
+                            cerrada[0] = true;
+                            MedicionHerramientas.conexionDevuelta(System.nanoTime() - tomada);
+                        }
+                        try {
+                            return metodo.invoke(conexion, argumentos);
+                        } catch (InvocationTargetException e) {
+                            throw e.getTargetException();
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.healthUnity.mcpServer.Config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Términos con los que los pacientes nombran cada especialidad.
+ * La clave es el nombre de la especialidad (sin importar tildes, mayúsculas ni guiones), ej:
+ * healthunity.especialidades.sinonimos.medicina-general=medico general,medico de cabecera
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "healthunity.especialidades")
+public class EspecialidadesProperties {
+
+    // nombre de la especialidad -> términos que la identifican
+    private Map<String, List<String>> sinonimos = new HashMap<>();
+
+    // Máximo de textos no reconocidos que se recuerdan antes de vaciar la caché negativa
+    private int maxDesconocidas = 10_000;
+}
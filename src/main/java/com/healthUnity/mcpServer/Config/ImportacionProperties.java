@@ -0,0 +1,23 @@
+package com.healthUnity.mcpServer.Config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Importación masiva de doctores y horarios desde un archivo JSON lines (ImportadorDoctores).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "healthunity.importacion")
+public class ImportacionProperties {
+
+    // Archivo que se importa al arrancar; vacío para no importar nada
+    private String archivo;
+
+    // Doctores que se escriben por lote (con sus usuarios y horarios)
+    private int lote = 1000;
+
+    // Líneas con error que se guardan en el resultado; las demás solo se cuentan
+    private int maxErrores = 1000;
+}
@@ -0,0 +1,45 @@
+package com.healthUnity.mcpServer.Config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Configuración del despacho de correos desde notificaciones_outbox.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "healthunity.notificaciones")
+public class NotificacionesProperties {
+
+    // Cada cuánto se revisa el outbox
+    private long intervaloMs = 2000;
+
+    // Notificaciones que se toman por consulta
+    private int lote = 50;
+
+    // Tiempo que una notificación queda tomada mientras se envía; al vencer otra instancia puede reintentarla
+    private int reclamoSegundos = 120;
+
+    // Al llegar a este número de intentos fallidos pasa a 'fallida' y no se reintenta
+    private int maxIntentos = 6;
+
+    // Conexiones SMTP abiertas que se reutilizan entre lotes
+    private int conexionesSmtp = 2;
+
+    // Espera tras el primer fallo; se duplica en cada intento hasta el máximo
+    private int backoffInicialSegundos = 30;
+    private int backoffMaximoSegundos = 3600;
+
+    // Recordatorios: se encolan cuando la cita entra en las próximas horas-antes horas
+    private int recordatorioHorasAntes = 24;
+    private long recordatoriosIntervaloMs = 60000;
+    private int recordatoriosLote = 500;
+    // Sin marca en progreso_tareas (primer arranque) se revisa también este tramo anterior
+    private int recordatoriosRecuperacionMinutos = 60;
+
+    public long backoffSegundos(int intentos) {
+        long espera = (long) backoffInicialSegundos << Math.min(Math.max(intentos - 1, 0), 20);
+        return Math.min(espera, backoffMaximoSegundos);
+    }
+}
@@ -0,0 +1,27 @@
+package com.healthUnity.mcpServer.Config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches por paciente: identidades por correo (IdentidadesPacientes) y listas de favoritos (FavoritosPacientes).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "healthunity.pacientes")
+public class PacientesProperties {
+
+    // Correos que se recuerdan; al llenarse se descartan los menos usados
+    private long identidadesMaximo = 50_000;
+
+    // Tiempo que vale una entrada; acota lo que tarda en verse un cambio de correo hecho por el backend
+    private long identidadesTtlSegundos = 1800;
+
+    // Filas de favoritos que se guardan entre todos los pacientes (unos cientos de bytes cada una);
+    // al llenarse se descartan las listas de los pacientes menos usados
+    private long favoritosMaximoFilas = 200_000;
+
+    // Tiempo que vale una lista; acota lo que tarda en verse un favorito escrito por el backend
+    private long favoritosTtlSegundos = 900;
+}
@@ -0,0 +1,32 @@
+package com.healthUnity.mcpServer.Config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Dos programadores de tareas. taskScheduler (spring.task.scheduling.*) corre las tareas cortas y frecuentes:
+ * despacho de correos, recordatorios, sincronización del ranking y rueda de retenciones.
+ * "recargas" corre las recargas completas de los índices en memoria, que pueden tardar varios segundos
+ * y así no retrasan la rueda de retenciones, que avanza cada segundo.
+ */
+@Configuration
+public class ProgramadoresTareas {
+    public static final String RECARGAS = "recargas";
+
+    // Al declarar otro TaskScheduler Spring Boot deja de crear el suyo: se crea igual, con spring.task.scheduling.*
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(RECARGAS)
+    public ThreadPoolTaskScheduler recargas(@Value("${healthunity.recargas.hilos:2}") int hilos) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(hilos);
+        scheduler.setThreadNamePrefix("recarga-");
+        return scheduler;
+    }
+}
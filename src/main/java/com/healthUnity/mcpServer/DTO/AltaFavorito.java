@@ -0,0 +1,5 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Resultado de agregar un favorito: favorito es null si no se insertó (falta el doctor o el paciente, o ya estaba)
+public record AltaFavorito(boolean existeDoctor, boolean existePaciente, FavoritoDoctor favorito) {
+}
@@ -0,0 +1,7 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.time.LocalTime;
+
+// Fila mínima de horarios_doctor, sin cargar la entidad ni el doctor
+public record BloqueHorario(Long idDoctor, int diaSemana, LocalTime horaInicio, LocalTime horaFin) {
+}
@@ -0,0 +1,9 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Una cita con los datos de su doctor que muestran las herramientas, leída sin cargar entidades
+public record CitaVista(Long idCita, LocalDate fecha, LocalTime hora, String razon, String estado,
+                        String nombreDoctor, String apellidoDoctor, String especialidad, String direccion) {
+}
@@ -0,0 +1,16 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Datos de los correos de una cita (confirmación y recordatorio) que viajan en el payload del outbox
+public record CorreoCita(String gmail,
+                         String nombrePaciente,
+                         String nombreDoctor,
+                         String direccionDoctor,
+                         String especialidadDoctor,
+                         LocalDate fecha,
+                         LocalTime hora,
+                         String razon,
+                         String urlImagenDoctor) {
+}
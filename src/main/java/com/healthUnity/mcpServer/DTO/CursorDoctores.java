@@ -0,0 +1,32 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posición de la paginación por cursor de doctores: el orden, la clave de orden y el id_doctor
+ * de la última fila entregada, más la página, el total calculado en la primera página y la huella
+ * de los filtros (especialidad y búsqueda) con que se calculó, para no seguirlo con otros.
+ * Viaja al cliente como texto opaco (Base64 URL).
+ */
+public record CursorDoctores(String orden, double clave, long idDoctor, int pagina, long total, int filtros) {
+
+    public String codificar() {
+        String texto = orden + ":" + clave + ":" + idDoctor + ":" + pagina + ":" + total + ":" + filtros;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CursorDoctores decodificar(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (partes.length != 6) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            return new CursorDoctores(partes[0], Double.parseDouble(partes[1]), Long.parseLong(partes[2]),
+                    Integer.parseInt(partes[3]), Long.parseLong(partes[4]), Integer.parseInt(partes[5]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException y los errores de Base64 también son IllegalArgumentException
+            throw new IllegalArgumentException("Cursor inválido", e);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Un doctor en el ranking por calificación, con lo necesario para mostrarlo
+public record DoctorRanking(Long idDoctor, Long idEspecialidad, String nombre, String apellido, String urlImagen,
+                            String especialidad, double rating, int reviews) {
+}
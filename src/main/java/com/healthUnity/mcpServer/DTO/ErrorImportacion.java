@@ -0,0 +1,5 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Línea del archivo de importación que se descartó y por qué
+public record ErrorImportacion(long linea, String mensaje) {
+}
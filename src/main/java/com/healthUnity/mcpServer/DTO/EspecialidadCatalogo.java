@@ -0,0 +1,5 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Una especialidad del catálogo, sin la entidad JPA
+public record EspecialidadCatalogo(Long idEspecialidad, String nombre, String icono) {
+}
@@ -0,0 +1,6 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Un doctor en los favoritos de un paciente, con el id del favorito para poder quitarlo
+public record FavoritoDoctor(long idFavorito, long idDoctor, String nombre, String apellido, String urlImagen,
+                             String especialidad, double rating, int reviews) {
+}
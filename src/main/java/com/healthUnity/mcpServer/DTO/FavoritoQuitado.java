@@ -0,0 +1,5 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Favorito recién borrado, con el nombre del doctor para confirmarlo
+public record FavoritoQuitado(long idFavorito, long idPaciente, long idDoctor, String nombreDoctor) {
+}
@@ -0,0 +1,6 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Una fila de los listados de doctores (páginas, tops); rating y reseñas sin caja
+public record FilaDoctor(long idDoctor, String nombre, String apellido, String urlImagen, String especialidad,
+                         double rating, int reviews, int experiencia) {
+}
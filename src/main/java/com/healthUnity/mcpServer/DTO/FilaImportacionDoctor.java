@@ -0,0 +1,14 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.time.LocalTime;
+import java.util.List;
+
+// Una línea del archivo de importación: el doctor con sus datos de usuario, su especialidad por nombre y su horario semanal
+public record FilaImportacionDoctor(String nombre, String apellido, String gmail, String telefono, String genero,
+                                    String direccion, String urlImagen, String especialidad, Integer experiencia,
+                                    String detalles, List<Bloque> horarios) {
+
+    // Un bloque del horario: día de la semana (1 = lunes) y rango [inicio, fin)
+    public record Bloque(Integer dia, LocalTime inicio, LocalTime fin) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.healthUnity.mcpServer.DTO;
+
+/**
+ * Criterios de búsqueda de doctores por calificación; los null no filtran.
+ * @param idEspecialidad el que resolvió ResolvedorEspecialidades para lo que pidió el paciente
+ * @param limite máximo de filas a devolver (la página que se muestra)
+ */
+public record FiltroDoctores(Long idEspecialidad, Double ratingMinimo, Integer minReviews,
+                             Orden orden, int limite) {
+
+    public enum Orden { RATING, REVIEWS, RELEVANCIA }
+}
@@ -0,0 +1,8 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Fecha y hora de una cita activa, sin cargar la entidad
+public record HoraOcupada(LocalDate fecha, LocalTime hora) {
+}
@@ -0,0 +1,5 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Nombre y apellido de un doctor, para el índice de búsqueda por nombre
+public record NombreDoctor(Long idDoctor, Long idDetalleUsuario, String nombre, String apellido) {
+}
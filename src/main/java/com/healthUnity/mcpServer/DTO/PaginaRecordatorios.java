@@ -0,0 +1,13 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+// Resultado de una página de recordatorios: cuántas citas se leyeron, cuántas se encolaron y dónde seguir
+public interface PaginaRecordatorios {
+    Long getLeidas();
+    Long getEncoladas();
+    LocalDate getFecha();
+    LocalTime getHora();
+    Long getIdCita();
+}
@@ -0,0 +1,5 @@
+package com.healthUnity.mcpServer.DTO;
+
+// Totales acumulados de una importación, informados después de cada lote escrito
+public record ProgresoImportacion(long lineas, long doctores, long horarios, long conError) {
+}
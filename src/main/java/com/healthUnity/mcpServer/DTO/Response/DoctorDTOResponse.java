@@ -1,5 +1,6 @@
 package com.healthUnity.mcpServer.DTO.Response;
 
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -24,4 +25,14 @@ public class DoctorDTOResponse {
         this.rating = row[5] != null ? ((Number) row[5]).doubleValue() : 0.0;
         this.number_reviews = row[6] != null ? ((Number) row[6]).intValue() : 0;
     }
+
+    public DoctorDTOResponse(FilaDoctor fila) {
+        this.idDoctor = fila.idDoctor();
+        this.nombre = fila.nombre();
+        this.apellido = fila.apellido();
+        this.doctor_image = fila.urlImagen();
+        this.especialidad = fila.especialidad();
+        this.rating = fila.rating();
+        this.number_reviews = fila.reviews();
+    }
 }
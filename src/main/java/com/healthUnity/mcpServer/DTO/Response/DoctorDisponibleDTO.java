@@ -16,4 +16,8 @@ public class DoctorDisponibleDTO {
     private Double rating;
     private Boolean disponible;
     private String horarioDisponible;
+
+    public DoctorDisponibleDTO(Long idDoctor, String nombre, String apellido, String especialidad, String urlImagen, Double rating) {
+        this(idDoctor, nombre, apellido, especialidad, urlImagen, rating, true, null);
+    }
 }
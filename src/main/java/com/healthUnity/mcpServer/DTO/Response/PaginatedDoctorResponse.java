@@ -17,4 +17,6 @@ public class PaginatedDoctorResponse {
     private Boolean hasNext;
     private Boolean hasPrevious;
     private Integer itemsPerPage;
-}
\ No newline at end of file
+    // Cursor para pedir la página siguiente; null en la última
+    private String nextCursor;
+}
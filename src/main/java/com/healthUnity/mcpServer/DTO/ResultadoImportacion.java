@@ -0,0 +1,7 @@
+package com.healthUnity.mcpServer.DTO;
+
+import java.util.List;
+
+// Resultado de una importación; errores guarda como mucho healthunity.importacion.max-errores líneas
+public record ResultadoImportacion(ProgresoImportacion totales, List<ErrorImportacion> errores, long milisegundos) {
+}
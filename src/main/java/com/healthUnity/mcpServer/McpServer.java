@@ -3,14 +3,17 @@ package com.healthUnity.mcpServer;
 import com.healthUnity.mcpServer.Service.CitasService;
 import com.healthUnity.mcpServer.Service.DoctorService;
 import com.healthUnity.mcpServer.Service.EspecialidadesService;
+import com.healthUnity.mcpServer.Service.MedicionHerramientas;
 import com.healthUnity.mcpServer.Service.PacienteService;
 import org.springframework.ai.tool.ToolCallbackProvider;
 import org.springframework.ai.tool.method.MethodToolCallbackProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class McpServer {
 
 	public static void main(String[] args) {
@@ -19,7 +22,9 @@ public class McpServer {
 
 
     @Bean
-    public ToolCallbackProvider ejemploTools(CitasService citasService, DoctorService doctorService, EspecialidadesService especialidadesService, PacienteService pacienteService){
-        return MethodToolCallbackProvider.builder().toolObjects(especialidadesService, doctorService,citasService,pacienteService).build();
+    public ToolCallbackProvider ejemploTools(CitasService citasService, DoctorService doctorService, EspecialidadesService especialidadesService, PacienteService pacienteService, MedicionHerramientas medicionHerramientas){
+        ToolCallbackProvider herramientas = MethodToolCallbackProvider.builder().toolObjects(especialidadesService, doctorService,citasService,pacienteService).build();
+        // Cada llamada deja su duración y su tiempo con conexión en healthunity.herramientas.*
+        return ToolCallbackProvider.from(medicionHerramientas.medir(herramientas.getToolCallbacks()));
     }
 }
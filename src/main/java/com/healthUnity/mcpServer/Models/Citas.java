@@ -14,7 +14,8 @@ import java.time.LocalTime;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Citas {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "citas_id_cita_seq")
+    @SequenceGenerator(name = "citas_id_cita_seq", sequenceName = "citas_id_cita_seq", allocationSize = 50)
     @Column(name = "id_cita")
     private Long idCita;
     @Column
@@ -1,12 +1,18 @@
 package com.healthUnity.mcpServer.Models;
 
+import com.healthUnity.mcpServer.Service.NombresDoctorListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.Date;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "detalles-usuario")
 @Table(name = "Detalles_usuario")
+@EntityListeners(NombresDoctorListener.class)
 @Data
 public class DetallesUsuario {
     @Id
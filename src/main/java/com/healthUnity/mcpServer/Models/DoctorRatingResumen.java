@@ -0,0 +1,25 @@
+package com.healthUnity.mcpServer.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * Suma, cantidad y promedio de estrellas por doctor.
+ * Lo mantiene el trigger de opiniones_doctores (ver schema.sql); desde la aplicación solo se lee.
+ */
+@Entity
+@Immutable
+@Table(name = "doctor_rating_resumen")
+@Data
+public class DoctorRatingResumen {
+    @Id
+    @Column(name = "id_doctor")
+    private Long idDoctor;
+
+    private long suma;
+
+    private int cantidad;
+
+    private double promedio;
+}
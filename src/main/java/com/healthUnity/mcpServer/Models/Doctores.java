@@ -2,16 +2,35 @@ package com.healthUnity.mcpServer.Models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.healthUnity.mcpServer.Service.NombresDoctorListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctores")
 @Table(name = "doctores")
+@NamedEntityGraph(name = Doctores.TARJETA, attributeNodes = {
+        @NamedAttributeNode("detallesUsuario"),
+        @NamedAttributeNode("especialidad")})
+@NamedEntityGraph(name = Doctores.PERFIL, attributeNodes = {
+        @NamedAttributeNode("detallesUsuario"),
+        @NamedAttributeNode("especialidad"),
+        @NamedAttributeNode(value = "galeria", subgraph = "imagenes")},
+        subgraphs = @NamedSubgraph(name = "imagenes", attributeNodes = @NamedAttributeNode("imagenes")))
+@EntityListeners(NombresDoctorListener.class)
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Doctores {
+    // Nombre, apellido, dirección, imagen y especialidad: tarjetas, favoritos y reservas
+    public static final String TARJETA = "Doctores.tarjeta";
+    // Lo anterior más la galería con sus imágenes
+    public static final String PERFIL = "Doctores.perfil";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "id_doctor")
@@ -21,19 +40,20 @@ public class Doctores {
 
     private String detalles;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "id_detalle_usuario")
     private DetallesUsuario detallesUsuario;
 
-    @OneToOne(cascade = CascadeType.ALL)
+    @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "id_especialidad")
     private Especialidades especialidad;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_galeria")
     private Galeria galeria;
 
     @OneToMany(mappedBy = "doctor", fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctores.horarios")
     @JsonIgnore // Evita ciclos infinitos en serialización JSON
     private List<HorariosDoctor> horarios;
 
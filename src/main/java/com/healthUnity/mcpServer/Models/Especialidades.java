@@ -2,9 +2,13 @@ package com.healthUnity.mcpServer.Models;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "especialidades")
 @Table(name = "especialidades")
 public class Especialidades {
 
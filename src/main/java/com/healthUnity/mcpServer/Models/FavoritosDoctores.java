@@ -8,7 +8,8 @@ import lombok.Data;
 @Data
 public class FavoritosDoctores {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "favoritos_doctores_id_favorito_doctor_seq")
+    @SequenceGenerator(name = "favoritos_doctores_id_favorito_doctor_seq", sequenceName = "favoritos_doctores_id_favorito_doctor_seq", allocationSize = 50)
     @Column(name = "id_favorito_doctor")
     private Long idFavoritoDoctor;
 
@@ -4,10 +4,14 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "galerias")
 @Table(name = "galerias")
 @Data
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "galeria"})
@@ -18,6 +22,7 @@ public class Galeria {
     @Column(name = "id_galeria")
     private Long idGaleria;
 
-    @OneToMany(mappedBy = "galeria", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "galeria", cascade = CascadeType.ALL)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "galerias.imagenes")
     private List<Imagenes> imagenes;
 }
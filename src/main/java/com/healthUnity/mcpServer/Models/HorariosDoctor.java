@@ -1,17 +1,24 @@
 package com.healthUnity.mcpServer.Models;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.healthUnity.mcpServer.Service.HorariosDoctorListener;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "horarios-doctor")
 @Table(name = "horarios_doctor")
+@EntityListeners(HorariosDoctorListener.class)
 @Data
 public class HorariosDoctor {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "horarios_doctor_id_horario_doctor_seq")
+    @SequenceGenerator(name = "horarios_doctor_id_horario_doctor_seq", sequenceName = "horarios_doctor_id_horario_doctor_seq", allocationSize = 50)
     @Column(name = "id_horario_doctor")
     private Long idHorarioDoctor;
 
@@ -4,8 +4,12 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "imagenes")
 @Table(name = "imagenes")
 @ToString(exclude = {"galeria"})
 @Data
@@ -18,7 +22,7 @@ public class Imagenes {
     @Column(name = "url_imagen")
     private String urlImagen;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "id_galeria")
     @JsonIgnoreProperties("imagenes")
     private Galeria galeria;
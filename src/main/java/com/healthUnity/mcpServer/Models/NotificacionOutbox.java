@@ -0,0 +1,55 @@
+package com.healthUnity.mcpServer.Models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "notificaciones_outbox")
+@Data
+public class NotificacionOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id_notificacion")
+    private Long idNotificacion;
+    @Column(nullable = false)
+    private String tipo;
+    @Column(nullable = false)
+    private String destinatario;
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+    @Column(nullable = false)
+    private String estado;
+    @Column(nullable = false)
+    private Integer intentos;
+    @Column(name = "proximo_intento", nullable = false)
+    private LocalDateTime proximoIntento;
+    @Column(name = "ultimo_error", columnDefinition = "TEXT")
+    private String ultimoError;
+    @Column(name = "id_cita")
+    private Long idCita;
+    @Column
+    private String clave;
+    @Column(name = "creado_en", nullable = false)
+    private LocalDateTime creadoEn;
+    @Column(name = "enviado_en")
+    private LocalDateTime enviadoEn;
+
+    @PrePersist
+    public void prePersist() {
+        LocalDateTime ahora = LocalDateTime.now();
+        if (estado == null) {
+            estado = "pendiente";
+        }
+        if (intentos == null) {
+            intentos = 0;
+        }
+        if (proximoIntento == null) {
+            proximoIntento = ahora;
+        }
+        if (creadoEn == null) {
+            creadoEn = ahora;
+        }
+    }
+}
@@ -13,7 +13,8 @@ import java.time.LocalDate;
 @Data
 public class OpinionesDoctores {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "opiniones_doctores_id_opinion_doctor_seq")
+    @SequenceGenerator(name = "opiniones_doctores_id_opinion_doctor_seq", sequenceName = "opiniones_doctores_id_opinion_doctor_seq", allocationSize = 50)
     @Column(name = "id_opinion_doctor")
     private Long idOpinionDoctor;
 
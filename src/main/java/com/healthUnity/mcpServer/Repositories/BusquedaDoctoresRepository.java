@@ -0,0 +1,121 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FiltroDoctores;
+import com.healthUnity.mcpServer.DTO.Response.DoctorRatingDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Búsqueda de doctores que arma el SQL solo con los filtros presentes y el orden pedido,
+ * en lugar de una consulta fija con (:x IS NULL OR ...) y ORDER BY CASE.
+ * Los valores van siempre como parámetros: cada combinación de filtros y orden produce el mismo texto,
+ * que el driver prepara una vez por conexión, con un plan propio para esa forma.
+ * El rating y las reseñas salen de doctor_rating_resumen, así que filtrarlos es un WHERE, no un HAVING.
+ */
+@Repository
+public class BusquedaDoctoresRepository {
+    private static final int CON_ESPECIALIDAD = 1;
+    private static final int CON_RATING = 2;
+    private static final int CON_REVIEWS = 4;
+
+    private static final String DESDE = """
+            FROM doctor_rating_resumen r
+            JOIN doctores d ON d.id_doctor = r.id_doctor
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            """;
+
+    private static final RowMapper<DoctorRatingDTO> FILA = (rs, i) -> new DoctorRatingDTO(
+            rs.getLong("id_doctor"),
+            rs.getString("nombre"),
+            rs.getString("apellido"),
+            rs.getString("url_imagen"),
+            rs.getString("especialidad"),
+            rs.getDouble("rating"),
+            rs.getInt("reviews"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    // SQL ya armado por forma (filtros presentes + orden)
+    private final Map<Integer, String> consultas = new ConcurrentHashMap<>();
+    private final Map<Integer, String> conteos = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BusquedaDoctoresRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Los doctores que cumplen el filtro, ordenados y limitados a filtro.limite().
+     */
+    public List<DoctorRatingDTO> buscar(FiltroDoctores filtro) {
+        return jdbcTemplate.query(sql(filtro), parametros(filtro).addValue("limite", filtro.limite()), FILA);
+    }
+
+    /**
+     * Cuántos doctores cumplen el filtro, sin límite.
+     */
+    public long contar(FiltroDoctores filtro) {
+        String sql = conteos.computeIfAbsent(forma(filtro), f -> "SELECT COUNT(*)\n" + DESDE + donde(f));
+        Long total = jdbcTemplate.queryForObject(sql, parametros(filtro), Long.class);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * El SQL de la forma del filtro; se arma la primera vez que aparece esa forma.
+     */
+    String sql(FiltroDoctores filtro) {
+        return consultas.computeIfAbsent(forma(filtro) | filtro.orden().ordinal() << 3, f -> """
+                SELECT d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre AS especialidad,
+                       r.promedio AS rating, r.cantidad AS reviews
+                """ + DESDE + donde(f) + "ORDER BY " + orden(filtro.orden()) + ", r.id_doctor DESC\nLIMIT :limite");
+    }
+
+    private static int forma(FiltroDoctores filtro) {
+        return (filtro.idEspecialidad() != null ? CON_ESPECIALIDAD : 0)
+                | (filtro.ratingMinimo() != null ? CON_RATING : 0)
+                | (filtro.minReviews() != null ? CON_REVIEWS : 0);
+    }
+
+    private static String donde(int forma) {
+        StringBuilder where = new StringBuilder();
+        if ((forma & CON_ESPECIALIDAD) != 0) {
+            where.append(where.isEmpty() ? "WHERE " : "AND ").append("d.id_especialidad = :idEspecialidad\n");
+        }
+        if ((forma & CON_RATING) != 0) {
+            where.append(where.isEmpty() ? "WHERE " : "AND ").append("r.promedio >= :ratingMinimo\n");
+        }
+        if ((forma & CON_REVIEWS) != 0) {
+            where.append(where.isEmpty() ? "WHERE " : "AND ").append("r.cantidad >= :minReviews\n");
+        }
+        return where.toString();
+    }
+
+    private static String orden(FiltroDoctores.Orden orden) {
+        return switch (orden) {
+            case RATING -> "r.promedio DESC, r.cantidad DESC";
+            case REVIEWS -> "r.cantidad DESC, r.promedio DESC";
+            case RELEVANCIA -> "d.experiencia DESC";
+        };
+    }
+
+    private static MapSqlParameterSource parametros(FiltroDoctores filtro) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        if (filtro.idEspecialidad() != null) {
+            parametros.addValue("idEspecialidad", filtro.idEspecialidad());
+        }
+        if (filtro.ratingMinimo() != null) {
+            parametros.addValue("ratingMinimo", filtro.ratingMinimo());
+        }
+        if (filtro.minReviews() != null) {
+            parametros.addValue("minReviews", filtro.minReviews());
+        }
+        return parametros;
+    }
+}
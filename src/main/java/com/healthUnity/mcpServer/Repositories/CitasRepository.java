@@ -1,45 +1,56 @@
 package com.healthUnity.mcpServer.Repositories;
 
+import com.healthUnity.mcpServer.DTO.CitaVista;
+import com.healthUnity.mcpServer.DTO.HoraOcupada;
 import com.healthUnity.mcpServer.Models.Citas;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CitasRepository extends JpaRepository<Citas, Long> {
 
     /**
-     * Busca la próxima cita del paciente con fetch join para evitar lazy loading
+     * La cita con su doctor, nombre y especialidad, para reprogramarla en una sola consulta
      */
-    @Query("SELECT c FROM Citas c " +
-            "LEFT JOIN FETCH c.doctor d " +
-            "LEFT JOIN FETCH d.detallesUsuario " +
-            "LEFT JOIN FETCH d.especialidad " +
+    @EntityGraph(attributePaths = {"doctor.detallesUsuario", "doctor.especialidad"})
+    Optional<Citas> findConDoctorByIdCita(Long idCita);
+
+    String VISTA = "SELECT new com.healthUnity.mcpServer.DTO.CitaVista(c.idCita, c.fecha, c.hora, c.razon, c.estado, " +
+            "du.nombre, du.apellido, e.nombre, du.direccion) FROM Citas c " +
+            "LEFT JOIN c.doctor d " +
+            "LEFT JOIN d.detallesUsuario du " +
+            "LEFT JOIN d.especialidad e ";
+
+    /**
+     * La próxima cita del paciente (desde la fecha indicada), proyectada sin entidades
+     */
+    @Query(VISTA +
             "WHERE c.paciente.idPaciente = :idPaciente " +
             "AND c.fecha >= :fecha " +
             "ORDER BY c.fecha ASC, c.hora ASC " +
             "LIMIT 1")
-    Citas findFirstByPaciente_IdPacienteAndFechaGreaterThanEqualOrderByFechaAscHoraAsc(
+    Optional<CitaVista> findProximaDePaciente(
             @Param("idPaciente") Long idPaciente,
             @Param("fecha") LocalDate fecha
     );
 
     /**
-     * Busca citas por paciente y estado con fetch join
+     * Citas del paciente por estado (todas si es null), de la más reciente a la más antigua, proyectadas sin entidades
      */
-    @Query("SELECT DISTINCT c FROM Citas c " +
-            "LEFT JOIN FETCH c.doctor d " +
-            "LEFT JOIN FETCH d.detallesUsuario " +
-            "LEFT JOIN FETCH d.especialidad " +
+    @Query(VISTA +
             "WHERE c.paciente.idPaciente = :idPaciente " +
             "AND (:estado IS NULL OR c.estado = :estado) " +
             "ORDER BY c.fecha DESC, c.hora DESC")
-    List<Citas> findByPacienteAndEstado(
+    List<CitaVista> findVistasByPacienteAndEstado(
             @Param("idPaciente") Long idPaciente,
             @Param("estado") String estado
     );
@@ -67,4 +78,78 @@ public interface CitasRepository extends JpaRepository<Citas, Long> {
             @Param("idDoctor") Long idDoctor,
             @Param("fecha") LocalDate fecha
     );
+
+    /**
+     * Horas ocupadas (citas no canceladas) de un doctor en un rango de fechas
+     * Una sola consulta para toda la semana o el mes
+     */
+    @Query("SELECT new com.healthUnity.mcpServer.DTO.HoraOcupada(c.fecha, c.hora) FROM Citas c " +
+            "WHERE c.doctor.idDoctor = :idDoctor " +
+            "AND c.fecha BETWEEN :desde AND :hasta " +
+            "AND (c.estado IS NULL OR c.estado <> 'cancelada')")
+    List<HoraOcupada> findHorasOcupadasByDoctorAndFechaBetween(
+            @Param("idDoctor") Long idDoctor,
+            @Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta
+    );
+
+    /**
+     * Horas ocupadas (citas no canceladas) de un doctor en un día, sin contar la cita indicada
+     * Para reprogramar: la cita que se mueve no choca consigo misma
+     */
+    @Query("SELECT new com.healthUnity.mcpServer.DTO.HoraOcupada(c.fecha, c.hora) FROM Citas c " +
+            "WHERE c.doctor.idDoctor = :idDoctor " +
+            "AND c.fecha = :fecha " +
+            "AND c.idCita <> :idCita " +
+            "AND (c.estado IS NULL OR c.estado <> 'cancelada')")
+    List<HoraOcupada> findHorasOcupadasByDoctorAndFechaExceptoCita(
+            @Param("idDoctor") Long idDoctor,
+            @Param("fecha") LocalDate fecha,
+            @Param("idCita") Long idCita
+    );
+
+    /**
+     * Crea la cita solo si el slot está libre, en una sola sentencia.
+     * pg_try_advisory_xact_lock toma el slot sin esperar: si otra transacción lo está reservando,
+     * no se inserta nada y se pierde de inmediato. El índice único parcial cubre las citas ya confirmadas.
+     * Retorna el id de la cita creada o null si el slot estaba tomado.
+     */
+    @Transactional
+    @Query(value = """
+        INSERT INTO citas (razon, fecha, hora, estado, id_doctor, id_paciente)
+        SELECT :razon, :fecha, :hora, 'pendiente', :idDoctor, :idPaciente
+        WHERE pg_try_advisory_xact_lock(:claveSlot)
+        ON CONFLICT (id_doctor, fecha, hora) WHERE estado IS NULL OR estado <> 'cancelada' DO NOTHING
+        RETURNING id_cita
+        """, nativeQuery = true)
+    Long insertarSiSlotLibre(
+            @Param("idPaciente") Long idPaciente,
+            @Param("idDoctor") Long idDoctor,
+            @Param("fecha") LocalDate fecha,
+            @Param("hora") LocalTime hora,
+            @Param("razon") String razon,
+            @Param("claveSlot") long claveSlot
+    );
+
+    /**
+     * Toma el bloqueo del slot para la transacción actual sin esperar
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:claveSlot)", nativeQuery = true)
+    boolean bloquearSlot(@Param("claveSlot") long claveSlot);
+
+    /**
+     * Indica si el doctor tiene una cita activa (no cancelada) en esa fecha y hora, sin contar la cita indicada
+     */
+    @Query("SELECT COUNT(c) > 0 FROM Citas c " +
+            "WHERE c.doctor.idDoctor = :idDoctor " +
+            "AND c.fecha = :fecha " +
+            "AND c.hora = :hora " +
+            "AND c.idCita <> :idCitaExcluida " +
+            "AND (c.estado IS NULL OR c.estado <> 'cancelada')")
+    boolean existsCitaActiva(
+            @Param("idDoctor") Long idDoctor,
+            @Param("fecha") LocalDate fecha,
+            @Param("hora") LocalTime hora,
+            @Param("idCitaExcluida") Long idCitaExcluida
+    );
 }
\ No newline at end of file
@@ -1,21 +1,45 @@
 package com.healthUnity.mcpServer.Repositories;
 
+import com.healthUnity.mcpServer.DTO.NombreDoctor;
+import com.healthUnity.mcpServer.DTO.Response.DoctorDisponibleDTO;
 import com.healthUnity.mcpServer.Models.Doctores;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DoctorRepository extends JpaRepository<Doctores, Long> {
 
+    // ============================================
+    // PLANES DE CARGA POR HERRAMIENTA
+    // ============================================
+    // Las asociaciones de Doctores son LAZY: cada herramienta carga el doctor con el plan
+    // de lo que muestra, en una sola consulta, y la galería solo viaja con el perfil.
+    // Son consultas cacheables: repetidas, se resuelven con la cache de segundo nivel sin ir a la base.
+
+    @EntityGraph(Doctores.TARJETA)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<Doctores> findTarjetaByIdDoctor(Long idDoctor);
+
+    @EntityGraph(Doctores.PERFIL)
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"))
+    Optional<Doctores> findPerfilByIdDoctor(Long idDoctor);
+
     // ============================================
     // CONSULTAS PAGINADAS IGUAL A LA VERSION BUENA
     // ============================================
+    // rating y reviews salen de doctor_rating_resumen (mantenido por trigger),
+    // sin agrupar las opiniones de cada doctor en cada consulta.
 
     @Query(value = """
         SELECT 
@@ -24,17 +48,15 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
             du.apellido,
             du.url_imagen,
             e.nombre AS especialidad,
-            COALESCE(AVG(od.estrellas), 0.0) AS rating,
-            COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
+            COALESCE(r.promedio, 0.0) AS rating,
+            COALESCE(r.cantidad, 0) AS reviews
         FROM doctores d
         JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
         JOIN especialidades e ON d.id_especialidad = e.id_especialidad
-        LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
-        GROUP BY 
-            d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
+        LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
         ORDER BY 
-            CASE WHEN :orderBy = 'rating' THEN COALESCE(AVG(od.estrellas), 0.0) END DESC,
-            CASE WHEN :orderBy = 'reviews' THEN COALESCE(COUNT(od.id_opinion_doctor), 0) END DESC,
+            CASE WHEN :orderBy = 'rating' THEN COALESCE(r.promedio, 0.0) END DESC,
+            CASE WHEN :orderBy = 'reviews' THEN COALESCE(r.cantidad, 0) END DESC,
             CASE WHEN :orderBy = 'relevancia' THEN d.experiencia END DESC
         """,
             countQuery = """
@@ -50,6 +72,7 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
     // ============================================
     // BUSQUEDA POR NOMBRE
     // ============================================
+    // ids: los que devuelve IndiceNombresDoctores.buscar para el texto buscado
 
     @Query(value = """
         SELECT 
@@ -58,33 +81,26 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
             du.apellido,
             du.url_imagen,
             e.nombre AS especialidad,
-            COALESCE(AVG(od.estrellas), 0.0) AS rating,
-            COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
+            COALESCE(r.promedio, 0.0) AS rating,
+            COALESCE(r.cantidad, 0) AS reviews
         FROM doctores d
         JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
         JOIN especialidades e ON d.id_especialidad = e.id_especialidad
-        LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
-        WHERE 
-            LOWER(du.nombre) LIKE LOWER(CONCAT('%', :search, '%'))
-            OR LOWER(du.apellido) LIKE LOWER(CONCAT('%', :search, '%'))
-            OR LOWER(CONCAT(du.nombre, ' ', du.apellido)) LIKE LOWER(CONCAT('%', :search, '%'))
-        GROUP BY 
-            d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
+        LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+        WHERE d.id_doctor = ANY(CAST(:ids AS bigint[]))
         ORDER BY 
-            CASE WHEN :orderBy = 'rating' THEN COALESCE(AVG(od.estrellas), 0.0) END DESC,
-            CASE WHEN :orderBy = 'reviews' THEN COALESCE(COUNT(od.id_opinion_doctor), 0) END DESC,
+            CASE WHEN :orderBy = 'rating' THEN COALESCE(r.promedio, 0.0) END DESC,
+            CASE WHEN :orderBy = 'reviews' THEN COALESCE(r.cantidad, 0) END DESC,
             CASE WHEN :orderBy = 'relevancia' THEN d.experiencia END DESC
         """,
             countQuery = """
         SELECT COUNT(DISTINCT d.id_doctor)
         FROM doctores d
-        JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
-        WHERE LOWER(du.nombre) LIKE LOWER(CONCAT('%', :search, '%'))
-            OR LOWER(du.apellido) LIKE LOWER(CONCAT('%', :search, '%'))
+        WHERE d.id_doctor = ANY(CAST(:ids AS bigint[]))
         """,
             nativeQuery = true)
-    Page<Object[]> findByNombreContaining(
-            @Param("search") String search,
+    Page<Object[]> findByIdDoctorIn(
+            @Param("ids") Long[] ids,
             @Param("orderBy") String orderBy,
             Pageable pageable
     );
@@ -100,18 +116,16 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
             du.apellido,
             du.url_imagen,
             e.nombre AS especialidad,
-            COALESCE(AVG(od.estrellas), 0.0) AS rating,
-            COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
+            COALESCE(r.promedio, 0.0) AS rating,
+            COALESCE(r.cantidad, 0) AS reviews
         FROM doctores d
         JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
         JOIN especialidades e ON d.id_especialidad = e.id_especialidad
-        LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
+        LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
         WHERE e.id_especialidad = :especialidadId
-        GROUP BY 
-            d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
         ORDER BY 
-            CASE WHEN :orderBy = 'rating' THEN COALESCE(AVG(od.estrellas), 0.0) END DESC,
-            CASE WHEN :orderBy = 'reviews' THEN COALESCE(COUNT(od.id_opinion_doctor), 0) END DESC,
+            CASE WHEN :orderBy = 'rating' THEN COALESCE(r.promedio, 0.0) END DESC,
+            CASE WHEN :orderBy = 'reviews' THEN COALESCE(r.cantidad, 0) END DESC,
             CASE WHEN :orderBy = 'relevancia' THEN d.experiencia END DESC
         """,
             countQuery = """
@@ -129,6 +143,7 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
     // ============================================
     // BUSCAR POR NOMBRE + ESPECIALIDAD
     // ============================================
+    // ids: los que devuelve IndiceNombresDoctores.buscar para el texto buscado
 
     @Query(value = """
         SELECT 
@@ -137,36 +152,28 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
             du.apellido,
             du.url_imagen,
             e.nombre AS especialidad,
-            COALESCE(AVG(od.estrellas), 0.0) AS rating,
-            COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
+            COALESCE(r.promedio, 0.0) AS rating,
+            COALESCE(r.cantidad, 0) AS reviews
         FROM doctores d
         JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
         JOIN especialidades e ON d.id_especialidad = e.id_especialidad
-        LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
-        WHERE 
-            (LOWER(du.nombre) LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(du.apellido) LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(CONCAT(du.nombre, ' ', du.apellido)) LIKE LOWER(CONCAT('%', :search, '%')))
+        LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+        WHERE d.id_doctor = ANY(CAST(:ids AS bigint[]))
             AND e.id_especialidad = :especialidadId
-        GROUP BY 
-            d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
         ORDER BY 
-            CASE WHEN :orderBy = 'rating' THEN COALESCE(AVG(od.estrellas), 0.0) END DESC,
-            CASE WHEN :orderBy = 'reviews' THEN COALESCE(COUNT(od.id_opinion_doctor), 0) END DESC,
+            CASE WHEN :orderBy = 'rating' THEN COALESCE(r.promedio, 0.0) END DESC,
+            CASE WHEN :orderBy = 'reviews' THEN COALESCE(r.cantidad, 0) END DESC,
             CASE WHEN :orderBy = 'relevancia' THEN d.experiencia END DESC
         """,
             countQuery = """
         SELECT COUNT(DISTINCT d.id_doctor)
         FROM doctores d
-        JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
-        WHERE 
-            (LOWER(du.nombre) LIKE LOWER(CONCAT('%', :search, '%'))
-             OR LOWER(du.apellido) LIKE LOWER(CONCAT('%', :search, '%')))
+        WHERE d.id_doctor = ANY(CAST(:ids AS bigint[]))
             AND d.id_especialidad = :especialidadId
         """,
             nativeQuery = true)
-    Page<Object[]> findByNombreAndEspecialidad(
-            @Param("search") String search,
+    Page<Object[]> findByIdDoctorInAndEspecialidad(
+            @Param("ids") Long[] ids,
             @Param("especialidadId") Long especialidadId,
             @Param("orderBy") String orderBy,
             Pageable pageable
@@ -176,35 +183,15 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
     // CONSULTAS EXTRA
     // ============================================
 
-    List<Doctores> findByEspecialidad_NombreContainingIgnoreCase(String especialidadNombre);
+    // especialidadId: el que devuelve ResolvedorEspecialidades.resolver para el texto del paciente
 
-    @Query(value = """
-        SELECT 
-            d.id_doctor,
-            du.nombre,
-            du.apellido,
-            du.url_imagen,
-            e.nombre AS especialidad,
-            COALESCE(AVG(od.estrellas), 0.0) AS rating,
-            COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
-        FROM doctores d
-        JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
-        JOIN especialidades e ON d.id_especialidad = e.id_especialidad
-        LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
-        WHERE LOWER(e.nombre) LIKE LOWER(CONCAT('%', :especialidad, '%'))
-        GROUP BY 
-            d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
-        HAVING COUNT(od.id_opinion_doctor) > 0
-        ORDER BY COALESCE(AVG(od.estrellas), 0.0) DESC
-        LIMIT :limit
-        """, nativeQuery = true)
-    List<Object[]> findTopDoctoresPorEspecialidad(
-            @Param("especialidad") String especialidad,
-            @Param("limit") int limit
-    );
+    List<Doctores> findByEspecialidad_IdEspecialidad(Long idEspecialidad);
 
-    @Query("SELECT COUNT(d) FROM Doctores d WHERE LOWER(d.especialidad.nombre) LIKE LOWER(CONCAT('%', :especialidad, '%'))")
-    Long countByEspecialidad(@Param("especialidad") String especialidad);
+    @Query("SELECT d.especialidad.idEspecialidad FROM Doctores d WHERE d.idDoctor = :idDoctor")
+    Long findIdEspecialidadByIdDoctor(@Param("idDoctor") Long idDoctor);
+
+    @Query("SELECT COUNT(d) FROM Doctores d WHERE d.especialidad.idEspecialidad = :especialidadId")
+    Long countByEspecialidad(@Param("especialidadId") Long especialidadId);
 
     // ============================================
     // DOCTORES SIN CITAS Y DISPONIBLES
@@ -226,8 +213,7 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
 
     @Query("""
         SELECT DISTINCT d FROM Doctores d
-        JOIN d.especialidad e
-        WHERE LOWER(e.nombre) LIKE LOWER(CONCAT('%', :especialidad, '%'))
+        WHERE d.especialidad.idEspecialidad = :especialidadId
         AND d.idDoctor NOT IN (
           SELECT c.doctor.idDoctor FROM Citas c
           WHERE c.fecha = :fecha
@@ -236,10 +222,73 @@ public interface DoctorRepository extends JpaRepository<Doctores, Long> {
         )
         """)
     List<Doctores> findDoctoresDisponiblesPorEspecialidadFechaHora(
-            @Param("especialidad") String especialidad,
+            @Param("especialidadId") Long especialidadId,
             @Param("fecha") java.time.LocalDate fecha,
             @Param("hora") java.time.LocalTime hora
     );
 
+    // ============================================
+    // NOMBRES PARA EL INDICE DE BUSQUEDA
+    // ============================================
+
+    /**
+     * Nombre y apellido de todos los doctores, para construir IndiceNombresDoctores.
+     */
+    @Query("""
+        SELECT new com.healthUnity.mcpServer.DTO.NombreDoctor(d.idDoctor, du.idDetalleUsuario, du.nombre, du.apellido)
+        FROM Doctores d
+        JOIN d.detallesUsuario du
+        """)
+    List<NombreDoctor> findAllNombres();
+
+    @Query("""
+        SELECT new com.healthUnity.mcpServer.DTO.NombreDoctor(d.idDoctor, du.idDetalleUsuario, du.nombre, du.apellido)
+        FROM Doctores d
+        JOIN d.detallesUsuario du
+        WHERE d.idDoctor = :idDoctor
+        """)
+    List<NombreDoctor> findNombreByIdDoctor(@Param("idDoctor") Long idDoctor);
+
+    // ============================================
+    // DISPONIBILIDAD EN UNA SOLA CONSULTA
+    // ============================================
 
+    /**
+     * Doctores (opcionalmente de una especialidad) cuyo horario cubre el día/hora
+     * indicados y que no tienen citas activas en ese momento.
+     * El horario se resuelve con un semi-join y las citas con un anti-join,
+     * así la búsqueda completa es una sola consulta sin importar cuántos doctores haya.
+     * @param diaSemana 1=Lunes ... 7=Domingo
+     */
+    @Query("""
+        SELECT new com.healthUnity.mcpServer.DTO.Response.DoctorDisponibleDTO(
+            d.idDoctor, du.nombre, du.apellido, e.nombre, du.urlImagen,
+            COALESCE(r.promedio, 0.0))
+        FROM Doctores d
+        LEFT JOIN d.detallesUsuario du
+        LEFT JOIN d.especialidad e
+        LEFT JOIN DoctorRatingResumen r ON r.idDoctor = d.idDoctor
+        WHERE (:especialidadId IS NULL OR d.especialidad.idEspecialidad = :especialidadId)
+        AND EXISTS (
+          SELECT 1 FROM HorariosDoctor h
+          WHERE h.doctor = d
+          AND h.diaSemana = :diaSemana
+          AND h.horaInicio <= :hora
+          AND h.horaFin > :hora
+        )
+        AND NOT EXISTS (
+          SELECT 1 FROM Citas c
+          WHERE c.doctor = d
+          AND c.fecha = :fecha
+          AND c.hora = :hora
+          AND (c.estado IS NULL OR c.estado <> 'cancelada')
+        )
+        ORDER BY d.idDoctor
+        """)
+    List<DoctorDisponibleDTO> findDoctoresDisponibles(
+            @Param("especialidadId") Long especialidadId,
+            @Param("diaSemana") Integer diaSemana,
+            @Param("fecha") java.time.LocalDate fecha,
+            @Param("hora") java.time.LocalTime hora
+    );
 }
@@ -0,0 +1,99 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.AltaFavorito;
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FavoritoQuitado;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Alta y baja de favoritos en una sola sentencia cada una, sin cargar entidades.
+ * El alta devuelve la fila que verá el paciente en su lista, para escribirla en FavoritosPacientes.
+ * El índice único ux_favoritos_doctores_paciente_doctor hace que dos altas simultáneas
+ * del mismo doctor dejen una sola fila: la otra no inserta nada (ON CONFLICT DO NOTHING).
+ */
+@Repository
+public class EscrituraFavoritosRepository {
+
+    private static final String AGREGAR = """
+            WITH doctor AS (
+                SELECT d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre AS especialidad,
+                       COALESCE(r.promedio, 0.0) AS rating, COALESCE(r.cantidad, 0) AS reviews
+                FROM doctores d
+                LEFT JOIN detalles_usuario du ON du.id_detalle_usuario = d.id_detalle_usuario
+                LEFT JOIN especialidades e ON e.id_especialidad = d.id_especialidad
+                LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+                WHERE d.id_doctor = :idDoctor
+            ), paciente AS (
+                SELECT id_paciente FROM pacientes WHERE id_paciente = :idPaciente
+            ), nuevo AS (
+                INSERT INTO favoritos_doctores (id_paciente, id_doctor)
+                SELECT paciente.id_paciente, doctor.id_doctor FROM paciente, doctor
+                ON CONFLICT (id_paciente, id_doctor) DO NOTHING
+                RETURNING id_favorito_doctor
+            )
+            SELECT EXISTS (SELECT 1 FROM doctor), EXISTS (SELECT 1 FROM paciente),
+                   nuevo.id_favorito_doctor, doctor.id_doctor, doctor.nombre, doctor.apellido, doctor.url_imagen,
+                   doctor.especialidad, doctor.rating, doctor.reviews
+            FROM (SELECT 1) uno
+            LEFT JOIN nuevo ON true
+            LEFT JOIN doctor ON nuevo.id_favorito_doctor IS NOT NULL
+            """;
+
+    private static final String QUITAR = """
+            DELETE FROM favoritos_doctores f
+            WHERE f.id_favorito_doctor = :idFavorito
+            RETURNING f.id_favorito_doctor, f.id_paciente, f.id_doctor,
+                      (SELECT du.nombre FROM doctores d
+                       JOIN detalles_usuario du ON du.id_detalle_usuario = d.id_detalle_usuario
+                       WHERE d.id_doctor = f.id_doctor)
+            """;
+
+    // La fila del favorito, igual que la de ListadoDoctoresRepository.favoritosDePaciente, solo si se insertó
+    private static final RowMapper<AltaFavorito> ALTA = (rs, i) -> new AltaFavorito(
+            rs.getBoolean(1),
+            rs.getBoolean(2),
+            rs.getObject(3) == null ? null : new FavoritoDoctor(
+                    rs.getLong(3),
+                    rs.getLong(4),
+                    rs.getString(5),
+                    rs.getString(6),
+                    rs.getString(7),
+                    rs.getString(8),
+                    rs.getDouble(9),
+                    rs.getInt(10)));
+
+    private static final RowMapper<FavoritoQuitado> QUITADO = (rs, i) -> new FavoritoQuitado(
+            rs.getLong(1),
+            rs.getLong(2),
+            rs.getLong(3),
+            rs.getString(4));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public EscrituraFavoritosRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public AltaFavorito agregar(Long idPaciente, Long idDoctor) {
+        return jdbcTemplate.queryForObject(AGREGAR, new MapSqlParameterSource()
+                .addValue("idPaciente", idPaciente)
+                .addValue("idDoctor", idDoctor), ALTA);
+    }
+
+    /**
+     * Borra el favorito; vacío si no existía.
+     */
+    public Optional<FavoritoQuitado> quitar(Long idFavorito) {
+        List<FavoritoQuitado> quitados = jdbcTemplate.query(QUITAR,
+                new MapSqlParameterSource("idFavorito", idFavorito), QUITADO);
+        return quitados.stream().findFirst();
+    }
+}
@@ -1,5 +1,6 @@
 package com.healthUnity.mcpServer.Repositories;
 
+import com.healthUnity.mcpServer.DTO.BloqueHorario;
 import com.healthUnity.mcpServer.Models.HorariosDoctor;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -154,6 +155,28 @@ public interface HorariosDoctorRepository extends JpaRepository<HorariosDoctor,
             "ORDER BY h.diaSemana ASC")
     List<Object[]> getResumenHorariosPorDia(@Param("idDoctor") Long idDoctor);
 
+    // ============================================
+    // MÉTODOS PARA EL ÍNDICE EN MEMORIA
+    // ============================================
+
+    /**
+     * Todos los bloques horarios como filas planas, sin instanciar entidades
+     * Se usa para construir IndiceHorarios al arrancar
+     */
+    @Query("SELECT new com.healthUnity.mcpServer.DTO.BloqueHorario(" +
+            "h.doctor.idDoctor, h.diaSemana, h.horaInicio, h.horaFin) " +
+            "FROM HorariosDoctor h")
+    List<BloqueHorario> findAllBloques();
+
+    /**
+     * Bloques horarios de un doctor como filas planas
+     */
+    @Query("SELECT new com.healthUnity.mcpServer.DTO.BloqueHorario(" +
+            "h.doctor.idDoctor, h.diaSemana, h.horaInicio, h.horaFin) " +
+            "FROM HorariosDoctor h " +
+            "WHERE h.doctor.idDoctor = :idDoctor")
+    List<BloqueHorario> findBloquesByDoctor(@Param("idDoctor") Long idDoctor);
+
     // ============================================
     // MÉTODOS DE ELIMINACIÓN
     // ============================================
@@ -0,0 +1,161 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FilaImportacionDoctor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Escrituras de ImportadorDoctores. Cada lote va en un solo INSERT por tabla que recorre arrays
+ * con unnest: un viaje a la base y una sola ejecución del trigger por sentencia de doctores,
+ * en vez de una sentencia (o un INSERT reescrito de a 128 filas) por fila.
+ * Los ids se reservan antes con nextval sobre la secuencia de cada columna, así los doctores
+ * pueden apuntar a sus usuarios y los horarios a sus doctores sin INSERT ... RETURNING.
+ */
+@Repository
+public class ImportacionDoctoresRepository {
+
+    private static final String INSERTAR_DETALLES = """
+            INSERT INTO detalles_usuario (id_detalle_usuario, nombre, apellido, gmail, telefono, genero, direccion, url_imagen)
+            SELECT * FROM unnest(:ids, :nombres, :apellidos, :gmails, :telefonos, :generos, :direcciones, :imagenes)
+            """;
+    private static final String INSERTAR_DOCTORES = """
+            INSERT INTO doctores (id_doctor, experiencia, detalles, id_detalle_usuario, id_especialidad)
+            SELECT * FROM unnest(:ids, :experiencias, :detalles, :idsDetalle, :idsEspecialidad)
+            """;
+    private static final String INSERTAR_HORARIOS = """
+            INSERT INTO horarios_doctor (id_horario_doctor, dia_semana, hora_inicio, hora_fin, id_doctor)
+            SELECT * FROM unnest(:ids, :dias, CAST(:inicios AS time[]), CAST(:fines AS time[]), :idsDoctor)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ImportacionDoctoresRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Todas las especialidades, de nombre a id, en el orden de la tabla.
+     */
+    public Map<String, Long> especialidades() {
+        Map<String, Long> especialidades = new LinkedHashMap<>();
+        jdbcTemplate.getJdbcTemplate().query("SELECT id_especialidad, nombre FROM especialidades ORDER BY id_especialidad",
+                rs -> {
+                    especialidades.putIfAbsent(rs.getString(2), rs.getLong(1));
+                });
+        return especialidades;
+    }
+
+    public long crearEspecialidad(String nombre) {
+        return jdbcTemplate.getJdbcTemplate().queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, nombre);
+    }
+
+    /**
+     * Reserva {@code cantidad} ids de la secuencia de la columna. Si la secuencia avanza de a más de uno
+     * (las de incremento 50 de las entidades con secuencia pooled), cada nextval entrega el bloque que
+     * termina en su valor, igual que el optimizador pooled de Hibernate, y no se desperdician ids.
+     */
+    public Long[] reservarIds(String tabla, String columna, int cantidad) {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        long incremento = jdbc.queryForObject(
+                "SELECT seqincrement FROM pg_sequence WHERE seqrelid = pg_get_serial_sequence(?, ?)::regclass",
+                Long.class, tabla, columna);
+        Long[] ids = new Long[cantidad];
+        int[] siguiente = {0};
+        jdbc.query("SELECT nextval(pg_get_serial_sequence(?, ?)) FROM generate_series(1, ?)",
+                rs -> {
+                    long fin = rs.getLong(1);
+                    for (long id = fin - incremento + 1; id <= fin && siguiente[0] < cantidad; id++) {
+                        ids[siguiente[0]++] = id;
+                    }
+                },
+                tabla, columna, (int) ((cantidad + incremento - 1) / incremento));
+        return ids;
+    }
+
+    public void insertarDetalles(List<FilaImportacionDoctor> filas, Long[] ids) {
+        int n = filas.size();
+        String[][] columnas = new String[7][n];
+        for (int i = 0; i < n; i++) {
+            FilaImportacionDoctor fila = filas.get(i);
+            columnas[0][i] = fila.nombre();
+            columnas[1][i] = fila.apellido();
+            columnas[2][i] = fila.gmail();
+            columnas[3][i] = fila.telefono();
+            columnas[4][i] = fila.genero();
+            columnas[5][i] = fila.direccion();
+            columnas[6][i] = fila.urlImagen();
+        }
+        jdbcTemplate.update(INSERTAR_DETALLES, new MapSqlParameterSource()
+                .addValue("ids", ids, Types.ARRAY)
+                .addValue("nombres", columnas[0], Types.ARRAY)
+                .addValue("apellidos", columnas[1], Types.ARRAY)
+                .addValue("gmails", columnas[2], Types.ARRAY)
+                .addValue("telefonos", columnas[3], Types.ARRAY)
+                .addValue("generos", columnas[4], Types.ARRAY)
+                .addValue("direcciones", columnas[5], Types.ARRAY)
+                .addValue("imagenes", columnas[6], Types.ARRAY));
+    }
+
+    public void insertarDoctores(List<FilaImportacionDoctor> filas, Long[] ids, Long[] idsDetalle, Long[] idsEspecialidad) {
+        int n = filas.size();
+        Integer[] experiencias = new Integer[n];
+        String[] detalles = new String[n];
+        for (int i = 0; i < n; i++) {
+            experiencias[i] = filas.get(i).experiencia();
+            detalles[i] = filas.get(i).detalles();
+        }
+        jdbcTemplate.update(INSERTAR_DOCTORES, new MapSqlParameterSource()
+                .addValue("ids", ids, Types.ARRAY)
+                .addValue("experiencias", experiencias, Types.ARRAY)
+                .addValue("detalles", detalles, Types.ARRAY)
+                .addValue("idsDetalle", idsDetalle, Types.ARRAY)
+                .addValue("idsEspecialidad", idsEspecialidad, Types.ARRAY));
+    }
+
+    /**
+     * Los horarios de todas las filas; {@code idsDoctor} va en el mismo orden que {@code filas}.
+     * Devuelve cuántos se insertaron.
+     */
+    public int insertarHorarios(List<FilaImportacionDoctor> filas, Long[] idsDoctor) {
+        int total = 0;
+        for (FilaImportacionDoctor fila : filas) {
+            total += fila.horarios() == null ? 0 : fila.horarios().size();
+        }
+        if (total == 0) {
+            return 0;
+        }
+        Integer[] dias = new Integer[total];
+        String[] inicios = new String[total];
+        String[] fines = new String[total];
+        Long[] doctores = new Long[total];
+        int n = 0;
+        for (int f = 0; f < filas.size(); f++) {
+            if (filas.get(f).horarios() == null) {
+                continue;
+            }
+            for (FilaImportacionDoctor.Bloque bloque : filas.get(f).horarios()) {
+                dias[n] = bloque.dia();
+                inicios[n] = bloque.inicio().toString();
+                fines[n] = bloque.fin().toString();
+                doctores[n++] = idsDoctor[f];
+            }
+        }
+        jdbcTemplate.update(INSERTAR_HORARIOS, new MapSqlParameterSource()
+                .addValue("ids", reservarIds("horarios_doctor", "id_horario_doctor", total), Types.ARRAY)
+                .addValue("dias", dias, Types.ARRAY)
+                .addValue("inicios", inicios, Types.ARRAY)
+                .addValue("fines", fines, Types.ARRAY)
+                .addValue("idsDoctor", doctores, Types.ARRAY));
+        return total;
+    }
+}
@@ -0,0 +1,193 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Listados de doctores que se leen fila a fila: páginas por cursor, tops y favoritos.
+ * Cada fila va directo del ResultSet a un record con un RowMapper fijo por consulta,
+ * leyendo las columnas por posición y rating/reseñas como primitivos:
+ * sin Object[] intermedio, sin casts, sin reflexión ni cajas por fila.
+ */
+@Repository
+public class ListadoDoctoresRepository {
+
+    // Columnas 1-8 de toda consulta que se mapea con FILA
+    private static final String COLUMNAS = """
+            SELECT d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre AS especialidad,
+                   COALESCE(r.promedio, 0.0) AS rating, COALESCE(r.cantidad, 0) AS reviews, d.experiencia
+            """;
+
+    private static final RowMapper<FilaDoctor> FILA = (rs, i) -> new FilaDoctor(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getDouble(6),
+            rs.getInt(7),
+            rs.getInt(8));
+
+    private static final RowMapper<FavoritoDoctor> FAVORITO = (rs, i) -> new FavoritoDoctor(
+            rs.getLong(1),
+            rs.getLong(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getDouble(7),
+            rs.getInt(8));
+
+    // ============================================
+    // PAGINACION POR CURSOR (KEYSET)
+    // ============================================
+    // Cada página continúa después de (clave, id_doctor) de la última fila de la anterior,
+    // en orden descendente por clave e id_doctor. La primera página usa el máximo posible como cursor.
+    // El recorrido sigue los índices de schema.sql, así que cuesta lo mismo en cualquier profundidad.
+    // La búsqueda por nombre llega resuelta por IndiceNombresDoctores como lista de ids (null = sin filtro).
+
+    private static final String FILTROS = """
+            AND (CAST(:especialidadId AS bigint) IS NULL OR d.id_especialidad = :especialidadId)
+            AND (CAST(:ids AS bigint[]) IS NULL OR d.id_doctor = ANY(CAST(:ids AS bigint[])))
+            """;
+
+    private static final String PAGINA_POR_RATING = COLUMNAS + """
+            FROM doctor_rating_resumen r
+            JOIN doctores d ON d.id_doctor = r.id_doctor
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            WHERE (r.promedio, r.id_doctor) < (:clave, :idDoctor)
+            """ + FILTROS + """
+            ORDER BY r.promedio DESC, r.id_doctor DESC
+            LIMIT :limite
+            """;
+
+    private static final String PAGINA_POR_REVIEWS = COLUMNAS + """
+            FROM doctor_rating_resumen r
+            JOIN doctores d ON d.id_doctor = r.id_doctor
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            WHERE (r.cantidad, r.id_doctor) < (:clave, :idDoctor)
+            """ + FILTROS + """
+            ORDER BY r.cantidad DESC, r.id_doctor DESC
+            LIMIT :limite
+            """;
+
+    private static final String PAGINA_POR_RELEVANCIA = COLUMNAS + """
+            FROM doctores d
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+            WHERE (d.experiencia, d.id_doctor) < (:clave, :idDoctor)
+            """ + FILTROS + """
+            ORDER BY d.experiencia DESC, d.id_doctor DESC
+            LIMIT :limite
+            """;
+
+    private static final String CONTAR_PARA_PAGINAR = """
+            SELECT COUNT(*)
+            FROM doctores d
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            WHERE TRUE
+            """ + FILTROS;
+
+    // ============================================
+    // TOPS Y FAVORITOS
+    // ============================================
+    // Mismo orden que RankingDoctores: rating, reseñas e id, de mayor a menor; solo doctores con opiniones.
+
+    private static final String TOP = COLUMNAS + """
+            FROM doctores d
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+            WHERE r.cantidad > 0
+            """;
+
+    private static final String ORDEN_TOP = """
+            ORDER BY r.promedio DESC, r.cantidad DESC, r.id_doctor DESC
+            LIMIT :limite
+            """;
+
+    private static final String FAVORITOS = """
+            SELECT fd.id_favorito_doctor, d.id_doctor, du.nombre, du.apellido, du.url_imagen,
+                   e.nombre AS especialidad, COALESCE(r.promedio, 0.0) AS rating, COALESCE(r.cantidad, 0) AS reviews
+            FROM favoritos_doctores fd
+            JOIN doctores d ON d.id_doctor = fd.id_doctor
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+            WHERE fd.id_paciente = :idPaciente
+            ORDER BY fd.id_favorito_doctor
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ListadoDoctoresRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<FilaDoctor> paginaPorRating(double clave, long idDoctor, Long especialidadId, Long[] ids, int limite) {
+        return jdbcTemplate.query(PAGINA_POR_RATING, pagina(clave, idDoctor, especialidadId, ids, limite), FILA);
+    }
+
+    public List<FilaDoctor> paginaPorReviews(long clave, long idDoctor, Long especialidadId, Long[] ids, int limite) {
+        return jdbcTemplate.query(PAGINA_POR_REVIEWS, pagina(clave, idDoctor, especialidadId, ids, limite), FILA);
+    }
+
+    public List<FilaDoctor> paginaPorRelevancia(long clave, long idDoctor, Long especialidadId, Long[] ids, int limite) {
+        return jdbcTemplate.query(PAGINA_POR_RELEVANCIA, pagina(clave, idDoctor, especialidadId, ids, limite), FILA);
+    }
+
+    /**
+     * Total de doctores que cumplen los filtros de la paginación por cursor.
+     */
+    public long contarParaPaginar(Long especialidadId, Long[] ids) {
+        Long total = jdbcTemplate.queryForObject(CONTAR_PARA_PAGINAR, filtros(especialidadId, ids), Long.class);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Los {@code limite} doctores mejor calificados de la especialidad.
+     */
+    public List<FilaDoctor> topPorEspecialidad(long idEspecialidad, int limite) {
+        return jdbcTemplate.query(TOP + "AND d.id_especialidad = :idEspecialidad\n" + ORDEN_TOP,
+                new MapSqlParameterSource("idEspecialidad", idEspecialidad).addValue("limite", limite), FILA);
+    }
+
+    /**
+     * Los {@code limite} doctores mejor calificados de todas las especialidades.
+     */
+    public List<FilaDoctor> topGeneral(int limite) {
+        return jdbcTemplate.query(TOP + ORDEN_TOP, new MapSqlParameterSource("limite", limite), FILA);
+    }
+
+    public List<FavoritoDoctor> favoritosDePaciente(long idPaciente) {
+        return jdbcTemplate.query(FAVORITOS, new MapSqlParameterSource("idPaciente", idPaciente), FAVORITO);
+    }
+
+    private static MapSqlParameterSource pagina(Object clave, long idDoctor, Long especialidadId, Long[] ids,
+                                                int limite) {
+        return filtros(especialidadId, ids)
+                .addValue("clave", clave)
+                .addValue("idDoctor", idDoctor)
+                .addValue("limite", limite);
+    }
+
+    // Con tipo explícito, para que un null no obligue al driver a preguntar el tipo del parámetro
+    private static MapSqlParameterSource filtros(Long especialidadId, Long[] ids) {
+        return new MapSqlParameterSource()
+                .addValue("especialidadId", especialidadId, Types.BIGINT)
+                .addValue("ids", ids, Types.ARRAY);
+    }
+}
@@ -0,0 +1,112 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.PaginaRecordatorios;
+import com.healthUnity.mcpServer.Models.NotificacionOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+@Repository
+public interface NotificacionOutboxRepository extends JpaRepository<NotificacionOutbox, Long> {
+
+    /**
+     * Toma hasta {@code lote} notificaciones vencidas y las marca como 'enviando' durante {@code segundos}.
+     * SKIP LOCKED permite varias instancias despachando a la vez sin tomar las mismas filas;
+     * si una instancia muere a mitad del envío, las filas vuelven a estar disponibles al vencer el plazo.
+     * Las que ya usaron {@code maxIntentos} (quedaron en 'enviando' tras el último intento) pasan a 'fallida'
+     * en la misma sentencia en lugar de enviarse otra vez.
+     */
+    @Query(value = "WITH candidatas AS (" +
+            "    SELECT id_notificacion, intentos FROM notificaciones_outbox " +
+            "    WHERE estado IN ('pendiente', 'enviando') AND proximo_intento <= now() " +
+            "    ORDER BY proximo_intento " +
+            "    LIMIT :lote " +
+            "    FOR UPDATE SKIP LOCKED), " +
+            "agotadas AS (" +
+            "    UPDATE notificaciones_outbox " +
+            "    SET estado = 'fallida', " +
+            "        ultimo_error = COALESCE(ultimo_error, 'Sin confirmación de envío tras el último intento') " +
+            "    WHERE id_notificacion IN (SELECT id_notificacion FROM candidatas WHERE intentos >= :maxIntentos)) " +
+            "UPDATE notificaciones_outbox " +
+            "SET estado = 'enviando', intentos = intentos + 1, " +
+            "    proximo_intento = now() + make_interval(secs => :segundos) " +
+            "WHERE id_notificacion IN (SELECT id_notificacion FROM candidatas WHERE intentos < :maxIntentos) " +
+            "RETURNING *", nativeQuery = true)
+    List<NotificacionOutbox> reclamarLote(@Param("lote") int lote,
+                                          @Param("segundos") int segundos,
+                                          @Param("maxIntentos") int maxIntentos);
+
+    /**
+     * Encola el recordatorio de hasta {@code lote} citas activas posteriores al cursor (fecha, hora, id_cita)
+     * y hasta {@code hastaFecha}/{@code hastaHora} inclusive, en una sola sentencia.
+     * La clave 'recordatorio:id:fechaThora' evita duplicados y, si la cita se reprograma, genera uno nuevo.
+     * Devuelve las filas leídas, las encoladas y la última posición leída para la siguiente página.
+     */
+    @Query(value = "WITH pagina AS (" +
+            "    SELECT c.id_cita, c.fecha, c.hora FROM citas c " +
+            "    WHERE (c.fecha, c.hora, c.id_cita) > (:fecha, :hora, :idCita) " +
+            "      AND (c.fecha, c.hora) <= (:hastaFecha, :hastaHora) " +
+            "      AND (c.estado IS NULL OR c.estado NOT IN ('cancelada', 'completada')) " +
+            "    ORDER BY c.fecha, c.hora, c.id_cita " +
+            "    LIMIT :lote), " +
+            "encoladas AS (" +
+            "    INSERT INTO notificaciones_outbox (tipo, destinatario, payload, id_cita, clave) " +
+            "    SELECT 'recordatorio_cita', dp.gmail, " +
+            "           json_build_object(" +
+            "               'gmail', dp.gmail, " +
+            "               'nombrePaciente', COALESCE(dp.nombre, 'Paciente'), " +
+            "               'nombreDoctor', COALESCE(NULLIF(TRIM(CONCAT(dd.nombre, ' ', dd.apellido)), ''), 'Doctor'), " +
+            "               'direccionDoctor', COALESCE(dd.direccion, 'Dirección no especificada'), " +
+            "               'especialidadDoctor', COALESCE(e.nombre, 'Medicina General'), " +
+            "               'fecha', p.fecha, " +
+            "               'hora', to_char(p.hora, 'HH24:MI'), " +
+            "               'razon', COALESCE(c.razon, 'Consulta general'), " +
+            "               'urlImagenDoctor', COALESCE(dd.url_imagen, 'https://via.placeholder.com/200x200/4A90E2/FFFFFF?text=Doctor')" +
+            "           )::text, " +
+            "           p.id_cita, " +
+            "           'recordatorio:' || p.id_cita || ':' || p.fecha || 'T' || to_char(p.hora, 'HH24:MI') " +
+            "    FROM pagina p " +
+            "    JOIN citas c ON c.id_cita = p.id_cita " +
+            "    JOIN pacientes pa ON pa.id_paciente = c.id_paciente " +
+            "    JOIN detalles_usuario dp ON dp.id_detalle_usuario = pa.id_detalle_usuario " +
+            "    LEFT JOIN doctores d ON d.id_doctor = c.id_doctor " +
+            "    LEFT JOIN detalles_usuario dd ON dd.id_detalle_usuario = d.id_detalle_usuario " +
+            "    LEFT JOIN especialidades e ON e.id_especialidad = d.id_especialidad " +
+            "    WHERE dp.gmail IS NOT NULL AND dp.gmail <> '' " +
+            "    ON CONFLICT (clave) DO NOTHING " +
+            "    RETURNING 1) " +
+            "SELECT (SELECT COUNT(*) FROM pagina) AS leidas, " +
+            "       (SELECT COUNT(*) FROM encoladas) AS encoladas, " +
+            "       u.fecha AS fecha, u.hora AS hora, u.id_cita AS \"idCita\" " +
+            "FROM (SELECT 1) uno " +
+            "LEFT JOIN (SELECT * FROM pagina ORDER BY fecha DESC, hora DESC, id_cita DESC LIMIT 1) u ON TRUE",
+            nativeQuery = true)
+    PaginaRecordatorios encolarRecordatorios(@Param("fecha") LocalDate fecha,
+                                             @Param("hora") LocalTime hora,
+                                             @Param("idCita") Long idCita,
+                                             @Param("hastaFecha") LocalDate hastaFecha,
+                                             @Param("hastaHora") LocalTime hastaHora,
+                                             @Param("lote") int lote);
+
+    @Modifying
+    @Query(value = "UPDATE notificaciones_outbox " +
+            "SET estado = 'enviada', enviado_en = now(), ultimo_error = NULL " +
+            "WHERE id_notificacion IN (:ids)", nativeQuery = true)
+    int marcarEnviadas(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query(value = "UPDATE notificaciones_outbox " +
+            "SET estado = :estado, ultimo_error = :error, " +
+            "    proximo_intento = now() + make_interval(secs => :segundos) " +
+            "WHERE id_notificacion = :id", nativeQuery = true)
+    int marcarFallo(@Param("id") Long id,
+                    @Param("estado") String estado,
+                    @Param("error") String error,
+                    @Param("segundos") long segundos);
+}
@@ -3,11 +3,26 @@ package com.healthUnity.mcpServer.Repositories;
 
 import com.healthUnity.mcpServer.Models.Paciente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
 
 @Repository
 public interface PacienteRepository extends JpaRepository<Paciente, Long> {
-    Optional<Paciente>  findPacienteByDetallesUsuario_Gmail(String gmail);
+
+    /**
+     * El paciente del correo, sin distinguir mayúsculas ni espacios alrededor; {@code gmail} ya viene
+     * normalizado con IdentidadesPacientes.clave, que hace lo mismo que normalizar_gmail.
+     * Usa ix_detalles_usuario_gmail_normalizado.
+     */
+    @Query(value = """
+            SELECT p.id_paciente FROM detalles_usuario du
+            JOIN pacientes p ON p.id_detalle_usuario = du.id_detalle_usuario
+            WHERE normalizar_gmail(du.gmail) = :gmail
+            ORDER BY p.id_paciente
+            LIMIT 1
+            """, nativeQuery = true)
+    Optional<Long> findIdByGmailNormalizado(@Param("gmail") String gmail);
 }
@@ -0,0 +1,45 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Hasta dónde llegó cada tarea programada que recorre el tiempo por tramos (tabla progreso_tareas),
+ * para que un reinicio siga desde ahí. La marca solo avanza: dos instancias no la hacen retroceder.
+ */
+@Repository
+public class ProgresoTareasRepository {
+
+    private static final String LEER = "SELECT hasta FROM progreso_tareas WHERE tarea = :tarea";
+
+    private static final String AVANZAR = """
+            INSERT INTO progreso_tareas (tarea, hasta) VALUES (:tarea, :hasta)
+            ON CONFLICT (tarea) DO UPDATE SET hasta = GREATEST(progreso_tareas.hasta, EXCLUDED.hasta)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public ProgresoTareasRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Optional<LocalDateTime> hasta(String tarea) {
+        return jdbcTemplate.query(LEER, new MapSqlParameterSource("tarea", tarea),
+                        (rs, i) -> rs.getTimestamp(1).toLocalDateTime())
+                .stream()
+                .findFirst();
+    }
+
+    public void avanzar(String tarea, LocalDateTime hasta) {
+        jdbcTemplate.update(AVANZAR, new MapSqlParameterSource()
+                .addValue("tarea", tarea)
+                .addValue("hasta", Timestamp.valueOf(hasta)));
+    }
+}
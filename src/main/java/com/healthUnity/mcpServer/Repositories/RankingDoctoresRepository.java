@@ -0,0 +1,69 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.DoctorRanking;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Lecturas de doctor_rating_resumen para RankingDoctores: todo el resumen al arrancar
+ * y después solo las filas que cambiaron desde el último corte.
+ * El corte es el xmin de un snapshot: toda transacción que todavía no había terminado al tomarlo
+ * tiene un id mayor o igual, así que sus cambios aparecen en la lectura siguiente aunque confirme tarde.
+ */
+@Repository
+public class RankingDoctoresRepository {
+
+    private static final String COLUMNAS = """
+            SELECT r.id_doctor, d.id_especialidad, du.nombre, du.apellido, du.url_imagen,
+                   e.nombre AS especialidad, r.promedio, r.cantidad
+            FROM doctor_rating_resumen r
+            JOIN doctores d ON d.id_doctor = r.id_doctor
+            LEFT JOIN detalles_usuario du ON du.id_detalle_usuario = d.id_detalle_usuario
+            LEFT JOIN especialidades e ON e.id_especialidad = d.id_especialidad
+            """;
+
+    private static final RowMapper<DoctorRanking> FILA = (rs, i) -> new DoctorRanking(
+            rs.getLong("id_doctor"),
+            rs.getObject("id_especialidad", Long.class),
+            rs.getString("nombre"),
+            rs.getString("apellido"),
+            rs.getString("url_imagen"),
+            rs.getString("especialidad"),
+            rs.getDouble("promedio"),
+            rs.getInt("cantidad"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public RankingDoctoresRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * El corte a partir del cual leer los cambios siguientes; se toma antes de leer.
+     */
+    public String corte() {
+        return jdbcTemplate.getJdbcTemplate()
+                .queryForObject("SELECT pg_snapshot_xmin(pg_current_snapshot())::text", String.class);
+    }
+
+    /**
+     * Los doctores con al menos una opinión.
+     */
+    public List<DoctorRanking> findConOpiniones() {
+        return jdbcTemplate.query(COLUMNAS + "WHERE r.cantidad > 0", FILA);
+    }
+
+    /**
+     * Las filas del resumen que cambiaron desde {@code corte}, incluidas las que quedaron sin opiniones.
+     */
+    public List<DoctorRanking> findCambiadosDesde(String corte) {
+        return jdbcTemplate.query(COLUMNAS + "WHERE r.cambio >= CAST(:corte AS xid8)",
+                new MapSqlParameterSource("corte", corte), FILA);
+    }
+}
@@ -0,0 +1,42 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Models.Doctores;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Desalojo explícito de la cache de segundo nivel (regiones en cache-segundo-nivel.conf).
+ * Hibernate mantiene al día las entidades que escribe él mismo, pero no las colecciones inversas
+ * (los horarios de un doctor) ni lo que se escribe por JDBC o desde otra aplicación.
+ */
+@Component
+public class CacheReferencia {
+    private static final String HORARIOS_DOCTOR = Doctores.class.getName() + ".horarios";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    public CacheReferencia(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    /**
+     * Descarta la colección de horarios cacheada del doctor.
+     */
+    public void invalidarHorarios(Long idDoctor) {
+        cache().evictCollectionData(HORARIOS_DOCTOR, idDoctor);
+    }
+
+    /**
+     * Vacía todas las regiones, incluidas las consultas cacheadas; para escrituras masivas por JDBC.
+     */
+    public void invalidarTodo() {
+        cache().evictAllRegions();
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+}
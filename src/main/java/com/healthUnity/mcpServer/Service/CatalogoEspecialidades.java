@@ -0,0 +1,60 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.ProgramadoresTareas;
+import com.healthUnity.mcpServer.DTO.EspecialidadCatalogo;
+import com.healthUnity.mcpServer.Repositories.EspecialidadesRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Catálogo de especialidades en memoria, ya armado como lista y como el texto que devuelve la herramienta.
+ * Cambia muy rara vez: se lee al arrancar y cada cierto tiempo, y la versión solo avanza
+ * (con un catálogo nuevo, reemplazado de una vez) cuando las especialidades cambiaron.
+ */
+@Service
+public class CatalogoEspecialidades {
+
+    /**
+     * Una versión del catálogo; inmutable, se puede guardar y comparar sin copiarla.
+     */
+    public record Catalogo(long version, List<EspecialidadCatalogo> especialidades, String texto) {
+    }
+
+    private final EspecialidadesRepository especialidadesRepository;
+
+    private volatile Catalogo catalogo = new Catalogo(0, List.of(), "");
+
+    @Autowired
+    public CatalogoEspecialidades(EspecialidadesRepository especialidadesRepository) {
+        this.especialidadesRepository = especialidadesRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(scheduler = ProgramadoresTareas.RECARGAS,
+            initialDelayString = "${healthunity.especialidades.recarga-ms:900000}",
+            fixedDelayString = "${healthunity.especialidades.recarga-ms:900000}")
+    public synchronized void recargar() {
+        List<EspecialidadCatalogo> especialidades = especialidadesRepository.findAll(Sort.by("idEspecialidad")).stream()
+                .map(e -> new EspecialidadCatalogo(e.getIdEspecialidad(), e.getNombre(), e.getIcono()))
+                .toList();
+        Catalogo actual = catalogo;
+        if (actual.version() > 0 && actual.especialidades().equals(especialidades)) {
+            return;
+        }
+        String texto = especialidades.stream()
+                .map(e -> String.format("- %s (ID: %d)", e.nombre(), e.idEspecialidad()))
+                .collect(Collectors.joining("\n"));
+        catalogo = new Catalogo(actual.version() + 1, especialidades, texto);
+    }
+
+    public Catalogo actual() {
+        return catalogo;
+    }
+}
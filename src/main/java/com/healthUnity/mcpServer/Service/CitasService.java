@@ -1,5 +1,9 @@
 package com.healthUnity.mcpServer.Service;
 
+import com.healthUnity.mcpServer.DTO.CitaVista;
+import com.healthUnity.mcpServer.DTO.CorreoCita;
+import com.healthUnity.mcpServer.DTO.DoctorRanking;
+import com.healthUnity.mcpServer.DTO.FiltroDoctores;
 import com.healthUnity.mcpServer.DTO.Response.CitaResponseDTO;
 import com.healthUnity.mcpServer.DTO.Response.DoctorRatingDTO;
 import com.healthUnity.mcpServer.DTO.Response.ResponseDTO;
@@ -7,51 +11,89 @@ import com.healthUnity.mcpServer.DTO.Response.DoctorDisponibleDTO;
 import com.healthUnity.mcpServer.Models.Citas;
 import com.healthUnity.mcpServer.Models.Doctores;
 import com.healthUnity.mcpServer.Models.Paciente;
-import com.healthUnity.mcpServer.Models.HorariosDoctor;
+import com.healthUnity.mcpServer.Repositories.BusquedaDoctoresRepository;
 import com.healthUnity.mcpServer.Repositories.CitasRepository;
 import com.healthUnity.mcpServer.Repositories.DoctorRepository;
 import com.healthUnity.mcpServer.Repositories.PacienteRepository;
-import com.healthUnity.mcpServer.Repositories.HorariosDoctorRepository;
 import com.healthUnity.mcpServer.Utils.DateFormatter;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+/**
+ * Herramientas de citas. No hay transacción a nivel de clase: cada herramienta lee o escribe en una
+ * transacción corta que devuelve datos inmutables (proyecciones o records), y el texto de la respuesta
+ * se arma después, con la conexión ya devuelta al pool.
+ */
 @Service
-@Transactional(readOnly = true)
 public class CitasService {
+    private static final int MAX_DOCTORES_MOSTRADOS = 10;
+
+    // Resultado de la transacción de crearCitaAutomatica: error, o la reserva con los datos para responder
+    private record Agendamiento(String error, ReservaCitas.Resultado reserva, CorreoCita datos) {
+        static Agendamiento error(String mensaje) {
+            return new Agendamiento(mensaje, null, null);
+        }
+    }
+
+    // Resultado de la transacción de reprogramarCita: error, o la cita como estaba y su nuevo horario
+    private record Reprogramacion(String error, CitaVista anterior, LocalDate fechaNueva, LocalTime horaNueva) {
+        static Reprogramacion error(String mensaje) {
+            return new Reprogramacion(mensaje, null, null, null);
+        }
+    }
+
     private final CitasRepository citasRepository;
     private final DoctorRepository doctorRepository;
     private final PacienteRepository pacienteRepository;
-    private final HorariosDoctorRepository horariosDoctorRepository;
-    private final GmailService gmailService;
+    private final MotorSlots motorSlots;
+    private final ReservaCitas reservaCitas;
+    private final RetencionesHorario retencionesHorario;
+    private final OutboxNotificaciones outboxNotificaciones;
     private final DateFormatter dateFormatter;
+    private final BusquedaDoctoresRepository busquedaDoctoresRepository;
+    private final ResolvedorEspecialidades resolvedorEspecialidades;
+    private final RankingDoctores rankingDoctores;
+    private final TransactionTemplate escritura;
 
     @Autowired
     public CitasService(CitasRepository citasRepository,
                         PacienteRepository pacienteRepository,
                         DoctorRepository doctorRepository,
-                        GmailService gmailService,
-                        HorariosDoctorRepository horariosDoctorRepository,
-                        DateFormatter dateFormatter) {
+                        OutboxNotificaciones outboxNotificaciones,
+                        MotorSlots motorSlots,
+                        ReservaCitas reservaCitas,
+                        RetencionesHorario retencionesHorario,
+                        DateFormatter dateFormatter,
+                        BusquedaDoctoresRepository busquedaDoctoresRepository,
+                        ResolvedorEspecialidades resolvedorEspecialidades,
+                        RankingDoctores rankingDoctores,
+                        PlatformTransactionManager transactionManager) {
         this.citasRepository = citasRepository;
         this.pacienteRepository = pacienteRepository;
         this.doctorRepository = doctorRepository;
-        this.horariosDoctorRepository = horariosDoctorRepository;
-        this.gmailService = gmailService;
+        this.motorSlots = motorSlots;
+        this.reservaCitas = reservaCitas;
+        this.retencionesHorario = retencionesHorario;
+        this.outboxNotificaciones = outboxNotificaciones;
         this.dateFormatter = dateFormatter;
+        this.busquedaDoctoresRepository = busquedaDoctoresRepository;
+        this.resolvedorEspecialidades = resolvedorEspecialidades;
+        this.rankingDoctores = rankingDoctores;
+        this.escritura = new TransactionTemplate(transactionManager);
     }
 
     @Tool(description = """
@@ -65,12 +107,14 @@ public class CitasService {
                 - "quiero agendar para [fecha] a las [hora]"
             
                 PARÁMETROS REQUERIDOS:
-                - especialidadNombre: especialidad médica (ej: 'Cardiología', 'Pediatría')
+                - especialidadNombre: especialidad médica (ej: 'Cardiología', 'Pediatría');
+                  también acepta cómo la llama el paciente (ej: 'corazón', 'niños', 'dermatologo')
                 - fecha: fecha en formato YYYY-MM-DD (ej: '2025-11-15')
                 - hora: hora en formato HH:mm (ej: '09:00', '14:30')
                 - idPaciente: ID del paciente
             
-                RETORNA: Lista de doctores que NO tienen citas en ese horario específico.
+                RETORNA: Lista de doctores que NO tienen citas en ese horario específico
+                ni lo tienen retenido para otro paciente.
             
                 IMPORTANTE: Este método busca por DISPONIBILIDAD HORARIA, no por calificación.
             
@@ -85,54 +129,23 @@ public class CitasService {
         LocalTime horaCita = LocalTime.parse(hora);
         int diaSemana = fechaCita.getDayOfWeek().getValue();
 
-        List<Doctores> doctores;
+        Long idEspecialidad = null;
         if (especialidadNombre != null && !especialidadNombre.isEmpty()) {
-            doctores = doctorRepository.findByEspecialidad_NombreContainingIgnoreCase(especialidadNombre);
-        } else {
-            doctores = doctorRepository.findAll();
+            idEspecialidad = resolvedorEspecialidades.resolver(especialidadNombre);
+            if (idEspecialidad == null) {
+                return List.of();
+            }
         }
 
-        return doctores.stream()
-                .filter(doctor -> {
-                    List<HorariosDoctor> horarios = horariosDoctorRepository
-                            .findByDoctor_IdDoctorAndDiaSemana(doctor.getIdDoctor(), diaSemana);
-
-                    boolean tieneHorario = horarios.stream().anyMatch(h ->
-                            !horaCita.isBefore(h.getHoraInicio()) &&
-                                    !horaCita.isAfter(h.getHoraFin())
-                    );
-
-                    if (!tieneHorario) return false;
-
-                    List<Citas> citasExistentes = citasRepository
-                            .findByDoctor_IdDoctorAndFechaAndHora(
-                                    doctor.getIdDoctor(),
-                                    fechaCita,
-                                    horaCita
-                            );
-
-                    return citasExistentes.isEmpty();
-                })
-                .map(doctor -> {
-                    DoctorDisponibleDTO dto = new DoctorDisponibleDTO();
-                    dto.setIdDoctor(doctor.getIdDoctor());
-
-                    if (doctor.getDetallesUsuario() != null) {
-                        dto.setNombre(doctor.getDetallesUsuario().getNombre());
-                        dto.setApellido(doctor.getDetallesUsuario().getApellido());
-                        dto.setUrlImagen(doctor.getDetallesUsuario().getUrlImagen());
-                    }
-
-                    if (doctor.getEspecialidad() != null) {
-                        dto.setEspecialidad(doctor.getEspecialidad().getNombre());
-                    }
-
-                    dto.setRating(4.5);
-                    dto.setDisponible(true);
-
-                    return dto;
-                })
-                .collect(Collectors.toList());
+        // Horario y citas se cruzan en la base de datos: una sola consulta para todos los doctores
+        List<DoctorDisponibleDTO> disponibles =
+                doctorRepository.findDoctoresDisponibles(idEspecialidad, diaSemana, fechaCita, horaCita);
+        if (!retencionesHorario.hayRetenciones()) {
+            return disponibles;
+        }
+        return disponibles.stream()
+                .filter(d -> !retencionesHorario.retenidoPorOtro(d.getIdDoctor(), fechaCita, horaCita, idPaciente))
+                .toList();
     }
 
     @Tool(description = """
@@ -148,7 +161,7 @@ public class CitasService {
                - NO menciona fecha ni hora específica
             
                PARÁMETROS OPCIONALES:
-               - especialidadNombre: especialidad médica (opcional)
+               - especialidadNombre: especialidad médica o cómo la llama el paciente (opcional)
                - ratingMinimo: rating mínimo (ej: 4.0, 4.5) - OPCIONAL
                - numeroMinReviews: mínimo de reviews (ej: 10, 50) - OPCIONAL
             
@@ -159,48 +172,28 @@ public class CitasService {
         """)
     public String buscarDoctoresPorRating(Double ratingMinimo, Integer numeroMinReviews, String especialidadNombre) {
         try {
-            List<Object[]> doctoresData;
-
-            // Determinar qué query usar según los parámetros
+            Long idEspecialidad = null;
             if (especialidadNombre != null && !especialidadNombre.isEmpty()) {
-                doctoresData = doctorRepository.findTopDoctoresPorEspecialidad(especialidadNombre, 100);
-            } else {
-                // Usamos findAllDoctores sin paginación, obteniendo muchos resultados
-                Page<Object[]> page = doctorRepository.findAllDoctores("rating",
-                        PageRequest.of(0, 100));
-                doctoresData = page.getContent();
-            }
-
-            if (doctoresData.isEmpty()) {
-                return "❌ No se encontraron doctores en el sistema.";
+                idEspecialidad = resolvedorEspecialidades.resolver(especialidadNombre);
+                if (idEspecialidad == null) {
+                    return especialidadNoEncontrada(especialidadNombre);
+                }
             }
 
-            // Mapear Object[] a un DTO más manejable
-            List<DoctorRatingDTO> doctoresFiltrados = doctoresData.stream()
-                    .map(obj -> new DoctorRatingDTO(
-                            ((Number) obj[0]).longValue(),     // id_doctor
-                            (String) obj[1],                    // nombre
-                            (String) obj[2],                    // apellido
-                            (String) obj[3],                    // url_imagen
-                            (String) obj[4],                    // especialidad
-                            ((Number) obj[5]).doubleValue(),    // rating
-                            ((Number) obj[6]).intValue()        // reviews
-                    ))
-                    .filter(doctor -> {
-                        boolean cumpleRating = ratingMinimo == null || doctor.getRating() >= ratingMinimo;
-                        boolean cumpleReviews = numeroMinReviews == null || doctor.getReviews() >= numeroMinReviews;
-                        return cumpleRating && cumpleReviews;
-                    })
-                    .sorted((d1, d2) -> {
-                        int compareRating = Double.compare(d2.getRating(), d1.getRating());
-                        if (compareRating != 0) return compareRating;
-                        return Integer.compare(d2.getReviews(), d1.getReviews());
-                    })
-                    .toList();
-
-            if (doctoresFiltrados.isEmpty()) {
-                return "❌ No se encontraron doctores que cumplan con los criterios solicitados.";
+            // Filtros, orden y límite van en la consulta: solo se leen los doctores que se muestran
+            FiltroDoctores filtro = new FiltroDoctores(
+                    idEspecialidad,
+                    ratingMinimo,
+                    numeroMinReviews,
+                    FiltroDoctores.Orden.RATING,
+                    MAX_DOCTORES_MOSTRADOS);
+            long total = busquedaDoctoresRepository.contar(filtro);
+            if (total == 0) {
+                return idEspecialidad == null && ratingMinimo == null && numeroMinReviews == null
+                        ? "❌ No se encontraron doctores en el sistema."
+                        : "❌ No se encontraron doctores que cumplan con los criterios solicitados.";
             }
+            List<DoctorRatingDTO> doctoresFiltrados = busquedaDoctoresRepository.buscar(filtro);
 
             // Construir el mensaje de respuesta
             StringBuilder resultado = new StringBuilder();
@@ -216,14 +209,13 @@ public class CitasService {
                 titulo += "ordenados por calificación";
             }
 
-            if (especialidadNombre != null && !especialidadNombre.isEmpty()) {
-                titulo += " - " + especialidadNombre;
+            if (idEspecialidad != null) {
+                titulo += " - " + resolvedorEspecialidades.nombre(idEspecialidad);
             }
 
-            resultado.append(titulo).append(" (").append(doctoresFiltrados.size()).append("):\n\n");
+            resultado.append(titulo).append(" (").append(total).append("):\n\n");
 
-            // Mostrar hasta 10 doctores
-            for (int i = 0; i < Math.min(doctoresFiltrados.size(), 10); i++) {
+            for (int i = 0; i < doctoresFiltrados.size(); i++) {
                 DoctorRatingDTO doctor = doctoresFiltrados.get(i);
 
                 String nombreCompleto = (doctor.getNombre() + " " + doctor.getApellido()).trim();
@@ -250,13 +242,13 @@ public class CitasService {
                         doctor.getReviews()
                 ));
 
-                if (i < Math.min(doctoresFiltrados.size(), 10) - 1) {
+                if (i < doctoresFiltrados.size() - 1) {
                     resultado.append("\n");
                 }
             }
 
-            if (doctoresFiltrados.size() > 10) {
-                resultado.append(String.format("\n\n... y %d doctores más.", doctoresFiltrados.size() - 10));
+            if (total > doctoresFiltrados.size()) {
+                resultado.append(String.format("\n\n... y %d doctores más.", total - doctoresFiltrados.size()));
             }
 
             return resultado.toString();
@@ -274,9 +266,11 @@ public class CitasService {
                 - "el mejor cardiólogo"
                 - "el doctor más recomendado de [especialidad]"
                 - "el número 1 en [especialidad]"
+                - "el mejor doctor" (sin especialidad: el mejor de todos)
             
-                PARÁMETROS REQUERIDOS:
-                - especialidadNombre: nombre de la especialidad (REQUERIDO)
+                PARÁMETROS:
+                - especialidadNombre: nombre de la especialidad o cómo la llama el paciente,
+                  ej: 'cardiólogo', 'piel'; vacío para el mejor doctor de todas las especialidades
             
                 RETORNA: String con información del doctor #1 con mejor rating.
             
@@ -284,22 +278,31 @@ public class CitasService {
         """)
     public String obtenerMejorDoctor(String especialidadNombre) {
         try {
-            // Usar el query nativo que ya calcula rating y reviews
-            List<Object[]> doctoresData = doctorRepository.findTopDoctoresPorEspecialidad(especialidadNombre, 1);
+            Long idEspecialidad = null;
+            if (especialidadNombre != null && !especialidadNombre.isEmpty()) {
+                idEspecialidad = resolvedorEspecialidades.resolver(especialidadNombre);
+                if (idEspecialidad == null) {
+                    return especialidadNoEncontrada(especialidadNombre);
+                }
+            }
+
+            // El ranking en memoria ya está ordenado: el primero es el mejor
+            List<DoctorRanking> mejores = rankingDoctores.top(idEspecialidad, 1);
 
-            if (doctoresData.isEmpty()) {
-                return "❌ No se encontraron doctores para la especialidad: " + especialidadNombre;
+            if (mejores.isEmpty()) {
+                return idEspecialidad == null
+                        ? "❌ Todavía no hay doctores con opiniones."
+                        : "❌ No se encontraron doctores para la especialidad: " + especialidadNombre;
             }
 
-            // Tomar el primer resultado (ya viene ordenado por mejor rating)
-            Object[] mejorDoctorData = doctoresData.get(0);
+            DoctorRanking mejorDoctor = mejores.get(0);
 
-            Long idDoctor = ((Number) mejorDoctorData[0]).longValue();
-            String nombre = (String) mejorDoctorData[1];
-            String apellido = (String) mejorDoctorData[2];
-            String especialidad = (String) mejorDoctorData[4];
-            Double rating = ((Number) mejorDoctorData[5]).doubleValue();
-            Integer reviews = ((Number) mejorDoctorData[6]).intValue();
+            Long idDoctor = mejorDoctor.idDoctor();
+            String nombre = mejorDoctor.nombre() != null ? mejorDoctor.nombre() : "";
+            String apellido = mejorDoctor.apellido() != null ? mejorDoctor.apellido() : "";
+            String especialidad = mejorDoctor.especialidad();
+            double rating = mejorDoctor.rating();
+            int reviews = mejorDoctor.reviews();
 
             // Construir nombre completo
             String nombreCompleto = (nombre + " " + apellido).trim();
@@ -333,6 +336,65 @@ public class CitasService {
         }
     }
 
+    @Tool(description = """
+        RETENER HORARIO - Aparta un horario de un doctor por unos minutos mientras el paciente confirma.
+        Parámetros:
+        - idPaciente: ID del paciente
+        - idDoctor: ID del doctor
+        - fecha: fecha en formato YYYY-MM-DD
+        - hora: hora en formato HH:mm (uno de los horarios que devolvió obtenerHorariosDisponibles)
+
+        Mientras dure la retención el horario no aparece como libre para otros pacientes.
+        Cada paciente retiene un solo horario: retener otro suelta el anterior.
+        Usa esta función apenas el paciente elija un horario y antes de pedirle la confirmación final;
+        cuando confirme, llama a crearCitaAutomatica con los mismos datos para convertir la retención en cita.
+        """)
+    public String retenerHorario(Long idPaciente, Long idDoctor, String fecha, String hora) {
+        try {
+            ReservaCitas.Resultado retencion = reservaCitas.retener(
+                    idPaciente, idDoctor, LocalDate.parse(fecha), LocalTime.parse(hora));
+
+            if (retencion.estado() != ReservaCitas.Estado.RETENIDA) {
+                String motivo = retencion.estado() == ReservaCitas.Estado.FUERA_DE_HORARIO
+                        ? "❌ El doctor no atiende el " + fecha + " a las " + hora + "."
+                        : "❌ Ese horario ya no está disponible.";
+                if (retencion.alternativas().isEmpty()) {
+                    return motivo + " No hay horarios libres en los próximos días.";
+                }
+                return motivo + "\n\n🕐 Horarios libres más cercanos:\n• "
+                        + String.join("\n• ", retencion.alternativas());
+            }
+
+            return String.format(
+                    "⏳ Horario retenido: %s a las %s.\n" +
+                            "Queda apartado para el paciente durante %d minutos. " +
+                            "Confirma la cita con crearCitaAutomatica antes de que venza.",
+                    fecha,
+                    hora,
+                    Math.max(1, retencionesHorario.segundosDeRetencion() / 60)
+            );
+        } catch (Exception e) {
+            return "❌ Error al retener el horario: " + e.getMessage();
+        }
+    }
+
+    @Tool(description = """
+        Suelta un horario retenido con retenerHorario cuando el paciente decide no tomarlo.
+        Parámetros:
+        - idPaciente: ID del paciente que retuvo el horario
+        - idDoctor: ID del doctor
+        - fecha: fecha en formato YYYY-MM-DD
+        - hora: hora en formato HH:mm
+        """)
+    public String liberarHorarioRetenido(Long idPaciente, Long idDoctor, String fecha, String hora) {
+        try {
+            retencionesHorario.liberar(idPaciente, idDoctor, LocalDate.parse(fecha), LocalTime.parse(hora));
+            return "✅ El horario " + fecha + " " + hora + " quedó libre nuevamente.";
+        } catch (Exception e) {
+            return "❌ Error al liberar el horario: " + e.getMessage();
+        }
+    }
+
     @Tool(description = """
         Crea una nueva cita médica automáticamente.
         Parámetros:
@@ -343,10 +405,12 @@ public class CitasService {
         - razon: motivo de la consulta (opcional)
         
         Retorna un mensaje de confirmación con los detalles de la cita creada.
+        Si el paciente había retenido el horario con retenerHorario, la retención se convierte en la cita.
+        Si el horario ya fue tomado o el doctor no atiende a esa hora, no crea la cita
+        y retorna los horarios libres más cercanos para ofrecérselos al paciente.
         Usa esta función después de que el usuario confirme el doctor y horario,
         o cuando tengas todos los datos necesarios para crear la cita.
         """)
-    @Transactional
     public String crearCitaAutomatica(
             Long idPaciente,
             Long idDoctor,
@@ -355,78 +419,25 @@ public class CitasService {
             String razon) {
 
         try {
-            // Validar paciente
-            Optional<Paciente> pacienteOpt = pacienteRepository.findById(idPaciente);
-            if (pacienteOpt.isEmpty()) {
-                return "Error: No se encontró el paciente con ID " + idPaciente;
-            }
-
-            // Validar doctor
-            Optional<Doctores> doctorOpt = doctorRepository.findById(idDoctor);
-            if (doctorOpt.isEmpty()) {
-                return "Error: No se encontró el doctor con ID " + idDoctor;
+            // Validación, reserva y encolado del correo en una transacción corta; el mensaje se arma después
+            Agendamiento agendamiento = escritura.execute(status -> agendar(idPaciente, idDoctor, fecha, hora, razon));
+            if (agendamiento.error() != null) {
+                return agendamiento.error();
             }
 
-            Doctores doctor = doctorOpt.get();
-            Paciente paciente = pacienteOpt.get();
-
-            // Crear la cita
-            Citas cita = new Citas();
-            cita.setPaciente(paciente);
-            cita.setDoctor(doctor);
-            cita.setFecha(LocalDate.parse(fecha));
-            cita.setHora(LocalTime.parse(hora));
-            cita.setRazon(razon != null ? razon : "Consulta general");
-            cita.setEstado("pendiente");
-
-            citasRepository.save(cita);
-
-            // Obtener datos del doctor para el email
-            String nombreDoctor = doctor.getDetallesUsuario() != null
-                    ? doctor.getDetallesUsuario().getNombre() + " " + doctor.getDetallesUsuario().getApellido()
-                    : "Doctor";
-
-            String especialidad = doctor.getEspecialidad() != null
-                    ? doctor.getEspecialidad().getNombre()
-                    : "Medicina General";
-
-            String direccionDoctor = doctor.getDetallesUsuario() != null && doctor.getDetallesUsuario().getDireccion() != null
-                    ? doctor.getDetallesUsuario().getDireccion()
-                    : "Dirección no especificada";
-
-            String urlImagenDoctor = doctor.getDetallesUsuario() != null && doctor.getDetallesUsuario().getUrlImagen() != null
-                    ? doctor.getDetallesUsuario().getUrlImagen()
-                    : "https://via.placeholder.com/200x200/4A90E2/FFFFFF?text=Doctor";
-
-            // Obtener datos del paciente para el email
-            String nombrePaciente = paciente.getDetallesUsuario() != null && paciente.getDetallesUsuario().getNombre() != null
-                    ? paciente.getDetallesUsuario().getNombre()
-                    : "Paciente";
-
-            String emailPaciente = paciente.getDetallesUsuario() != null && paciente.getDetallesUsuario().getGmail() != null
-                    ? paciente.getDetallesUsuario().getGmail()
-                    : null;
-
-            // Enviar email de confirmación
-            if (emailPaciente != null && !emailPaciente.isEmpty()) {
-                try {
-                    gmailService.sendConfirmAppointment(
-                            emailPaciente,  
-                            nombrePaciente,
-                            nombreDoctor,
-                            direccionDoctor,
-                            especialidad,
-                            cita.getFecha(),
-                            cita.getHora(),
-                            cita.getRazon(),
-                            urlImagenDoctor
-                    );
-                } catch (Exception emailException) {
-                    // Log el error pero no fallar la creación de la cita
-                    System.err.println("Error al enviar email de confirmación: " + emailException.getMessage());
+            ReservaCitas.Resultado reserva = agendamiento.reserva();
+            if (reserva.estado() != ReservaCitas.Estado.RESERVADA) {
+                String motivo = reserva.estado() == ReservaCitas.Estado.FUERA_DE_HORARIO
+                        ? "❌ El doctor no atiende el " + fecha + " a las " + hora + "."
+                        : "❌ Ese horario ya fue tomado por otro paciente.";
+                if (reserva.alternativas().isEmpty()) {
+                    return motivo + " No hay horarios libres en los próximos días.";
                 }
+                return motivo + "\n\n🕐 Horarios libres más cercanos:\n• "
+                        + String.join("\n• ", reserva.alternativas());
             }
 
+            CorreoCita datos = agendamiento.datos();
             return String.format(
                     "✅ Cita creada exitosamente!\n\n" +
                             "📋 Detalles de tu cita:\n" +
@@ -437,21 +448,94 @@ public class CitasService {
                             "• Hora: %s\n" +
                             "• Motivo: %s\n" +
                             "• Estado: Confirmada\n\n" +
-                            "📧 Te hemos enviado un email de confirmación a %s\n" +
+                            "📧 Te enviaremos un email de confirmación a %s\n" +
                             "Te enviaremos un recordatorio 24 horas antes de tu cita.",
-                    cita.getIdCita(),
-                    nombreDoctor,
-                    especialidad,
+                    reserva.idCita(),
+                    datos.nombreDoctor(),
+                    datos.especialidadDoctor(),
                     fecha,
                     hora,
-                    cita.getRazon(),
-                    emailPaciente != null ? emailPaciente : "tu correo registrado"
+                    datos.razon(),
+                    datos.gmail() != null ? datos.gmail() : "tu correo registrado"
             );
         } catch (Exception e) {
             return "❌ Error al crear la cita: " + e.getMessage();
         }
     }
 
+    /**
+     * Cuerpo transaccional de crearCitaAutomatica: devuelve lo necesario para responder, sin entidades.
+     */
+    private Agendamiento agendar(Long idPaciente, Long idDoctor, String fecha, String hora, String razon) {
+        // Validar paciente
+        Optional<Paciente> pacienteOpt = pacienteRepository.findById(idPaciente);
+        if (pacienteOpt.isEmpty()) {
+            return Agendamiento.error("Error: No se encontró el paciente con ID " + idPaciente);
+        }
+
+        // Validar doctor
+        Optional<Doctores> doctorOpt = doctorRepository.findTarjetaByIdDoctor(idDoctor);
+        if (doctorOpt.isEmpty()) {
+            return Agendamiento.error("Error: No se encontró el doctor con ID " + idDoctor);
+        }
+
+        Doctores doctor = doctorOpt.get();
+        Paciente paciente = pacienteOpt.get();
+        LocalDate fechaCita = LocalDate.parse(fecha);
+        LocalTime horaCita = LocalTime.parse(hora);
+        String motivo = razon != null ? razon : "Consulta general";
+
+        // Reservar el slot: una sola sentencia que falla rápido si otro lo está tomando
+        ReservaCitas.Resultado reserva = reservaCitas.reservar(idPaciente, idDoctor, fechaCita, horaCita, motivo);
+        if (reserva.estado() != ReservaCitas.Estado.RESERVADA) {
+            return new Agendamiento(null, reserva, null);
+        }
+
+        // Obtener datos del doctor para el email
+        String nombreDoctor = doctor.getDetallesUsuario() != null
+                ? doctor.getDetallesUsuario().getNombre() + " " + doctor.getDetallesUsuario().getApellido()
+                : "Doctor";
+
+        String especialidad = doctor.getEspecialidad() != null
+                ? doctor.getEspecialidad().getNombre()
+                : "Medicina General";
+
+        String direccionDoctor = doctor.getDetallesUsuario() != null && doctor.getDetallesUsuario().getDireccion() != null
+                ? doctor.getDetallesUsuario().getDireccion()
+                : "Dirección no especificada";
+
+        String urlImagenDoctor = doctor.getDetallesUsuario() != null && doctor.getDetallesUsuario().getUrlImagen() != null
+                ? doctor.getDetallesUsuario().getUrlImagen()
+                : "https://via.placeholder.com/200x200/4A90E2/FFFFFF?text=Doctor";
+
+        // Obtener datos del paciente para el email
+        String nombrePaciente = paciente.getDetallesUsuario() != null && paciente.getDetallesUsuario().getNombre() != null
+                ? paciente.getDetallesUsuario().getNombre()
+                : "Paciente";
+
+        String emailPaciente = paciente.getDetallesUsuario() != null && paciente.getDetallesUsuario().getGmail() != null
+                ? paciente.getDetallesUsuario().getGmail()
+                : null;
+
+        CorreoCita datos = new CorreoCita(
+                emailPaciente,
+                nombrePaciente,
+                nombreDoctor,
+                direccionDoctor,
+                especialidad,
+                fechaCita,
+                horaCita,
+                motivo,
+                urlImagenDoctor
+        );
+
+        // El correo sale desde el outbox cuando la cita ya está confirmada
+        if (emailPaciente != null && !emailPaciente.isEmpty()) {
+            outboxNotificaciones.encolarConfirmacion(reserva.idCita(), datos);
+        }
+        return new Agendamiento(null, reserva, datos);
+    }
+
     @Tool(description = """
         Reprograma una cita médica existente a una nueva fecha y hora.
         Parámetros:
@@ -464,7 +548,6 @@ public class CitasService {
         Retorna un mensaje de confirmación con los nuevos detalles o error.
         Usa esta función cuando el usuario quiera cambiar la fecha/hora de una cita existente.
         """)
-    @Transactional
     public String reprogramarCita(
             Long idCita,
             Long idPaciente,
@@ -472,80 +555,16 @@ public class CitasService {
             String nuevaHora) {
 
         try {
-            Optional<Citas> citaOpt = citasRepository.findById(idCita);
-
-            if (citaOpt.isEmpty()) {
-                return "❌ No se encontró la cita con ID " + idCita;
-            }
-
-            Citas cita = citaOpt.get();
-
-            if (!cita.getPaciente().getIdPaciente().equals(idPaciente)) {
-                return "❌ No tienes permisos para reprogramar esta cita.";
-            }
-
-            if ("cancelada".equalsIgnoreCase(cita.getEstado())) {
-                return "❌ No se puede reprogramar una cita cancelada. Debes crear una nueva cita.";
-            }
-
-            if ("completada".equalsIgnoreCase(cita.getEstado())) {
-                return "❌ No se puede reprogramar una cita que ya fue completada.";
-            }
-
-            LocalDate fechaNueva = LocalDate.parse(nuevaFecha);
-            LocalTime horaNueva = LocalTime.parse(nuevaHora);
-            int diaSemana = fechaNueva.getDayOfWeek().getValue();
-
-            List<HorariosDoctor> horarios = horariosDoctorRepository
-                    .findByDoctor_IdDoctorAndDiaSemana(cita.getDoctor().getIdDoctor(), diaSemana);
-
-            boolean tieneHorario = horarios.stream().anyMatch(h ->
-                    !horaNueva.isBefore(h.getHoraInicio()) &&
-                            !horaNueva.isAfter(h.getHoraFin())
-            );
-
-            if (!tieneHorario) {
-                return "❌ El doctor no tiene disponibilidad en ese día y hora. Por favor elige otro horario.";
-            }
-
-            List<Citas> citasExistentes = citasRepository
-                    .findByDoctor_IdDoctorAndFechaAndHora(
-                            cita.getDoctor().getIdDoctor(),
-                            fechaNueva,
-                            horaNueva
-                    );
-
-            if (!citasExistentes.isEmpty()) {
-                return "❌ El doctor ya tiene una cita agendada en ese horario. Por favor elige otro horario.";
-            }
-
-            LocalDate fechaAnterior = cita.getFecha();
-            LocalTime horaAnterior = cita.getHora();
-
-            cita.setFecha(fechaNueva);
-            cita.setHora(horaNueva);
-            citasRepository.save(cita);
-
-            String nombreDoctor = "Doctor";
-            String especialidad = "Medicina General";
-
-            if (cita.getDoctor() != null) {
-                if (cita.getDoctor().getDetallesUsuario() != null) {
-                    String nombre = cita.getDoctor().getDetallesUsuario().getNombre();
-                    String apellido = cita.getDoctor().getDetallesUsuario().getApellido();
-                    if (nombre != null || apellido != null) {
-                        nombreDoctor = ((nombre != null ? nombre : "") + " " + (apellido != null ? apellido : "")).trim();
-                    }
-                }
-
-                if (cita.getDoctor().getEspecialidad() != null && cita.getDoctor().getEspecialidad().getNombre() != null) {
-                    especialidad = cita.getDoctor().getEspecialidad().getNombre();
-                }
+            // Validación y cambio en una transacción corta; el mensaje se arma después
+            Reprogramacion reprogramacion = escritura.execute(status -> mover(idCita, idPaciente, nuevaFecha, nuevaHora));
+            if (reprogramacion.error() != null) {
+                return reprogramacion.error();
             }
 
+            CitaVista anterior = reprogramacion.anterior();
             DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            String fechaAnteriorFormateada = fechaAnterior.format(dateFormatter);
-            String fechaNuevaFormateada = fechaNueva.format(dateFormatter);
+            String fechaAnteriorFormateada = anterior.fecha().format(dateFormatter);
+            String fechaNuevaFormateada = reprogramacion.fechaNueva().format(dateFormatter);
 
             return String.format(
                     "✅ Cita reprogramada exitosamente!\n\n" +
@@ -556,19 +575,79 @@ public class CitasService {
                             "• Motivo: %s\n" +
                             "• Estado: Confirmada\n\n" +
                             "Te enviaremos un recordatorio 24 horas antes de tu nueva cita.",
-                    nombreDoctor,
-                    especialidad,
+                    nombreDoctor(anterior),
+                    especialidad(anterior),
                     fechaAnteriorFormateada,
-                    horaAnterior != null ? horaAnterior.toString() : "No especificada",
+                    anterior.hora() != null ? anterior.hora().toString() : "No especificada",
                     fechaNuevaFormateada,
-                    horaNueva.toString(),
-                    cita.getRazon() != null ? cita.getRazon() : "Consulta general"
+                    reprogramacion.horaNueva().toString(),
+                    anterior.razon() != null ? anterior.razon() : "Consulta general"
             );
         } catch (Exception e) {
             return "❌ Error al reprogramar la cita: " + e.getMessage();
         }
     }
 
+    /**
+     * Cuerpo transaccional de reprogramarCita: la cita como estaba antes del cambio, o el motivo del rechazo.
+     */
+    private Reprogramacion mover(Long idCita, Long idPaciente, String nuevaFecha, String nuevaHora) {
+        Optional<Citas> citaOpt = citasRepository.findConDoctorByIdCita(idCita);
+
+        if (citaOpt.isEmpty()) {
+            return Reprogramacion.error("❌ No se encontró la cita con ID " + idCita);
+        }
+
+        Citas cita = citaOpt.get();
+
+        if (!cita.getPaciente().getIdPaciente().equals(idPaciente)) {
+            return Reprogramacion.error("❌ No tienes permisos para reprogramar esta cita.");
+        }
+
+        if ("cancelada".equalsIgnoreCase(cita.getEstado())) {
+            return Reprogramacion.error("❌ No se puede reprogramar una cita cancelada. Debes crear una nueva cita.");
+        }
+
+        if ("completada".equalsIgnoreCase(cita.getEstado())) {
+            return Reprogramacion.error("❌ No se puede reprogramar una cita que ya fue completada.");
+        }
+
+        LocalDate fechaNueva = LocalDate.parse(nuevaFecha);
+        LocalTime horaNueva = LocalTime.parse(nuevaHora);
+
+        ReservaCitas.Resultado slot = reservaCitas.tomarSlotParaMover(
+                idCita, idPaciente, cita.getDoctor().getIdDoctor(), fechaNueva, horaNueva);
+
+        if (slot.estado() != ReservaCitas.Estado.RESERVADA) {
+            String motivo = slot.estado() == ReservaCitas.Estado.FUERA_DE_HORARIO
+                    ? "❌ El doctor no tiene disponibilidad en ese día y hora."
+                    : "❌ El doctor ya tiene una cita agendada en ese horario.";
+            if (slot.alternativas().isEmpty()) {
+                return Reprogramacion.error(motivo + " No hay horarios libres en los próximos días.");
+            }
+            return Reprogramacion.error(motivo + "\n\n🕐 Horarios libres más cercanos:\n• "
+                    + String.join("\n• ", slot.alternativas()));
+        }
+
+        Doctores doctor = cita.getDoctor();
+        CitaVista anterior = new CitaVista(
+                cita.getIdCita(),
+                cita.getFecha(),
+                cita.getHora(),
+                cita.getRazon(),
+                cita.getEstado(),
+                doctor.getDetallesUsuario() != null ? doctor.getDetallesUsuario().getNombre() : null,
+                doctor.getDetallesUsuario() != null ? doctor.getDetallesUsuario().getApellido() : null,
+                doctor.getEspecialidad() != null ? doctor.getEspecialidad().getNombre() : null,
+                doctor.getDetallesUsuario() != null ? doctor.getDetallesUsuario().getDireccion() : null);
+
+        cita.setFecha(fechaNueva);
+        cita.setHora(horaNueva);
+        citasRepository.save(cita);
+
+        return new Reprogramacion(null, anterior, fechaNueva, horaNueva);
+    }
+
     @Tool(description = """
             OBTENER HORARIOS DE UN DOCTOR - Muestra las horas libres de un doctor en una fecha.
             
@@ -580,44 +659,39 @@ public class CitasService {
                 PARÁMETROS REQUERIDOS:
                 - idDoctor: ID del doctor (REQUERIDO)
                 - fecha: fecha en formato YYYY-MM-DD (REQUERIDO)
+                - idPaciente: ID del paciente que consulta (opcional; sus propias retenciones se muestran como libres)
             
                 RETORNA: Lista de strings con horarios disponibles (ej: ["09:00", "09:30", "10:00"])
             
                 IMPORTANTE: Este método requiere que YA tengas el ID del doctor seleccionado.
         """)
-    public List<String> obtenerHorariosDisponibles(Long idDoctor, String fecha) {
-        LocalDate fechaCita = LocalDate.parse(fecha);
-        int diaSemana = fechaCita.getDayOfWeek().getValue();
-
-        List<HorariosDoctor> horarios = horariosDoctorRepository
-                .findByDoctor_IdDoctorAndDiaSemana(idDoctor, diaSemana);
-
-        if (horarios.isEmpty()) {
-            return List.of();
-        }
-
-        List<Citas> citasAgendadas = citasRepository
-                .findByDoctor_IdDoctorAndFecha(idDoctor, fechaCita);
-
-        List<LocalTime> horasOcupadas = citasAgendadas.stream()
-                .map(Citas::getHora)
-                .collect(Collectors.toList());
-
-        return horarios.stream()
-                .flatMap(horario -> {
-                    List<String> slots = new java.util.ArrayList<>();
-                    LocalTime tiempo = horario.getHoraInicio();
-
-                    while (!tiempo.isAfter(horario.getHoraFin().minusMinutes(30))) {
-                        if (!horasOcupadas.contains(tiempo)) {
-                            slots.add(tiempo.toString());
-                        }
-                        tiempo = tiempo.plusMinutes(30);
-                    }
+    public List<String> obtenerHorariosDisponibles(Long idDoctor, String fecha, Long idPaciente) {
+        return motorSlots.horariosLibres(idDoctor, LocalDate.parse(fecha), idPaciente);
+    }
 
-                    return slots.stream();
-                })
-                .collect(Collectors.toList());
+    @Tool(description = """
+            OBTENER HORARIOS DE UN DOCTOR EN UN RANGO - Muestra las horas libres de un doctor día por día.
+            
+                USA ESTE MÉTODO CUANDO:
+                - El usuario YA seleccionó un doctor específico (tienes el ID)
+                - Pregunta por varios días: "qué días tiene libres esta semana", "disponibilidad del mes"
+                - Quieres ofrecer alternativas en otros días sin consultar fecha por fecha
+            
+                PARÁMETROS REQUERIDOS:
+                - idDoctor: ID del doctor (REQUERIDO)
+                - fechaInicio: primera fecha en formato YYYY-MM-DD (REQUERIDO)
+                - fechaFin: última fecha en formato YYYY-MM-DD, incluida (REQUERIDO, máximo 62 días de rango)
+                - idPaciente: ID del paciente que consulta (opcional; sus propias retenciones se muestran como libres)
+            
+                RETORNA: Mapa fecha -> lista de horarios libres (ej: {"2025-11-17": ["09:00", "09:30"]}).
+                Los días sin horarios libres no aparecen.
+        """)
+    public Map<String, List<String>> obtenerHorariosDisponiblesRango(
+            Long idDoctor, String fechaInicio, String fechaFin, Long idPaciente) {
+        Map<String, List<String>> resultado = new LinkedHashMap<>();
+        motorSlots.horariosLibres(idDoctor, LocalDate.parse(fechaInicio), LocalDate.parse(fechaFin), idPaciente)
+                .forEach((fecha, horas) -> resultado.put(fecha.toString(), horas));
+        return resultado;
     }
 
     @Tool(description = """
@@ -632,48 +706,24 @@ public class CitasService {
         """)
     public String consultarProximaCita(Long idPaciente) {
         try {
-            Optional<Paciente> pacienteOpt = pacienteRepository.findById(idPaciente);
-            if (pacienteOpt.isEmpty()) {
+            if (!pacienteRepository.existsById(idPaciente)) {
                 return "❌ No se encontró el paciente con ID " + idPaciente;
             }
 
-            Citas proximaCita = citasRepository.findFirstByPaciente_IdPacienteAndFechaGreaterThanEqualOrderByFechaAscHoraAsc(
-                    idPaciente,
-                    LocalDate.now()
-            );
+            Optional<CitaVista> proxima = citasRepository.findProximaDePaciente(idPaciente, LocalDate.now());
 
-            if (proximaCita == null) {
+            if (proxima.isEmpty()) {
                 return "📅 No tienes citas programadas próximamente.\n\n" +
                         "¿Deseas agendar una nueva cita?";
             }
 
-            String nombreDoctor = "Doctor";
-            String especialidad = "Medicina General";
-            String direccion = "Dirección no disponible";
-
-            if (proximaCita.getDoctor() != null) {
-                Doctores doctor = proximaCita.getDoctor();
-
-                if (doctor.getDetallesUsuario() != null) {
-                    String nombre = doctor.getDetallesUsuario().getNombre();
-                    String apellido = doctor.getDetallesUsuario().getApellido();
-                    if (nombre != null || apellido != null) {
-                        nombreDoctor = ((nombre != null ? nombre : "") + " " + (apellido != null ? apellido : "")).trim();
-                    }
-
-                    String dir = doctor.getDetallesUsuario().getDireccion();
-                    if (dir != null && !dir.trim().isEmpty()) {
-                        direccion = dir;
-                    }
-                }
-
-                if (doctor.getEspecialidad() != null && doctor.getEspecialidad().getNombre() != null) {
-                    especialidad = doctor.getEspecialidad().getNombre();
-                }
-            }
+            CitaVista proximaCita = proxima.get();
+            String direccion = proximaCita.direccion() != null && !proximaCita.direccion().trim().isEmpty()
+                    ? proximaCita.direccion()
+                    : "Dirección no disponible";
 
             DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-            String fechaFormateada = proximaCita.getFecha().format(dateFormatter);
+            String fechaFormateada = proximaCita.fecha().format(dateFormatter);
 
             return String.format(
                     "📅 Tu próxima cita:\n\n" +
@@ -686,13 +736,13 @@ public class CitasService {
                             "• Estado: %s\n" +
                             "• Dirección: %s\n\n" +
                             "💡 Recuerda llegar 10 minutos antes de tu cita.",
-                    proximaCita.getIdCita(),
-                    nombreDoctor,
-                    especialidad,
+                    proximaCita.idCita(),
+                    nombreDoctor(proximaCita),
+                    especialidad(proximaCita),
                     fechaFormateada,
-                    proximaCita.getHora() != null ? proximaCita.getHora().toString() : "No especificada",
-                    proximaCita.getRazon() != null ? proximaCita.getRazon() : "Consulta general",
-                    proximaCita.getEstado() != null ? proximaCita.getEstado() : "pendiente",
+                    proximaCita.hora() != null ? proximaCita.hora().toString() : "No especificada",
+                    proximaCita.razon() != null ? proximaCita.razon() : "Consulta general",
+                    proximaCita.estado() != null ? proximaCita.estado() : "pendiente",
                     direccion
             );
         } catch (Exception e) {
@@ -740,12 +790,11 @@ public class CitasService {
         """)
     public String consultarCitasPorEstado(Long idPaciente, String estado) {
         try {
-            Optional<Paciente> pacienteOpt = pacienteRepository.findById(idPaciente);
-            if (pacienteOpt.isEmpty()) {
+            if (!pacienteRepository.existsById(idPaciente)) {
                 return "❌ No se encontró el paciente con ID " + idPaciente;
             }
 
-            List<Citas> citas = citasRepository.findByPacienteAndEstado(idPaciente, estado);
+            List<CitaVista> citas = citasRepository.findVistasByPacienteAndEstado(idPaciente, estado);
 
             if (citas == null || citas.isEmpty()) {
                 String estadoTexto = (estado == null || estado.isEmpty()) ? "" : " " + estado + "s";
@@ -777,28 +826,8 @@ public class CitasService {
             DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
 
             for (int i = 0; i < citas.size(); i++) {
-                Citas cita = citas.get(i);
-
-                String nombreDoctor = "Doctor";
-                String especialidad = "Medicina General";
-
-                if (cita.getDoctor() != null) {
-                    Doctores doctor = cita.getDoctor();
-
-                    if (doctor.getDetallesUsuario() != null) {
-                        String nombre = doctor.getDetallesUsuario().getNombre();
-                        String apellido = doctor.getDetallesUsuario().getApellido();
-                        if (nombre != null || apellido != null) {
-                            nombreDoctor = ((nombre != null ? nombre : "") + " " + (apellido != null ? apellido : "")).trim();
-                        }
-                    }
-
-                    if (doctor.getEspecialidad() != null && doctor.getEspecialidad().getNombre() != null) {
-                        especialidad = doctor.getEspecialidad().getNombre();
-                    }
-                }
-
-                String fechaFormateada = cita.getFecha().format(dateFormatter);
+                CitaVista cita = citas.get(i);
+                String fechaFormateada = cita.fecha().format(dateFormatter);
 
                 resultado.append(String.format(
                         "%d. 📅 %s\n" +
@@ -809,12 +838,12 @@ public class CitasService {
                                 "   • Estado: %s\n",
                         i + 1,
                         fechaFormateada,
-                        cita.getIdCita(),
-                        nombreDoctor,
-                        especialidad,
-                        cita.getHora() != null ? cita.getHora().toString() : "No especificada",
-                        cita.getRazon() != null ? cita.getRazon() : "Consulta general",
-                        cita.getEstado() != null ? cita.getEstado() : "pendiente"
+                        cita.idCita(),
+                        nombreDoctor(cita),
+                        especialidad(cita),
+                        cita.hora() != null ? cita.hora().toString() : "No especificada",
+                        cita.razon() != null ? cita.razon() : "Consulta general",
+                        cita.estado() != null ? cita.estado() : "pendiente"
                 ));
 
                 if (i < citas.size() - 1) {
@@ -828,6 +857,23 @@ public class CitasService {
         }
     }
 
+    private static String nombreDoctor(CitaVista cita) {
+        if (cita.nombreDoctor() == null && cita.apellidoDoctor() == null) {
+            return "Doctor";
+        }
+        return ((cita.nombreDoctor() != null ? cita.nombreDoctor() : "") + " "
+                + (cita.apellidoDoctor() != null ? cita.apellidoDoctor() : "")).trim();
+    }
+
+    private static String especialidad(CitaVista cita) {
+        return cita.especialidad() != null ? cita.especialidad() : "Medicina General";
+    }
+
+    private String especialidadNoEncontrada(String especialidadNombre) {
+        return "❌ No se reconoce la especialidad: " + especialidadNombre
+                + ". Especialidades disponibles: " + resolvedorEspecialidades.disponibles();
+    }
+
     private CitaResponseDTO convertToDTO(Citas cita) {
         CitaResponseDTO dto = new CitaResponseDTO();
         dto.setIdCita(cita.getIdCita());
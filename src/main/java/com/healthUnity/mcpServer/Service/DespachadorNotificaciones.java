@@ -0,0 +1,85 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import com.healthUnity.mcpServer.Models.NotificacionOutbox;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Envía en segundo plano los correos de notificaciones_outbox.
+ * Corre en el hilo del planificador, un lote a la vez: arma los mensajes, los entrega juntos
+ * a PoolSmtp (conexiones ya abiertas) y marca los enviados con una sola sentencia.
+ * Las peticiones MCP nunca esperan al servidor de correo.
+ */
+@Component
+public class DespachadorNotificaciones {
+
+    private final OutboxNotificaciones outbox;
+    private final GmailService gmailService;
+    private final PoolSmtp poolSmtp;
+    private final NotificacionesProperties properties;
+
+    @Autowired
+    public DespachadorNotificaciones(OutboxNotificaciones outbox,
+                                     GmailService gmailService,
+                                     PoolSmtp poolSmtp,
+                                     NotificacionesProperties properties) {
+        this.outbox = outbox;
+        this.gmailService = gmailService;
+        this.poolSmtp = poolSmtp;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${healthunity.notificaciones.intervalo-ms:2000}")
+    public void despachar() {
+        List<NotificacionOutbox> lote;
+        do {
+            lote = outbox.reclamarLote();
+            enviar(lote);
+        } while (lote.size() == properties.getLote());
+    }
+
+    void enviar(List<NotificacionOutbox> lote) {
+        List<NotificacionOutbox> armadas = new ArrayList<>(lote.size());
+        List<MimeMessage> mensajes = new ArrayList<>(lote.size());
+        for (NotificacionOutbox notificacion : lote) {
+            try {
+                mensajes.add(armar(notificacion));
+                armadas.add(notificacion);
+            } catch (Exception e) {
+                fallo(notificacion, e);
+            }
+        }
+
+        Exception[] errores = poolSmtp.enviarLote(mensajes);
+        List<Long> enviadas = new ArrayList<>(armadas.size());
+        for (int i = 0; i < armadas.size(); i++) {
+            if (errores[i] == null) {
+                enviadas.add(armadas.get(i).getIdNotificacion());
+            } else {
+                fallo(armadas.get(i), errores[i]);
+            }
+        }
+        outbox.marcarEnviadas(enviadas);
+    }
+
+    private MimeMessage armar(NotificacionOutbox notificacion) throws Exception {
+        return switch (notificacion.getTipo()) {
+            case OutboxNotificaciones.CONFIRMACION_CITA ->
+                    gmailService.crearConfirmacion(outbox.leerCorreoCita(notificacion));
+            case OutboxNotificaciones.RECORDATORIO_CITA ->
+                    gmailService.crearRecordatorio(outbox.leerCorreoCita(notificacion));
+            default -> throw new IllegalStateException("Tipo de notificación desconocido: " + notificacion.getTipo());
+        };
+    }
+
+    private void fallo(NotificacionOutbox notificacion, Exception e) {
+        System.err.println("Error al enviar la notificación " + notificacion.getIdNotificacion() + ": " + e.getMessage());
+        outbox.marcarFallo(notificacion, e);
+    }
+}
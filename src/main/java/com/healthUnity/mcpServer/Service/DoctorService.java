@@ -1,12 +1,14 @@
 package com.healthUnity.mcpServer.Service;
 
-import com.healthUnity.mcpServer.DTO.FavoritoDoctorProjection;
+import com.healthUnity.mcpServer.DTO.AltaFavorito;
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FavoritoQuitado;
+import com.healthUnity.mcpServer.DTO.Response.PaginatedDoctorResponse;
+import com.healthUnity.mcpServer.Models.DetallesUsuario;
 import com.healthUnity.mcpServer.Models.Doctores;
-import com.healthUnity.mcpServer.Models.FavoritosDoctores;
-import com.healthUnity.mcpServer.Models.Paciente;
+import com.healthUnity.mcpServer.Models.Imagenes;
 import com.healthUnity.mcpServer.Repositories.DoctorRepository;
-import com.healthUnity.mcpServer.Repositories.FavoritoDoctorRepository;
-import com.healthUnity.mcpServer.Repositories.PacienteRepository;
+import com.healthUnity.mcpServer.Repositories.EscrituraFavoritosRepository;
 import org.springframework.ai.tool.annotation.Tool;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -18,14 +20,103 @@ import java.util.Optional;
 @Service
 public class DoctorService {
     private final DoctorRepository doctorRepository;
-    private final PacienteRepository pacienteRepository;
-    private final FavoritoDoctorRepository favoritoDoctorRepository;
+    private final EscrituraFavoritosRepository escrituraFavoritosRepository;
+    private final PaginacionDoctores paginacionDoctores;
+    private final FavoritosPacientes favoritosPacientes;
 
     @Autowired
-    public DoctorService(DoctorRepository doctorRepository, PacienteRepository pacienteRepository, FavoritoDoctorRepository favoritoDoctorRepository) {
+    public DoctorService(DoctorRepository doctorRepository, EscrituraFavoritosRepository escrituraFavoritosRepository, PaginacionDoctores paginacionDoctores, FavoritosPacientes favoritosPacientes) {
         this.doctorRepository = doctorRepository;
-        this.pacienteRepository = pacienteRepository;
-        this.favoritoDoctorRepository = favoritoDoctorRepository;
+        this.escrituraFavoritosRepository = escrituraFavoritosRepository;
+        this.paginacionDoctores = paginacionDoctores;
+        this.favoritosPacientes = favoritosPacientes;
+    }
+
+    @Tool(description = """
+            EXPLORAR DOCTORES - Recorre el directorio completo de doctores página por página.
+            
+            USA ESTE MÉTODO CUANDO:
+            - El usuario quiere "ver todos los doctores", "ver más doctores", "la siguiente página"
+            - Quiere navegar el directorio ordenado por calificación, número de reseñas o experiencia
+            - Busca un doctor por nombre y puede haber muchos resultados
+            
+            PARÁMETROS (todos opcionales):
+            - orden: 'rating' (por defecto), 'reviews' o 'relevancia' (experiencia)
+            - idEspecialidad: ID de la especialidad para filtrar (ver lista de especialidades)
+            - busqueda: nombre y/o apellido del doctor; no importan tildes ni mayúsculas
+              y tolera errores de tipeo (ej: 'jose perez' encuentra a 'José Pérez')
+            - tamanio: doctores por página (por defecto 10, máximo 50)
+            - cursor: el nextCursor de la respuesta anterior para pedir la página siguiente;
+              vacío para la primera página
+            
+            RETORNA: página con content (idDoctor, nombre, apellido, especialidad, rating, number_reviews),
+            currentPage (empieza en 0), totalItems, totalPages, hasNext y nextCursor.
+            
+            IMPORTANTE: Para la página siguiente repite orden, idEspecialidad y busqueda
+            y pasa el nextCursor recibido. Si hasNext es false no hay más páginas.
+            """)
+    public PaginatedDoctorResponse explorarDoctores(String orden, Long idEspecialidad, String busqueda,
+                                                    Integer tamanio, String cursor) {
+        return paginacionDoctores.pagina(orden, idEspecialidad, busqueda, tamanio, cursor);
+    }
+
+    @Tool(description = """
+            VER PERFIL DE DOCTOR - Muestra el perfil completo de un doctor con su galería de imágenes.
+
+            USA ESTE MÉTODO CUANDO:
+            - El usuario quiere "ver el perfil", "más información" o "fotos" de un doctor específico
+            - Quiere conocer la experiencia, descripción o dirección del consultorio antes de agendar
+
+            PARÁMETROS REQUERIDOS:
+            - idDoctor: ID del doctor (REQUERIDO)
+
+            RETORNA: String con nombre, especialidad, años de experiencia, descripción,
+            dirección, foto de perfil y las URLs de la galería del doctor.
+            """)
+    @Transactional(readOnly = true)
+    public String verPerfilDoctor(Long idDoctor) {
+        try {
+            Optional<Doctores> doctorOptional = doctorRepository.findPerfilByIdDoctor(idDoctor);
+            if (doctorOptional.isEmpty()) {
+                return "Error: Doctor no encontrado con ID " + idDoctor;
+            }
+            Doctores doctor = doctorOptional.get();
+            DetallesUsuario detalles = doctor.getDetallesUsuario();
+
+            StringBuilder resultado = new StringBuilder();
+            resultado.append(String.format("👨‍⚕️ Dr(a). %s %s\n",
+                    detalles != null ? detalles.getNombre() : "",
+                    detalles != null ? detalles.getApellido() : ""));
+            resultado.append(String.format("   🏥 Especialidad: %s\n",
+                    doctor.getEspecialidad() != null ? doctor.getEspecialidad().getNombre() : "Sin especialidad"));
+            resultado.append(String.format("   🎓 Experiencia: %d años\n", doctor.getExperiencia()));
+            if (doctor.getDetalles() != null) {
+                resultado.append(String.format("   📝 %s\n", doctor.getDetalles()));
+            }
+            if (detalles != null && detalles.getDireccion() != null) {
+                resultado.append(String.format("   📍 Dirección: %s\n", detalles.getDireccion()));
+            }
+            if (detalles != null && detalles.getUrlImagen() != null) {
+                resultado.append(String.format("   🖼️ Foto: %s\n", detalles.getUrlImagen()));
+            }
+
+            List<Imagenes> imagenes = doctor.getGaleria() != null && doctor.getGaleria().getImagenes() != null
+                    ? doctor.getGaleria().getImagenes()
+                    : List.of();
+            if (imagenes.isEmpty()) {
+                resultado.append("   📷 Sin imágenes en la galería\n");
+            } else {
+                resultado.append(String.format("   📷 Galería (%d imágenes):\n", imagenes.size()));
+                for (Imagenes imagen : imagenes) {
+                    resultado.append("      • ").append(imagen.getUrlImagen()).append("\n");
+                }
+            }
+            resultado.append(String.format("   🆔 ID Doctor: %d (usa este para agendar citas)", doctor.getIdDoctor()));
+
+            return resultado.toString();
+        } catch (Exception e) {
+            return "Error al obtener el perfil del doctor: " + e.getMessage();
+        }
     }
 
     @Tool(description = """
@@ -55,15 +146,13 @@ public class DoctorService {
         - El ID del favorito se usa para eliminar de la lista de favoritos
         - Son IDs diferentes, no los confundas
         """)
-    @Transactional(readOnly = true)
     public String getDoctoresFavoritos(Long idPaciente) {
         try {
-            // 1. Obtener los datos usando la Projection
-            List<FavoritoDoctorProjection> projections =
-                    favoritoDoctorRepository.findAllFavoritosDtoByPacienteId(idPaciente);
+            // 1. Obtener los favoritos de la cache del paciente (se leen de la base si no estaban)
+            List<FavoritoDoctor> favoritos = favoritosPacientes.de(idPaciente);
 
             // 2. Validar si hay favoritos
-            if (projections == null || projections.isEmpty()) {
+            if (favoritos.isEmpty()) {
                 return "No tienes doctores guardados en favoritos aún. Puedes agregar doctores a favoritos para acceder rápidamente a ellos.";
             }
 
@@ -72,40 +161,39 @@ public class DoctorService {
             resultado.append("📋 TUS DOCTORES FAVORITOS:\n");
             resultado.append("═".repeat(50)).append("\n\n");
 
-            for (int i = 0; i < projections.size(); i++) {
-                FavoritoDoctorProjection p = projections.get(i);
+            for (int i = 0; i < favoritos.size(); i++) {
+                FavoritoDoctor p = favoritos.get(i);
 
                 resultado.append(String.format("👨‍⚕️ %d. Dr(a). %s %s\n",
                         i + 1,
-                        p.getNombre(),
-                        p.getApellido()
+                        p.nombre(),
+                        p.apellido()
                 ));
 
-                resultado.append(String.format("   🏥 Especialidad: %s\n", p.getEspecialidad()));
+                resultado.append(String.format("   🏥 Especialidad: %s\n", p.especialidad()));
 
                 // Rating y reseñas
-                int numReviews = p.getNumber_reviews() != null ? p.getNumber_reviews() : 0;
-                if (p.getRating() != null) {
+                if (p.reviews() > 0) {
                     resultado.append(String.format("   ⭐ Calificación: %.1f/5.0 (%d reseñas)\n",
-                            p.getRating(),
-                            numReviews
+                            p.rating(),
+                            p.reviews()
                     ));
                 } else {
                     resultado.append("   ⭐ Sin calificaciones aún\n");
                 }
 
                 resultado.append(String.format("   🆔 ID Doctor: %d (usa este para agendar citas)\n",
-                        p.getIdDoctor()
+                        p.idDoctor()
                 ));
                 resultado.append(String.format("   🔖 ID Favorito: %d (usa este para eliminar de favoritos)\n",
-                        p.getIdFavorito()
+                        p.idFavorito()
                 ));
 
                 resultado.append("\n");
             }
 
             resultado.append("═".repeat(50)).append("\n");
-            resultado.append(String.format("Total: %d doctor(es) en favoritos", projections.size()));
+            resultado.append(String.format("Total: %d doctor(es) en favoritos", favoritos.size()));
 
             return resultado.toString();
         } catch (Exception e) {
@@ -129,40 +217,24 @@ public class DoctorService {
             
             IMPORTANTE: Verifica que tanto el doctor como el paciente existan antes de agregar.
             """)
-    @Transactional
     public String añadirFavoritos(Long idDoctor, Long idPaciente) {
         try {
-            Optional<Doctores> doctorOptional = doctorRepository.findById(idDoctor);
-            if (doctorOptional.isEmpty()) {
+            // Una sola sentencia: valida doctor y paciente, inserta si no estaba y trae el nombre para confirmar
+            AltaFavorito alta = escrituraFavoritosRepository.agregar(idPaciente, idDoctor);
+            if (!alta.existeDoctor()) {
                 return "Error: Doctor no encontrado con ID " + idDoctor;
             }
-
-            Optional<Paciente> pacienteOptional = pacienteRepository.findById(idPaciente);
-            if (pacienteOptional.isEmpty()) {
+            if (!alta.existePaciente()) {
                 return "Error: Paciente no encontrado con ID " + idPaciente;
             }
-
-            Doctores doctor = doctorOptional.get();
-            Paciente paciente = pacienteOptional.get();
-
-            // Verificar si ya existe en favoritos
-            boolean yaExiste = favoritoDoctorRepository.existsByDoctorIdDoctorAndPacienteIdPaciente(idDoctor, idPaciente);
-            if (yaExiste) {
+            FavoritoDoctor favorito = alta.favorito();
+            if (favorito == null) {
                 return "Este doctor ya está en tus favoritos";
             }
+            favoritosPacientes.agregado(idPaciente, favorito);
 
-            FavoritosDoctores favoritoDoctores = new FavoritosDoctores();
-            favoritoDoctores.setDoctor(doctor);
-            favoritoDoctores.setPaciente(paciente);
-            favoritoDoctorRepository.save(favoritoDoctores);
-
-            // Acceder a los datos dentro de la transacción
-            String nombreDoctor = doctor.getDetallesUsuario() != null ?
-                    doctor.getDetallesUsuario().getNombre() : "Doctor";
-            String nombrePaciente = paciente.getDetallesUsuario() != null ?
-                    paciente.getDetallesUsuario().getNombre() : "Paciente";
-            String especialidad = doctor.getEspecialidad() != null ?
-                    doctor.getEspecialidad().getNombre() : "";
+            String nombreDoctor = favorito.nombre() != null ? favorito.nombre() : "Doctor";
+            String especialidad = favorito.especialidad() != null ? favorito.especialidad() : "";
 
             return String.format("✅ Doctor %s (%s) agregado exitosamente a favoritos",
                     nombreDoctor, especialidad);
@@ -187,22 +259,15 @@ public class DoctorService {
             IMPORTANTE: Se requiere el ID del favorito, no el ID del doctor. 
             Este ID se obtiene al listar los favoritos del paciente.
             """)
-    @Transactional
     public String eliminarFavoritos(Long idFavorito) {
         try {
-            Optional<FavoritosDoctores> favoritoDoctorOptional = favoritoDoctorRepository.findById(idFavorito);
-            if (favoritoDoctorOptional.isEmpty()) {
+            Optional<FavoritoQuitado> quitado = escrituraFavoritosRepository.quitar(idFavorito);
+            if (quitado.isEmpty()) {
                 return "Error: Favorito no encontrado con ID " + idFavorito;
             }
+            favoritosPacientes.quitado(quitado.get());
 
-            FavoritosDoctores favorito = favoritoDoctorOptional.get();
-
-            // Acceder al nombre dentro de la transacción
-            String nombreDoctor = favorito.getDoctor() != null &&
-                    favorito.getDoctor().getDetallesUsuario() != null ?
-                    favorito.getDoctor().getDetallesUsuario().getNombre() : "Doctor";
-
-            favoritoDoctorRepository.delete(favorito);
+            String nombreDoctor = quitado.get().nombreDoctor() != null ? quitado.get().nombreDoctor() : "Doctor";
 
             return "✅ Doctor " + nombreDoctor + " eliminado exitosamente de favoritos";
         } catch (Exception e) {
@@ -0,0 +1,161 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthUnity.mcpServer.Config.PacientesProperties;
+import com.healthUnity.mcpServer.DTO.DoctorRanking;
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FavoritoQuitado;
+import com.healthUnity.mcpServer.Repositories.ListadoDoctoresRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lista de favoritos de cada paciente en memoria, tal como la muestra getDoctoresFavoritos.
+ * Las altas y bajas de DoctorService la escriben después de ir a la base (write-through), y
+ * RankingDoctores.sincronizar le pasa los doctores cuyo resumen de opiniones cambió: esos ratings se guardan
+ * con el número de sincronización y cada lista los aplica al leerse si son posteriores a los suyos.
+ * Lo que escriba otra aplicación se ve al vencer la lista.
+ * Una carga que leyó la base antes de un alta o baja del paciente no se guarda (contador de escrituras por franja).
+ * Acotada por healthunity.pacientes.favoritos-maximo-filas: al llenarse salen los pacientes menos usados.
+ * Tamaño, aciertos y fallos en /actuator/metrics como cache.* {cache=pacientes.favoritos}.
+ */
+@Service
+public class FavoritosPacientes {
+    private static final int FRANJAS = 1024;
+
+    private final ListadoDoctoresRepository listadoDoctoresRepository;
+    private final Cache<Long, Lista> porPaciente;
+    // Escrituras por franja de pacientes: una carga que empezó antes de la última no se guarda
+    private final AtomicLongArray escrituras = new AtomicLongArray(FRANJAS);
+    // Último rating de cada doctor que cambió desde el arranque; a lo sumo uno por doctor
+    private final ConcurrentHashMap<Long, RatingNuevo> ratings = new ConcurrentHashMap<>();
+    private final AtomicLong sincronizaciones = new AtomicLong();
+
+    // La lista de un paciente y hasta qué sincronización de ratings ya refleja
+    private record Lista(List<FavoritoDoctor> favoritos, long sincronizacion) {
+    }
+
+    private record RatingNuevo(double rating, int reviews, long sincronizacion) {
+    }
+
+    @Autowired
+    public FavoritosPacientes(ListadoDoctoresRepository listadoDoctoresRepository,
+                              PacientesProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.listadoDoctoresRepository = listadoDoctoresRepository;
+        this.porPaciente = Caffeine.newBuilder()
+                // Una lista vacía también ocupa su entrada
+                .maximumWeight(properties.getFavoritosMaximoFilas())
+                .<Long, Lista>weigher((idPaciente, lista) -> 1 + lista.favoritos().size())
+                .expireAfterWrite(Duration.ofSeconds(properties.getFavoritosTtlSegundos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, porPaciente, "pacientes.favoritos");
+    }
+
+    /**
+     * Los favoritos del paciente en el orden en que los agregó. La lista no se puede modificar.
+     */
+    public List<FavoritoDoctor> de(long idPaciente) {
+        Lista lista = porPaciente.getIfPresent(idPaciente);
+        if (lista == null) {
+            lista = cargar(idPaciente);
+        }
+        return conRatingsNuevos(idPaciente, lista);
+    }
+
+    /**
+     * Agrega a la lista cacheada el favorito recién insertado. Si la lista se leyó de la base
+     * después del INSERT ya lo trae, y no se repite.
+     */
+    public void agregado(long idPaciente, FavoritoDoctor favorito) {
+        escrituras.incrementAndGet(franja(idPaciente));
+        porPaciente.asMap().computeIfPresent(idPaciente, (id, lista) -> {
+            if (lista.favoritos().stream().anyMatch(f -> f.idFavorito() == favorito.idFavorito())) {
+                return lista;
+            }
+            List<FavoritoDoctor> nuevos = new ArrayList<>(lista.favoritos().size() + 1);
+            nuevos.addAll(lista.favoritos());
+            nuevos.add(favorito);
+            return new Lista(List.copyOf(nuevos), lista.sincronizacion());
+        });
+    }
+
+    public void quitado(FavoritoQuitado quitado) {
+        escrituras.incrementAndGet(franja(quitado.idPaciente()));
+        porPaciente.asMap().computeIfPresent(quitado.idPaciente(), (id, lista) -> new Lista(
+                lista.favoritos().stream().filter(f -> f.idFavorito() != quitado.idFavorito()).toList(),
+                lista.sincronizacion()));
+    }
+
+    /**
+     * Registra el rating y las reseñas nuevos de los doctores; las listas los toman al leerse.
+     * Cuesta lo mismo sin importar cuántas listas haya en memoria.
+     * El número de sincronización se publica al final: quien lo vea ya encuentra todos sus ratings.
+     */
+    public synchronized void ratingsCambiados(Collection<DoctorRanking> doctores) {
+        if (doctores.isEmpty()) {
+            return;
+        }
+        long sincronizacion = sincronizaciones.get() + 1;
+        for (DoctorRanking doctor : doctores) {
+            ratings.put(doctor.idDoctor(), new RatingNuevo(doctor.rating(), doctor.reviews(), sincronizacion));
+        }
+        sincronizaciones.set(sincronizacion);
+    }
+
+    private Lista cargar(long idPaciente) {
+        int franja = franja(idPaciente);
+        long escriturasVistas = escrituras.get(franja);
+        // Solo los ratings sincronizados antes de empezar la consulta vienen seguro en ella
+        long sincronizacion = sincronizaciones.get();
+        Lista cargada = new Lista(
+                List.copyOf(listadoDoctoresRepository.favoritosDePaciente(idPaciente)), sincronizacion);
+        porPaciente.asMap().compute(idPaciente, (id, previa) -> {
+            if (previa != null) {
+                return previa;
+            }
+            // Un alta o baja terminó mientras se leía: lo leído puede no incluirla
+            return escrituras.get(franja) == escriturasVistas ? cargada : null;
+        });
+        return cargada;
+    }
+
+    private List<FavoritoDoctor> conRatingsNuevos(long idPaciente, Lista lista) {
+        if (ratings.isEmpty() || lista.sincronizacion() == sincronizaciones.get()) {
+            return lista.favoritos();
+        }
+        long sincronizacion = sincronizaciones.get();
+        boolean cambio = false;
+        List<FavoritoDoctor> favoritos = new ArrayList<>(lista.favoritos().size());
+        for (FavoritoDoctor f : lista.favoritos()) {
+            RatingNuevo nuevo = ratings.get(f.idDoctor());
+            if (nuevo != null && nuevo.sincronizacion() > lista.sincronizacion()
+                    && (nuevo.rating() != f.rating() || nuevo.reviews() != f.reviews())) {
+                f = new FavoritoDoctor(f.idFavorito(), f.idDoctor(), f.nombre(), f.apellido(), f.urlImagen(),
+                        f.especialidad(), nuevo.rating(), nuevo.reviews());
+                cambio = true;
+            }
+            favoritos.add(f);
+        }
+        Lista actualizada = new Lista(cambio ? List.copyOf(favoritos) : lista.favoritos(), sincronizacion);
+        // Si otra escritura cambió la entrada mientras tanto, se deja la suya
+        porPaciente.asMap().replace(idPaciente, lista, actualizada);
+        return actualizada.favoritos();
+    }
+
+    private static int franja(long idPaciente) {
+        return (int) Math.floorMod(idPaciente, (long) FRANJAS);
+    }
+}
@@ -0,0 +1,55 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Models.HorariosDoctor;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalida el horario en memoria del doctor y su colección de horarios en la cache de segundo nivel
+ * cada vez que se escribe uno de sus bloques. Se invalida otra vez al confirmar la transacción
+ * para no dejar en el índice ni en la cache una lectura hecha antes del commit.
+ */
+@Component
+public class HorariosDoctorListener {
+
+    // ObjectProvider: el listener se crea junto al EntityManagerFactory, antes que el índice y la cache
+    private final ObjectProvider<IndiceHorarios> indiceHorarios;
+    private final ObjectProvider<CacheReferencia> cacheReferencia;
+
+    @Autowired
+    public HorariosDoctorListener(ObjectProvider<IndiceHorarios> indiceHorarios,
+                                  ObjectProvider<CacheReferencia> cacheReferencia) {
+        this.indiceHorarios = indiceHorarios;
+        this.cacheReferencia = cacheReferencia;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiar(HorariosDoctor horario) {
+        if (horario.getDoctor() == null) {
+            return;
+        }
+        Long idDoctor = horario.getDoctor().getIdDoctor();
+        IndiceHorarios indice = indiceHorarios.getObject();
+        CacheReferencia cache = cacheReferencia.getObject();
+        indice.invalidar(idDoctor);
+        cache.invalidarHorarios(idDoctor);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    indice.invalidar(idDoctor);
+                    cache.invalidarHorarios(idDoctor);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthUnity.mcpServer.Config.PacientesProperties;
+import com.healthUnity.mcpServer.Models.Paciente;
+import com.healthUnity.mcpServer.Repositories.PacienteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Correo -> id_paciente en memoria, para la consulta con que empieza casi cada conversación.
+ * Las claves van sin espacios alrededor y en minúsculas, igual que la función normalizar_gmail de schema.sql;
+ * sin entrada se busca por el índice ix_detalles_usuario_gmail_normalizado y el paciente siempre se lee por su clave primaria,
+ * así el tiempo no depende del tamaño de las tablas.
+ * Una entrada vieja (el backend le cambió el correo al paciente) se detecta al leerlo y se descarta;
+ * los correos sin paciente no se guardan, para ver en seguida a quien se registre.
+ * Tamaño, aciertos y fallos en /actuator/metrics como cache.* {cache=pacientes.identidades}.
+ */
+@Service
+public class IdentidadesPacientes {
+    private static final String ESPACIOS = " \t\n\r\f\u000B";
+
+    private final PacienteRepository pacienteRepository;
+    private final Cache<String, Long> porGmail;
+
+    @Autowired
+    public IdentidadesPacientes(PacienteRepository pacienteRepository,
+                                PacientesProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.pacienteRepository = pacienteRepository;
+        this.porGmail = Caffeine.newBuilder()
+                .maximumSize(properties.getIdentidadesMaximo())
+                .expireAfterWrite(Duration.ofSeconds(properties.getIdentidadesTtlSegundos()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, porGmail, "pacientes.identidades");
+    }
+
+    /**
+     * El paciente con ese correo (sin distinguir mayúsculas ni espacios alrededor), con sus detalles.
+     */
+    public Optional<Paciente> buscar(String gmail) {
+        String clave = clave(gmail);
+        if (clave.isEmpty()) {
+            return Optional.empty();
+        }
+        Long cacheado = porGmail.getIfPresent(clave);
+        if (cacheado != null) {
+            Optional<Paciente> paciente = pacienteRepository.findById(cacheado)
+                    .filter(p -> p.getDetallesUsuario() != null && clave.equals(clave(p.getDetallesUsuario().getGmail())));
+            if (paciente.isPresent()) {
+                return paciente;
+            }
+            porGmail.invalidate(clave);
+        }
+        Optional<Long> id = pacienteRepository.findIdByGmailNormalizado(clave);
+        id.ifPresent(i -> porGmail.put(clave, i));
+        return id.flatMap(pacienteRepository::findById);
+    }
+
+    /**
+     * Registra el correo vigente del paciente después de escribirlo.
+     */
+    public void guardar(String gmail, Long idPaciente) {
+        String clave = clave(gmail);
+        if (!clave.isEmpty()) {
+            porGmail.put(clave, idPaciente);
+        }
+    }
+
+    public void invalidar(String gmail) {
+        porGmail.invalidate(clave(gmail));
+    }
+
+    /**
+     * Lo mismo que normalizar_gmail en la base: quita espacio, \t, \n, \r, \f y \v de los extremos
+     * y pasa solo A-Z a minúsculas. strip() o toLowerCase() darían claves que el índice no encuentra.
+     */
+    static String clave(String gmail) {
+        if (gmail == null) {
+            return "";
+        }
+        int desde = 0;
+        int hasta = gmail.length();
+        while (desde < hasta && ESPACIOS.indexOf(gmail.charAt(desde)) >= 0) {
+            desde++;
+        }
+        while (hasta > desde && ESPACIOS.indexOf(gmail.charAt(hasta - 1)) >= 0) {
+            hasta--;
+        }
+        StringBuilder clave = new StringBuilder(hasta - desde);
+        for (int i = desde; i < hasta; i++) {
+            char c = gmail.charAt(i);
+            clave.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        return clave.toString();
+    }
+}
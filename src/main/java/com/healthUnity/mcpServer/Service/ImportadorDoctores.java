@@ -0,0 +1,296 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.healthUnity.mcpServer.Config.ImportacionProperties;
+import com.healthUnity.mcpServer.DTO.ErrorImportacion;
+import com.healthUnity.mcpServer.DTO.FilaImportacionDoctor;
+import com.healthUnity.mcpServer.DTO.ProgresoImportacion;
+import com.healthUnity.mcpServer.DTO.ResultadoImportacion;
+import com.healthUnity.mcpServer.Repositories.ImportacionDoctoresRepository;
+import com.healthUnity.mcpServer.Utils.NormalizadorTexto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Alta masiva de doctores de una clínica desde JSON lines: una línea por doctor con sus datos de usuario,
+ * el nombre de su especialidad (se crea si no existe) y sus bloques de horario semanal.
+ * Lee línea a línea y escribe cada healthunity.importacion.lote doctores por JDBC, así la memoria no crece
+ * con el archivo. Las líneas inválidas se descartan y se informan con su número; el resto va en una sola
+ * transacción, y solo después de confirmarla se recargan los índices en memoria y la cache de segundo nivel.
+ * Los totales de cada importación confirmada se suman en healthunity.importacion.{lineas,doctores,horarios,descartadas}
+ * y las que se revierten en healthunity.importacion.fallidas; el detalle de las líneas va en el resultado.
+ */
+@Service
+public class ImportadorDoctores {
+    private final ImportacionDoctoresRepository importacionRepository;
+    private final ImportacionProperties properties;
+    private final ObjectReader lector;
+    private final TransactionTemplate transactionTemplate;
+    private final ResolvedorEspecialidades resolvedorEspecialidades;
+    private final CatalogoEspecialidades catalogoEspecialidades;
+    private final IndiceHorarios indiceHorarios;
+    private final RankingDoctores rankingDoctores;
+    private final CacheReferencia cacheReferencia;
+    private final IndiceNombresDoctores indiceNombresDoctores;
+    private final Counter lineasLeidas;
+    private final Counter doctoresCreados;
+    private final Counter horariosCreados;
+    private final Counter lineasDescartadas;
+    private final Counter importacionesFallidas;
+
+    @Autowired
+    public ImportadorDoctores(ImportacionDoctoresRepository importacionRepository,
+                              ImportacionProperties properties,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              ResolvedorEspecialidades resolvedorEspecialidades,
+                              CatalogoEspecialidades catalogoEspecialidades,
+                              IndiceHorarios indiceHorarios,
+                              RankingDoctores rankingDoctores,
+                              CacheReferencia cacheReferencia,
+                              IndiceNombresDoctores indiceNombresDoctores,
+                              MeterRegistry meterRegistry) {
+        this.importacionRepository = importacionRepository;
+        this.properties = properties;
+        this.lector = objectMapper.readerFor(FilaImportacionDoctor.class);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.resolvedorEspecialidades = resolvedorEspecialidades;
+        this.catalogoEspecialidades = catalogoEspecialidades;
+        this.indiceHorarios = indiceHorarios;
+        this.rankingDoctores = rankingDoctores;
+        this.cacheReferencia = cacheReferencia;
+        this.indiceNombresDoctores = indiceNombresDoctores;
+        this.lineasLeidas = meterRegistry.counter("healthunity.importacion.lineas");
+        this.doctoresCreados = meterRegistry.counter("healthunity.importacion.doctores");
+        this.horariosCreados = meterRegistry.counter("healthunity.importacion.horarios");
+        this.lineasDescartadas = meterRegistry.counter("healthunity.importacion.descartadas");
+        this.importacionesFallidas = meterRegistry.counter("healthunity.importacion.fallidas");
+    }
+
+    /**
+     * Importa healthunity.importacion.archivo al arrancar, si está configurado.
+     * El resultado queda en las métricas healthunity.importacion.*; un archivo que no se puede leer
+     * cuenta como importación fallida.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void importarArchivoConfigurado() {
+        String archivo = properties.getArchivo();
+        if (archivo == null || archivo.isBlank()) {
+            return;
+        }
+        try (Reader entrada = Files.newBufferedReader(Path.of(archivo))) {
+            importar(entrada, progreso -> {
+            });
+        } catch (IOException e) {
+            importacionesFallidas.increment();
+        } catch (RuntimeException e) {
+            // importar ya la contó
+        }
+    }
+
+    /**
+     * Importa todas las líneas de {@code entrada}. {@code progreso} recibe los totales después de cada lote.
+     * Si falla una escritura no queda nada importado y la excepción se propaga.
+     */
+    public ResultadoImportacion importar(Reader entrada, Consumer<ProgresoImportacion> progreso) {
+        long inicio = System.nanoTime();
+        Importacion importacion;
+        try {
+            importacion = transactionTemplate.execute(status -> {
+                Importacion actual = new Importacion(progreso);
+                try {
+                    actual.leer(entrada instanceof BufferedReader b ? b : new BufferedReader(entrada));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return actual;
+            });
+        } catch (RuntimeException e) {
+            importacionesFallidas.increment();
+            throw e;
+        }
+        if (importacion.doctores > 0) {
+            recargarCaches();
+        }
+        ProgresoImportacion totales = importacion.totales();
+        lineasLeidas.increment(totales.lineas());
+        doctoresCreados.increment(totales.doctores());
+        horariosCreados.increment(totales.horarios());
+        lineasDescartadas.increment(totales.conError());
+        return new ResultadoImportacion(totales, List.copyOf(importacion.errores),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    /**
+     * Cada índice reemplaza su contenido de una vez. El de nombres va al final: un doctor nuevo
+     * solo se puede encontrar cuando su especialidad, su horario y su ranking ya están cargados.
+     */
+    private void recargarCaches() {
+        cacheReferencia.invalidarTodo();
+        resolvedorEspecialidades.recargar();
+        catalogoEspecialidades.recargar();
+        indiceHorarios.recargar();
+        rankingDoctores.recargar();
+        indiceNombresDoctores.recargar();
+    }
+
+    /**
+     * El error de la fila, o null si se puede importar.
+     */
+    static String validar(FilaImportacionDoctor fila) {
+        if (vacio(fila.nombre()) || vacio(fila.apellido())) {
+            return "Faltan el nombre o el apellido";
+        }
+        if (vacio(fila.especialidad())) {
+            return "Falta la especialidad";
+        }
+        if (fila.experiencia() == null || fila.experiencia() < 0) {
+            return "La experiencia debe ser un número de años mayor o igual a 0";
+        }
+        if (fila.horarios() == null) {
+            return null;
+        }
+        for (int i = 0; i < fila.horarios().size(); i++) {
+            FilaImportacionDoctor.Bloque bloque = fila.horarios().get(i);
+            String error = validar(bloque);
+            if (error != null) {
+                return "Horario " + (i + 1) + ": " + error;
+            }
+        }
+        List<FilaImportacionDoctor.Bloque> ordenados = fila.horarios().stream()
+                .sorted(Comparator.comparing(FilaImportacionDoctor.Bloque::dia)
+                        .thenComparing(FilaImportacionDoctor.Bloque::inicio))
+                .toList();
+        for (int i = 1; i < ordenados.size(); i++) {
+            FilaImportacionDoctor.Bloque anterior = ordenados.get(i - 1);
+            FilaImportacionDoctor.Bloque bloque = ordenados.get(i);
+            if (anterior.dia().equals(bloque.dia()) && bloque.inicio().isBefore(anterior.fin())) {
+                return "Los horarios " + anterior.inicio() + "-" + anterior.fin() + " y "
+                        + bloque.inicio() + "-" + bloque.fin() + " del día " + bloque.dia() + " se superponen";
+            }
+        }
+        return null;
+    }
+
+    private static String validar(FilaImportacionDoctor.Bloque bloque) {
+        if (bloque == null || bloque.dia() == null || bloque.inicio() == null || bloque.fin() == null) {
+            return "faltan el día, el inicio o el fin";
+        }
+        if (bloque.dia() < 1 || bloque.dia() > 7) {
+            return "el día debe ir de 1 (lunes) a 7 (domingo)";
+        }
+        if (!bloque.inicio().isBefore(bloque.fin())) {
+            return "el inicio debe ser anterior al fin";
+        }
+        // El índice de horarios trabaja en unidades de 5 minutos
+        if (bloque.inicio().toSecondOfDay() % (IndiceHorarios.MINUTOS_POR_UNIDAD * 60) != 0
+                || bloque.fin().toSecondOfDay() % (IndiceHorarios.MINUTOS_POR_UNIDAD * 60) != 0) {
+            return "las horas deben ser múltiplos de " + IndiceHorarios.MINUTOS_POR_UNIDAD + " minutos";
+        }
+        return null;
+    }
+
+    private static boolean vacio(String texto) {
+        return texto == null || texto.isBlank();
+    }
+
+    /**
+     * Estado de una importación en curso, dentro de su transacción.
+     */
+    private final class Importacion {
+        private final Consumer<ProgresoImportacion> progreso;
+        // Nombre normalizado -> id; se completa con las especialidades que se crean
+        private final Map<String, Long> especialidades = new HashMap<>();
+        private final List<FilaImportacionDoctor> lote = new ArrayList<>();
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+        private long lineas;
+        private long doctores;
+        private long horarios;
+        private long conError;
+
+        Importacion(Consumer<ProgresoImportacion> progreso) {
+            this.progreso = progreso;
+            importacionRepository.especialidades().forEach((nombre, id) ->
+                    especialidades.putIfAbsent(NormalizadorTexto.normalizar(nombre), id));
+        }
+
+        void leer(BufferedReader entrada) throws IOException {
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                lineas++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                FilaImportacionDoctor fila;
+                try {
+                    fila = lector.readValue(linea);
+                } catch (JsonProcessingException e) {
+                    error("JSON inválido: " + e.getOriginalMessage());
+                    continue;
+                }
+                String error = validar(fila);
+                if (error != null) {
+                    error(error);
+                    continue;
+                }
+                lote.add(fila);
+                if (lote.size() >= properties.getLote()) {
+                    escribirLote();
+                }
+            }
+            if (!lote.isEmpty()) {
+                escribirLote();
+            }
+        }
+
+        private void escribirLote() {
+            int n = lote.size();
+            Long[] idsEspecialidad = new Long[n];
+            for (int i = 0; i < n; i++) {
+                String nombre = lote.get(i).especialidad().trim();
+                idsEspecialidad[i] = especialidades.computeIfAbsent(NormalizadorTexto.normalizar(nombre),
+                        clave -> importacionRepository.crearEspecialidad(nombre));
+            }
+            Long[] idsDetalle = importacionRepository.reservarIds("detalles_usuario", "id_detalle_usuario", n);
+            Long[] idsDoctor = importacionRepository.reservarIds("doctores", "id_doctor", n);
+            importacionRepository.insertarDetalles(lote, idsDetalle);
+            importacionRepository.insertarDoctores(lote, idsDoctor, idsDetalle, idsEspecialidad);
+            horarios += importacionRepository.insertarHorarios(lote, idsDoctor);
+            doctores += n;
+            lote.clear();
+            progreso.accept(totales());
+        }
+
+        private void error(String mensaje) {
+            conError++;
+            if (errores.size() < properties.getMaxErrores()) {
+                errores.add(new ErrorImportacion(lineas, mensaje));
+            }
+        }
+
+        ProgresoImportacion totales() {
+            return new ProgresoImportacion(lineas, doctores, horarios, conError);
+        }
+    }
+}
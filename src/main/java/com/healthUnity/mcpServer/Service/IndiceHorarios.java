@@ -0,0 +1,174 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthUnity.mcpServer.Config.ProgramadoresTareas;
+import com.healthUnity.mcpServer.DTO.BloqueHorario;
+import com.healthUnity.mcpServer.Repositories.HorariosDoctorRepository;
+import com.healthUnity.mcpServer.Utils.MapaBits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Índice en memoria de los horarios semanales de cada doctor.
+ * Cada doctor tiene un long[] con 7 días × 288 unidades de 5 minutos (5 palabras por día).
+ * Se construye al arrancar, se invalida por doctor cuando cambian sus horarios
+ * y se recarga completo cada cierto tiempo por si otra aplicación los modifica.
+ * Una carga individual solo se guarda si no hubo un invalidar mientras leía (contador de versión),
+ * y los doctores sin horario se recuerdan en una cache acotada, no en el índice.
+ */
+@Service
+public class IndiceHorarios {
+    public static final int MINUTOS_POR_UNIDAD = 5;
+    public static final int UNIDADES_POR_DIA = 24 * 60 / MINUTOS_POR_UNIDAD;
+    public static final int PALABRAS_POR_DIA = (UNIDADES_POR_DIA + 63) / 64;
+    private static final int PALABRAS_POR_SEMANA = 7 * PALABRAS_POR_DIA;
+    private static final int MAX_SIN_HORARIO = 10_000;
+    // Semana de quien no tiene horario; compartida y de solo lectura
+    private static final long[] VACIA = new long[PALABRAS_POR_SEMANA];
+
+    // Horas y textos "HH:mm" precalculados para no crearlos al generar slots
+    private static final LocalTime[] HORAS = new LocalTime[UNIDADES_POR_DIA];
+    private static final String[] ETIQUETAS = new String[UNIDADES_POR_DIA];
+
+    static {
+        for (int i = 0; i < UNIDADES_POR_DIA; i++) {
+            HORAS[i] = LocalTime.of(0, 0).plusMinutes((long) i * MINUTOS_POR_UNIDAD);
+            ETIQUETAS[i] = HORAS[i].toString();
+        }
+    }
+
+    private final HorariosDoctorRepository horariosDoctorRepository;
+
+    private volatile ConcurrentHashMap<Long, long[]> semanas = new ConcurrentHashMap<>();
+    private final Set<Long> invalidadosDuranteRecarga = ConcurrentHashMap.newKeySet();
+    private volatile boolean recargando;
+    // Sube en cada invalidar: una carga que empezó antes no se guarda
+    private final AtomicLong version = new AtomicLong();
+    // Doctores sin bloques (o ids que no existen), acotados para que ids inventados no llenen la memoria
+    private final Cache<Long, Boolean> sinHorario = Caffeine.newBuilder().maximumSize(MAX_SIN_HORARIO).build();
+
+    @Autowired
+    public IndiceHorarios(HorariosDoctorRepository horariosDoctorRepository) {
+        this.horariosDoctorRepository = horariosDoctorRepository;
+    }
+
+    /**
+     * Reconstruye el índice completo con una sola consulta y lo reemplaza de forma atómica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(scheduler = ProgramadoresTareas.RECARGAS,
+            initialDelayString = "${healthunity.horarios.recarga-ms:900000}",
+            fixedDelayString = "${healthunity.horarios.recarga-ms:900000}")
+    public synchronized void recargar() {
+        recargando = true;
+        try {
+            ConcurrentHashMap<Long, long[]> nuevas = new ConcurrentHashMap<>();
+            for (BloqueHorario bloque : horariosDoctorRepository.findAllBloques()) {
+                marcar(nuevas.computeIfAbsent(bloque.idDoctor(), id -> new long[PALABRAS_POR_SEMANA]), bloque);
+            }
+            semanas = nuevas;
+            sinHorario.invalidateAll();
+        } finally {
+            recargando = false;
+        }
+        // Lo invalidado mientras se leía la tabla puede haber quedado con datos viejos
+        for (Long idDoctor : invalidadosDuranteRecarga) {
+            semanas.remove(idDoctor);
+            invalidadosDuranteRecarga.remove(idDoctor);
+        }
+    }
+
+    /**
+     * Descarta el horario en memoria de un doctor; se vuelve a leer en el siguiente acceso.
+     */
+    public void invalidar(Long idDoctor) {
+        version.incrementAndGet();
+        if (recargando) {
+            invalidadosDuranteRecarga.add(idDoctor);
+        }
+        semanas.remove(idDoctor);
+        sinHorario.invalidate(idDoctor);
+    }
+
+    public boolean trabajaEn(Long idDoctor, int diaSemana, LocalTime hora) {
+        return MapaBits.contiene(semana(idDoctor), offset(diaSemana), unidad(hora));
+    }
+
+    public boolean trabajaEnDia(Long idDoctor, int diaSemana) {
+        return !MapaBits.vacio(semana(idDoctor), offset(diaSemana), PALABRAS_POR_DIA);
+    }
+
+    /**
+     * Copia el mapa de bits de un día de la semana del doctor en {@code destino} a partir de {@code offset}.
+     */
+    public void copiarDia(Long idDoctor, int diaSemana, long[] destino, int offset) {
+        System.arraycopy(semana(idDoctor), offset(diaSemana), destino, offset, PALABRAS_POR_DIA);
+    }
+
+    public static LocalTime hora(int unidad) {
+        return HORAS[unidad];
+    }
+
+    public static String etiqueta(int unidad) {
+        return ETIQUETAS[unidad];
+    }
+
+    public static int unidad(LocalTime hora) {
+        return hora.toSecondOfDay() / 60 / MINUTOS_POR_UNIDAD;
+    }
+
+    private long[] semana(Long idDoctor) {
+        ConcurrentHashMap<Long, long[]> actual = semanas;
+        long[] semana = actual.get(idDoctor);
+        if (semana != null) {
+            return semana;
+        }
+        if (sinHorario.getIfPresent(idDoctor) != null) {
+            return VACIA;
+        }
+
+        // Doctor nuevo o invalidado: se carga solo su horario
+        long vista = version.get();
+        List<BloqueHorario> bloques = horariosDoctorRepository.findBloquesByDoctor(idDoctor);
+        if (bloques.isEmpty()) {
+            sinHorario.asMap().compute(idDoctor, (id, previo) -> version.get() == vista ? Boolean.TRUE : previo);
+            return VACIA;
+        }
+        long[] cargada = new long[PALABRAS_POR_SEMANA];
+        for (BloqueHorario bloque : bloques) {
+            marcar(cargada, bloque);
+        }
+        // Si hubo un invalidar durante la lectura, lo leído puede ser viejo: se usa pero no se guarda
+        actual.compute(idDoctor, (id, previa) -> previa != null || version.get() != vista ? previa : cargada);
+        return cargada;
+    }
+
+    private static void marcar(long[] semana, BloqueHorario bloque) {
+        if (bloque.diaSemana() < 1 || bloque.diaSemana() > 7
+                || bloque.horaInicio() == null || bloque.horaFin() == null) {
+            return;
+        }
+        // El inicio se redondea hacia arriba y el fin hacia abajo a la unidad de 5 minutos
+        int desde = (bloque.horaInicio().toSecondOfDay() / 60 + MINUTOS_POR_UNIDAD - 1) / MINUTOS_POR_UNIDAD;
+        int hasta = LocalTime.MIDNIGHT.equals(bloque.horaFin())
+                ? UNIDADES_POR_DIA
+                : bloque.horaFin().toSecondOfDay() / 60 / MINUTOS_POR_UNIDAD;
+        if (desde < hasta) {
+            MapaBits.marcar(semana, offset(bloque.diaSemana()), desde, hasta);
+        }
+    }
+
+    private static int offset(int diaSemana) {
+        return (diaSemana - 1) * PALABRAS_POR_DIA;
+    }
+}
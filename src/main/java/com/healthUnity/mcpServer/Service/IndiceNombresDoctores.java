@@ -0,0 +1,325 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.ProgramadoresTareas;
+import com.healthUnity.mcpServer.DTO.NombreDoctor;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import com.healthUnity.mcpServer.Utils.NormalizadorTexto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de los nombres de los doctores (nombre + apellido, normalizados).
+ * Las palabras distintas forman un vocabulario indexado por bigramas: cada palabra buscada se compara
+ * solo con las del vocabulario que comparten suficientes bigramas con ella, y coincide por prefijo,
+ * por estar contenida o a distancia de edición corta (con trasposiciones), así "jsoe perz" encuentra
+ * a "José Pérez". Los doctores salen de las palabras que coinciden.
+ * Se construye al arrancar, se actualiza por doctor al confirmar cambios (NombresDoctorListener)
+ * y se recarga completo cada cierto tiempo por si otra aplicación modifica los datos.
+ */
+@Service
+public class IndiceNombresDoctores {
+    // Puntaje mínimo de cada palabra buscada contra la mejor palabra del nombre
+    static final double UMBRAL_PALABRA = 0.7;
+
+    private final DoctorRepository doctorRepository;
+
+    private volatile Indice indice = new Indice();
+    private final Set<Long> cambiadosDuranteRecarga = ConcurrentHashMap.newKeySet();
+    private volatile boolean recargando;
+
+    @Autowired
+    public IndiceNombresDoctores(DoctorRepository doctorRepository) {
+        this.doctorRepository = doctorRepository;
+    }
+
+    /**
+     * Reconstruye el índice completo con una sola consulta y lo reemplaza de forma atómica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(scheduler = ProgramadoresTareas.RECARGAS,
+            initialDelayString = "${healthunity.doctores.recarga-nombres-ms:900000}",
+            fixedDelayString = "${healthunity.doctores.recarga-nombres-ms:900000}")
+    public synchronized void recargar() {
+        recargando = true;
+        try {
+            Indice nuevo = new Indice();
+            for (NombreDoctor nombre : doctorRepository.findAllNombres()) {
+                nuevo.agregar(nombre);
+            }
+            indice = nuevo;
+        } finally {
+            recargando = false;
+        }
+        // Lo que cambió mientras se leía la tabla puede haber quedado con datos viejos
+        for (Long idDoctor : cambiadosDuranteRecarga) {
+            cambiadosDuranteRecarga.remove(idDoctor);
+            actualizar(idDoctor);
+        }
+    }
+
+    /**
+     * Vuelve a leer el nombre de un doctor; si ya no existe, lo quita del índice.
+     */
+    public void actualizar(Long idDoctor) {
+        if (recargando) {
+            cambiadosDuranteRecarga.add(idDoctor);
+        }
+        List<NombreDoctor> filas = doctorRepository.findNombreByIdDoctor(idDoctor);
+        Indice actual = indice;
+        synchronized (actual) {
+            actual.quitar(idDoctor);
+            filas.forEach(actual::agregar);
+        }
+    }
+
+    /**
+     * El doctor cuyos datos personales son {@code idDetalleUsuario}, o null si no es de un doctor.
+     */
+    public Long doctorDeDetalle(Long idDetalleUsuario) {
+        return indice.doctorPorDetalle.get(idDetalleUsuario);
+    }
+
+    /**
+     * Los id_doctor cuyo nombre coincide con {@code texto}, del más parecido al menos parecido
+     * (a igual puntaje, por id). Cada palabra buscada debe coincidir con alguna palabra del nombre.
+     */
+    public List<Long> buscar(String texto) {
+        String[] buscadas = NormalizadorTexto.palabras(texto);
+        if (buscadas.length == 0) {
+            return List.of();
+        }
+        Indice actual = indice;
+
+        List<Map<String, Double>> parecidas = new ArrayList<>(buscadas.length);
+        int semilla = 0;
+        long menorCantidad = Long.MAX_VALUE;
+        for (int i = 0; i < buscadas.length; i++) {
+            Map<String, Double> deBuscada = palabrasParecidas(actual, buscadas[i]);
+            if (deBuscada.isEmpty()) {
+                return List.of();
+            }
+            parecidas.add(deBuscada);
+            long cantidad = 0;
+            for (String palabra : deBuscada.keySet()) {
+                Set<Long> doctores = actual.doctoresPorPalabra.get(palabra);
+                cantidad += doctores != null ? doctores.size() : 0;
+            }
+            if (cantidad < menorCantidad) {
+                menorCantidad = cantidad;
+                semilla = i;
+            }
+        }
+
+        // Los candidatos salen de la palabra buscada más selectiva; el resto se comprueba contra cada nombre
+        Map<Long, Double> candidatos = new HashMap<>();
+        parecidas.get(semilla).forEach((palabra, similitud) -> {
+            Set<Long> doctores = actual.doctoresPorPalabra.get(palabra);
+            if (doctores != null) {
+                for (Long idDoctor : doctores) {
+                    candidatos.merge(idDoctor, similitud, Math::max);
+                }
+            }
+        });
+
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        candidatos:
+        for (Map.Entry<Long, Double> candidato : candidatos.entrySet()) {
+            Entrada entrada = actual.entradas.get(candidato.getKey());
+            if (entrada == null) {
+                continue;
+            }
+            double total = candidato.getValue();
+            for (int i = 0; i < parecidas.size(); i++) {
+                if (i == semilla) {
+                    continue;
+                }
+                double mejor = mejorSimilitud(parecidas.get(i), entrada.palabras());
+                if (mejor < 0) {
+                    continue candidatos;
+                }
+                total += mejor;
+            }
+            coincidencias.add(new Coincidencia(candidato.getKey(), total / buscadas.length));
+        }
+        coincidencias.sort((a, b) -> a.puntaje() != b.puntaje()
+                ? Double.compare(b.puntaje(), a.puntaje())
+                : Long.compare(a.idDoctor(), b.idDoctor()));
+        return coincidencias.stream().map(Coincidencia::idDoctor).toList();
+    }
+
+    // La mayor similitud entre las palabras del nombre que se parecen a una buscada, o -1 si ninguna
+    private static double mejorSimilitud(Map<String, Double> parecidas, String[] palabras) {
+        double mejor = -1;
+        for (String palabra : palabras) {
+            Double similitud = parecidas.get(palabra);
+            if (similitud != null && similitud > mejor) {
+                mejor = similitud;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Las palabras del vocabulario que se parecen a {@code buscada}, con su similitud.
+     * Un tercio de los bigramas en común basta para ser candidata; la similitud decide el resto.
+     * Cada palabra distinta se compara una sola vez, la usen uno o mil doctores.
+     */
+    private static Map<String, Double> palabrasParecidas(Indice actual, String buscada) {
+        Set<String> bigramas = new LinkedHashSet<>();
+        agregarBigramas(buscada, bigramas);
+        Map<String, Integer> comunes = new HashMap<>();
+        for (String bigrama : bigramas) {
+            Set<String> palabras = actual.palabrasPorBigrama.get(bigrama);
+            if (palabras != null) {
+                for (String palabra : palabras) {
+                    comunes.merge(palabra, 1, Integer::sum);
+                }
+            }
+        }
+        int minimo = Math.max(1, (bigramas.size() + 2) / 3);
+        Map<String, Double> parecidas = new HashMap<>();
+        comunes.forEach((palabra, cantidad) -> {
+            if (cantidad >= minimo) {
+                double similitud = similitud(buscada, palabra);
+                if (similitud >= UMBRAL_PALABRA) {
+                    parecidas.put(palabra, similitud);
+                }
+            }
+        });
+        return parecidas;
+    }
+
+    public int tamanio() {
+        return indice.entradas.size();
+    }
+
+    /**
+     * 1 si la palabra empieza por lo buscado, 0.9 si lo contiene; si no, 1 menos la distancia de edición
+     * relativa, contra la palabra completa o contra su comienzo del mismo largo que lo buscado.
+     */
+    static double similitud(String buscada, String palabra) {
+        if (palabra.startsWith(buscada)) {
+            return 1.0;
+        }
+        if (buscada.length() >= 3 && palabra.contains(buscada)) {
+            return 0.9;
+        }
+        double completa = 1.0 - (double) distancia(buscada, palabra) / Math.max(buscada.length(), palabra.length());
+        if (palabra.length() <= buscada.length()) {
+            return completa;
+        }
+        double comienzo = 1.0 - (double) distancia(buscada, palabra.substring(0, buscada.length())) / buscada.length();
+        return Math.max(completa, comienzo);
+    }
+
+    /**
+     * Distancia de edición con trasposición de letras vecinas (optimal string alignment).
+     */
+    static int distancia(String a, String b) {
+        int[] antes = new int[b.length() + 1];
+        int[] previa = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previa[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            actual[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(previa[j] + 1, actual[j - 1] + 1), previa[j - 1] + costo);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, antes[j - 2] + 1);
+                }
+                actual[j] = d;
+            }
+            int[] libre = antes;
+            antes = previa;
+            previa = actual;
+            actual = libre;
+        }
+        return previa[b.length()];
+    }
+
+    // Bigramas de la palabra con un espacio a cada lado: "ana" -> " a", "an", "na", "a "
+    private static void agregarBigramas(String palabra, Set<String> destino) {
+        String conBordes = " " + palabra + " ";
+        for (int i = 0; i + 2 <= conBordes.length(); i++) {
+            destino.add(conBordes.substring(i, i + 2));
+        }
+    }
+
+    private record Coincidencia(Long idDoctor, double puntaje) {
+    }
+
+    private record Entrada(Long idDetalleUsuario, String[] palabras) {
+    }
+
+    /**
+     * Estado del índice: el vocabulario de palabras normalizadas, qué doctores usan cada una
+     * y qué palabras tienen cada bigrama. Las lecturas no bloquean; las escrituras de un mismo
+     * índice se sincronizan sobre él.
+     */
+    private static final class Indice {
+        final ConcurrentHashMap<Long, Entrada> entradas = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Set<Long>> doctoresPorPalabra = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, Set<String>> palabrasPorBigrama = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Long, Long> doctorPorDetalle = new ConcurrentHashMap<>();
+
+        void agregar(NombreDoctor nombre) {
+            String[] palabras = NormalizadorTexto.palabras(
+                    (nombre.nombre() != null ? nombre.nombre() : "") + " "
+                            + (nombre.apellido() != null ? nombre.apellido() : ""));
+            entradas.put(nombre.idDoctor(), new Entrada(nombre.idDetalleUsuario(), palabras));
+            if (nombre.idDetalleUsuario() != null) {
+                doctorPorDetalle.put(nombre.idDetalleUsuario(), nombre.idDoctor());
+            }
+            for (String palabra : palabras) {
+                doctoresPorPalabra.computeIfAbsent(palabra, p -> {
+                    Set<String> bigramas = new LinkedHashSet<>();
+                    agregarBigramas(p, bigramas);
+                    for (String bigrama : bigramas) {
+                        palabrasPorBigrama.computeIfAbsent(bigrama, b -> ConcurrentHashMap.newKeySet()).add(p);
+                    }
+                    return ConcurrentHashMap.newKeySet();
+                }).add(nombre.idDoctor());
+            }
+        }
+
+        void quitar(Long idDoctor) {
+            Entrada anterior = entradas.remove(idDoctor);
+            if (anterior == null) {
+                return;
+            }
+            if (anterior.idDetalleUsuario() != null) {
+                doctorPorDetalle.remove(anterior.idDetalleUsuario(), idDoctor);
+            }
+            for (String palabra : anterior.palabras()) {
+                Set<Long> doctores = doctoresPorPalabra.get(palabra);
+                if (doctores == null || !doctores.remove(idDoctor) || !doctores.isEmpty()) {
+                    continue;
+                }
+                // Nadie más usa la palabra: sale del vocabulario
+                doctoresPorPalabra.remove(palabra);
+                Set<String> bigramas = new LinkedHashSet<>();
+                agregarBigramas(palabra, bigramas);
+                for (String bigrama : bigramas) {
+                    Set<String> conBigrama = palabrasPorBigrama.get(bigrama);
+                    if (conBigrama != null) {
+                        conBigrama.remove(palabra);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.healthUnity.mcpServer.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.ai.chat.model.ToolContext;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.definition.ToolDefinition;
+import org.springframework.ai.tool.metadata.ToolMetadata;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Tiempos de cada herramienta MCP en /actuator/metrics, con el tag herramienta:
+ * healthunity.herramientas.duracion es la llamada completa y healthunity.herramientas.conexion
+ * el tiempo que tuvo tomadas conexiones del pool (la suma, si tomó varias). Si la segunda se acerca
+ * a la primera, la herramienta está armando su respuesta con la conexión tomada.
+ * Las conexiones las mide ConexionesMedidas; solo cuentan las que se toman y devuelven en el hilo de la llamada.
+ */
+@Component
+public class MedicionHerramientas {
+    // Nanosegundos de conexión de la llamada en curso en este hilo; null fuera de una herramienta
+    private static final ThreadLocal<long[]> CONEXION = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public MedicionHerramientas(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Las mismas herramientas, midiendo cada llamada.
+     */
+    public ToolCallback[] medir(ToolCallback[] herramientas) {
+        return Arrays.stream(herramientas).map(Medida::new).toArray(ToolCallback[]::new);
+    }
+
+    /**
+     * Suma a la herramienta en curso el tiempo que estuvo tomada una conexión recién devuelta.
+     */
+    public static void conexionDevuelta(long nanos) {
+        long[] conexion = CONEXION.get();
+        if (conexion != null) {
+            conexion[0] += nanos;
+        }
+    }
+
+    private final class Medida implements ToolCallback {
+        private final ToolCallback herramienta;
+        private final Timer duracion;
+        private final Timer conexion;
+
+        Medida(ToolCallback herramienta) {
+            this.herramienta = herramienta;
+            String nombre = herramienta.getToolDefinition().name();
+            this.duracion = Timer.builder("healthunity.herramientas.duracion")
+                    .description("Duración de cada llamada a la herramienta")
+                    .tag("herramienta", nombre)
+                    .register(meterRegistry);
+            this.conexion = Timer.builder("healthunity.herramientas.conexion")
+                    .description("Tiempo con conexiones del pool tomadas en cada llamada a la herramienta")
+                    .tag("herramienta", nombre)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public ToolDefinition getToolDefinition() {
+            return herramienta.getToolDefinition();
+        }
+
+        @Override
+        public ToolMetadata getToolMetadata() {
+            return herramienta.getToolMetadata();
+        }
+
+        @Override
+        public String call(String entrada) {
+            return medir(() -> herramienta.call(entrada));
+        }
+
+        @Override
+        public String call(String entrada, ToolContext contexto) {
+            return medir(() -> herramienta.call(entrada, contexto));
+        }
+
+        private String medir(Supplier<String> llamada) {
+            long[] anterior = CONEXION.get();
+            long[] actual = {0};
+            CONEXION.set(actual);
+            long inicio = System.nanoTime();
+            try {
+                return llamada.get();
+            } finally {
+                duracion.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                conexion.record(actual[0], TimeUnit.NANOSECONDS);
+                if (anterior == null) {
+                    CONEXION.remove();
+                } else {
+                    CONEXION.set(anterior);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.AgendaProperties;
+import com.healthUnity.mcpServer.DTO.HoraOcupada;
+import com.healthUnity.mcpServer.Repositories.CitasRepository;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import com.healthUnity.mcpServer.Utils.MapaBits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import static com.healthUnity.mcpServer.Service.IndiceHorarios.PALABRAS_POR_DIA;
+import static com.healthUnity.mcpServer.Service.IndiceHorarios.UNIDADES_POR_DIA;
+
+/**
+ * Calcula los slots libres de un doctor sobre mapas de bits.
+ * Cada día del rango tiene su mapa de horario (de IndiceHorarios) y su mapa de ocupación,
+ * que se llena en una sola pasada con las citas no canceladas del rango (una consulta).
+ * Un slot está libre si ninguna unidad de 5 minutos que cubre está ocupada
+ * y no está retenido por otro paciente.
+ */
+@Service
+public class MotorSlots {
+    private final IndiceHorarios indiceHorarios;
+    private final CitasRepository citasRepository;
+    private final DoctorRepository doctorRepository;
+    private final AgendaProperties agendaProperties;
+    private final RetencionesHorario retencionesHorario;
+
+    @Autowired
+    public MotorSlots(IndiceHorarios indiceHorarios,
+                      CitasRepository citasRepository,
+                      DoctorRepository doctorRepository,
+                      AgendaProperties agendaProperties,
+                      RetencionesHorario retencionesHorario) {
+        this.indiceHorarios = indiceHorarios;
+        this.citasRepository = citasRepository;
+        this.doctorRepository = doctorRepository;
+        this.agendaProperties = agendaProperties;
+        this.retencionesHorario = retencionesHorario;
+    }
+
+    public List<String> horariosLibres(Long idDoctor, LocalDate fecha) {
+        return horariosLibres(idDoctor, fecha, (Long) null);
+    }
+
+    public List<String> horariosLibres(Long idDoctor, LocalDate fecha, Long idPaciente) {
+        return horariosLibres(idDoctor, fecha, fecha, idPaciente).getOrDefault(fecha, List.of());
+    }
+
+    public Map<LocalDate, List<String>> horariosLibres(Long idDoctor, LocalDate desde, LocalDate hasta) {
+        return horariosLibres(idDoctor, desde, hasta, null);
+    }
+
+    /**
+     * Slots libres ("HH:mm") por fecha entre {@code desde} y {@code hasta}, ambos incluidos.
+     * Los retenidos por el propio {@code idPaciente} se muestran; sin paciente se ocultan todos los retenidos.
+     * Las fechas sin slots libres no aparecen en el resultado.
+     */
+    public Map<LocalDate, List<String>> horariosLibres(Long idDoctor, LocalDate desde, LocalDate hasta, Long idPaciente) {
+        int dias = (int) ChronoUnit.DAYS.between(desde, hasta) + 1;
+        if (dias < 1 || dias > agendaProperties.getMaxDiasRango()) {
+            throw new IllegalArgumentException(
+                    "El rango debe tener entre 1 y " + agendaProperties.getMaxDiasRango() + " días");
+        }
+
+        int duracion = unidadesPorSlot(idDoctor);
+        long[] ocupadas = ocupacion(idDoctor, desde, hasta, dias, duracion);
+        long[] horario = new long[PALABRAS_POR_DIA];
+        Map<LocalDate, List<String>> resultado = new LinkedHashMap<>();
+
+        for (int d = 0; d < dias; d++) {
+            LocalDate fecha = desde.plusDays(d);
+            indiceHorarios.copiarDia(idDoctor, fecha.getDayOfWeek().getValue(), horario, 0);
+            IntPredicate retenido = retencionesHorario.hayRetenciones()
+                    ? slot -> retencionesHorario.retenidoPorOtro(idDoctor, fecha, IndiceHorarios.hora(slot), idPaciente)
+                    : null;
+            List<String> libres = libresDelDia(horario, ocupadas, d * PALABRAS_POR_DIA, duracion, retenido);
+            if (!libres.isEmpty()) {
+                resultado.put(fecha, libres);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Unidades de 5 minutos que ocupa una cita del doctor, según la duración de su especialidad.
+     */
+    public int unidadesPorSlot(Long idDoctor) {
+        int minutos = agendaProperties.duracionPara(doctorRepository.findIdEspecialidadByIdDoctor(idDoctor));
+        return Math.max(1, minutos / IndiceHorarios.MINUTOS_POR_UNIDAD);
+    }
+
+    /**
+     * Indica si {@code hora} es el inicio de uno de los slots que el horario del doctor genera ese día:
+     * dentro de un bloque, a un múltiplo de {@code duracion} unidades de su inicio y terminando antes de su fin.
+     */
+    public boolean esInicioDeSlot(Long idDoctor, LocalDate fecha, LocalTime hora, int duracion) {
+        if (hora.toSecondOfDay() % (IndiceHorarios.MINUTOS_POR_UNIDAD * 60) != 0) {
+            return false;
+        }
+        long[] horario = new long[PALABRAS_POR_DIA];
+        indiceHorarios.copiarDia(idDoctor, fecha.getDayOfWeek().getValue(), horario, 0);
+        int unidad = IndiceHorarios.unidad(hora);
+        if (!MapaBits.contiene(horario, 0, unidad)) {
+            return false;
+        }
+        int inicio = unidad;
+        while (inicio > 0 && MapaBits.contiene(horario, 0, inicio - 1)) {
+            inicio--;
+        }
+        int fin = Math.min(UNIDADES_POR_DIA, MapaBits.siguienteLibre(horario, 0, PALABRAS_POR_DIA, unidad));
+        return (unidad - inicio) % duracion == 0 && unidad + duracion <= fin;
+    }
+
+    /**
+     * Indica si una cita de {@code duracion} unidades a esa hora se cruzaría con otra cita no cancelada del doctor.
+     */
+    public boolean seCruzaConOtraCita(Long idDoctor, LocalDate fecha, LocalTime hora, int duracion) {
+        return seCruza(citasRepository.findHorasOcupadasByDoctorAndFechaBetween(idDoctor, fecha, fecha), hora, duracion);
+    }
+
+    /**
+     * Igual que {@link #seCruzaConOtraCita(Long, LocalDate, LocalTime, int)}, sin contar la cita {@code idCita},
+     * que es la que se está moviendo.
+     */
+    public boolean seCruzaConOtraCita(Long idDoctor, LocalDate fecha, LocalTime hora, int duracion, Long idCita) {
+        return seCruza(citasRepository.findHorasOcupadasByDoctorAndFechaExceptoCita(idDoctor, fecha, idCita), hora, duracion);
+    }
+
+    private static boolean seCruza(List<HoraOcupada> citas, LocalTime hora, int duracion) {
+        int unidad = IndiceHorarios.unidad(hora);
+        for (HoraOcupada cita : citas) {
+            if (cita.hora() != null && Math.abs(IndiceHorarios.unidad(cita.hora()) - unidad) < duracion) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private long[] ocupacion(Long idDoctor, LocalDate desde, LocalDate hasta, int dias, int duracion) {
+        long[] ocupadas = new long[dias * PALABRAS_POR_DIA];
+        for (HoraOcupada cita : citasRepository.findHorasOcupadasByDoctorAndFechaBetween(idDoctor, desde, hasta)) {
+            if (cita.hora() == null) {
+                continue;
+            }
+            int dia = (int) ChronoUnit.DAYS.between(desde, cita.fecha());
+            int inicio = IndiceHorarios.unidad(cita.hora());
+            MapaBits.marcar(ocupadas, dia * PALABRAS_POR_DIA, inicio, Math.min(UNIDADES_POR_DIA, inicio + duracion));
+        }
+        return ocupadas;
+    }
+
+    /**
+     * Recorre cada bloque continuo del horario generando slots desde su inicio,
+     * igual que el recorrido de 30 en 30 minutos por bloque que había antes.
+     */
+    static List<String> libresDelDia(long[] horario, long[] ocupadas, int offsetOcupadas, int duracion) {
+        return libresDelDia(horario, ocupadas, offsetOcupadas, duracion, null);
+    }
+
+    /**
+     * Igual que la anterior, descartando además los slots para los que {@code retenido} es verdadero.
+     */
+    static List<String> libresDelDia(long[] horario, long[] ocupadas, int offsetOcupadas, int duracion,
+                                     IntPredicate retenido) {
+        List<String> libres = new ArrayList<>();
+        int inicio = MapaBits.siguienteMarcado(horario, 0, PALABRAS_POR_DIA, 0);
+        while (inicio >= 0 && inicio < UNIDADES_POR_DIA) {
+            int fin = Math.min(UNIDADES_POR_DIA, MapaBits.siguienteLibre(horario, 0, PALABRAS_POR_DIA, inicio));
+            for (int slot = inicio; slot + duracion <= fin; slot += duracion) {
+                if (!MapaBits.algunoMarcado(ocupadas, offsetOcupadas, slot, slot + duracion)
+                        && (retenido == null || !retenido.test(slot))) {
+                    libres.add(IndiceHorarios.etiqueta(slot));
+                }
+            }
+            inicio = fin < UNIDADES_POR_DIA ? MapaBits.siguienteMarcado(horario, 0, PALABRAS_POR_DIA, fin) : -1;
+        }
+        return libres;
+    }
+}
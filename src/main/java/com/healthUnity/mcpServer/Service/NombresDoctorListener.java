@@ -0,0 +1,58 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Models.DetallesUsuario;
+import com.healthUnity.mcpServer.Models.Doctores;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Actualiza el nombre de un doctor en IndiceNombresDoctores cuando se escribe el doctor
+ * o sus datos personales. La actualización relee la base, así que se hace al confirmar la transacción.
+ */
+@Component
+public class NombresDoctorListener {
+
+    // ObjectProvider: el listener se crea junto al EntityManagerFactory, antes que el índice
+    private final ObjectProvider<IndiceNombresDoctores> indiceNombres;
+
+    @Autowired
+    public NombresDoctorListener(ObjectProvider<IndiceNombresDoctores> indiceNombres) {
+        this.indiceNombres = indiceNombres;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiar(Object entidad) {
+        IndiceNombresDoctores indice = indiceNombres.getObject();
+        Long idDoctor;
+        if (entidad instanceof Doctores doctor) {
+            idDoctor = doctor.getIdDoctor();
+        } else if (entidad instanceof DetallesUsuario detalles) {
+            // Los datos personales también son de pacientes: solo interesan los de un doctor ya indexado
+            idDoctor = indice.doctorDeDetalle(detalles.getIdDetalleUsuario());
+        } else {
+            return;
+        }
+        if (idDoctor == null) {
+            return;
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            indice.actualizar(idDoctor);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indice.actualizar(idDoctor);
+            }
+        });
+    }
+}
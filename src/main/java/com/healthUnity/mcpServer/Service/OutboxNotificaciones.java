@@ -0,0 +1,104 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import com.healthUnity.mcpServer.DTO.CorreoCita;
+import com.healthUnity.mcpServer.DTO.PaginaRecordatorios;
+import com.healthUnity.mcpServer.Models.NotificacionOutbox;
+import com.healthUnity.mcpServer.Repositories.NotificacionOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Escritura y estado de notificaciones_outbox.
+ * La confirmación se encola dentro de la transacción de la cita; reclamar y marcar usan transacciones
+ * cortas propias para que el envío SMTP nunca ocurra con una conexión de base de datos tomada.
+ */
+@Service
+public class OutboxNotificaciones {
+    public static final String CONFIRMACION_CITA = "confirmacion_cita";
+    public static final String RECORDATORIO_CITA = "recordatorio_cita";
+    private static final int MAX_LARGO_ERROR = 2000;
+
+    private final NotificacionOutboxRepository outboxRepository;
+    private final NotificacionesProperties properties;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public OutboxNotificaciones(NotificacionOutboxRepository outboxRepository,
+                                NotificacionesProperties properties,
+                                ObjectMapper objectMapper) {
+        this.outboxRepository = outboxRepository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Deja el correo de confirmación en el outbox. Debe llamarse desde la transacción que crea la cita:
+     * si esta se revierte, el correo tampoco sale.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void encolarConfirmacion(Long idCita, CorreoCita correo) {
+        NotificacionOutbox notificacion = new NotificacionOutbox();
+        notificacion.setTipo(CONFIRMACION_CITA);
+        notificacion.setDestinatario(correo.gmail());
+        notificacion.setPayload(escribir(correo));
+        notificacion.setIdCita(idCita);
+        outboxRepository.save(notificacion);
+    }
+
+    /**
+     * Una página de recordatorios en su propia transacción corta; ver NotificacionOutboxRepository.encolarRecordatorios.
+     */
+    @Transactional
+    public PaginaRecordatorios encolarRecordatorios(LocalDate fecha, LocalTime hora, Long idCita,
+                                                    LocalDate hastaFecha, LocalTime hastaHora, int lote) {
+        return outboxRepository.encolarRecordatorios(fecha, hora, idCita, hastaFecha, hastaHora, lote);
+    }
+
+    @Transactional
+    public List<NotificacionOutbox> reclamarLote() {
+        return outboxRepository.reclamarLote(
+                properties.getLote(), properties.getReclamoSegundos(), properties.getMaxIntentos());
+    }
+
+    @Transactional
+    public void marcarEnviadas(List<Long> idsNotificacion) {
+        if (!idsNotificacion.isEmpty()) {
+            outboxRepository.marcarEnviadas(idsNotificacion);
+        }
+    }
+
+    /**
+     * Programa el siguiente intento con espera exponencial, o la deja como 'fallida' si se agotaron.
+     */
+    @Transactional
+    public void marcarFallo(NotificacionOutbox notificacion, Exception error) {
+        boolean agotada = notificacion.getIntentos() >= properties.getMaxIntentos();
+        String mensaje = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        outboxRepository.marcarFallo(
+                notificacion.getIdNotificacion(),
+                agotada ? "fallida" : "pendiente",
+                mensaje.length() > MAX_LARGO_ERROR ? mensaje.substring(0, MAX_LARGO_ERROR) : mensaje,
+                agotada ? 0 : properties.backoffSegundos(notificacion.getIntentos()));
+    }
+
+    public CorreoCita leerCorreoCita(NotificacionOutbox notificacion) throws JsonProcessingException {
+        return objectMapper.readValue(notificacion.getPayload(), CorreoCita.class);
+    }
+
+    private String escribir(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar la notificación", e);
+        }
+    }
+}
@@ -24,12 +24,15 @@ public class PacienteService {
 
     private final PacienteRepository pacienteRepository;
     private final DateFormatter dateFormatter;
+    private final IdentidadesPacientes identidadesPacientes;
 
     @Autowired
     public PacienteService(PacienteRepository pacienteRepository,
-                           DateFormatter dateFormatter) {
+                           DateFormatter dateFormatter,
+                           IdentidadesPacientes identidadesPacientes) {
         this.pacienteRepository = pacienteRepository;
         this.dateFormatter = dateFormatter;
+        this.identidadesPacientes = identidadesPacientes;
     }
 
 
@@ -51,7 +54,7 @@ public class PacienteService {
 
     @Tool(description = "Obtiene la información completa del paciente a partir de su correo (gmail). Este método se utiliza en procesos internos del sistema, no por solicitud directa del usuario. Sirve para que la IA o el MCP recuperen datos de perfil (nombre, apellido, género, fecha de nacimiento, etc.)  cuando se requiere validar información, preparar un contexto de cita o completar flujos administrativos.")
     public PacienteResponseDTO getPaciente(String gmail){
-        Optional<Paciente> pacienteOptional = pacienteRepository.findPacienteByDetallesUsuario_Gmail(gmail);
+        Optional<Paciente> pacienteOptional = identidadesPacientes.buscar(gmail);
 
          if (pacienteOptional.isEmpty()) {
              throw new EntityNotFoundException("Paciente no encontrado");
@@ -72,8 +75,9 @@ public class PacienteService {
 
     @Tool(description = "Actualiza el perfil de un paciente existente usando los datos recibidos en un CompleteProfileRequestDTO. Se usa únicamente en procesos automáticos donde el sistema necesita mantener sincronizada la información del paciente (por ejemplo, después de un registro, actualización de datos desde otra fuente o ajuste interno de perfil). No debe invocarse por solicitud directa del usuario.")
     public ResponseDTO updateProfile(CompleteProfileRequestDTO data, HttpServletRequest request) {
-        Paciente paciente = pacienteRepository.findPacienteByDetallesUsuario_Gmail(data.getGmail())
+        Paciente paciente = identidadesPacientes.buscar(data.getGmail())
                 .orElseThrow(() -> new EntityNotFoundException("Paciente no encontrado"));
+        String gmailAnterior = paciente.getDetallesUsuario().getGmail();
 
         // Actualizas los detalles del paciente existente
         DetallesUsuario detalles = paciente.getDetallesUsuario();
@@ -89,6 +93,9 @@ public class PacienteService {
         paciente.setDetallesUsuario(detalles);
 
         pacienteRepository.save(paciente);
+        // La cache de identidades queda con el correo recién guardado
+        identidadesPacientes.invalidar(gmailAnterior);
+        identidadesPacientes.guardar(detalles.getGmail(), paciente.getIdPaciente());
 
         ResponseDTO response = new ResponseDTO();
         response.setStatus(200);
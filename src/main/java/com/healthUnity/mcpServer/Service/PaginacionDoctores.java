@@ -0,0 +1,125 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.CursorDoctores;
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
+import com.healthUnity.mcpServer.DTO.Response.DoctorDTOResponse;
+import com.healthUnity.mcpServer.DTO.Response.PaginatedDoctorResponse;
+import com.healthUnity.mcpServer.Repositories.ListadoDoctoresRepository;
+import com.healthUnity.mcpServer.Utils.NormalizadorTexto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recorre el listado de doctores por cursor (keyset) en lugar de OFFSET.
+ * Cada página pide las filas siguientes a la última entregada, ordenadas por la clave elegida
+ * y desempatadas por id_doctor, así que pedir la página 500 cuesta lo mismo que la primera.
+ * El total se cuenta solo en la primera página y viaja dentro del cursor, junto con la huella
+ * de la especialidad y la búsqueda: un cursor no sirve para seguir un listado con otros filtros.
+ */
+@Service
+public class PaginacionDoctores {
+    public static final String RATING = "rating";
+    public static final String REVIEWS = "reviews";
+    public static final String RELEVANCIA = "relevancia";
+
+    static final int TAMANIO_POR_DEFECTO = 10;
+    static final int TAMANIO_MAXIMO = 50;
+
+    private final ListadoDoctoresRepository listadoDoctoresRepository;
+    private final IndiceNombresDoctores indiceNombres;
+
+    @Autowired
+    public PaginacionDoctores(ListadoDoctoresRepository listadoDoctoresRepository,
+                              IndiceNombresDoctores indiceNombres) {
+        this.listadoDoctoresRepository = listadoDoctoresRepository;
+        this.indiceNombres = indiceNombres;
+    }
+
+    /**
+     * @param orden rating, reviews o relevancia (experiencia); rating si viene vacío
+     * @param cursor nextCursor de la página anterior, o null para la primera
+     */
+    @Transactional(readOnly = true)
+    public PaginatedDoctorResponse pagina(String orden, Long idEspecialidad, String busqueda,
+                                          Integer tamanio, String cursor) {
+        String criterio = orden == null || orden.isBlank() ? RATING : orden.trim().toLowerCase(Locale.ROOT);
+        if (!criterio.equals(RATING) && !criterio.equals(REVIEWS) && !criterio.equals(RELEVANCIA)) {
+            throw new IllegalArgumentException("Orden no válido: " + orden + " (usa rating, reviews o relevancia)");
+        }
+        int porPagina = tamanio == null || tamanio < 1 ? TAMANIO_POR_DEFECTO : Math.min(tamanio, TAMANIO_MAXIMO);
+        int filtros = filtros(idEspecialidad, busqueda);
+        CursorDoctores desde = null;
+        if (cursor != null && !cursor.isBlank()) {
+            desde = CursorDoctores.decodificar(cursor);
+            if (!desde.orden().equals(criterio)) {
+                throw new IllegalArgumentException("El cursor es de un listado ordenado por " + desde.orden());
+            }
+            if (desde.filtros() != filtros) {
+                throw new IllegalArgumentException(
+                        "El cursor es de un listado con otra especialidad o búsqueda; pide la primera página de nuevo");
+            }
+        }
+        // El nombre se resuelve en memoria (sin tildes y tolerando errores de tipeo); a la base van los ids
+        Long[] ids = busqueda == null || busqueda.isBlank()
+                ? null
+                : indiceNombres.buscar(busqueda).toArray(Long[]::new);
+        if (ids != null && ids.length == 0) {
+            return new PaginatedDoctorResponse(List.of(), 0, 0L, 0, false, false, porPagina, null);
+        }
+        if (desde == null) {
+            desde = new CursorDoctores(criterio,
+                    criterio.equals(RATING) ? Double.POSITIVE_INFINITY : Long.MAX_VALUE,
+                    Long.MAX_VALUE, -1, listadoDoctoresRepository.contarParaPaginar(idEspecialidad, ids), filtros);
+        }
+
+        // Una fila de más indica si hay página siguiente
+        List<FilaDoctor> filas = switch (criterio) {
+            case RATING -> listadoDoctoresRepository.paginaPorRating(
+                    desde.clave(), desde.idDoctor(), idEspecialidad, ids, porPagina + 1);
+            case REVIEWS -> listadoDoctoresRepository.paginaPorReviews(
+                    (long) desde.clave(), desde.idDoctor(), idEspecialidad, ids, porPagina + 1);
+            default -> listadoDoctoresRepository.paginaPorRelevancia(
+                    (long) desde.clave(), desde.idDoctor(), idEspecialidad, ids, porPagina + 1);
+        };
+        boolean hayMas = filas.size() > porPagina;
+        List<FilaDoctor> visibles = hayMas ? filas.subList(0, porPagina) : filas;
+
+        int pagina = desde.pagina() + 1;
+        String siguiente = null;
+        if (hayMas) {
+            FilaDoctor ultima = visibles.get(visibles.size() - 1);
+            siguiente = new CursorDoctores(criterio, clave(criterio, ultima),
+                    ultima.idDoctor(), pagina, desde.total(), filtros).codificar();
+        }
+
+        return new PaginatedDoctorResponse(
+                visibles.stream().map(DoctorDTOResponse::new).toList(),
+                pagina,
+                desde.total(),
+                (int) ((desde.total() + porPagina - 1) / porPagina),
+                hayMas,
+                pagina > 0,
+                porPagina,
+                siguiente);
+    }
+
+    /**
+     * Huella de los filtros de un listado. La búsqueda se compara normalizada,
+     * igual que la resuelve IndiceNombresDoctores.
+     */
+    static int filtros(Long idEspecialidad, String busqueda) {
+        return (idEspecialidad + "|" + NormalizadorTexto.normalizar(busqueda)).hashCode();
+    }
+
+    private static double clave(String criterio, FilaDoctor fila) {
+        return switch (criterio) {
+            case RATING -> fila.rating();
+            case REVIEWS -> fila.reviews();
+            default -> fila.experiencia();
+        };
+    }
+}
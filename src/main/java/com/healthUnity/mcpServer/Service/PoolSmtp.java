@@ -0,0 +1,274 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexiones SMTP autenticadas que se mantienen abiertas entre lotes.
+ * Un lote se reparte entre las conexiones del pool y cada parte se envía por una sola conexión,
+ * así el saludo TLS y la autenticación se pagan una vez por conexión y no una vez por correo.
+ * Antes de usar una conexión se comprueba con NOOP; si el servidor la cerró se abre otra,
+ * y si se cae a mitad de un envío se reconecta y se reintenta ese correo una vez.
+ * Cada lote queda en /actuator/metrics: healthunity.smtp.correos {resultado=enviado|fallido},
+ * healthunity.smtp.reconexiones y healthunity.smtp.lotes (duración).
+ */
+@Service
+public class PoolSmtp {
+
+    public record EstadisticaLote(int mensajes, int fallidos, int conexiones, int reconexiones, long ms) {
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final int tamanio;
+    private final LinkedBlockingDeque<Transport> libres = new LinkedBlockingDeque<>();
+    // Las que están enviando una parte: al cerrar se cortan para que no sigan entregando
+    private final Set<Transport> enUso = ConcurrentHashMap.newKeySet();
+    private final Semaphore permisos;
+    private final ExecutorService hilos;
+    private volatile EstadisticaLote ultimoLote;
+    private final Counter enviados;
+    private final Counter fallidos;
+    private final Counter reconexiones;
+    private final Timer lotes;
+
+    @Autowired
+    public PoolSmtp(JavaMailSenderImpl mailSender, NotificacionesProperties properties, MeterRegistry meterRegistry) {
+        this.mailSender = mailSender;
+        this.enviados = Counter.builder("healthunity.smtp.correos").tag("resultado", "enviado").register(meterRegistry);
+        this.fallidos = Counter.builder("healthunity.smtp.correos").tag("resultado", "fallido").register(meterRegistry);
+        this.reconexiones = Counter.builder("healthunity.smtp.reconexiones").register(meterRegistry);
+        this.lotes = Timer.builder("healthunity.smtp.lotes").register(meterRegistry);
+        this.tamanio = Math.max(1, properties.getConexionesSmtp());
+        this.permisos = new Semaphore(tamanio);
+        AtomicInteger numero = new AtomicInteger();
+        this.hilos = Executors.newFixedThreadPool(tamanio, tarea -> {
+            Thread hilo = new Thread(tarea, "smtp-" + numero.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Envía los mensajes y devuelve, en el mismo orden, null para los enviados
+     * o la excepción de los que fallaron. Nunca lanza por un correo individual.
+     * Si el hilo que llama se interrumpe deja de esperar: los correos de las partes que no terminaron
+     * vuelven con CancellationException (pueden haber salido igual; se reintentan desde el outbox).
+     */
+    public Exception[] enviarLote(List<MimeMessage> mensajes) {
+        Exception[] errores = new Exception[mensajes.size()];
+        if (mensajes.isEmpty()) {
+            return errores;
+        }
+        long inicio = System.nanoTime();
+        int partes = Math.min(tamanio, mensajes.size());
+        int porParte = (mensajes.size() + partes - 1) / partes;
+        AtomicInteger reconexionesLote = new AtomicInteger();
+
+        if (partes == 1) {
+            Exception[] parte = enviarParte(mensajes, reconexionesLote);
+            System.arraycopy(parte, 0, errores, 0, parte.length);
+        } else {
+            // Cada parte escribe en su propio arreglo: solo se copian los de las partes terminadas
+            List<Future<Exception[]>> envios = new ArrayList<>();
+            for (int desde = 0; desde < mensajes.size(); desde += porParte) {
+                List<MimeMessage> parte = mensajes.subList(desde, Math.min(mensajes.size(), desde + porParte));
+                envios.add(hilos.submit(() -> enviarParte(parte, reconexionesLote)));
+            }
+            boolean interrumpido = false;
+            for (int p = 0; p < envios.size(); p++) {
+                Future<Exception[]> envio = envios.get(p);
+                int desde = p * porParte;
+                int hasta = Math.min(mensajes.size(), desde + porParte);
+                try {
+                    Exception[] parte = interrumpido && !envio.isDone() ? null : envio.get();
+                    if (parte != null) {
+                        System.arraycopy(parte, 0, errores, desde, parte.length);
+                        continue;
+                    }
+                } catch (InterruptedException e) {
+                    interrumpido = true;
+                } catch (ExecutionException e) {
+                    Arrays.fill(errores, desde, hasta, e.getCause() instanceof Exception causa ? causa : e);
+                    continue;
+                }
+                envio.cancel(true);
+                Arrays.fill(errores, desde, hasta, new CancellationException("Envío interrumpido antes de terminar"));
+            }
+            if (interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        int conError = 0;
+        for (Exception error : errores) {
+            if (error != null) {
+                conError++;
+            }
+        }
+        long nanos = System.nanoTime() - inicio;
+        ultimoLote = new EstadisticaLote(mensajes.size(), conError, partes, reconexionesLote.get(), nanos / 1_000_000);
+        enviados.increment(mensajes.size() - conError);
+        fallidos.increment(conError);
+        reconexiones.increment(reconexionesLote.get());
+        lotes.record(nanos, TimeUnit.NANOSECONDS);
+        return errores;
+    }
+
+    public EstadisticaLote getUltimoLote() {
+        return ultimoLote;
+    }
+
+    /**
+     * Corta los envíos en curso y espera a que terminen sus hilos antes de cerrar las conexiones libres.
+     */
+    @PreDestroy
+    public void cerrar() {
+        hilos.shutdownNow();
+        enUso.forEach(PoolSmtp::cerrar);
+        try {
+            hilos.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Transport transporte;
+        while ((transporte = libres.pollFirst()) != null) {
+            cerrar(transporte);
+        }
+    }
+
+    /**
+     * Envía la parte por una conexión y devuelve sus errores, en el mismo orden.
+     */
+    private Exception[] enviarParte(List<MimeMessage> mensajes, AtomicInteger reconexiones) {
+        Exception[] errores = new Exception[mensajes.size()];
+        Transport transporte = null;
+        boolean conPermiso = false;
+        int i = 0;
+        try {
+            permisos.acquire();
+            conPermiso = true;
+            transporte = tomar(reconexiones);
+            enUso.add(transporte);
+            for (; i < mensajes.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    // Parte cancelada: lo que falta no se envía
+                    Arrays.fill(errores, i, mensajes.size(), new CancellationException("Envío interrumpido antes de terminar"));
+                    break;
+                }
+                try {
+                    Transport usado = enviar(transporte, mensajes.get(i), reconexiones);
+                    if (usado != transporte) {
+                        enUso.remove(transporte);
+                        transporte = usado;
+                    }
+                } catch (Exception e) {
+                    errores[i] = e;
+                }
+            }
+        } catch (Exception e) {
+            // Sin conexión (o interrumpido) no se envió ningún correo desde aquí
+            Arrays.fill(errores, i, mensajes.size(), e);
+        } finally {
+            if (transporte != null) {
+                enUso.remove(transporte);
+                if (transporte.isConnected() && !hilos.isShutdown()) {
+                    libres.offerFirst(transporte);
+                } else {
+                    cerrar(transporte);
+                }
+            }
+            if (conPermiso) {
+                permisos.release();
+            }
+        }
+        return errores;
+    }
+
+    private Transport enviar(Transport transporte, MimeMessage mensaje, AtomicInteger reconexiones)
+            throws MessagingException {
+        preparar(mensaje);
+        try {
+            transporte.sendMessage(mensaje, mensaje.getAllRecipients());
+            return transporte;
+        } catch (SendFailedException e) {
+            // Destinatario rechazado: la conexión sigue sirviendo
+            throw e;
+        } catch (MessagingException | IllegalStateException e) {
+            if (transporte.isConnected() || hilos.isShutdown()) {
+                // Al cerrar el pool la conexión se corta a propósito: no se reconecta
+                throw e;
+            }
+            cerrar(transporte);
+            Transport nuevo = conectar();
+            enUso.add(nuevo);
+            reconexiones.incrementAndGet();
+            nuevo.sendMessage(mensaje, mensaje.getAllRecipients());
+            return nuevo;
+        }
+    }
+
+    private Transport tomar(AtomicInteger reconexiones) throws MessagingException {
+        Transport transporte;
+        while ((transporte = libres.pollFirst()) != null) {
+            if (transporte.isConnected()) {
+                return transporte;
+            }
+            cerrar(transporte);
+            reconexiones.incrementAndGet();
+        }
+        return conectar();
+    }
+
+    private Transport conectar() throws MessagingException {
+        String protocolo = mailSender.getProtocol() != null ? mailSender.getProtocol() : "smtp";
+        Transport transporte = mailSender.getSession().getTransport(protocolo);
+        transporte.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        return transporte;
+    }
+
+    // Lo mismo que hace JavaMailSenderImpl antes de enviar
+    private static void preparar(MimeMessage mensaje) throws MessagingException {
+        if (mensaje.getSentDate() == null) {
+            mensaje.setSentDate(new Date());
+        }
+        String messageId = mensaje.getMessageID();
+        mensaje.saveChanges();
+        if (messageId != null) {
+            mensaje.setHeader("Message-ID", messageId);
+        }
+    }
+
+    private static void cerrar(Transport transporte) {
+        try {
+            transporte.close();
+        } catch (MessagingException ignored) {
+            // La conexión ya estaba caída
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.ProgramadoresTareas;
+import com.healthUnity.mcpServer.DTO.DoctorRanking;
+import com.healthUnity.mcpServer.Repositories.RankingDoctoresRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Ranking en memoria de los doctores con opiniones, uno general y uno por especialidad,
+ * ordenados por rating, luego reseñas y luego id (de mayor a menor), igual que
+ * ListadoDoctoresRepository.topPorEspecialidad. Los K primeros se recorren sin ordenar nada.
+ * Se construye al arrancar y cada pocos segundos aplica solo los doctores cuyo resumen de opiniones
+ * cambió (doctor_rating_resumen.cambio), las escriba esta aplicación u otra. La recarga completa
+ * periódica recoge lo que el resumen no marca: doctores borrados o que cambiaron de nombre o especialidad.
+ * Los cambios de cada sincronización también se pasan a FavoritosPacientes.
+ */
+@Service
+public class RankingDoctores {
+    static final Comparator<DoctorRanking> ORDEN = Comparator
+            .comparingDouble(DoctorRanking::rating).reversed()
+            .thenComparing(Comparator.comparingInt(DoctorRanking::reviews).reversed())
+            .thenComparing(Comparator.comparing(DoctorRanking::idDoctor).reversed());
+
+    private final RankingDoctoresRepository rankingDoctoresRepository;
+    private final FavoritosPacientes favoritosPacientes;
+
+    private volatile Tablero tablero = new Tablero();
+    // Desde dónde leer los cambios; null hasta la primera carga
+    private String corte;
+
+    @Autowired
+    public RankingDoctores(RankingDoctoresRepository rankingDoctoresRepository, FavoritosPacientes favoritosPacientes) {
+        this.rankingDoctoresRepository = rankingDoctoresRepository;
+        this.favoritosPacientes = favoritosPacientes;
+    }
+
+    /**
+     * Reconstruye el ranking completo y lo reemplaza de forma atómica.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(scheduler = ProgramadoresTareas.RECARGAS,
+            initialDelayString = "${healthunity.ranking.recarga-ms:900000}",
+            fixedDelayString = "${healthunity.ranking.recarga-ms:900000}")
+    public synchronized void recargar() {
+        String nuevoCorte = rankingDoctoresRepository.corte();
+        tablero = new Tablero().con(rankingDoctoresRepository.findConOpiniones());
+        corte = nuevoCorte;
+    }
+
+    /**
+     * Aplica los doctores cuyo resumen cambió desde la lectura anterior en un tablero nuevo y lo publica.
+     */
+    @Scheduled(initialDelayString = "${healthunity.ranking.sincronizacion-ms:5000}",
+            fixedDelayString = "${healthunity.ranking.sincronizacion-ms:5000}")
+    public synchronized void sincronizar() {
+        if (corte == null) {
+            return;
+        }
+        String nuevoCorte = rankingDoctoresRepository.corte();
+        List<DoctorRanking> cambiados = rankingDoctoresRepository.findCambiadosDesde(corte);
+        if (!cambiados.isEmpty()) {
+            tablero = tablero.con(cambiados);
+        }
+        favoritosPacientes.ratingsCambiados(cambiados);
+        corte = nuevoCorte;
+    }
+
+    /**
+     * Los {@code k} mejores de la especialidad, o de todas si {@code idEspecialidad} es null.
+     */
+    public List<DoctorRanking> top(Long idEspecialidad, int k) {
+        Tablero actual = tablero;
+        NavigableSet<DoctorRanking> ranking = idEspecialidad == null
+                ? actual.general
+                : actual.porEspecialidad.get(idEspecialidad);
+        if (ranking == null || k <= 0) {
+            return List.of();
+        }
+        List<DoctorRanking> primeros = new ArrayList<>(k);
+        Iterator<DoctorRanking> it = ranking.iterator();
+        while (it.hasNext() && primeros.size() < k) {
+            primeros.add(it.next());
+        }
+        return primeros;
+    }
+
+    /**
+     * Estado del ranking. Una vez publicado no se modifica: las lecturas lo recorren sin bloquear y nunca ven
+     * a un doctor a medio mover. Cada cambio arma un tablero nuevo que copia el ranking general y solo
+     * los de las especialidades tocadas.
+     */
+    private static final class Tablero {
+        final Map<Long, DoctorRanking> porDoctor;
+        final NavigableSet<DoctorRanking> general;
+        final Map<Long, NavigableSet<DoctorRanking>> porEspecialidad;
+
+        Tablero() {
+            porDoctor = new HashMap<>();
+            general = new TreeSet<>(ORDEN);
+            porEspecialidad = new HashMap<>();
+        }
+
+        private Tablero(Tablero base) {
+            porDoctor = new HashMap<>(base.porDoctor);
+            // Copiar un conjunto ya ordenado no vuelve a ordenar
+            general = new TreeSet<>(base.general);
+            porEspecialidad = new HashMap<>(base.porEspecialidad);
+        }
+
+        // Un tablero nuevo con los doctores aplicados; este queda igual
+        Tablero con(Collection<DoctorRanking> doctores) {
+            Tablero nuevo = new Tablero(this);
+            Set<Long> copiadas = new HashSet<>();
+            for (DoctorRanking doctor : doctores) {
+                nuevo.actualizar(doctor, copiadas);
+            }
+            return nuevo;
+        }
+
+        // Reemplaza la posición del doctor; sin opiniones sale del ranking
+        private void actualizar(DoctorRanking doctor, Set<Long> copiadas) {
+            DoctorRanking anterior = doctor.reviews() > 0
+                    ? porDoctor.put(doctor.idDoctor(), doctor)
+                    : porDoctor.remove(doctor.idDoctor());
+            if (anterior != null) {
+                general.remove(anterior);
+                if (anterior.idEspecialidad() != null) {
+                    especialidad(anterior.idEspecialidad(), copiadas).remove(anterior);
+                }
+            }
+            if (doctor.reviews() > 0) {
+                general.add(doctor);
+                if (doctor.idEspecialidad() != null) {
+                    especialidad(doctor.idEspecialidad(), copiadas).add(doctor);
+                }
+            }
+        }
+
+        // El ranking de la especialidad en este tablero; se copia la primera vez que se toca
+        private NavigableSet<DoctorRanking> especialidad(Long idEspecialidad, Set<Long> copiadas) {
+            if (copiadas.add(idEspecialidad)) {
+                NavigableSet<DoctorRanking> base = porEspecialidad.get(idEspecialidad);
+                porEspecialidad.put(idEspecialidad, base == null ? new TreeSet<>(ORDEN) : new TreeSet<>(base));
+            }
+            return porEspecialidad.get(idEspecialidad);
+        }
+    }
+}
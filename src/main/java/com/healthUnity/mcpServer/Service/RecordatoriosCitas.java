@@ -0,0 +1,90 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import com.healthUnity.mcpServer.DTO.PaginaRecordatorios;
+import com.healthUnity.mcpServer.Repositories.ProgresoTareasRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Encola el recordatorio de cada cita cuando entra en las próximas 24 horas (recordatorio-horas-antes).
+ * Cada ejecución recorre solo el tramo nuevo de la ventana, desde donde terminó la anterior hasta
+ * ahora + 24 h, con páginas por (fecha, hora, id_cita) sobre ix_citas_fecha_hora_id; cada página es una
+ * sentencia y una transacción corta. La clave única del outbox garantiza un solo recordatorio por cita
+ * aunque un tramo se recorra dos veces. El final del tramo recorrido se guarda en progreso_tareas,
+ * así un reinicio sigue desde ahí aunque haya estado detenido más de recordatorios-recuperacion-minutos.
+ * Las citas encoladas se cuentan en healthunity.recordatorios.encolados.
+ * Las citas creadas o movidas dentro de las próximas 24 horas no reciben recordatorio:
+ * el correo de confirmación ya llega con la fecha cercana.
+ */
+@Component
+public class RecordatoriosCitas {
+
+    static final String TAREA = "recordatorios_citas";
+
+    private final OutboxNotificaciones outbox;
+    private final ProgresoTareasRepository progresoTareas;
+    private final NotificacionesProperties properties;
+    private final Counter encoladosTotal;
+
+    @Autowired
+    public RecordatoriosCitas(OutboxNotificaciones outbox,
+                              ProgresoTareasRepository progresoTareas,
+                              NotificacionesProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.outbox = outbox;
+        this.progresoTareas = progresoTareas;
+        this.properties = properties;
+        this.encoladosTotal = Counter.builder("healthunity.recordatorios.encolados").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${healthunity.notificaciones.recordatorios-intervalo-ms:60000}")
+    public synchronized void ejecutar() {
+        LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime hasta = ahora.plusHours(properties.getRecordatorioHorasAntes());
+        // Sin marca guardada (primera vez) se recorre solo el último tramo de recuperación
+        LocalDateTime desde = progresoTareas.hasta(TAREA)
+                .orElseGet(() -> hasta.minusMinutes(properties.getRecordatoriosRecuperacionMinutos()));
+        if (desde.isBefore(ahora)) {
+            desde = ahora;
+        }
+        if (!desde.isBefore(hasta)) {
+            return;
+        }
+
+        encoladosTotal.increment(encolar(desde, hasta));
+        progresoTareas.avanzar(TAREA, hasta);
+    }
+
+    /**
+     * Encola los recordatorios de las citas con fecha y hora en (desde, hasta]. Devuelve cuántos encoló.
+     */
+    public int encolar(LocalDateTime desde, LocalDateTime hasta) {
+        LocalDate fecha = desde.toLocalDate();
+        LocalTime hora = desde.toLocalTime();
+        // Con el id máximo se excluyen las citas justo en "desde": ya las cubrió el tramo anterior
+        Long idCita = Long.MAX_VALUE;
+        int lote = properties.getRecordatoriosLote();
+        int encolados = 0;
+
+        while (true) {
+            PaginaRecordatorios pagina = outbox.encolarRecordatorios(
+                    fecha, hora, idCita, hasta.toLocalDate(), hasta.toLocalTime(), lote);
+            encolados += pagina.getEncoladas().intValue();
+            if (pagina.getLeidas() < lote) {
+                return encolados;
+            }
+            fecha = pagina.getFecha();
+            hora = pagina.getHora();
+            idCita = pagina.getIdCita();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Repositories.CitasRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reserva de slots (doctor, fecha, hora) sin serializar reservas de distintos doctores.
+ * Cada slot tiene su propio bloqueo consultivo de Postgres, tomado sin esperar dentro del INSERT,
+ * y el índice único parcial ux_citas_doctor_fecha_hora_activa garantiza que no haya dos citas activas.
+ * Antes de tomar el bloqueo se exige que la hora sea el inicio de un slot de MotorSlots
+ * y que la cita, con la duración de la especialidad, no se cruce con otra.
+ * Quien pierde la carrera recibe de inmediato los horarios libres más cercanos.
+ * Reprogramar una cita (tomarSlotParaMover) pasa por las mismas comprobaciones.
+ * Un slot retenido (RetencionesHorario) solo lo puede reservar el paciente que lo retiene,
+ * y al reservarlo la retención se suelta.
+ */
+@Service
+public class ReservaCitas {
+    private static final int MAX_ALTERNATIVAS = 3;
+    private static final int DIAS_ALTERNATIVAS = 7;
+    // Ninguna cita tiene id 0: sirve para buscar cualquier cita activa en el slot
+    private static final Long SIN_CITA = 0L;
+
+    private final CitasRepository citasRepository;
+    private final IndiceHorarios indiceHorarios;
+    private final MotorSlots motorSlots;
+    private final RetencionesHorario retencionesHorario;
+
+    public enum Estado { RESERVADA, RETENIDA, OCUPADA, FUERA_DE_HORARIO }
+
+    public record Resultado(Estado estado, Long idCita, List<String> alternativas) {
+    }
+
+    @Autowired
+    public ReservaCitas(CitasRepository citasRepository,
+                        IndiceHorarios indiceHorarios,
+                        MotorSlots motorSlots,
+                        RetencionesHorario retencionesHorario) {
+        this.citasRepository = citasRepository;
+        this.indiceHorarios = indiceHorarios;
+        this.motorSlots = motorSlots;
+        this.retencionesHorario = retencionesHorario;
+    }
+
+    /**
+     * Intenta reservar el slot. El bloqueo del slot se mantiene hasta que termina la transacción
+     * que llama, por eso debe invocarse desde una transacción de escritura.
+     */
+    @Transactional
+    public Resultado reservar(Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora, String razon) {
+        if (!indiceHorarios.trabajaEn(idDoctor, fecha.getDayOfWeek().getValue(), hora)) {
+            return new Resultado(Estado.FUERA_DE_HORARIO, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        int duracion = motorSlots.unidadesPorSlot(idDoctor);
+        if (!motorSlots.esInicioDeSlot(idDoctor, fecha, hora, duracion)) {
+            return new Resultado(Estado.FUERA_DE_HORARIO, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        if (retencionesHorario.retenidoPorOtro(idDoctor, fecha, hora, idPaciente)
+                || motorSlots.seCruzaConOtraCita(idDoctor, fecha, hora, duracion)) {
+            return new Resultado(Estado.OCUPADA, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+
+        Long idCita = citasRepository.insertarSiSlotLibre(
+                idPaciente, idDoctor, fecha, hora, razon, claveSlot(idDoctor, fecha, hora));
+        if (idCita == null) {
+            return new Resultado(Estado.OCUPADA, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        liberarAlConfirmar(idPaciente, idDoctor, fecha, hora);
+        return new Resultado(Estado.RESERVADA, idCita, List.of());
+    }
+
+    /**
+     * Retiene el slot para el paciente durante healthunity.agenda.retencion-segundos.
+     * No escribe en la base: solo comprueba que el doctor atienda y que no haya una cita activa.
+     */
+    public Resultado retener(Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora) {
+        if (!indiceHorarios.trabajaEn(idDoctor, fecha.getDayOfWeek().getValue(), hora)) {
+            return new Resultado(Estado.FUERA_DE_HORARIO, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        if (citasRepository.existsCitaActiva(idDoctor, fecha, hora, SIN_CITA)) {
+            return new Resultado(Estado.OCUPADA, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        Optional<RetencionesHorario.Retencion> retencion = retencionesHorario.retener(idPaciente, idDoctor, fecha, hora);
+        if (retencion.isEmpty()) {
+            return new Resultado(Estado.OCUPADA, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        return new Resultado(Estado.RETENIDA, null, List.of());
+    }
+
+    /**
+     * Toma el slot para mover una cita existente, con las mismas reglas que reservar:
+     * FUERA_DE_HORARIO si el doctor no atiende o la hora no es inicio de slot, OCUPADA si lo retiene otro
+     * paciente, si se cruza con otra cita (sin contar la que se mueve) o si otra transacción lo está usando.
+     * RESERVADA trae el id de la cita movida.
+     */
+    @Transactional
+    public Resultado tomarSlotParaMover(Long idCita, Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora) {
+        if (!indiceHorarios.trabajaEn(idDoctor, fecha.getDayOfWeek().getValue(), hora)) {
+            return new Resultado(Estado.FUERA_DE_HORARIO, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        int duracion = motorSlots.unidadesPorSlot(idDoctor);
+        if (!motorSlots.esInicioDeSlot(idDoctor, fecha, hora, duracion)) {
+            return new Resultado(Estado.FUERA_DE_HORARIO, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        if (retencionesHorario.retenidoPorOtro(idDoctor, fecha, hora, idPaciente)
+                || motorSlots.seCruzaConOtraCita(idDoctor, fecha, hora, duracion, idCita)
+                || !citasRepository.bloquearSlot(claveSlot(idDoctor, fecha, hora))
+                || citasRepository.existsCitaActiva(idDoctor, fecha, hora, idCita)) {
+            return new Resultado(Estado.OCUPADA, null, alternativas(idDoctor, fecha, hora, idPaciente));
+        }
+        liberarAlConfirmar(idPaciente, idDoctor, fecha, hora);
+        return new Resultado(Estado.RESERVADA, idCita, List.of());
+    }
+
+    /**
+     * Los horarios libres más cercanos al pedido, en formato "YYYY-MM-DD HH:mm",
+     * buscando desde ese día y durante la semana siguiente.
+     */
+    public List<String> alternativas(Long idDoctor, LocalDate fecha, LocalTime hora, Long idPaciente) {
+        LocalDateTime pedido = LocalDateTime.of(fecha, hora);
+        LocalDateTime ahora = LocalDateTime.now();
+        List<LocalDateTime> candidatos = new ArrayList<>();
+
+        motorSlots.horariosLibres(idDoctor, fecha, fecha.plusDays(DIAS_ALTERNATIVAS - 1), idPaciente)
+                .forEach((dia, horas) -> horas.forEach(h -> {
+                    LocalDateTime candidato = LocalDateTime.of(dia, LocalTime.parse(h));
+                    if (!candidato.equals(pedido) && candidato.isAfter(ahora)) {
+                        candidatos.add(candidato);
+                    }
+                }));
+
+        return candidatos.stream()
+                .sorted(Comparator.comparing(c -> Duration.between(pedido, c).abs()))
+                .limit(MAX_ALTERNATIVAS)
+                .map(c -> c.toLocalDate() + " " + c.toLocalTime())
+                .toList();
+    }
+
+    // La retención se suelta cuando la cita ya quedó confirmada en la base
+    private void liberarAlConfirmar(Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            retencionesHorario.liberar(idPaciente, idDoctor, fecha, hora);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                retencionesHorario.liberar(idPaciente, idDoctor, fecha, hora);
+            }
+        });
+    }
+
+    /**
+     * Clave del bloqueo consultivo: id del doctor en los 32 bits altos y minuto desde 1970 en los bajos.
+     */
+    static long claveSlot(Long idDoctor, LocalDate fecha, LocalTime hora) {
+        long minuto = fecha.toEpochDay() * 1440 + hora.toSecondOfDay() / 60;
+        return (idDoctor << 32) | (minuto & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,190 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.EspecialidadesProperties;
+import com.healthUnity.mcpServer.Config.ProgramadoresTareas;
+import com.healthUnity.mcpServer.Models.Especialidades;
+import com.healthUnity.mcpServer.Repositories.EspecialidadesRepository;
+import com.healthUnity.mcpServer.Utils.NormalizadorTexto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.healthUnity.mcpServer.Service.IndiceNombresDoctores.UMBRAL_PALABRA;
+import static com.healthUnity.mcpServer.Service.IndiceNombresDoctores.similitud;
+
+/**
+ * Traduce lo que escribe el paciente ("corazón", "cardiologo", "niños") al id_especialidad,
+ * para que las consultas filtren por igualdad sobre doctores.id_especialidad en lugar de LIKE.
+ * El diccionario son los nombres de las especialidades más los sinónimos de
+ * healthunity.especialidades.sinonimos, normalizados; lo que no coincide exacto se busca palabra
+ * por palabra tolerando errores de tipeo. Cada texto resuelto, o no reconocido, queda en caché
+ * hasta la siguiente recarga.
+ */
+@Service
+public class ResolvedorEspecialidades {
+    // Las palabras de menos letras ("de", "el") no identifican ninguna especialidad
+    private static final int MIN_LETRAS = 3;
+    // Ninguna especialidad tiene id 0: marca en la caché los textos no reconocidos
+    private static final Long DESCONOCIDA = 0L;
+
+    private final EspecialidadesRepository especialidadesRepository;
+    private final EspecialidadesProperties especialidadesProperties;
+
+    private volatile Diccionario diccionario = new Diccionario(Map.of(), List.of(), Map.of());
+
+    @Autowired
+    public ResolvedorEspecialidades(EspecialidadesRepository especialidadesRepository,
+                                    EspecialidadesProperties especialidadesProperties) {
+        this.especialidadesRepository = especialidadesRepository;
+        this.especialidadesProperties = especialidadesProperties;
+    }
+
+    /**
+     * Vuelve a leer las especialidades y descarta lo resuelto hasta ahora.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(scheduler = ProgramadoresTareas.RECARGAS,
+            initialDelayString = "${healthunity.especialidades.recarga-ms:900000}",
+            fixedDelayString = "${healthunity.especialidades.recarga-ms:900000}")
+    public synchronized void recargar() {
+        Map<String, List<String>> sinonimos = new HashMap<>();
+        especialidadesProperties.getSinonimos().forEach((nombre, terminos) ->
+                sinonimos.computeIfAbsent(NormalizadorTexto.normalizar(nombre), n -> new ArrayList<>()).addAll(terminos));
+
+        Map<String, Long> exactos = new HashMap<>();
+        List<Termino> terminos = new ArrayList<>();
+        Map<Long, String> nombres = new LinkedHashMap<>();
+        for (Especialidades especialidad : especialidadesRepository.findAll()) {
+            String nombre = NormalizadorTexto.normalizar(especialidad.getNombre());
+            if (nombre.isEmpty()) {
+                continue;
+            }
+            nombres.put(especialidad.getIdEspecialidad(), especialidad.getNombre());
+            agregar(nombre, especialidad.getIdEspecialidad(), exactos, terminos);
+            for (String sinonimo : sinonimos.getOrDefault(nombre, List.of())) {
+                agregar(NormalizadorTexto.normalizar(sinonimo), especialidad.getIdEspecialidad(), exactos, terminos);
+            }
+        }
+        diccionario = new Diccionario(exactos, terminos, nombres);
+    }
+
+    /**
+     * El id_especialidad que corresponde al texto, o null si no se reconoce ninguna.
+     */
+    public Long resolver(String texto) {
+        String normalizado = NormalizadorTexto.normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return null;
+        }
+        Diccionario actual = diccionario;
+        Long id = actual.resueltos().get(normalizado);
+        if (id == null) {
+            id = actual.exactos().get(normalizado);
+            if (id == null) {
+                id = aproximada(actual, NormalizadorTexto.palabras(normalizado));
+            }
+            if (actual.resueltos().size() >= especialidadesProperties.getMaxDesconocidas()) {
+                actual.resueltos().clear();
+            }
+            actual.resueltos().put(normalizado, id != null ? id : DESCONOCIDA);
+        }
+        return DESCONOCIDA.equals(id) ? null : id;
+    }
+
+    /**
+     * El nombre con que se guardó la especialidad, o null si no existe.
+     */
+    public String nombre(Long idEspecialidad) {
+        return diccionario.nombres().get(idEspecialidad);
+    }
+
+    /**
+     * Los nombres de todas las especialidades, separados por comas, para sugerirlos al paciente.
+     */
+    public String disponibles() {
+        return String.join(", ", diccionario.nombres().values());
+    }
+
+    // Textos resueltos o no reconocidos que hay en caché
+    int enCache() {
+        return diccionario.resueltos().size();
+    }
+
+    /**
+     * El término con mejor puntaje cuyas palabras aparecen todas en el texto (con errores de tipeo);
+     * a igual puntaje gana el término de más palabras, y luego la especialidad de menor id.
+     */
+    private static Long aproximada(Diccionario actual, String[] buscadas) {
+        Long mejorId = null;
+        double mejorPuntaje = 0;
+        int mejorPalabras = 0;
+        for (Termino termino : actual.terminos()) {
+            double puntaje = puntuar(termino.palabras(), buscadas);
+            if (puntaje < 0) {
+                continue;
+            }
+            int palabras = termino.palabras().length;
+            if (puntaje > mejorPuntaje
+                    || puntaje == mejorPuntaje && (palabras > mejorPalabras
+                    || palabras == mejorPalabras && termino.idEspecialidad() < mejorId)) {
+                mejorId = termino.idEspecialidad();
+                mejorPuntaje = puntaje;
+                mejorPalabras = palabras;
+            }
+        }
+        return mejorId;
+    }
+
+    // Promedio de la mejor similitud de cada palabra del término, o -1 si alguna no aparece en el texto
+    private static double puntuar(String[] palabrasTermino, String[] buscadas) {
+        double total = 0;
+        int evaluadas = 0;
+        for (String palabra : palabrasTermino) {
+            if (palabra.length() < MIN_LETRAS) {
+                continue;
+            }
+            double mejor = 0;
+            for (String buscada : buscadas) {
+                if (buscada.length() >= MIN_LETRAS) {
+                    mejor = Math.max(mejor, similitud(buscada, palabra));
+                }
+            }
+            if (mejor < UMBRAL_PALABRA) {
+                return -1;
+            }
+            total += mejor;
+            evaluadas++;
+        }
+        return evaluadas > 0 ? total / evaluadas : -1;
+    }
+
+    private static void agregar(String termino, Long idEspecialidad, Map<String, Long> exactos, List<Termino> terminos) {
+        if (termino.isEmpty() || exactos.putIfAbsent(termino, idEspecialidad) != null) {
+            return;
+        }
+        terminos.add(new Termino(NormalizadorTexto.palabras(termino), idEspecialidad));
+    }
+
+    private record Termino(String[] palabras, Long idEspecialidad) {
+    }
+
+    /**
+     * Términos y nombres de una carga, con la caché de lo ya resuelto contra ellos.
+     */
+    private record Diccionario(Map<String, Long> exactos, List<Termino> terminos, Map<Long, String> nombres,
+                               ConcurrentHashMap<String, Long> resueltos) {
+
+        Diccionario(Map<String, Long> exactos, List<Termino> terminos, Map<Long, String> nombres) {
+            this(exactos, terminos, nombres, new ConcurrentHashMap<>());
+        }
+    }
+}
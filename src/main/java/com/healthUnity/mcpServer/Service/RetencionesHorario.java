@@ -0,0 +1,166 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.AgendaProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.LongSupplier;
+
+/**
+ * Retenciones temporales de slots mientras el agente confirma con el paciente.
+ * La tabla se indexa con la misma clave de slot que usa ReservaCitas y se modifica solo con
+ * putIfAbsent/replace/remove condicionales, sin bloqueos propios.
+ * Los vencimientos se limpian con una rueda de tiempo de ranuras de un segundo que avanza
+ * una tarea programada; las consultas también ignoran lo vencido aunque la rueda aún no pasó.
+ * Cada paciente tiene como máximo una retención: retener otro slot libera el anterior.
+ */
+@Service
+public class RetencionesHorario {
+    static final long MS_POR_RANURA = 1000;
+    static final int RANURAS = 512;
+
+    public record Retencion(Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora, long venceEnMs) {
+        boolean vencida(long ahoraMs) {
+            return ahoraMs >= venceEnMs;
+        }
+    }
+
+    private final AgendaProperties agendaProperties;
+    private final LongSupplier reloj;
+
+    private final ConcurrentHashMap<Long, Retencion> porSlot = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> slotPorPaciente = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Queue<Long>[] rueda = new Queue[RANURAS];
+    private long ultimaRanura;
+
+    @Autowired
+    public RetencionesHorario(AgendaProperties agendaProperties) {
+        this(agendaProperties, System::currentTimeMillis);
+    }
+
+    RetencionesHorario(AgendaProperties agendaProperties, LongSupplier reloj) {
+        this.agendaProperties = agendaProperties;
+        this.reloj = reloj;
+        for (int i = 0; i < RANURAS; i++) {
+            rueda[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.ultimaRanura = reloj.getAsLong() / MS_POR_RANURA;
+    }
+
+    /**
+     * Retiene el slot para el paciente. Si ya era suyo se renueva el plazo;
+     * si lo retiene otro paciente y no ha vencido, no se retiene.
+     */
+    public Optional<Retencion> retener(Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora) {
+        long clave = ReservaCitas.claveSlot(idDoctor, fecha, hora);
+        long ahora = reloj.getAsLong();
+        Retencion nueva = new Retencion(idPaciente, idDoctor, fecha, hora,
+                ahora + agendaProperties.getRetencionSegundos() * 1000L);
+
+        while (true) {
+            Retencion actual = porSlot.putIfAbsent(clave, nueva);
+            if (actual == null) {
+                break;
+            }
+            if (!actual.idPaciente().equals(idPaciente) && !actual.vencida(ahora)) {
+                return Optional.empty();
+            }
+            if (porSlot.replace(clave, actual, nueva)) {
+                break;
+            }
+        }
+
+        Long anterior = slotPorPaciente.put(idPaciente, clave);
+        if (anterior != null && anterior != clave) {
+            liberarSiEsDe(anterior, idPaciente);
+        }
+        rueda[(int) (ranura(nueva.venceEnMs()) % RANURAS)].add(clave);
+        return Optional.of(nueva);
+    }
+
+    /**
+     * Indica si el slot está retenido por alguien distinto de {@code idPaciente}.
+     * Con {@code idPaciente} nulo cuenta cualquier retención vigente.
+     */
+    public boolean retenidoPorOtro(Long idDoctor, LocalDate fecha, LocalTime hora, Long idPaciente) {
+        if (porSlot.isEmpty()) {
+            return false;
+        }
+        Retencion retencion = porSlot.get(ReservaCitas.claveSlot(idDoctor, fecha, hora));
+        return retencion != null
+                && !retencion.vencida(reloj.getAsLong())
+                && !retencion.idPaciente().equals(idPaciente);
+    }
+
+    public int segundosDeRetencion() {
+        return agendaProperties.getRetencionSegundos();
+    }
+
+    public boolean hayRetenciones() {
+        return !porSlot.isEmpty();
+    }
+
+    /**
+     * Suelta la retención del slot si pertenece al paciente.
+     */
+    public void liberar(Long idPaciente, Long idDoctor, LocalDate fecha, LocalTime hora) {
+        long clave = ReservaCitas.claveSlot(idDoctor, fecha, hora);
+        liberarSiEsDe(clave, idPaciente);
+        slotPorPaciente.remove(idPaciente, clave);
+    }
+
+    /**
+     * Avanza la rueda hasta el segundo actual y elimina las retenciones vencidas de cada ranura recorrida.
+     * Las que siguen vigentes (renovadas o con plazo mayor a una vuelta) se vuelven a encolar.
+     */
+    @Scheduled(fixedDelay = MS_POR_RANURA)
+    public synchronized void avanzar() {
+        long ahora = reloj.getAsLong();
+        long actual = ranura(ahora);
+        long desde = Math.max(ultimaRanura + 1, actual - RANURAS + 1);
+        for (long r = desde; r <= actual; r++) {
+            Queue<Long> cola = rueda[(int) (r % RANURAS)];
+            for (int n = cola.size(); n > 0; n--) {
+                Long clave = cola.poll();
+                if (clave == null) {
+                    break;
+                }
+                Retencion retencion = porSlot.get(clave);
+                if (retencion == null) {
+                    continue;
+                }
+                if (retencion.vencida(ahora)) {
+                    if (porSlot.remove(clave, retencion)) {
+                        slotPorPaciente.remove(retencion.idPaciente(), clave);
+                    }
+                } else {
+                    rueda[(int) (ranura(retencion.venceEnMs()) % RANURAS)].add(clave);
+                }
+            }
+        }
+        ultimaRanura = actual;
+    }
+
+    int tamanio() {
+        return porSlot.size();
+    }
+
+    private void liberarSiEsDe(long clave, Long idPaciente) {
+        Retencion actual = porSlot.get(clave);
+        if (actual != null && actual.idPaciente().equals(idPaciente)) {
+            porSlot.remove(clave, actual);
+        }
+    }
+
+    private static long ranura(long ms) {
+        return ms / MS_POR_RANURA;
+    }
+}
@@ -0,0 +1,102 @@
+package com.healthUnity.mcpServer.Utils;
+
+/**
+ * Operaciones sobre mapas de bits empaquetados en long[].
+ * Cada bit representa una unidad de tiempo; los rangos son [desde, hasta).
+ * El offset indica la primera palabra del tramo (por ejemplo, el día dentro de una semana).
+ */
+public final class MapaBits {
+
+    private MapaBits() {
+    }
+
+    public static void marcar(long[] bits, int offset, int desde, int hasta) {
+        for (int i = desde; i < hasta; ) {
+            int bit = i & 63;
+            int n = Math.min(64 - bit, hasta - i);
+            bits[offset + (i >>> 6)] |= mascara(bit, n);
+            i += n;
+        }
+    }
+
+    public static void limpiar(long[] bits, int offset, int desde, int hasta) {
+        for (int i = desde; i < hasta; ) {
+            int bit = i & 63;
+            int n = Math.min(64 - bit, hasta - i);
+            bits[offset + (i >>> 6)] &= ~mascara(bit, n);
+            i += n;
+        }
+    }
+
+    public static boolean contiene(long[] bits, int offset, int i) {
+        return (bits[offset + (i >>> 6)] & (1L << (i & 63))) != 0;
+    }
+
+    /**
+     * Indica si hay al menos una posición marcada en [desde, hasta).
+     */
+    public static boolean algunoMarcado(long[] bits, int offset, int desde, int hasta) {
+        for (int i = desde; i < hasta; ) {
+            int bit = i & 63;
+            int n = Math.min(64 - bit, hasta - i);
+            if ((bits[offset + (i >>> 6)] & mascara(bit, n)) != 0) {
+                return true;
+            }
+            i += n;
+        }
+        return false;
+    }
+
+    public static boolean vacio(long[] bits, int offset, int palabras) {
+        for (int w = 0; w < palabras; w++) {
+            if (bits[offset + w] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Primera posición marcada desde {@code desde}, o -1 si no hay ninguna.
+     */
+    public static int siguienteMarcado(long[] bits, int offset, int palabras, int desde) {
+        int w = desde >>> 6;
+        if (w >= palabras) {
+            return -1;
+        }
+        long palabra = bits[offset + w] & (-1L << (desde & 63));
+        while (true) {
+            if (palabra != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(palabra);
+            }
+            if (++w == palabras) {
+                return -1;
+            }
+            palabra = bits[offset + w];
+        }
+    }
+
+    /**
+     * Primera posición sin marcar desde {@code desde}, o {@code palabras * 64} si todas están marcadas.
+     */
+    public static int siguienteLibre(long[] bits, int offset, int palabras, int desde) {
+        int w = desde >>> 6;
+        if (w >= palabras) {
+            return palabras << 6;
+        }
+        long palabra = ~bits[offset + w] & (-1L << (desde & 63));
+        while (true) {
+            if (palabra != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(palabra);
+            }
+            if (++w == palabras) {
+                return palabras << 6;
+            }
+            palabra = ~bits[offset + w];
+        }
+    }
+
+    private static long mascara(int bit, int n) {
+        return (n == 64 ? -1L : (1L << n) - 1) << bit;
+    }
+}
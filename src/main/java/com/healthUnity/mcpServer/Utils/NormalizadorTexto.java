@@ -0,0 +1,35 @@
+package com.healthUnity.mcpServer.Utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normaliza texto escrito por pacientes o por el modelo para compararlo:
+ * sin tildes ni diéresis, en minúsculas y con un solo espacio entre palabras.
+ * "José  MUÑOZ-Pérez" queda como "jose munoz perez".
+ */
+public final class NormalizadorTexto {
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final String[] SIN_PALABRAS = new String[0];
+
+    private NormalizadorTexto() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String sinMarcas = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinMarcas.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Las palabras del texto ya normalizadas.
+     */
+    public static String[] palabras(String texto) {
+        String normalizado = normalizar(texto);
+        return normalizado.isEmpty() ? SIN_PALABRAS : normalizado.split(" ");
+    }
+}
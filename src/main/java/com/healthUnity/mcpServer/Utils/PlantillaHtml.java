@@ -0,0 +1,139 @@
+package com.healthUnity.mcpServer.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Plantilla HTML compilada una sola vez en tramos fijos y variables {{nombre}}.
+ * Al renderizar se recorre la lista de tramos una vez, escribiendo en un buffer reutilizado por hilo,
+ * y cada valor se escapa para HTML. {{url:nombre}} además solo acepta enlaces http(s).
+ * Los valores se pasan en el orden en que se declararon las variables al compilar.
+ */
+public final class PlantillaHtml {
+    private static final String ABRE = "{{";
+    private static final String CIERRA = "}}";
+    private static final String PREFIJO_URL = "url:";
+    // Buffers más grandes que esto no se conservan entre renderizados
+    private static final int MAX_BUFFER_RETENIDO = 64 * 1024;
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<>();
+
+    private enum Tipo { TEXTO, URL }
+
+    private final String[] tramos;
+    private final int[] variables;
+    private final Tipo[] tipos;
+    private final int cantidadVariables;
+    private final int largoFijo;
+
+    private PlantillaHtml(String[] tramos, int[] variables, Tipo[] tipos, int cantidadVariables) {
+        this.tramos = tramos;
+        this.variables = variables;
+        this.tipos = tipos;
+        this.cantidadVariables = cantidadVariables;
+        int largo = 0;
+        for (String tramo : tramos) {
+            largo += tramo.length();
+        }
+        this.largoFijo = largo;
+    }
+
+    /**
+     * Separa la plantilla en tramos. Falla si usa una variable no declarada o si una llave queda sin cerrar.
+     */
+    public static PlantillaHtml compilar(String plantilla, String... nombres) {
+        List<String> declaradas = List.of(nombres);
+        List<String> tramos = new ArrayList<>();
+        List<Integer> variables = new ArrayList<>();
+        List<Tipo> tipos = new ArrayList<>();
+
+        int desde = 0;
+        int abre;
+        while ((abre = plantilla.indexOf(ABRE, desde)) >= 0) {
+            int cierra = plantilla.indexOf(CIERRA, abre + ABRE.length());
+            if (cierra < 0) {
+                throw new IllegalArgumentException("Variable sin cerrar en la posición " + abre);
+            }
+            String nombre = plantilla.substring(abre + ABRE.length(), cierra).trim();
+            Tipo tipo = Tipo.TEXTO;
+            if (nombre.startsWith(PREFIJO_URL)) {
+                tipo = Tipo.URL;
+                nombre = nombre.substring(PREFIJO_URL.length()).trim();
+            }
+            int indice = declaradas.indexOf(nombre);
+            if (indice < 0) {
+                throw new IllegalArgumentException("Variable no declarada en la plantilla: " + nombre);
+            }
+            tramos.add(plantilla.substring(desde, abre));
+            variables.add(indice);
+            tipos.add(tipo);
+            desde = cierra + CIERRA.length();
+        }
+        tramos.add(plantilla.substring(desde));
+
+        return new PlantillaHtml(
+                tramos.toArray(String[]::new),
+                variables.stream().mapToInt(Integer::intValue).toArray(),
+                tipos.toArray(Tipo[]::new),
+                declaradas.size());
+    }
+
+    public String renderizar(String... valores) {
+        if (valores.length != cantidadVariables) {
+            throw new IllegalArgumentException(
+                    "La plantilla espera " + cantidadVariables + " valores y recibió " + valores.length);
+        }
+        StringBuilder salida = BUFFER.get();
+        if (salida == null) {
+            salida = new StringBuilder(largoFijo + 512);
+            BUFFER.set(salida);
+        }
+        salida.setLength(0);
+
+        for (int i = 0; i < variables.length; i++) {
+            salida.append(tramos[i]);
+            String valor = valores[variables[i]];
+            if (tipos[i] == Tipo.URL && !esUrlSegura(valor)) {
+                continue;
+            }
+            escapar(valor, salida);
+        }
+        salida.append(tramos[tramos.length - 1]);
+
+        String html = salida.toString();
+        if (salida.capacity() > MAX_BUFFER_RETENIDO) {
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    static void escapar(String valor, StringBuilder salida) {
+        if (valor == null) {
+            return;
+        }
+        int desde = 0;
+        for (int i = 0; i < valor.length(); i++) {
+            String entidad = switch (valor.charAt(i)) {
+                case '&' -> "&amp;";
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entidad != null) {
+                salida.append(valor, desde, i).append(entidad);
+                desde = i + 1;
+            }
+        }
+        salida.append(valor, desde, valor.length());
+    }
+
+    private static boolean esUrlSegura(String valor) {
+        if (valor == null) {
+            return false;
+        }
+        String url = valor.trim().toLowerCase(Locale.ROOT);
+        return url.startsWith("https://") || url.startsWith("http://");
+    }
+}
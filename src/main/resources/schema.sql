@@ -0,0 +1,253 @@
+-- Se ejecuta al arrancar (spring.sql.init.mode=always); cada sentencia debe poder repetirse.
+-- Las sentencias se separan con @@ (spring.sql.init.separator) porque las funciones llevan ; en el cuerpo.
+
+-- La primera versión del índice dejaba fuera las citas con estado NULL: se recrea con el predicado actual.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_indexes
+               WHERE indexname = 'ux_citas_doctor_fecha_hora_activa' AND indexdef NOT LIKE '%IS NULL%') THEN
+        DROP INDEX ux_citas_doctor_fecha_hora_activa;
+    END IF;
+END
+$$
+@@
+
+-- Un doctor no puede tener dos citas activas (estado NULL o distinto de cancelada) en la misma fecha y hora.
+-- Si falla al crearse, ya existen citas duplicadas que hay que resolver a mano.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_citas_doctor_fecha_hora_activa
+    ON citas (id_doctor, fecha, hora)
+    WHERE estado IS NULL OR estado <> 'cancelada'
+@@
+
+-- Correos pendientes de enviar, escritos en la misma transacción que la cita.
+-- estado: pendiente -> enviando -> enviada, o fallida cuando se agotan los reintentos.
+CREATE TABLE IF NOT EXISTS notificaciones_outbox (
+    id_notificacion BIGSERIAL PRIMARY KEY,
+    tipo VARCHAR(40) NOT NULL,
+    destinatario VARCHAR(255) NOT NULL,
+    payload TEXT NOT NULL,
+    estado VARCHAR(20) NOT NULL DEFAULT 'pendiente',
+    intentos INT NOT NULL DEFAULT 0,
+    proximo_intento TIMESTAMP NOT NULL DEFAULT now(),
+    ultimo_error TEXT,
+    id_cita BIGINT,
+    creado_en TIMESTAMP NOT NULL DEFAULT now(),
+    enviado_en TIMESTAMP
+)
+@@
+
+CREATE INDEX IF NOT EXISTS ix_notificaciones_outbox_por_enviar
+    ON notificaciones_outbox (proximo_intento)
+    WHERE estado IN ('pendiente', 'enviando')
+@@
+
+-- Clave de idempotencia: una misma notificación (p. ej. el recordatorio de una cita) solo se encola una vez.
+ALTER TABLE notificaciones_outbox ADD COLUMN IF NOT EXISTS clave VARCHAR(120)
+@@
+CREATE UNIQUE INDEX IF NOT EXISTS ux_notificaciones_outbox_clave ON notificaciones_outbox (clave)
+@@
+
+-- Recorrido de citas por ventana de tiempo con paginación por (fecha, hora, id_cita).
+CREATE INDEX IF NOT EXISTS ix_citas_fecha_hora_id ON citas (fecha, hora, id_cita)
+@@
+
+-- Hasta dónde recorrió la ventana cada tarea programada (p. ej. los recordatorios), para seguir tras un reinicio.
+CREATE TABLE IF NOT EXISTS progreso_tareas (
+    tarea VARCHAR(60) PRIMARY KEY,
+    hasta TIMESTAMP NOT NULL
+)
+@@
+
+-- Resumen de calificaciones por doctor, mantenido por trigger sobre opiniones_doctores,
+-- para que los listados no recalculen AVG/COUNT sobre todas las opiniones en cada consulta.
+CREATE TABLE IF NOT EXISTS doctor_rating_resumen (
+    id_doctor BIGINT PRIMARY KEY REFERENCES doctores (id_doctor) ON DELETE CASCADE,
+    suma BIGINT NOT NULL DEFAULT 0,
+    cantidad INT NOT NULL DEFAULT 0,
+    promedio DOUBLE PRECISION GENERATED ALWAYS AS
+        (CASE WHEN cantidad = 0 THEN 0.0 ELSE suma::double precision / cantidad END) STORED
+)
+@@
+
+-- Transacción que cambió la fila por última vez: RankingDoctores lee solo lo cambiado desde su último corte.
+ALTER TABLE doctor_rating_resumen ADD COLUMN IF NOT EXISTS cambio xid8 NOT NULL DEFAULT pg_current_xact_id()
+@@
+
+CREATE INDEX IF NOT EXISTS ix_doctor_rating_resumen_cambio ON doctor_rating_resumen (cambio)
+@@
+
+-- Triggers por sentencia con tablas de transición: cada INSERT/UPDATE/DELETE suma sus cambios por doctor
+-- y actualiza una fila por doctor, aunque la sentencia toque miles de opiniones (importaciones masivas).
+CREATE OR REPLACE FUNCTION actualizar_doctor_rating_resumen() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        DELETE FROM doctor_rating_resumen;
+    ELSIF TG_OP = 'INSERT' THEN
+        INSERT INTO doctor_rating_resumen AS r (id_doctor, suma, cantidad)
+        SELECT id_doctor, SUM(estrellas), COUNT(*)
+        FROM nuevas
+        GROUP BY id_doctor
+        ORDER BY id_doctor
+        ON CONFLICT (id_doctor) DO UPDATE
+        SET suma = r.suma + EXCLUDED.suma, cantidad = r.cantidad + EXCLUDED.cantidad,
+            cambio = pg_current_xact_id();
+    ELSIF TG_OP = 'DELETE' THEN
+        UPDATE doctor_rating_resumen r
+        SET suma = r.suma - v.suma, cantidad = r.cantidad - v.cantidad, cambio = pg_current_xact_id()
+        FROM (SELECT id_doctor, SUM(estrellas) AS suma, COUNT(*) AS cantidad
+              FROM viejas GROUP BY id_doctor) v
+        WHERE r.id_doctor = v.id_doctor;
+    ELSE
+        INSERT INTO doctor_rating_resumen AS r (id_doctor, suma, cantidad)
+        SELECT id_doctor, SUM(estrellas), SUM(cantidad)
+        FROM (SELECT id_doctor, estrellas, 1 AS cantidad FROM nuevas
+              UNION ALL
+              SELECT id_doctor, -estrellas, -1 FROM viejas) cambios
+        GROUP BY id_doctor
+        HAVING SUM(estrellas) <> 0 OR SUM(cantidad) <> 0
+        ORDER BY id_doctor
+        ON CONFLICT (id_doctor) DO UPDATE
+        SET suma = r.suma + EXCLUDED.suma, cantidad = r.cantidad + EXCLUDED.cantidad,
+            cambio = pg_current_xact_id();
+    END IF;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+@@
+
+-- Los triggers se crean una sola vez y el resumen se llena en la misma transacción:
+-- CREATE TRIGGER bloquea las escrituras en opiniones_doctores hasta el commit, así que no se pierde ninguna.
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'tr_opiniones_doctores_rating_insert') THEN
+        CREATE TRIGGER tr_opiniones_doctores_rating_insert
+            AFTER INSERT ON opiniones_doctores REFERENCING NEW TABLE AS nuevas
+            FOR EACH STATEMENT EXECUTE FUNCTION actualizar_doctor_rating_resumen();
+        CREATE TRIGGER tr_opiniones_doctores_rating_update
+            AFTER UPDATE ON opiniones_doctores REFERENCING OLD TABLE AS viejas NEW TABLE AS nuevas
+            FOR EACH STATEMENT EXECUTE FUNCTION actualizar_doctor_rating_resumen();
+        CREATE TRIGGER tr_opiniones_doctores_rating_delete
+            AFTER DELETE ON opiniones_doctores REFERENCING OLD TABLE AS viejas
+            FOR EACH STATEMENT EXECUTE FUNCTION actualizar_doctor_rating_resumen();
+        CREATE TRIGGER tr_opiniones_doctores_rating_truncate
+            AFTER TRUNCATE ON opiniones_doctores
+            FOR EACH STATEMENT EXECUTE FUNCTION actualizar_doctor_rating_resumen();
+
+        DELETE FROM doctor_rating_resumen;
+        INSERT INTO doctor_rating_resumen (id_doctor, suma, cantidad)
+        SELECT id_doctor, SUM(estrellas), COUNT(*)
+        FROM opiniones_doctores
+        GROUP BY id_doctor;
+    END IF;
+END
+$$
+@@
+
+-- Todo doctor tiene su fila en el resumen (con 0 opiniones si no tiene), para que la paginación
+-- por cursor recorra doctor_rating_resumen por índice sin LEFT JOIN ni COALESCE.
+CREATE OR REPLACE FUNCTION crear_doctor_rating_resumen() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO doctor_rating_resumen (id_doctor)
+    SELECT id_doctor FROM nuevos
+    ON CONFLICT (id_doctor) DO NOTHING;
+    RETURN NULL;
+END
+$$ LANGUAGE plpgsql
+@@
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'tr_doctores_rating_resumen') THEN
+        CREATE TRIGGER tr_doctores_rating_resumen
+            AFTER INSERT ON doctores REFERENCING NEW TABLE AS nuevos
+            FOR EACH STATEMENT EXECUTE FUNCTION crear_doctor_rating_resumen();
+    END IF;
+END
+$$
+@@
+
+INSERT INTO doctor_rating_resumen (id_doctor)
+SELECT id_doctor FROM doctores
+ON CONFLICT (id_doctor) DO NOTHING
+@@
+
+-- Paginación por cursor: (clave de orden, id_doctor), recorridos hacia atrás para el orden descendente.
+CREATE INDEX IF NOT EXISTS ix_doctor_rating_resumen_promedio ON doctor_rating_resumen (promedio, id_doctor)
+@@
+
+CREATE INDEX IF NOT EXISTS ix_doctor_rating_resumen_cantidad ON doctor_rating_resumen (cantidad, id_doctor)
+@@
+
+CREATE INDEX IF NOT EXISTS ix_doctores_experiencia ON doctores (experiencia, id_doctor)
+@@
+
+-- Filtro por especialidad por igualdad (ResolvedorEspecialidades), con el id_doctor para el desempate.
+CREATE INDEX IF NOT EXISTS ix_doctores_especialidad ON doctores (id_especialidad, id_doctor)
+@@
+
+-- Ids en bloques de 50 para citas, horarios, opiniones y favoritos: las entidades usan estas secuencias
+-- con el optimizador pooled (cada nextval reserva el bloque que termina en el valor devuelto), y así
+-- Hibernate puede insertar en lotes. El backend y los INSERT nativos siguen tomando el valor por defecto,
+-- que ahora avanza de 50 en 50: sus ids quedan con huecos.
+-- SET INCREMENT BY solo vale para columnas identity; si la columna es serial se cambia su secuencia.
+DO $$
+DECLARE
+    columna RECORD;
+BEGIN
+    FOR columna IN
+        SELECT c.table_name, c.column_name, c.is_identity,
+               pg_get_serial_sequence(quote_ident(c.table_name), c.column_name) AS secuencia
+        FROM information_schema.columns c
+        WHERE c.table_schema = current_schema()
+          AND (c.table_name, c.column_name) IN (('citas', 'id_cita'),
+                                                ('horarios_doctor', 'id_horario_doctor'),
+                                                ('opiniones_doctores', 'id_opinion_doctor'),
+                                                ('favoritos_doctores', 'id_favorito_doctor'))
+    LOOP
+        IF columna.is_identity = 'YES' THEN
+            EXECUTE format('ALTER TABLE %I ALTER COLUMN %I SET INCREMENT BY 50', columna.table_name, columna.column_name);
+        ELSIF columna.secuencia IS NOT NULL THEN
+            EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', columna.secuencia);
+        END IF;
+    END LOOP;
+END
+$$
+@@
+
+-- Correo normalizado igual que IdentidadesPacientes.clave: sin espacio, \t, \n, \r, \f ni \v alrededor
+-- y con A-Z en minúsculas. translate no depende de la collation, como toLowerCase en Java no depende de la base.
+-- Si cambia el cuerpo hay que reconstruir ix_detalles_usuario_gmail_normalizado.
+CREATE OR REPLACE FUNCTION normalizar_gmail(gmail TEXT) RETURNS TEXT
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE RETURNS NULL ON NULL INPUT
+AS $$
+    SELECT translate(btrim(gmail, E' \t\n\r\f\013'), 'ABCDEFGHIJKLMNOPQRSTUVWXYZ', 'abcdefghijklmnopqrstuvwxyz')
+$$
+@@
+
+-- La primera versión del índice usaba lower(btrim(gmail)), que no coincide con la clave de Java.
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_indexes
+               WHERE indexname = 'ix_detalles_usuario_gmail_normalizado' AND indexdef NOT LIKE '%normalizar_gmail%') THEN
+        DROP INDEX ix_detalles_usuario_gmail_normalizado;
+    END IF;
+END
+$$
+@@
+
+-- Búsqueda de pacientes por correo sin distinguir mayúsculas ni espacios (PacienteRepository.findIdByGmailNormalizado).
+CREATE INDEX IF NOT EXISTS ix_detalles_usuario_gmail_normalizado ON detalles_usuario (normalizar_gmail(gmail))
+@@
+
+-- Un doctor figura una sola vez entre los favoritos de cada paciente (EscrituraFavoritosRepository usa
+-- ON CONFLICT sobre este índice). Antes de crearlo se quitan los duplicados que hayan quedado, dejando el más antiguo.
+DELETE FROM favoritos_doctores f
+USING favoritos_doctores g
+WHERE f.id_paciente = g.id_paciente
+  AND f.id_doctor = g.id_doctor
+  AND f.id_favorito_doctor > g.id_favorito_doctor
+  AND NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'ux_favoritos_doctores_paciente_doctor')
+@@
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_favoritos_doctores_paciente_doctor ON favoritos_doctores (id_paciente, id_doctor)
+@@
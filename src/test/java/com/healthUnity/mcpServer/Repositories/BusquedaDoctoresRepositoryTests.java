@@ -0,0 +1,133 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FiltroDoctores;
+import com.healthUnity.mcpServer.DTO.FiltroDoctores.Orden;
+import com.healthUnity.mcpServer.DTO.Response.DoctorRatingDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Búsqueda por calificación contra la base configurada: 120 doctores de 5 estrellas con una reseña
+ * y uno de 3 estrellas con cinco, que antes quedaba fuera por estar después de la fila 100.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class BusquedaDoctoresRepositoryTests {
+
+    private static final String ESPECIALIDAD = "Busqueda Dinamica Tests";
+
+    @Autowired
+    private BusquedaDoctoresRepository busqueda;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idEspecialidad;
+    private Long idPaciente;
+    private Long idMuyResenado;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Paz', 'Busqueda')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido)
+                            SELECT 'Doc', 'Busqueda ' || g FROM generate_series(1, 121) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 1, id_detalle_usuario, ? FROM du
+                """, idEspecialidad);
+        idMuyResenado = jdbcTemplate.queryForObject(
+                "SELECT MAX(id_doctor) FROM doctores WHERE id_especialidad = ?", Long.class, idEspecialidad);
+        jdbcTemplate.update("UPDATE doctores SET experiencia = 30 WHERE id_doctor = ?", idMuyResenado);
+        jdbcTemplate.update("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                SELECT 5, 'ok', CURRENT_DATE, id_doctor, ? FROM doctores
+                WHERE id_especialidad = ? AND id_doctor <> ?
+                """, idPaciente, idEspecialidad, idMuyResenado);
+        jdbcTemplate.update("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                SELECT 3, 'ok', CURRENT_DATE, ?, ? FROM generate_series(1, 5)
+                """, idMuyResenado, idPaciente);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_especialidad = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idEspecialidad, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_especialidad = ?", idEspecialidad);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+    }
+
+    @Test
+    void encuentraDoctoresMasAllaDeLaFila100() {
+        FiltroDoctores filtro = new FiltroDoctores(idEspecialidad, null, 5, Orden.RATING, 10);
+
+        List<DoctorRatingDTO> doctores = busqueda.buscar(filtro);
+
+        assertEquals(1, busqueda.contar(filtro));
+        assertEquals(1, doctores.size());
+        assertEquals(idMuyResenado, doctores.get(0).getIdDoctor());
+        assertEquals(3.0, doctores.get(0).getRating());
+        assertEquals(5, doctores.get(0).getReviews());
+    }
+
+    @Test
+    void ordenaYLimitaEnLaConsulta() {
+        FiltroDoctores porRating = new FiltroDoctores(idEspecialidad, 4.0, null, Orden.RATING, 10);
+        List<DoctorRatingDTO> mejores = busqueda.buscar(porRating);
+        assertEquals(120, busqueda.contar(porRating));
+        assertEquals(10, mejores.size());
+        assertTrue(mejores.stream().allMatch(d -> d.getRating() == 5.0));
+        // Empate de rating y reseñas: desempata el id, de mayor a menor
+        for (int i = 1; i < mejores.size(); i++) {
+            assertTrue(mejores.get(i - 1).getIdDoctor() > mejores.get(i).getIdDoctor());
+        }
+
+        assertEquals(idMuyResenado,
+                busqueda.buscar(new FiltroDoctores(idEspecialidad, null, null, Orden.REVIEWS, 1)).get(0).getIdDoctor());
+        assertEquals(idMuyResenado,
+                busqueda.buscar(new FiltroDoctores(idEspecialidad, null, null, Orden.RELEVANCIA, 1)).get(0).getIdDoctor());
+        assertEquals(0, busqueda.contar(new FiltroDoctores(idEspecialidad, 4.0, 5, Orden.RATING, 10)));
+    }
+
+    @Test
+    void cadaFormaTieneSuPropioSqlSinValoresNiFiltrosDeMas() {
+        String soloRating = busqueda.sql(new FiltroDoctores(null, 4.5, null, Orden.RATING, 10));
+        String completo = busqueda.sql(new FiltroDoctores(1L, 3.0, 20, Orden.RATING, 5));
+
+        assertTrue(soloRating.contains("WHERE r.promedio >= :ratingMinimo"));
+        assertFalse(soloRating.contains(":idEspecialidad"));
+        assertFalse(soloRating.contains(":minReviews"));
+        assertFalse(soloRating.contains("4.5"));
+        assertTrue(completo.contains("d.id_especialidad = :idEspecialidad"));
+        assertTrue(completo.contains("r.cantidad >= :minReviews"));
+        assertNotEquals(soloRating, completo);
+        assertSame(soloRating, busqueda.sql(new FiltroDoctores(null, 1.0, null, Orden.RATING, 3)));
+        assertNotEquals(soloRating, busqueda.sql(new FiltroDoctores(null, 4.5, null, Orden.REVIEWS, 10)));
+    }
+}
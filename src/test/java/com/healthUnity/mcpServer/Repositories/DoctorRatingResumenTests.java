@@ -0,0 +1,149 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba contra la base configurada que el trigger de opiniones_doctores mantiene
+ * doctor_rating_resumen al insertar, editar, mover y borrar opiniones, y que las consultas lo leen.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class DoctorRatingResumenTests {
+
+    private static final String ESPECIALIDAD = "Resumen Rating Tests";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+
+    private Long idEspecialidad;
+    private Long idDoctorA;
+    private Long idDoctorB;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctorA = doctor("Ana");
+        idDoctorB = doctor("Beto");
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Paz', 'Resumen')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor IN (?, ?)
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctorA, idDoctorB, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor IN (?, ?)", idDoctorA, idDoctorB);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+    }
+
+    @Test
+    void elResumenSigueLasOpinionesDelDoctor() {
+        Long primera = opinion(idDoctorA, 5);
+        opinion(idDoctorA, 4);
+        opinion(idDoctorA, 3);
+        assertResumen(idDoctorA, 12, 3, 4.0);
+
+        jdbcTemplate.update("UPDATE opiniones_doctores SET estrellas = 2 WHERE id_opinion_doctor = ?", primera);
+        assertResumen(idDoctorA, 9, 3, 3.0);
+
+        jdbcTemplate.update("UPDATE opiniones_doctores SET id_doctor = ? WHERE id_opinion_doctor = ?", idDoctorB, primera);
+        assertResumen(idDoctorA, 7, 2, 3.5);
+        assertResumen(idDoctorB, 2, 1, 2.0);
+
+        // Editar solo el texto no cambia el resumen
+        jdbcTemplate.update("UPDATE opiniones_doctores SET detalles = 'editada' WHERE id_opinion_doctor = ?", primera);
+        assertResumen(idDoctorB, 2, 1, 2.0);
+
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_opinion_doctor = ?", primera);
+        assertResumen(idDoctorB, 0, 0, 0.0);
+    }
+
+    @Test
+    void elResumenCoincideConRecalcularTodasLasOpiniones() {
+        opinion(idDoctorA, 1);
+        opinion(idDoctorB, 5);
+
+        Integer distintos = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM (
+                    SELECT id_doctor, SUM(estrellas) AS suma, COUNT(*) AS cantidad
+                    FROM opiniones_doctores GROUP BY id_doctor
+                ) o
+                FULL JOIN (SELECT * FROM doctor_rating_resumen WHERE cantidad > 0) r USING (id_doctor)
+                WHERE o.suma IS DISTINCT FROM r.suma OR o.cantidad IS DISTINCT FROM r.cantidad
+                """, Integer.class);
+        assertEquals(0, distintos);
+    }
+
+    @Test
+    void elTopPorEspecialidadSeOrdenaPorElPromedioDelResumen() {
+        Long deA = opinion(idDoctorA, 3);
+        opinion(idDoctorB, 5);
+        opinion(idDoctorB, 4);
+
+        List<FilaDoctor> top = listadoDoctoresRepository.topPorEspecialidad(idEspecialidad, 10);
+
+        assertEquals(2, top.size());
+        assertEquals((long) idDoctorB, top.get(0).idDoctor());
+        assertEquals(4.5, top.get(0).rating());
+        assertEquals(2, top.get(0).reviews());
+        assertEquals((long) idDoctorA, top.get(1).idDoctor());
+
+        // Un doctor que se queda sin opiniones sale del top aunque conserve su fila en el resumen
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_opinion_doctor = ?", deA);
+        assertEquals(List.of(idDoctorB), listadoDoctoresRepository.topPorEspecialidad(idEspecialidad, 10).stream()
+                .map(FilaDoctor::idDoctor)
+                .toList());
+    }
+
+    private void assertResumen(Long idDoctor, long suma, int cantidad, double promedio) {
+        Map<String, Object> fila = jdbcTemplate.queryForMap(
+                "SELECT suma, cantidad, promedio FROM doctor_rating_resumen WHERE id_doctor = ?", idDoctor);
+        assertEquals(suma, ((Number) fila.get("suma")).longValue());
+        assertEquals(cantidad, ((Number) fila.get("cantidad")).intValue());
+        assertEquals(promedio, ((Number) fila.get("promedio")).doubleValue(), 1e-9);
+    }
+
+    private Long doctor(String nombre) {
+        return jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES (?, 'Resumen')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 1, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, nombre, idEspecialidad);
+    }
+
+    private Long opinion(Long idDoctor, int estrellas) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                VALUES (?, 'ok', CURRENT_DATE, ?, ?)
+                RETURNING id_opinion_doctor
+                """, Long.class, estrellas, idDoctor, idPaciente);
+    }
+}
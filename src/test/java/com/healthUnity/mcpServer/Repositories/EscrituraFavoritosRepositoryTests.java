@@ -0,0 +1,150 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.AltaFavorito;
+import com.healthUnity.mcpServer.DTO.FavoritoQuitado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Alta y baja de favoritos en una sentencia: las altas simultáneas del mismo doctor dejan una sola fila
+ * y cada resultado dice por qué no se insertó.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class EscrituraFavoritosRepositoryTests {
+
+    private static final String ESPECIALIDAD = "Escritura Favoritos Tests";
+    private static final int HILOS = 8;
+
+    @Autowired
+    private EscrituraFavoritosRepository escrituraFavoritosRepository;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idEspecialidad;
+    private Long idDoctor;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Marta', 'Favoritos')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 4, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, idEspecialidad);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Pablo', 'Favoritos')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM favoritos_doctores WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctor, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+    }
+
+    @Test
+    void agregarTraeElNombreYNoDuplica() {
+        AltaFavorito alta = escrituraFavoritosRepository.agregar(idPaciente, idDoctor);
+        AltaFavorito repetida = escrituraFavoritosRepository.agregar(idPaciente, idDoctor);
+
+        assertNotNull(alta.favorito());
+        assertEquals("Marta", alta.favorito().nombre());
+        assertEquals(ESPECIALIDAD, alta.favorito().especialidad());
+        // La misma fila que lista el paciente
+        assertEquals(List.of(alta.favorito()), listadoDoctoresRepository.favoritosDePaciente(idPaciente));
+        assertNull(repetida.favorito());
+        assertTrue(repetida.existeDoctor() && repetida.existePaciente());
+        assertEquals(1, favoritos());
+    }
+
+    @Test
+    void agregarSinDoctorOSinPacienteNoInserta() {
+        AltaFavorito sinDoctor = escrituraFavoritosRepository.agregar(idPaciente, -1L);
+        AltaFavorito sinPaciente = escrituraFavoritosRepository.agregar(-1L, idDoctor);
+
+        assertFalse(sinDoctor.existeDoctor());
+        assertTrue(sinDoctor.existePaciente());
+        assertTrue(sinPaciente.existeDoctor());
+        assertFalse(sinPaciente.existePaciente());
+        assertNull(sinDoctor.favorito());
+        assertNull(sinPaciente.favorito());
+        assertEquals(0, favoritos());
+    }
+
+    @Test
+    void lasAltasSimultaneasDejanUnaSolaFila() throws Exception {
+        ExecutorService hilos = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            List<Future<AltaFavorito>> altas = new ArrayList<>();
+            for (int i = 0; i < HILOS; i++) {
+                altas.add(hilos.submit(() -> {
+                    largada.await();
+                    return escrituraFavoritosRepository.agregar(idPaciente, idDoctor);
+                }));
+            }
+            largada.countDown();
+            int insertadas = 0;
+            for (Future<AltaFavorito> alta : altas) {
+                insertadas += alta.get().favorito() != null ? 1 : 0;
+            }
+
+            assertEquals(1, insertadas);
+            assertEquals(1, favoritos());
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    @Test
+    void quitarDevuelveElPacienteYElNombre() {
+        long idFavorito = escrituraFavoritosRepository.agregar(idPaciente, idDoctor).favorito().idFavorito();
+
+        FavoritoQuitado quitado = escrituraFavoritosRepository.quitar(idFavorito).orElseThrow();
+
+        assertEquals(new FavoritoQuitado(idFavorito, idPaciente, idDoctor, "Marta"), quitado);
+        assertTrue(escrituraFavoritosRepository.quitar(idFavorito).isEmpty());
+        assertEquals(0, favoritos());
+    }
+
+    private long favoritos() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM favoritos_doctores WHERE id_paciente = ?", Long.class, idPaciente);
+    }
+}
@@ -0,0 +1,110 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.Models.Citas;
+import com.healthUnity.mcpServer.Models.Doctores;
+import com.healthUnity.mcpServer.Models.Paciente;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Carga masiva de citas históricas con JPA (el caso de una migración) con lotes de 1, 50 y 500 sentencias.
+ * Imprime filas por segundo de cada tamaño. Cada carga se revierte, por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class InsercionPorLotesBenchmarkTests {
+
+    private static final String ESPECIALIDAD = "Benchmark Lotes";
+    private static final int FILAS = 20_000;
+    private static final int SLOTS_POR_DIA = 48;
+    private static final int[] LOTES = {1, 50, 500};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void filasPorSegundoSegunElLote() {
+        // Una vuelta de calentamiento con el lote por defecto antes de medir
+        cargar(50, FILAS / 4);
+        for (int lote : LOTES) {
+            long nanos = cargar(lote, FILAS);
+            System.out.printf("lote %d | %.0f filas/s | %d ms para %d citas%n",
+                    lote, FILAS * 1e9 / nanos, nanos / 1_000_000, FILAS);
+        }
+    }
+
+    private long cargar(int lote, int filas) {
+        long[] nanos = new long[1];
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Long[] sembrados = sembrar();
+            entityManager.unwrap(Session.class).setJdbcBatchSize(lote);
+            Doctores doctor = entityManager.getReference(Doctores.class, sembrados[0]);
+            Paciente paciente = entityManager.getReference(Paciente.class, sembrados[1]);
+            LocalDate primerDia = LocalDate.now().minusYears(3);
+
+            long inicio = System.nanoTime();
+            for (int i = 0; i < filas; i++) {
+                Citas cita = new Citas();
+                cita.setRazon("Migración");
+                cita.setFecha(primerDia.plusDays(i / SLOTS_POR_DIA));
+                cita.setHora(LocalTime.MIN.plusMinutes(30L * (i % SLOTS_POR_DIA)));
+                cita.setEstado("completada");
+                cita.setDoctor(doctor);
+                cita.setPaciente(paciente);
+                entityManager.persist(cita);
+                // El contexto de persistencia se vacía cada 500 filas, sea cual sea el lote
+                if ((i + 1) % 500 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                    doctor = entityManager.getReference(Doctores.class, sembrados[0]);
+                    paciente = entityManager.getReference(Paciente.class, sembrados[1]);
+                }
+            }
+            entityManager.flush();
+            nanos[0] = System.nanoTime() - inicio;
+
+            assertEquals(filas, (long) jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM citas WHERE id_doctor = ?", Long.class, sembrados[0]));
+            entityManager.clear();
+            status.setRollbackOnly();
+        });
+        return nanos[0];
+    }
+
+    private Long[] sembrar() {
+        Long idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        Long idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Bench', 'Doctor')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 10, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, idEspecialidad);
+        Long idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Bench', 'Paciente')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        return new Long[]{idDoctor, idPaciente};
+    }
+}
@@ -0,0 +1,122 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.Models.HorariosDoctor;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las entidades con secuencia pooled se insertan en lotes de hibernate.jdbc.batch_size,
+ * y sus ids no chocan con los que toman los INSERT que usan el valor por defecto de la columna.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class InsercionPorLotesTests {
+
+    private static final String ESPECIALIDAD = "Lotes Tests";
+    private static final int HORARIOS = 120;
+
+    @Autowired
+    private HorariosDoctorRepository horariosDoctorRepository;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics estadisticas;
+    private Long idEspecialidad;
+    private Long idDoctor;
+
+    @BeforeEach
+    void sembrar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Eva', 'Lotes')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 3, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, idEspecialidad);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM horarios_doctor WHERE id_doctor = ?", idDoctor);
+        Long idDetalle = jdbcTemplate.queryForObject(
+                "SELECT id_detalle_usuario FROM doctores WHERE id_doctor = ?", Long.class, idDoctor);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+        jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", idDetalle);
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+    }
+
+    @Test
+    void losHorariosSeInsertanEnLotes() {
+        estadisticas.clear();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            List<HorariosDoctor> horarios = new ArrayList<>();
+            for (int i = 0; i < HORARIOS; i++) {
+                horarios.add(horario(1 + i % 7, LocalTime.of(i % 24, 0)));
+            }
+            horariosDoctorRepository.saveAll(horarios);
+        });
+
+        assertEquals(HORARIOS, estadisticas.getEntityInsertCount());
+        // Como mucho 3 nextval (bloques de 50) y 3 lotes de INSERT, en vez de 120 INSERT ... RETURNING
+        assertTrue(estadisticas.getPrepareStatementCount() <= 6);
+        assertEquals(HORARIOS, (long) jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM horarios_doctor WHERE id_doctor = ?", Long.class, idDoctor));
+    }
+
+    @Test
+    void losIdsReservadosNoChocanConLosInsertsNativos() {
+        List<Long> ids = new TransactionTemplate(transactionManager).execute(status -> {
+            Long primero = horariosDoctorRepository.save(horario(1, LocalTime.of(8, 0))).getIdHorarioDoctor();
+            Long nativo = jdbcTemplate.queryForObject("""
+                    INSERT INTO horarios_doctor (dia_semana, hora_inicio, hora_fin, id_doctor)
+                    VALUES (2, TIME '08:00', TIME '12:00', ?)
+                    RETURNING id_horario_doctor
+                    """, Long.class, idDoctor);
+            Long segundo = horariosDoctorRepository.save(horario(3, LocalTime.of(8, 0))).getIdHorarioDoctor();
+            return List.of(primero, nativo, segundo);
+        });
+
+        assertEquals(3, new HashSet<>(ids).size());
+        // El bloque de Hibernate termina en el valor que le dio la secuencia; el INSERT nativo toma el siguiente
+        assertTrue(ids.get(1) > ids.get(2));
+        assertEquals(3, (long) jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM horarios_doctor WHERE id_doctor = ?", Long.class, idDoctor));
+    }
+
+    private HorariosDoctor horario(int dia, LocalTime inicio) {
+        HorariosDoctor horario = new HorariosDoctor();
+        horario.setDiaSemana(dia);
+        horario.setHoraInicio(inicio);
+        horario.setHoraFin(inicio.plusHours(1));
+        horario.setDoctor(doctorRepository.getReferenceById(idDoctor));
+        return horario;
+    }
+}
@@ -0,0 +1,189 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
+import com.healthUnity.mcpServer.DTO.Response.DoctorDTOResponse;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mapeo de 10.000 filas: la consulta nativa de JPA con Object[] y casts por posición (como antes)
+ * contra ListadoDoctoresRepository, que llena los records con un RowMapper fijo.
+ * Imprime ns y bytes reservados por fila, además del tiempo de solo leer el ResultSet como referencia.
+ * Siembra en una transacción que se revierte, por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class ListadoDoctoresBenchmarkTests {
+
+    private static final String ESPECIALIDAD = "Benchmark Listado";
+    private static final int FILAS = 10_000;
+    private static final int CALENTAMIENTO = 30;
+    private static final int REPETICIONES = 15;
+
+    private static final String LISTADO_NATIVO = """
+            SELECT d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre AS especialidad,
+                   COALESCE(r.promedio, 0.0) AS rating, COALESCE(r.cantidad, 0) AS reviews, d.experiencia
+            FROM doctores d
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+            WHERE d.id_especialidad = ?1
+            ORDER BY d.experiencia DESC, d.id_doctor DESC
+            LIMIT ?2
+            """;
+    private static final String FAVORITOS_NATIVO = """
+            SELECT fd.id_favorito_doctor, d.id_doctor, du.nombre, du.apellido, du.url_imagen,
+                   e.nombre AS especialidad, COALESCE(r.promedio, 0.0) AS rating, COALESCE(r.cantidad, 0) AS reviews
+            FROM favoritos_doctores fd
+            JOIN doctores d ON d.id_doctor = fd.id_doctor
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN doctor_rating_resumen r ON r.id_doctor = d.id_doctor
+            WHERE fd.id_paciente = ?1
+            ORDER BY fd.id_favorito_doctor
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void objectArrayVsRecords() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Long[] sembrados = sembrar();
+            Long idEspecialidad = sembrados[0];
+            Long idPaciente = sembrados[1];
+
+            Supplier<List<?>> listadoAntes = () -> listadoNativo(idEspecialidad);
+            Supplier<List<?>> listadoAhora = () -> listadoDoctoresRepository
+                    .paginaPorRelevancia(Long.MAX_VALUE, Long.MAX_VALUE, idEspecialidad, null, FILAS).stream()
+                    .map(DoctorDTOResponse::new)
+                    .toList();
+            Supplier<List<?>> favoritosAntes = () -> favoritosNativo(idPaciente);
+            Supplier<List<?>> favoritosAhora = () -> listadoDoctoresRepository.favoritosDePaciente(idPaciente);
+
+            assertEquals(listadoAntes.get(), listadoAhora.get());
+            assertEquals(favoritosAntes.get(), favoritosAhora.get());
+
+            Supplier<List<?>> soloLectura = () -> {
+                jdbcTemplate.query(LISTADO_NATIVO.replace("?1", "?").replace("?2", "?"),
+                        rs -> { }, idEspecialidad, FILAS);
+                return List.of();
+            };
+            medir("listado: solo leer el ResultSet", soloLectura);
+            medir("listado: nativa JPA + Object[]", listadoAntes);
+            medir("listado: RowMapper + FilaDoctor", listadoAhora);
+            medir("favoritos: nativa JPA + Object[]", favoritosAntes);
+            medir("favoritos: RowMapper + FavoritoDoctor", favoritosAhora);
+            status.setRollbackOnly();
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DoctorDTOResponse> listadoNativo(Long idEspecialidad) {
+        List<Object[]> filas = entityManager.createNativeQuery(LISTADO_NATIVO)
+                .setParameter(1, idEspecialidad)
+                .setParameter(2, FILAS)
+                .getResultList();
+        return filas.stream().map(DoctorDTOResponse::new).toList();
+    }
+
+    // Lo que hacía la proyección por interfaz: leer cada valor del Object[] y convertirlo
+    @SuppressWarnings("unchecked")
+    private List<FavoritoDoctor> favoritosNativo(Long idPaciente) {
+        List<Object[]> filas = entityManager.createNativeQuery(FAVORITOS_NATIVO)
+                .setParameter(1, idPaciente)
+                .getResultList();
+        return filas.stream()
+                .map(fila -> new FavoritoDoctor(
+                        ((Number) fila[0]).longValue(),
+                        ((Number) fila[1]).longValue(),
+                        (String) fila[2],
+                        (String) fila[3],
+                        (String) fila[4],
+                        (String) fila[5],
+                        ((Number) fila[6]).doubleValue(),
+                        ((Number) fila[7]).intValue()))
+                .toList();
+    }
+
+    private void medir(String caso, Supplier<List<?>> consulta) {
+        for (int i = 0; i < CALENTAMIENTO; i++) {
+            consulta.get();
+            entityManager.clear();
+        }
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        long[] tiempos = new long[REPETICIONES];
+        long bytes = 0;
+        for (int i = 0; i < REPETICIONES; i++) {
+            long reservados = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            consulta.get();
+            tiempos[i] = System.nanoTime() - inicio;
+            bytes += hilos.getThreadAllocatedBytes(hilo) - reservados;
+            entityManager.clear();
+        }
+        Arrays.sort(tiempos);
+        System.out.printf("%s | %d ns/fila | %d bytes/fila | %.0f filas/s (medianas de %d x %d filas)%n",
+                caso, tiempos[REPETICIONES / 2] / FILAS, bytes / REPETICIONES / FILAS,
+                FILAS * 1e9 / tiempos[REPETICIONES / 2], REPETICIONES, FILAS);
+    }
+
+    /**
+     * FILAS doctores de una especialidad nueva, con opiniones, y un paciente que los tiene a todos en favoritos.
+     */
+    private Long[] sembrar() {
+        Long idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        Long idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Bench', 'Paciente')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido, url_imagen)
+                            SELECT 'Bench', 'Doctor ' || g, 'https://img/' || g FROM generate_series(1, ?) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT (id_detalle_usuario % 40)::int, id_detalle_usuario, ? FROM du
+                """, FILAS, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                SELECT 1 + (d.id_doctor * 7 + g) % 5, 'Benchmark', CURRENT_DATE, d.id_doctor, ?
+                FROM doctores d, generate_series(1, 3) g
+                WHERE d.id_especialidad = ?
+                """, idPaciente, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO favoritos_doctores (id_paciente, id_doctor)
+                SELECT ?, id_doctor FROM doctores WHERE id_especialidad = ?
+                """, idPaciente, idEspecialidad);
+        jdbcTemplate.execute("""
+                ANALYZE doctores, detalles_usuario, especialidades, opiniones_doctores,
+                        favoritos_doctores, doctor_rating_resumen
+                """);
+        return new Long[]{idEspecialidad, idPaciente};
+    }
+}
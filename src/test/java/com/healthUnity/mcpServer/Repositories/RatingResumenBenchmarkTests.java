@@ -0,0 +1,179 @@
+package com.healthUnity.mcpServer.Repositories;
+
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 1.000.000 de opiniones sobre 2.000 doctores: listado por rating, top por especialidad y favoritos
+ * recalculando AVG/COUNT sobre opiniones_doctores (como antes) contra leer doctor_rating_resumen.
+ * Siembra en una transacción que se revierte, por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class RatingResumenBenchmarkTests {
+
+    private static final String ESPECIALIDAD = "Benchmark Rating";
+    private static final int DOCTORES = 2_000;
+    private static final int OPINIONES = 1_000_000;
+    private static final int FAVORITOS = 20;
+    private static final int REPETICIONES = 5;
+
+    // Consultas anteriores, agrupando las opiniones de cada doctor
+    private static final String LISTADO_AGREGANDO = """
+            SELECT d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre AS especialidad,
+                   COALESCE(AVG(od.estrellas), 0.0) AS rating,
+                   COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
+            FROM doctores d
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
+            GROUP BY d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
+            ORDER BY COALESCE(AVG(od.estrellas), 0.0) DESC
+            LIMIT 20
+            """;
+    private static final String TOP_AGREGANDO = """
+            SELECT d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre AS especialidad,
+                   COALESCE(AVG(od.estrellas), 0.0) AS rating,
+                   COALESCE(COUNT(od.id_opinion_doctor), 0) AS reviews
+            FROM doctores d
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN opiniones_doctores od ON d.id_doctor = od.id_doctor
+            WHERE LOWER(e.nombre) LIKE LOWER(CONCAT('%', ?, '%'))
+            GROUP BY d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre, d.experiencia
+            HAVING COUNT(od.id_opinion_doctor) > 0
+            ORDER BY COALESCE(AVG(od.estrellas), 0.0) DESC
+            LIMIT 10
+            """;
+    private static final String FAVORITOS_AGREGANDO = """
+            SELECT fd.id_favorito_doctor, d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre,
+                   COALESCE(AVG(od.estrellas), 0.0) AS rating, COUNT(od.id_opinion_doctor) AS number_reviews
+            FROM favoritos_doctores fd
+            JOIN doctores d ON d.id_doctor = fd.id_doctor
+            JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+            JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+            LEFT JOIN opiniones_doctores od ON od.id_doctor = d.id_doctor
+            WHERE fd.id_paciente = ?
+            GROUP BY fd.id_favorito_doctor, d.id_doctor, du.nombre, du.apellido, du.url_imagen, e.nombre
+            """;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void agregarOpinionesVsLeerResumen() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            long inicio = System.nanoTime();
+            Long idPaciente = sembrar();
+            System.out.printf("siembra de %d opiniones (con trigger): %d ms%n",
+                    OPINIONES, (System.nanoTime() - inicio) / 1_000_000);
+
+            Long idEspecialidad = jdbcTemplate.queryForObject(
+                    "SELECT id_especialidad FROM especialidades WHERE nombre = ?", Long.class, ESPECIALIDAD);
+            List<FilaDoctor> top = listadoDoctoresRepository.topPorEspecialidad(idEspecialidad, 10);
+            List<Long> topAgregando = jdbcTemplate.queryForList(TOP_AGREGANDO, ESPECIALIDAD).stream()
+                    .map(fila -> ((Number) fila.get("id_doctor")).longValue())
+                    .toList();
+            assertEquals(topAgregando, top.stream().map(FilaDoctor::idDoctor).toList());
+
+            List<FavoritoDoctor> favoritos = listadoDoctoresRepository.favoritosDePaciente(idPaciente);
+            List<Double> ratingsAgregando = jdbcTemplate.queryForList(FAVORITOS_AGREGANDO, idPaciente).stream()
+                    .map(fila -> ((Number) fila.get("rating")).doubleValue())
+                    .sorted()
+                    .toList();
+            List<Double> ratings = favoritos.stream().map(FavoritoDoctor::rating).sorted().toList();
+            assertEquals(FAVORITOS, favoritos.size());
+            for (int i = 0; i < FAVORITOS; i++) {
+                assertEquals(ratingsAgregando.get(i), ratings.get(i), 1e-9);
+            }
+
+            comparar("listado por rating (página de 20)",
+                    () -> jdbcTemplate.queryForList(LISTADO_AGREGANDO),
+                    () -> doctorRepository.findAllDoctores("rating", PageRequest.of(0, 20)).getContent());
+            comparar("top 10 por especialidad",
+                    () -> jdbcTemplate.queryForList(TOP_AGREGANDO, ESPECIALIDAD),
+                    () -> listadoDoctoresRepository.topPorEspecialidad(idEspecialidad, 10));
+            comparar("favoritos de un paciente (" + FAVORITOS + ")",
+                    () -> jdbcTemplate.queryForList(FAVORITOS_AGREGANDO, idPaciente),
+                    () -> listadoDoctoresRepository.favoritosDePaciente(idPaciente));
+            status.setRollbackOnly();
+        });
+    }
+
+    private void comparar(String caso, Supplier<List<?>> agregando, Supplier<List<?>> resumen) {
+        // Una pasada de calentamiento para cada una antes de medir
+        agregando.get();
+        resumen.get();
+        System.out.printf("%s | agregando: %d ms | resumen: %d ms (medianas de %d)%n",
+                caso, mediana(agregando), mediana(resumen), REPETICIONES);
+    }
+
+    private static long mediana(Supplier<List<?>> consulta) {
+        long[] tiempos = new long[REPETICIONES];
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            consulta.get();
+            tiempos[i] = (System.nanoTime() - inicio) / 1_000_000;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[REPETICIONES / 2];
+    }
+
+    /**
+     * Doctores de una especialidad nueva, OPINIONES repartidas entre ellos y un paciente con FAVORITOS favoritos.
+     */
+    private Long sembrar() {
+        Long idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        Long idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Bench', 'Paciente')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido)
+                            SELECT 'Bench', 'Doctor ' || g FROM generate_series(1, ?) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 1, id_detalle_usuario, ? FROM du
+                """, DOCTORES, idEspecialidad);
+        jdbcTemplate.update("""
+                WITH d AS (SELECT array_agg(id_doctor) AS ids FROM doctores WHERE id_especialidad = ?)
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                SELECT 1 + (g * 7 + g / 13) % 5, 'Benchmark', CURRENT_DATE, d.ids[1 + g % ?], ?
+                FROM d, generate_series(1, ?) g
+                """, idEspecialidad, DOCTORES, idPaciente, OPINIONES);
+        jdbcTemplate.update("""
+                INSERT INTO favoritos_doctores (id_paciente, id_doctor)
+                SELECT ?, id_doctor FROM doctores WHERE id_especialidad = ? ORDER BY id_doctor LIMIT ?
+                """, idPaciente, idEspecialidad, FAVORITOS);
+        jdbcTemplate.execute("""
+                ANALYZE doctores, detalles_usuario, especialidades, opiniones_doctores,
+                        favoritos_doctores, doctor_rating_resumen
+                """);
+        return idPaciente;
+    }
+}
@@ -0,0 +1,173 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Models.Doctores;
+import com.healthUnity.mcpServer.Models.HorariosDoctor;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import com.healthUnity.mcpServer.Repositories.HorariosDoctorRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La cache de segundo nivel sirve las lecturas repetidas de doctores, especialidades y horarios
+ * y se desaloja cuando se escriben.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class CacheSegundoNivelTests {
+
+    private static final String ESPECIALIDAD = "Cache Tests";
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private HorariosDoctorRepository horariosDoctorRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics estadisticas;
+    private Long idEspecialidad;
+    private Long idDoctor;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Ana', 'Cache')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 7, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO horarios_doctor (dia_semana, hora_inicio, hora_fin, id_doctor)
+                VALUES (1, TIME '08:00', TIME '12:00', ?)
+                """, idDoctor);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Luis', 'Cache')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM favoritos_doctores WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM horarios_doctor WHERE id_doctor = ?", idDoctor);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctor, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+    }
+
+    @Test
+    void elPerfilRepetidoNoVaALaBase() {
+        String primero = doctorService.verPerfilDoctor(idDoctor);
+        estadisticas.clear();
+
+        String segundo = doctorService.verPerfilDoctor(idDoctor);
+
+        assertEquals(primero, segundo);
+        // La consulta cacheable guarda las filas del doctor con su especialidad y galería
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+    }
+
+    @Test
+    void laTarjetaRepetidaDelDoctorSaleDeLaCache() {
+        tarjeta();
+        estadisticas.clear();
+
+        Doctores doctor = tarjeta();
+
+        assertEquals("Ana", doctor.getDetallesUsuario().getNombre());
+        // La consulta de la tarjeta (al agendar) es cacheable, con el doctor, sus detalles y su especialidad
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getQueryCacheHitCount());
+        assertEquals(0, estadisticas.getQueryCacheMissCount());
+    }
+
+    @Test
+    void escribirUnHorarioDesalojaLosHorariosCacheadosDelDoctor() {
+        assertEquals(1, horariosCacheados());
+        assertEquals(1, horariosCacheados());
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertEquals(1, estadisticas.getCacheRegionStatistics("doctores").getHitCount());
+        assertEquals(1, estadisticas.getCacheRegionStatistics("doctores.horarios").getHitCount());
+        assertEquals(1, estadisticas.getCacheRegionStatistics("horarios-doctor").getHitCount());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            HorariosDoctor horario = new HorariosDoctor();
+            horario.setDiaSemana(2);
+            horario.setHoraInicio(LocalTime.of(14, 0));
+            horario.setHoraFin(LocalTime.of(18, 0));
+            horario.setDoctor(doctorRepository.getReferenceById(idDoctor));
+            horariosDoctorRepository.save(horario);
+        });
+
+        assertEquals(2, horariosCacheados());
+    }
+
+    @Test
+    void lasEstadisticasDeLaCacheSePublicanComoMetricas() {
+        doctorService.verPerfilDoctor(idDoctor);
+        doctorService.verPerfilDoctor(idDoctor);
+
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "doctores", "result", "hit")
+                .functionCounter());
+        assertTrue(meterRegistry.get("hibernate.cache.query.requests").tag("result", "hit")
+                .functionCounter().count() >= 1);
+    }
+
+    private Doctores tarjeta() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Doctores doctor = doctorRepository.findTarjetaByIdDoctor(idDoctor).orElseThrow();
+            doctor.getDetallesUsuario().getNombre();
+            doctor.getEspecialidad().getNombre();
+            return doctor;
+        });
+    }
+
+    private int horariosCacheados() {
+        estadisticas.clear();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Doctores doctor = doctorRepository.findById(idDoctor).orElseThrow();
+            return doctor.getHorarios().size();
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.EspecialidadCatalogo;
+import com.healthUnity.mcpServer.Models.Especialidades;
+import com.healthUnity.mcpServer.Repositories.EspecialidadesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CatalogoEspecialidadesTests {
+
+    private EspecialidadesRepository repository;
+    private CatalogoEspecialidades catalogo;
+    private EspecialidadesService servicio;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(EspecialidadesRepository.class);
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(
+                especialidad(1L, "Cardiología", "corazon.png"),
+                especialidad(2L, "Pediatría", null)));
+        catalogo = new CatalogoEspecialidades(repository);
+        catalogo.recargar();
+        servicio = new EspecialidadesService(catalogo);
+    }
+
+    @Test
+    void sirveElTextoArmadoSinIrALaBase() {
+        String primero = servicio.getEspecialidades();
+
+        assertEquals("- Cardiología (ID: 1)\n- Pediatría (ID: 2)", primero);
+        assertSame(primero, servicio.getEspecialidades());
+        verify(repository, times(1)).findAll(any(Sort.class));
+        assertEquals(List.of(
+                new EspecialidadCatalogo(1L, "Cardiología", "corazon.png"),
+                new EspecialidadCatalogo(2L, "Pediatría", null)), catalogo.actual().especialidades());
+    }
+
+    @Test
+    void laVersionSoloAvanzaSiCambianLasEspecialidades() {
+        CatalogoEspecialidades.Catalogo primera = catalogo.actual();
+        assertEquals(1, primera.version());
+
+        catalogo.recargar();
+        assertSame(primera, catalogo.actual());
+
+        when(repository.findAll(any(Sort.class))).thenReturn(List.of(
+                especialidad(1L, "Cardiología", "corazon.png"),
+                especialidad(2L, "Pediatría", null),
+                especialidad(3L, "Dermatología", null)));
+        catalogo.recargar();
+
+        CatalogoEspecialidades.Catalogo segunda = catalogo.actual();
+        assertNotSame(primera, segunda);
+        assertEquals(2, segunda.version());
+        assertEquals("- Cardiología (ID: 1)\n- Pediatría (ID: 2)\n- Dermatología (ID: 3)", servicio.getEspecialidades());
+        // La versión anterior sigue intacta para quien la tenga guardada
+        assertEquals(2, primera.especialidades().size());
+    }
+
+    private static Especialidades especialidad(Long id, String nombre, String icono) {
+        Especialidades especialidad = new Especialidades();
+        especialidad.setIdEspecialidad(id);
+        especialidad.setNombre(nombre);
+        especialidad.setIcono(icono);
+        return especialidad;
+    }
+}
@@ -0,0 +1,158 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import com.healthUnity.mcpServer.DTO.CorreoCita;
+import com.healthUnity.mcpServer.Models.NotificacionOutbox;
+import com.healthUnity.mcpServer.Repositories.NotificacionOutboxRepository;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DespachadorNotificacionesTests {
+
+    private NotificacionOutboxRepository repository;
+    private GmailService gmailService;
+    private PoolSmtp poolSmtp;
+    private NotificacionesProperties properties;
+    private OutboxNotificaciones outbox;
+    private DespachadorNotificaciones despachador;
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(NotificacionOutboxRepository.class);
+        gmailService = mock(GmailService.class);
+        poolSmtp = mock(PoolSmtp.class);
+        properties = new NotificacionesProperties();
+        properties.setLote(2);
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        outbox = new OutboxNotificaciones(repository, properties, objectMapper);
+        despachador = new DespachadorNotificaciones(outbox, gmailService, poolSmtp, properties);
+    }
+
+    @Test
+    void enviaElLoteJuntoYMarcaLasEnviadasDeUnaVez() throws Exception {
+        when(gmailService.crearConfirmacion(any())).thenAnswer(i -> mensaje());
+        when(poolSmtp.enviarLote(anyList())).thenReturn(new Exception[2]);
+
+        despachador.enviar(List.of(confirmacion(1L, 1), confirmacion(2L, 1)));
+
+        verify(gmailService, times(2)).crearConfirmacion(argThat(c -> c.gmail().equals("ana@correo.com")
+                && c.fecha().equals(LocalDate.of(2030, 1, 7)) && c.hora().equals(LocalTime.of(9, 0))));
+        verify(poolSmtp).enviarLote(argThat(mensajes -> mensajes.size() == 2));
+        verify(repository).marcarEnviadas(List.of(1L, 2L));
+    }
+
+    @Test
+    void sigueReclamandoMientrasLosLotesVienenLlenos() throws Exception {
+        when(gmailService.crearConfirmacion(any())).thenAnswer(i -> mensaje());
+        when(poolSmtp.enviarLote(anyList())).thenAnswer(i -> new Exception[((List<?>) i.getArgument(0)).size()]);
+        when(repository.reclamarLote(anyInt(), anyInt(), anyInt())).thenReturn(
+                List.of(confirmacion(1L, 1), confirmacion(2L, 1)),
+                List.of(confirmacion(3L, 1)));
+
+        despachador.despachar();
+
+        verify(repository, times(2)).reclamarLote(anyInt(), anyInt(), anyInt());
+        verify(repository).marcarEnviadas(List.of(1L, 2L));
+        verify(repository).marcarEnviadas(List.of(3L));
+    }
+
+    @Test
+    void unFalloReprogramaConEsperaExponencial() throws Exception {
+        when(gmailService.crearConfirmacion(any())).thenAnswer(i -> mensaje());
+        when(poolSmtp.enviarLote(anyList())).thenReturn(
+                new Exception[]{null, new IllegalStateException("SMTP caído")});
+
+        despachador.enviar(List.of(confirmacion(1L, 1), confirmacion(2L, 3)));
+
+        verify(repository).marcarEnviadas(List.of(1L));
+        verify(repository).marcarFallo(2L, "pendiente", "SMTP caído", 120);
+    }
+
+    @Test
+    void agotadosLosIntentosQuedaFallida() throws Exception {
+        when(gmailService.crearConfirmacion(any())).thenAnswer(i -> mensaje());
+        when(poolSmtp.enviarLote(anyList())).thenReturn(new Exception[]{new IllegalStateException("SMTP caído")});
+
+        despachador.enviar(List.of(confirmacion(1L, properties.getMaxIntentos())));
+
+        verify(repository).marcarFallo(1L, "fallida", "SMTP caído", 0);
+        verify(repository, never()).marcarEnviadas(anyList());
+    }
+
+    @Test
+    void recordatorioUsaSuPlantilla() throws Exception {
+        when(gmailService.crearRecordatorio(any())).thenAnswer(i -> mensaje());
+        when(poolSmtp.enviarLote(anyList())).thenReturn(new Exception[1]);
+        NotificacionOutbox notificacion = confirmacion(1L, 1);
+        notificacion.setTipo(OutboxNotificaciones.RECORDATORIO_CITA);
+
+        despachador.enviar(List.of(notificacion));
+
+        verify(gmailService).crearRecordatorio(any());
+        verify(gmailService, never()).crearConfirmacion(any());
+        verify(repository).marcarEnviadas(List.of(1L));
+    }
+
+    @Test
+    void tipoDesconocidoNoSeEnvia() {
+        when(poolSmtp.enviarLote(anyList())).thenReturn(new Exception[0]);
+        NotificacionOutbox notificacion = confirmacion(1L, 1);
+        notificacion.setTipo("otro");
+
+        despachador.enviar(List.of(notificacion));
+
+        verify(repository).marcarFallo(eq(1L), eq("pendiente"), anyString(), anyLong());
+        verify(poolSmtp).enviarLote(List.of());
+    }
+
+    @Test
+    void esperaSeDuplicaHastaElMaximo() {
+        assertEquals(30, properties.backoffSegundos(1));
+        assertEquals(60, properties.backoffSegundos(2));
+        assertEquals(960, properties.backoffSegundos(6));
+        assertEquals(3600, properties.backoffSegundos(40));
+    }
+
+    private static MimeMessage mensaje() {
+        return new MimeMessage(Session.getInstance(new Properties()));
+    }
+
+    private NotificacionOutbox confirmacion(Long id, int intentos) {
+        try {
+            NotificacionOutbox notificacion = new NotificacionOutbox();
+            notificacion.setIdNotificacion(id);
+            notificacion.setTipo(OutboxNotificaciones.CONFIRMACION_CITA);
+            notificacion.setIntentos(intentos);
+            notificacion.setPayload(objectMapper.writeValueAsString(new CorreoCita(
+                    "ana@correo.com", "Ana", "Dr. Pérez", "Calle 1", "Cardiología",
+                    LocalDate.of(2030, 1, 7), LocalTime.of(9, 0), "Control", "https://img")));
+            return notificacion;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
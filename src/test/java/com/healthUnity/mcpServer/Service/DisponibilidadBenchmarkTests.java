@@ -0,0 +1,143 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.Response.DoctorDisponibleDTO;
+import com.healthUnity.mcpServer.Models.Doctores;
+import com.healthUnity.mcpServer.Repositories.CitasRepository;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import com.healthUnity.mcpServer.Repositories.HorariosDoctorRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compara la búsqueda de disponibilidad doctor por doctor (una consulta de horario y otra de citas
+ * por cada doctor) contra la consulta única de DoctorRepository.findDoctoresDisponibles.
+ * Siembra datos en la base configurada dentro de una transacción que se revierte al terminar,
+ * por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class DisponibilidadBenchmarkTests {
+
+    private static final String ESPECIALIDAD = "Benchmark Disponibilidad";
+    private static final LocalDate FECHA = LocalDate.of(2030, 1, 7); // lunes
+    private static final LocalTime HORA = LocalTime.of(9, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private HorariosDoctorRepository horariosDoctorRepository;
+    @Autowired
+    private CitasRepository citasRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {100, 1_000, 10_000})
+    void disponibilidadEnUnaConsultaVsPorDoctor(int doctores) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Long idEspecialidad = sembrar(doctores);
+            // Igual que en CitasService (readOnly = true): sin auto-flush antes de cada consulta
+            entityManager.unwrap(Session.class).setHibernateFlushMode(FlushMode.MANUAL);
+            Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            int diaSemana = FECHA.getDayOfWeek().getValue();
+
+            stats.clear();
+            long inicio = System.nanoTime();
+            List<Long> porDoctor = porDoctor(idEspecialidad, diaSemana);
+            long msPorDoctor = (System.nanoTime() - inicio) / 1_000_000;
+            long consultasPorDoctor = stats.getPrepareStatementCount();
+            entityManager.clear();
+
+            stats.clear();
+            inicio = System.nanoTime();
+            List<Long> enUnaConsulta = doctorRepository
+                    .findDoctoresDisponibles(idEspecialidad, diaSemana, FECHA, HORA).stream()
+                    .map(DoctorDisponibleDTO::getIdDoctor)
+                    .toList();
+            long msEnUnaConsulta = (System.nanoTime() - inicio) / 1_000_000;
+            long consultasEnUnaConsulta = stats.getPrepareStatementCount();
+
+            System.out.printf("doctores=%d | por doctor: %d consultas, %d ms | una consulta: %d consultas, %d ms%n",
+                    doctores, consultasPorDoctor, msPorDoctor, consultasEnUnaConsulta, msEnUnaConsulta);
+
+            assertEquals(porDoctor, enUnaConsulta);
+            assertEquals(1, consultasEnUnaConsulta);
+            status.setRollbackOnly();
+        });
+    }
+
+    /**
+     * Réplica del recorrido anterior de buscarDoctoresDisponibles.
+     */
+    private List<Long> porDoctor(Long idEspecialidad, int diaSemana) {
+        return doctorRepository.findByEspecialidad_IdEspecialidad(idEspecialidad).stream()
+                .filter(doctor -> horariosDoctorRepository
+                        .findByDoctor_IdDoctorAndDiaSemana(doctor.getIdDoctor(), diaSemana).stream()
+                        .anyMatch(h -> !HORA.isBefore(h.getHoraInicio()) && HORA.isBefore(h.getHoraFin())))
+                .filter(doctor -> citasRepository
+                        .findByDoctor_IdDoctorAndFechaAndHora(doctor.getIdDoctor(), FECHA, HORA).isEmpty())
+                .map(Doctores::getIdDoctor)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * N doctores de una especialidad nueva, cuyo id devuelve, con horario los lunes de 08:00 a 12:00;
+     * la mitad ya tiene cita a las 09:00.
+     */
+    private Long sembrar(int doctores) {
+        Long idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad",
+                Long.class, ESPECIALIDAD);
+        Long idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Bench', 'Paciente')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido)
+                            SELECT 'Bench', 'Doctor ' || g FROM generate_series(1, ?) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 1, id_detalle_usuario, ? FROM du
+                """, doctores, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO horarios_doctor (dia_semana, hora_inicio, hora_fin, id_doctor)
+                SELECT 1, TIME '08:00', TIME '12:00', id_doctor FROM doctores WHERE id_especialidad = ?
+                """, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO citas (razon, fecha, hora, estado, id_doctor, id_paciente)
+                SELECT 'Benchmark', ?, ?, 'pendiente', id_doctor, ? FROM doctores
+                WHERE id_especialidad = ? AND id_doctor % 2 = 0
+                """, FECHA, HORA, idPaciente, idEspecialidad);
+        // Estadísticas al día para que el planificador vea el volumen sembrado, como en producción
+        jdbcTemplate.execute("ANALYZE doctores, detalles_usuario, especialidades, horarios_doctor, citas, opiniones_doctores");
+        return idEspecialidad;
+    }
+}
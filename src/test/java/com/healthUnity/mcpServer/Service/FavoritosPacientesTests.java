@@ -0,0 +1,225 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.PacientesProperties;
+import com.healthUnity.mcpServer.DTO.DoctorRanking;
+import com.healthUnity.mcpServer.DTO.FavoritoDoctor;
+import com.healthUnity.mcpServer.DTO.FavoritoQuitado;
+import com.healthUnity.mcpServer.Repositories.ListadoDoctoresRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * La lista de favoritos se sirve de memoria, se escribe con las altas y bajas de DoctorService
+ * y toma los ratings nuevos en la sincronización del ranking.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000",
+        "healthunity.ranking.sincronizacion-ms=3600000"})
+class FavoritosPacientesTests {
+
+    private static final String ESPECIALIDAD = "Favoritos Pacientes Tests";
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private FavoritosPacientes favoritosPacientes;
+    @Autowired
+    private RankingDoctores rankingDoctores;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Long idEspecialidad;
+    private Long idDoctor;
+    private Long idOtroDoctor;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctor = doctor("Irene");
+        idOtroDoctor = doctor("Tomás");
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Rosa', 'Favoritos')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM favoritos_doctores WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_especialidad = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idEspecialidad, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_especialidad = ?", idEspecialidad);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+        rankingDoctores.recargar();
+    }
+
+    @Test
+    void laListaRepetidaSaleDeMemoria() {
+        doctorService.añadirFavoritos(idDoctor, idPaciente);
+        String primera = doctorService.getDoctoresFavoritos(idPaciente);
+        double aciertos = aciertos();
+
+        // Escrito por fuera de la aplicación: no se ve hasta que la lista vence
+        jdbcTemplate.update("INSERT INTO favoritos_doctores (id_paciente, id_doctor) VALUES (?, ?)",
+                idPaciente, idOtroDoctor);
+        String segunda = doctorService.getDoctoresFavoritos(idPaciente);
+
+        assertEquals(primera, segunda);
+        assertEquals(aciertos + 1, aciertos());
+    }
+
+    @Test
+    void lasAltasYBajasEscribenLaListaCacheada() {
+        assertTrue(favoritosPacientes.de(idPaciente).isEmpty());
+        double fallos = fallos();
+
+        assertTrue(doctorService.añadirFavoritos(idDoctor, idPaciente).startsWith("✅"));
+        assertTrue(doctorService.añadirFavoritos(idOtroDoctor, idPaciente).startsWith("✅"));
+        List<FavoritoDoctor> conDos = favoritosPacientes.de(idPaciente);
+        assertEquals(List.of(idDoctor, idOtroDoctor), conDos.stream().map(FavoritoDoctor::idDoctor).toList());
+        assertEquals(conDos, enBase());
+
+        assertTrue(doctorService.eliminarFavoritos(conDos.get(0).idFavorito()).startsWith("✅ Doctor Irene"));
+        List<FavoritoDoctor> conUno = favoritosPacientes.de(idPaciente);
+        assertEquals(List.of(idOtroDoctor), conUno.stream().map(FavoritoDoctor::idDoctor).toList());
+        assertEquals(conUno, enBase());
+        // Ninguna lectura volvió a la base
+        assertEquals(fallos, fallos());
+    }
+
+    @Test
+    void unaOpinionNuevaCambiaElRatingDeLaLista() {
+        doctorService.añadirFavoritos(idDoctor, idPaciente);
+        doctorService.añadirFavoritos(idOtroDoctor, idPaciente);
+        assertEquals(0, favoritosPacientes.de(idPaciente).get(0).reviews());
+
+        jdbcTemplate.update("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                VALUES (4, 'ok', CURRENT_DATE, ?, ?), (5, 'ok', CURRENT_DATE, ?, ?)
+                """, idDoctor, idPaciente, idDoctor, idPaciente);
+        rankingDoctores.sincronizar();
+
+        List<FavoritoDoctor> favoritos = favoritosPacientes.de(idPaciente);
+        assertEquals(2, favoritos.get(0).reviews());
+        assertEquals(4.5, favoritos.get(0).rating(), 0.001);
+        assertEquals(0, favoritos.get(1).reviews());
+        assertEquals(favoritos, enBase());
+    }
+
+    @Test
+    void elTopeDeFilasDescartaListas() {
+        ListadoDoctoresRepository repository = mock(ListadoDoctoresRepository.class);
+        when(repository.favoritosDePaciente(anyLong())).thenAnswer(invocacion -> List.of(
+                new FavoritoDoctor(invocacion.getArgument(0, Long.class), 1, "Ana", "Tope", null, "General", 0, 0)));
+        PacientesProperties properties = new PacientesProperties();
+        properties.setFavoritosMaximoFilas(10);
+        SimpleMeterRegistry registro = new SimpleMeterRegistry();
+        FavoritosPacientes favoritos = new FavoritosPacientes(repository, properties, registro);
+
+        for (long paciente = 1; paciente <= 50; paciente++) {
+            favoritos.de(paciente);
+        }
+
+        // Cada lista pesa 2 (la entrada y su fila): caben 5. Caffeine desaloja en segundo plano
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tamanio(registro) > 5 && System.nanoTime() < limite) {
+            Thread.onSpinWait();
+        }
+        assertTrue(tamanio(registro) <= 5);
+        assertTrue(registro.get("cache.evictions").tag("cache", "pacientes.favoritos").functionCounter().count() >= 45);
+    }
+
+    @Test
+    void unaCargaQueLeyoAntesDeUnaBajaNoSeGuarda() {
+        ListadoDoctoresRepository repository = mock(ListadoDoctoresRepository.class);
+        FavoritosPacientes favoritos = new FavoritosPacientes(repository, new PacientesProperties(), new SimpleMeterRegistry());
+        FavoritoDoctor quitado = new FavoritoDoctor(7, 1, "Ana", "Baja", null, "General", 0, 0);
+        when(repository.favoritosDePaciente(3L))
+                .thenAnswer(invocacion -> {
+                    // La baja se confirma mientras se leía la lista que todavía la tiene
+                    favoritos.quitado(new FavoritoQuitado(7, 3, 1, "Ana"));
+                    return List.of(quitado);
+                })
+                .thenReturn(List.of());
+
+        assertEquals(List.of(quitado), favoritos.de(3L));
+        assertTrue(favoritos.de(3L).isEmpty());
+        verify(repository, times(2)).favoritosDePaciente(3L);
+    }
+
+    @Test
+    void unRatingSincronizadoDuranteLaCargaSeAplicaAlLeer() {
+        ListadoDoctoresRepository repository = mock(ListadoDoctoresRepository.class);
+        FavoritosPacientes favoritos = new FavoritosPacientes(repository, new PacientesProperties(), new SimpleMeterRegistry());
+        when(repository.favoritosDePaciente(3L)).thenAnswer(invocacion -> {
+            // La sincronización termina después de que la consulta leyó el rating viejo
+            favoritos.ratingsCambiados(List.of(new DoctorRanking(1L, 1L, "Ana", "Alta", null, "General", 4.5, 2)));
+            return List.of(new FavoritoDoctor(7, 1, "Ana", "Alta", null, "General", 3.0, 1));
+        });
+
+        assertEquals(4.5, favoritos.de(3L).get(0).rating());
+        assertEquals(2, favoritos.de(3L).get(0).reviews());
+        verify(repository, times(1)).favoritosDePaciente(3L);
+    }
+
+    private Long doctor(String nombre) {
+        return jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES (?, 'Favoritos')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 2, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, nombre, idEspecialidad);
+    }
+
+    private static double tamanio(MeterRegistry registro) {
+        return registro.get("cache.size").tag("cache", "pacientes.favoritos").gauge().value();
+    }
+
+    private double aciertos() {
+        return meterRegistry.get("cache.gets").tags("cache", "pacientes.favoritos", "result", "hit")
+                .functionCounter().count();
+    }
+
+    private double fallos() {
+        return meterRegistry.get("cache.gets").tags("cache", "pacientes.favoritos", "result", "miss")
+                .functionCounter().count();
+    }
+
+    // Lo que devuelve la consulta sin cache
+    private List<FavoritoDoctor> enBase() {
+        return listadoDoctoresRepository.favoritosDePaciente(idPaciente);
+    }
+}
@@ -0,0 +1,50 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.CorreoCita;
+import jakarta.mail.internet.MimeMessage;
+import jakarta.mail.internet.MimeMultipart;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La confirmación y el recordatorio salen de la misma plantilla; solo cambian sus textos.
+ */
+class GmailServiceTests {
+
+    private static final CorreoCita CORREO = new CorreoCita("ana@correo.com", "Ana", "Dr. Luis Paz",
+            "Calle 1", "Cardiología", LocalDate.of(2030, 1, 7), LocalTime.of(9, 0), "Control", null);
+
+    @Test
+    void confirmacionYRecordatorioUsanLaMismaPlantillaConSusTextos() throws Exception {
+        GmailService gmailService = new GmailService(new JavaMailSenderImpl());
+        ReflectionTestUtils.setField(gmailService, "email", "healthunity@localhost");
+
+        MimeMessage confirmacion = gmailService.crearConfirmacion(CORREO);
+        MimeMessage recordatorio = gmailService.crearRecordatorio(CORREO);
+        String cuerpoConfirmacion = html(confirmacion);
+        String cuerpoRecordatorio = html(recordatorio);
+
+        assertEquals("Cita Confirmada", confirmacion.getSubject());
+        assertEquals("Recordatorio de tu cita", recordatorio.getSubject());
+        assertTrue(cuerpoConfirmacion.contains("<title>Confirmación de Cita</title>"));
+        assertTrue(cuerpoRecordatorio.contains("<title>Recordatorio de Cita</title>"));
+        assertTrue(cuerpoRecordatorio.contains("¡Tu cita es pronto!"));
+        assertFalse(cuerpoRecordatorio.contains("Cita Confirmada"));
+        assertTrue(cuerpoConfirmacion.contains("Dr. Luis Paz") && cuerpoRecordatorio.contains("Dr. Luis Paz"));
+    }
+
+    private static String html(MimeMessage mensaje) throws Exception {
+        mensaje.saveChanges();
+        MimeMultipart mixto = (MimeMultipart) mensaje.getContent();
+        MimeMultipart relacionado = (MimeMultipart) mixto.getBodyPart(0).getContent();
+        return (String) relacionado.getBodyPart(0).getContent();
+    }
+}
@@ -0,0 +1,134 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.Request.CompleteProfileRequestDTO;
+import com.healthUnity.mcpServer.DTO.Response.PacienteResponseDTO;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * getPaciente resuelve el correo sin distinguir mayúsculas ni espacios y, con la identidad en cache,
+ * solo lee el paciente por su clave primaria.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class IdentidadesPacientesTests {
+
+    private static final String GMAIL = "Ana.Identidad@Gmail.com";
+
+    @Autowired
+    private PacienteService pacienteService;
+    @Autowired
+    private IdentidadesPacientes identidadesPacientes;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+    private Long idPaciente;
+    private Long idDetalle;
+
+    @BeforeEach
+    void sembrar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        idDetalle = jdbcTemplate.queryForObject("""
+                INSERT INTO detalles_usuario (nombre, apellido, gmail) VALUES ('Ana', 'Identidad', ?)
+                RETURNING id_detalle_usuario
+                """, Long.class, GMAIL + " ");
+        idPaciente = jdbcTemplate.queryForObject(
+                "INSERT INTO pacientes (id_detalle_usuario) VALUES (?) RETURNING id_paciente", Long.class, idDetalle);
+    }
+
+    @AfterEach
+    void limpiar() {
+        identidadesPacientes.invalidar(GMAIL);
+        identidadesPacientes.invalidar("ana.nueva@gmail.com");
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", idDetalle);
+    }
+
+    @Test
+    void resuelveElCorreoNormalizadoYDespuesSoloLeePorId() {
+        assertEquals(idPaciente, pacienteService.getPaciente("  ana.identidad@GMAIL.com").getId());
+        estadisticas.clear();
+
+        PacienteResponseDTO paciente = pacienteService.getPaciente("ANA.IDENTIDAD@gmail.com");
+
+        assertEquals(idPaciente, paciente.getId());
+        assertEquals("Ana", paciente.getNombre());
+        // Solo el paciente con sus detalles por clave primaria; el correo sale de la cache
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void laBusquedaPorCorreoUsaElIndiceNormalizado() {
+        jdbcTemplate.execute("SET enable_seqscan = off");
+        try {
+            String plan = String.join("\n", jdbcTemplate.queryForList("""
+                    EXPLAIN SELECT id_detalle_usuario FROM detalles_usuario WHERE normalizar_gmail(gmail) = 'x'
+                    """, String.class));
+            assertTrue(plan.contains("ix_detalles_usuario_gmail_normalizado"), plan);
+        } finally {
+            jdbcTemplate.execute("RESET enable_seqscan");
+        }
+    }
+
+    @Test
+    void laClaveDeJavaEsLaMismaQueLaDeLaBase() {
+        for (String gmail : List.of(" Ana@Gmail.COM ", "\tana@gmail.com\r\n", "\u000BÁngel@Correo.CO\f",
+                "\u00A0nbsp@gmail.com", "İstanbul@Gmail.com", "   ")) {
+            assertEquals(jdbcTemplate.queryForObject("SELECT normalizar_gmail(?)", String.class, gmail),
+                    IdentidadesPacientes.clave(gmail), gmail);
+        }
+    }
+
+    @Test
+    void updateProfileDejaEnLaCacheElCorreoNuevo() {
+        pacienteService.getPaciente(GMAIL);
+
+        CompleteProfileRequestDTO datos = new CompleteProfileRequestDTO();
+        datos.setNombre("Ana María");
+        datos.setApellido("Identidad");
+        datos.setGmail("ana.identidad@gmail.com");
+        datos.setFechaNacimiento(new Date(0));
+        datos.setTelefono("3001234567");
+        datos.setGenero("F");
+        datos.setDireccion("Calle 1");
+        pacienteService.updateProfile(datos, new MockHttpServletRequest());
+        estadisticas.clear();
+
+        PacienteResponseDTO paciente = pacienteService.getPaciente(GMAIL);
+
+        assertEquals("Ana María", paciente.getNombre());
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void unaEntradaViejaSeDescartaAlLeerElPaciente() {
+        pacienteService.getPaciente(GMAIL);
+        // El backend le cambia el correo sin pasar por este servidor
+        jdbcTemplate.update("UPDATE detalles_usuario SET gmail = 'ana.nueva@gmail.com' WHERE id_detalle_usuario = ?",
+                idDetalle);
+        entityManagerFactory.getCache().evictAll();
+
+        assertThrows(EntityNotFoundException.class, () -> pacienteService.getPaciente(GMAIL));
+        assertEquals(idPaciente, pacienteService.getPaciente("Ana.Nueva@gmail.com").getId());
+    }
+}
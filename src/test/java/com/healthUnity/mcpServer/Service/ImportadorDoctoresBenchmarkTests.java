@@ -0,0 +1,104 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.ResultadoImportacion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Alta de una clínica de 10.000 doctores con 7 bloques de horario cada uno (70.000 filas de horarios).
+ * Las líneas se generan a medida que el importador las lee, como un archivo grande en disco.
+ * Imprime el tiempo total, incluida la recarga de índices, y los bytes reservados por doctor.
+ * Escribe y confirma en la base (después se borra), por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class ImportadorDoctoresBenchmarkTests {
+
+    private static final String ESPECIALIDAD = "Benchmark Importación";
+    private static final int DOCTORES = 10_000;
+    private static final String HORARIOS = "[" + String.join(",",
+            "{\"dia\":1,\"inicio\":\"08:00\",\"fin\":\"12:00\"}",
+            "{\"dia\":1,\"inicio\":\"14:00\",\"fin\":\"18:00\"}",
+            "{\"dia\":2,\"inicio\":\"08:00\",\"fin\":\"12:00\"}",
+            "{\"dia\":3,\"inicio\":\"08:00\",\"fin\":\"12:00\"}",
+            "{\"dia\":3,\"inicio\":\"14:00\",\"fin\":\"18:00\"}",
+            "{\"dia\":4,\"inicio\":\"09:00\",\"fin\":\"13:00\"}",
+            "{\"dia\":5,\"inicio\":\"08:00\",\"fin\":\"12:30\"}") + "]";
+
+    @Autowired
+    private ImportadorDoctores importadorDoctores;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        String doctores = "SELECT id_doctor FROM doctores WHERE id_especialidad IN "
+                + "(SELECT id_especialidad FROM especialidades WHERE nombre = ?)";
+        List<Long> detalles = jdbcTemplate.queryForList("SELECT id_detalle_usuario FROM doctores WHERE id_doctor IN ("
+                + doctores + ")", Long.class, ESPECIALIDAD);
+        jdbcTemplate.update("DELETE FROM horarios_doctor WHERE id_doctor IN (" + doctores + ")", ESPECIALIDAD);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor IN (" + doctores + ")", ESPECIALIDAD);
+        jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ANY (?)",
+                (Object) detalles.toArray(new Long[0]));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE nombre = ?", ESPECIALIDAD);
+    }
+
+    @Test
+    void clinicaDeDiezMilDoctores() {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        long reservados = hilos.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+
+        ResultadoImportacion resultado = importadorDoctores.importar(new Lineas(), progreso -> { });
+
+        long nanos = System.nanoTime() - inicio;
+        long bytes = hilos.getThreadAllocatedBytes(hilo) - reservados;
+        assertEquals(DOCTORES, resultado.totales().doctores());
+        assertEquals(DOCTORES * 7L, resultado.totales().horarios());
+        System.out.printf("importación | %d doctores + %d horarios | %d ms | %.0f filas/s | %d bytes reservados/doctor%n",
+                DOCTORES, resultado.totales().horarios(), nanos / 1_000_000,
+                (DOCTORES * 2 + resultado.totales().horarios()) * 1e9 / nanos, bytes / DOCTORES);
+    }
+
+    // Genera las líneas del archivo de a una, sin tenerlo entero en memoria
+    private static final class Lineas extends Reader {
+        private int doctor;
+        private String actual = "";
+        private int posicion;
+
+        @Override
+        public int read(char[] destino, int desde, int largo) {
+            if (posicion == actual.length()) {
+                if (doctor == DOCTORES) {
+                    return -1;
+                }
+                doctor++;
+                actual = "{\"nombre\":\"Doctor\",\"apellido\":\"Benchmark " + doctor + "\",\"gmail\":\"doctor" + doctor
+                        + "@clinica.test\",\"especialidad\":\"" + ESPECIALIDAD + "\",\"experiencia\":" + doctor % 30
+                        + ",\"horarios\":" + HORARIOS + "}\n";
+                posicion = 0;
+            }
+            int n = Math.min(largo, actual.length() - posicion);
+            actual.getChars(posicion, posicion + n, destino, desde);
+            posicion += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.ErrorImportacion;
+import com.healthUnity.mcpServer.DTO.FilaImportacionDoctor;
+import com.healthUnity.mcpServer.DTO.ProgresoImportacion;
+import com.healthUnity.mcpServer.DTO.ResultadoImportacion;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringReader;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Importación de doctores desde JSON lines: líneas inválidas informadas con su número,
+ * especialidades creadas una sola vez e índices en memoria recargados al terminar.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000",
+        "healthunity.importacion.lote=2"})
+class ImportadorDoctoresTests {
+
+    private static final String ESPECIALIDAD = "Especialidad Importada Tests";
+
+    private static final String ARCHIVO = """
+            {"nombre":"Importado","apellido":"Uno","gmail":"uno@clinica.test","especialidad":"Especialidad Importada Tests","experiencia":5,"horarios":[{"dia":1,"inicio":"08:00","fin":"12:00"},{"dia":2,"inicio":"14:00","fin":"18:00"}]}
+            {"nombre":"Importado","apellido":
+            
+            {"nombre":"Importada","apellido":"Dos","especialidad":"especialidad importada TESTS","experiencia":12,"horarios":[{"dia":3,"inicio":"09:00","fin":"13:00"}]}
+            {"nombre":"Importado","apellido":"Tres","especialidad":"Especialidad Importada Tests","experiencia":1,"horarios":[{"dia":1,"inicio":"08:00","fin":"12:00"},{"dia":1,"inicio":"11:00","fin":"15:00"}]}
+            {"nombre":"Importada","apellido":"Cuatro","especialidad":"Especialidad Importada Tests","experiencia":0}
+            {"nombre":"Importado","apellido":"Cinco","especialidad":"Especialidad Importada Tests","experiencia":3,"horarios":[{"dia":8,"inicio":"08:00","fin":"12:00"}]}
+            """;
+
+    @Autowired
+    private ImportadorDoctores importadorDoctores;
+    @Autowired
+    private IndiceNombresDoctores indiceNombresDoctores;
+    @Autowired
+    private IndiceHorarios indiceHorarios;
+    @Autowired
+    private ResolvedorEspecialidades resolvedorEspecialidades;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void limpiar() {
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT d.id_detalle_usuario FROM doctores d
+                JOIN especialidades e ON e.id_especialidad = d.id_especialidad
+                WHERE e.nombre = ?
+                """, Long.class, ESPECIALIDAD);
+        jdbcTemplate.update("""
+                DELETE FROM horarios_doctor WHERE id_doctor IN (
+                    SELECT d.id_doctor FROM doctores d JOIN especialidades e ON e.id_especialidad = d.id_especialidad
+                    WHERE e.nombre = ?)
+                """, ESPECIALIDAD);
+        jdbcTemplate.update("""
+                DELETE FROM doctores WHERE id_especialidad IN (SELECT id_especialidad FROM especialidades WHERE nombre = ?)
+                """, ESPECIALIDAD);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE nombre = ?", ESPECIALIDAD);
+        resolvedorEspecialidades.recargar();
+        indiceNombresDoctores.recargar();
+    }
+
+    @Test
+    void importaLasLineasValidasEInformaLasDemas() {
+        List<ProgresoImportacion> progreso = new ArrayList<>();
+        double doctoresAntes = meterRegistry.counter("healthunity.importacion.doctores").count();
+        double descartadasAntes = meterRegistry.counter("healthunity.importacion.descartadas").count();
+
+        ResultadoImportacion resultado = importadorDoctores.importar(new StringReader(ARCHIVO), progreso::add);
+
+        assertEquals(new ProgresoImportacion(7, 3, 3, 3), resultado.totales());
+        assertEquals(List.of(2L, 5L, 7L), resultado.errores().stream().map(ErrorImportacion::linea).toList());
+        assertTrue(resultado.errores().get(0).mensaje().startsWith("JSON inválido"));
+        assertTrue(resultado.errores().get(1).mensaje().contains("se superponen"));
+        // Un aviso por lote de 2 doctores y otro con el lote incompleto del final
+        assertEquals(List.of(new ProgresoImportacion(4, 2, 3, 1), new ProgresoImportacion(7, 3, 3, 3)), progreso);
+        assertEquals(doctoresAntes + 3, meterRegistry.counter("healthunity.importacion.doctores").count());
+        assertEquals(descartadasAntes + 3, meterRegistry.counter("healthunity.importacion.descartadas").count());
+
+        Long idEspecialidad = jdbcTemplate.queryForObject(
+                "SELECT id_especialidad FROM especialidades WHERE nombre = ?", Long.class, ESPECIALIDAD);
+        Long idDoctor = jdbcTemplate.queryForObject("""
+                SELECT d.id_doctor FROM doctores d JOIN detalles_usuario du ON du.id_detalle_usuario = d.id_detalle_usuario
+                WHERE du.apellido = 'Uno' AND d.id_especialidad = ?
+                """, Long.class, idEspecialidad);
+        assertEquals(3, (long) jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM doctores WHERE id_especialidad = ?", Long.class, idEspecialidad));
+
+        // Los índices ya ven la especialidad, el horario y el nombre del doctor importado
+        assertEquals(idEspecialidad, resolvedorEspecialidades.resolver("especialidad importada tests"));
+        assertTrue(indiceHorarios.trabajaEn(idDoctor, 1, LocalTime.of(9, 0)));
+        assertTrue(indiceHorarios.trabajaEn(idDoctor, 2, LocalTime.of(17, 55)));
+        assertTrue(indiceNombresDoctores.buscar("importado uno").contains(idDoctor));
+    }
+
+    @Test
+    void rechazaHorasFueraDeLasUnidadesDeCincoMinutos() {
+        FilaImportacionDoctor fila = new FilaImportacionDoctor("Ana", "Paz", null, null, null, null, null,
+                ESPECIALIDAD, 4, null,
+                List.of(new FilaImportacionDoctor.Bloque(1, LocalTime.of(8, 0), LocalTime.of(12, 7))));
+
+        assertEquals("Horario 1: las horas deben ser múltiplos de 5 minutos", ImportadorDoctores.validar(fila));
+        assertNull(ImportadorDoctores.validar(new FilaImportacionDoctor("Ana", "Paz", null, null, null, null, null,
+                ESPECIALIDAD, 4, null, null)));
+    }
+}
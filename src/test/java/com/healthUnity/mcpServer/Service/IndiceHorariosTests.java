@@ -0,0 +1,94 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.BloqueHorario;
+import com.healthUnity.mcpServer.Repositories.HorariosDoctorRepository;
+import com.healthUnity.mcpServer.Utils.MapaBits;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IndiceHorariosTests {
+
+    private HorariosDoctorRepository repository;
+    private IndiceHorarios indice;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(HorariosDoctorRepository.class);
+        when(repository.findAllBloques()).thenReturn(List.of(
+                new BloqueHorario(1L, 1, LocalTime.of(8, 0), LocalTime.of(10, 0)),
+                new BloqueHorario(1L, 1, LocalTime.of(14, 0), LocalTime.of(15, 15)),
+                new BloqueHorario(2L, 7, LocalTime.of(22, 0), LocalTime.MIDNIGHT)
+        ));
+        indice = new IndiceHorarios(repository);
+        indice.recargar();
+    }
+
+    @Test
+    void trabajaEnUsaRangoSemiabierto() {
+        assertTrue(indice.trabajaEn(1L, 1, LocalTime.of(8, 0)));
+        assertTrue(indice.trabajaEn(1L, 1, LocalTime.of(9, 59)));
+        assertFalse(indice.trabajaEn(1L, 1, LocalTime.of(10, 0)));
+        assertFalse(indice.trabajaEn(1L, 2, LocalTime.of(9, 0)));
+        assertTrue(indice.trabajaEn(2L, 7, LocalTime.of(23, 55)));
+    }
+
+    @Test
+    void copiarDiaDevuelveSoloEseDia() {
+        long[] dia = new long[IndiceHorarios.PALABRAS_POR_DIA];
+
+        indice.copiarDia(1L, 1, dia, 0);
+
+        assertTrue(MapaBits.contiene(dia, 0, IndiceHorarios.unidad(LocalTime.of(14, 0))));
+        assertFalse(MapaBits.contiene(dia, 0, IndiceHorarios.unidad(LocalTime.of(15, 15))));
+        indice.copiarDia(1L, 2, dia, 0);
+        assertTrue(MapaBits.vacio(dia, 0, IndiceHorarios.PALABRAS_POR_DIA));
+    }
+
+    @Test
+    void doctorInvalidadoSeRecargaSoloUnaVez() {
+        when(repository.findBloquesByDoctor(1L)).thenReturn(List.of(
+                new BloqueHorario(1L, 3, LocalTime.of(9, 0), LocalTime.of(11, 0))
+        ));
+
+        indice.invalidar(1L);
+
+        assertFalse(indice.trabajaEnDia(1L, 1));
+        assertTrue(indice.trabajaEn(1L, 3, LocalTime.of(10, 30)));
+        verify(repository, times(1)).findBloquesByDoctor(1L);
+    }
+
+    @Test
+    void unaCargaInvalidadaMientrasLeiaNoSeGuarda() {
+        when(repository.findBloquesByDoctor(1L)).thenAnswer(invocacion -> {
+            // Cambian los horarios mientras se leían los anteriores
+            indice.invalidar(1L);
+            return List.of(new BloqueHorario(1L, 3, LocalTime.of(9, 0), LocalTime.of(11, 0)));
+        });
+        indice.invalidar(1L);
+
+        assertTrue(indice.trabajaEn(1L, 3, LocalTime.of(10, 0)));
+        assertTrue(indice.trabajaEn(1L, 3, LocalTime.of(10, 0)));
+        verify(repository, times(2)).findBloquesByDoctor(1L);
+    }
+
+    @Test
+    void unDoctorSinHorarioSeConsultaUnaVezHastaInvalidarlo() {
+        assertFalse(indice.trabajaEnDia(99L, 1));
+        assertFalse(indice.trabajaEnDia(99L, 2));
+        verify(repository, times(1)).findBloquesByDoctor(99L);
+
+        indice.invalidar(99L);
+        assertFalse(indice.trabajaEnDia(99L, 1));
+        verify(repository, times(2)).findBloquesByDoctor(99L);
+    }
+}
@@ -0,0 +1,72 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.NombreDoctor;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tiempo por búsqueda en el índice de nombres con doctores generados combinando nombres y apellidos
+ * comunes (pocas palabras distintas compartidas por muchos doctores: el peor caso del índice).
+ * Solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class IndiceNombresDoctoresBenchmarkTests {
+
+    private static final int BUSQUEDAS = 20_000;
+    private static final String[] NOMBRES = {"José", "María", "Juan", "Ana", "Luis", "Carmen", "Jorge", "Lucía",
+            "Carlos", "Sofía", "Miguel", "Valentina", "Andrés", "Camila", "Fernando", "Daniela", "Ricardo",
+            "Gabriela", "Alejandro", "Isabel", "Sebastián", "Paula", "Tomás", "Florencia", "Martín"};
+    private static final String[] APELLIDOS = {"García", "Rodríguez", "Martínez", "López", "González", "Pérez",
+            "Sánchez", "Ramírez", "Torres", "Flores", "Rivera", "Gómez", "Díaz", "Cruz", "Morales", "Ortiz",
+            "Gutiérrez", "Chávez", "Ramos", "Ruiz", "Jiménez", "Vargas", "Castillo", "Romero", "Herrera",
+            "Medina", "Aguilar", "Castro", "Mendoza", "Núñez"};
+    private static final String[] CONSULTAS = {"jose perez", "jsoe prez", "maria gonzales", "Lucía", "gutierrez",
+            "andres ramirez", "sofia", "carmen nunez", "fernado", "Martin Castro"};
+
+    @Test
+    void busquedaEnMemoria() {
+        for (int doctores : new int[]{2_000, 100_000}) {
+            medir(doctores);
+        }
+    }
+
+    private void medir(int cantidad) {
+        Random random = new Random(7);
+        List<NombreDoctor> nombres = new ArrayList<>(cantidad);
+        for (long i = 1; i <= cantidad; i++) {
+            nombres.add(new NombreDoctor(i, i, NOMBRES[random.nextInt(NOMBRES.length)],
+                    APELLIDOS[random.nextInt(APELLIDOS.length)] + " " + APELLIDOS[random.nextInt(APELLIDOS.length)]));
+        }
+        DoctorRepository repository = mock(DoctorRepository.class);
+        when(repository.findAllNombres()).thenReturn(nombres);
+        IndiceNombresDoctores indice = new IndiceNombresDoctores(repository);
+
+        long inicio = System.nanoTime();
+        indice.recargar();
+        System.out.printf("construcción con %d doctores: %d ms%n", cantidad, (System.nanoTime() - inicio) / 1_000_000);
+
+        // Calentamiento del JIT con todas las consultas antes de medir
+        for (int i = 0; i < BUSQUEDAS; i++) {
+            indice.buscar(CONSULTAS[i % CONSULTAS.length]);
+        }
+        for (String consulta : CONSULTAS) {
+            List<Long> ids = indice.buscar(consulta);
+            assertFalse(ids.isEmpty(), consulta);
+            inicio = System.nanoTime();
+            for (int i = 0; i < BUSQUEDAS / CONSULTAS.length; i++) {
+                indice.buscar(consulta);
+            }
+            long microsegundos = (System.nanoTime() - inicio) / 1_000 / (BUSQUEDAS / CONSULTAS.length);
+            System.out.printf("%-16s %6d doctores | %d µs por búsqueda%n", consulta, ids.size(), microsegundos);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.NombreDoctor;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class IndiceNombresDoctoresTests {
+
+    private DoctorRepository repository;
+    private IndiceNombresDoctores indice;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(DoctorRepository.class);
+        when(repository.findAllNombres()).thenReturn(List.of(
+                new NombreDoctor(1L, 11L, "José", "Pérez"),
+                new NombreDoctor(2L, 12L, "Josefina", "Martínez"),
+                new NombreDoctor(3L, 13L, "Ana María", "Núñez"),
+                new NombreDoctor(4L, 14L, "Mariana", "López"),
+                new NombreDoctor(5L, 15L, "Luis", null)));
+        indice = new IndiceNombresDoctores(repository);
+        indice.recargar();
+    }
+
+    @Test
+    void ignoraTildesYMayusculas() {
+        assertEquals(List.of(1L), indice.buscar("JOSE PEREZ"));
+        assertEquals(List.of(3L), indice.buscar("nunez"));
+        assertEquals(List.of(3L), indice.buscar("ANA-MARIA nuñez"));
+    }
+
+    @Test
+    void toleraTrasposicionesYLetrasDeMas() {
+        assertEquals(List.of(1L), indice.buscar("jsoe perz"));
+        assertEquals(List.of(2L), indice.buscar("martinex"));
+        assertEquals(List.of(4L), indice.buscar("lopes"));
+    }
+
+    @Test
+    void ordenaPorParecidoYLuegoPorId() {
+        // "jose" es prefijo de José y de Josefina: mismo puntaje, desempata el id
+        assertEquals(List.of(1L, 2L), indice.buscar("jose"));
+        assertEquals(List.of(2L, 3L, 4L), indice.buscar("mar"));
+        // "ana" es una palabra de Ana María pero solo está contenida en Mariana
+        assertEquals(List.of(3L, 4L), indice.buscar("ana"));
+        assertEquals(List.of(3L, 4L), indice.buscar("ana maria"));
+    }
+
+    @Test
+    void noDevuelveNombresPocoParecidos() {
+        assertTrue(indice.buscar("ramirez").isEmpty());
+        assertTrue(indice.buscar("ana gomez").isEmpty());
+        assertTrue(indice.buscar("  ").isEmpty());
+    }
+
+    @Test
+    void actualizaUnDoctorSinRecargarTodo() {
+        when(repository.findNombreByIdDoctor(1L)).thenReturn(List.of(new NombreDoctor(1L, 11L, "Joaquín", "Pérez")));
+        when(repository.findNombreByIdDoctor(6L)).thenReturn(List.of(new NombreDoctor(6L, 16L, "Josué", "Ríos")));
+        when(repository.findNombreByIdDoctor(5L)).thenReturn(List.of());
+
+        indice.actualizar(1L);
+        indice.actualizar(6L);
+        indice.actualizar(5L);
+
+        assertEquals(List.of(2L, 6L), indice.buscar("jos"));
+        assertEquals(List.of(1L), indice.buscar("joaquin"));
+        assertTrue(indice.buscar("luis").isEmpty());
+        assertEquals(6L, indice.doctorDeDetalle(16L));
+        assertNull(indice.doctorDeDetalle(15L));
+        assertEquals(5, indice.tamanio());
+    }
+
+    @Test
+    void distanciaCuentaLaTrasposicionComoUnaEdicion() {
+        assertEquals(1, IndiceNombresDoctores.distancia("jsoe", "jose"));
+        assertEquals(2, IndiceNombresDoctores.distancia("abcd", "badc"));
+        assertEquals(0, IndiceNombresDoctores.distancia("ana", "ana"));
+        assertEquals(3, IndiceNombresDoctores.distancia("", "ana"));
+    }
+}
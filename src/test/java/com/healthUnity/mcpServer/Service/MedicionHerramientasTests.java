@@ -0,0 +1,133 @@
+package com.healthUnity.mcpServer.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.tool.ToolCallback;
+import org.springframework.ai.tool.ToolCallbackProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las herramientas publicadas por el servidor MCP dejan su duración y su tiempo con conexión,
+ * y las de citas arman la respuesta con datos ya leídos, fuera de la transacción.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class MedicionHerramientasTests {
+
+    private static final String ESPECIALIDAD = "Medicion Herramientas Tests";
+
+    @Autowired
+    private ToolCallbackProvider herramientas;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idEspecialidad;
+    private Long idDoctor;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido, direccion) VALUES ('Sara', 'Medicion', 'Calle 9')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 6, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, idEspecialidad);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Raúl', 'Medicion')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO citas (razon, fecha, hora, estado, id_doctor, id_paciente)
+                VALUES ('Control', ?, TIME '09:00', 'pendiente', ?, ?), ('Chequeo', ?, TIME '10:30', 'completada', ?, ?)
+                """, LocalDate.now().plusDays(10), idDoctor, idPaciente,
+                LocalDate.now().minusDays(10), idDoctor, idPaciente);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM citas WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctor, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+    }
+
+    @Test
+    void cadaLlamadaDejaSuDuracionYSuTiempoConConexion() {
+        Timer duracion = timer("healthunity.herramientas.duracion", "consultarProximaCita");
+        Timer conexion = timer("healthunity.herramientas.conexion", "consultarProximaCita");
+        long llamadas = duracion.count();
+
+        String respuesta = herramienta("consultarProximaCita").call("{\"idPaciente\": " + idPaciente + "}");
+
+        assertTrue(respuesta.contains("Sara Medicion"), respuesta);
+        assertTrue(respuesta.contains("Calle 9"), respuesta);
+        assertEquals(llamadas + 1, duracion.count());
+        assertEquals(llamadas + 1, conexion.count());
+        // Dos lecturas cortas: el paciente y la cita
+        assertTrue(conexion.totalTime(TimeUnit.NANOSECONDS) > 0);
+        assertTrue(conexion.totalTime(TimeUnit.NANOSECONDS) <= duracion.totalTime(TimeUnit.NANOSECONDS));
+    }
+
+    @Test
+    void lasCitasSeListanDesdeLaProyeccion() {
+        // La respuesta llega serializada como JSON, por eso se buscan fragmentos
+        String todas = herramienta("consultarCitasPorEstado").call("{\"idPaciente\": " + idPaciente + "}");
+        String completadas = herramienta("consultarCitasPorEstado")
+                .call("{\"idPaciente\": " + idPaciente + ", \"estado\": \"completada\"}");
+
+        assertTrue(todas.contains("📋 Citas Todas (2)"), todas);
+        assertTrue(todas.contains("Sara Medicion (" + ESPECIALIDAD + ")"), todas);
+        assertTrue(todas.indexOf("Control") < todas.indexOf("Chequeo"), todas);
+        assertTrue(completadas.contains("📋 Citas Completadas (1)"), completadas);
+        assertTrue(completadas.contains("Chequeo") && !completadas.contains("Control"), completadas);
+    }
+
+    @Test
+    void lasLlamadasFueraDeUnaHerramientaNoSeCuentan() {
+        Timer conexion = timer("healthunity.herramientas.conexion", "consultarProximaCita");
+        double antes = conexion.totalTime(TimeUnit.NANOSECONDS);
+
+        jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+
+        assertEquals(antes, conexion.totalTime(TimeUnit.NANOSECONDS));
+    }
+
+    private ToolCallback herramienta(String nombre) {
+        return Arrays.stream(herramientas.getToolCallbacks())
+                .filter(h -> h.getToolDefinition().name().equals(nombre))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private Timer timer(String nombre, String herramienta) {
+        return meterRegistry.get(nombre).tag("herramienta", herramienta).timer();
+    }
+}
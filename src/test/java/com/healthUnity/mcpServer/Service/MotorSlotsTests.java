@@ -0,0 +1,130 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.AgendaProperties;
+import com.healthUnity.mcpServer.DTO.BloqueHorario;
+import com.healthUnity.mcpServer.DTO.HoraOcupada;
+import com.healthUnity.mcpServer.Repositories.CitasRepository;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import com.healthUnity.mcpServer.Repositories.HorariosDoctorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MotorSlotsTests {
+
+    private static final LocalDate LUNES = LocalDate.of(2030, 1, 7);
+
+    private CitasRepository citasRepository;
+    private DoctorRepository doctorRepository;
+    private AgendaProperties agendaProperties;
+    private RetencionesHorario retenciones;
+    private MotorSlots motor;
+
+    @BeforeEach
+    void setUp() {
+        HorariosDoctorRepository horariosRepository = mock(HorariosDoctorRepository.class);
+        when(horariosRepository.findAllBloques()).thenReturn(List.of(
+                new BloqueHorario(1L, 1, LocalTime.of(8, 0), LocalTime.of(10, 0)),
+                new BloqueHorario(1L, 1, LocalTime.of(14, 0), LocalTime.of(15, 15)),
+                new BloqueHorario(1L, 2, LocalTime.of(9, 0), LocalTime.of(10, 0))
+        ));
+        IndiceHorarios indice = new IndiceHorarios(horariosRepository);
+        indice.recargar();
+
+        citasRepository = mock(CitasRepository.class);
+        doctorRepository = mock(DoctorRepository.class);
+        agendaProperties = new AgendaProperties();
+        when(doctorRepository.findIdEspecialidadByIdDoctor(1L)).thenReturn(7L);
+        retenciones = new RetencionesHorario(agendaProperties);
+        motor = new MotorSlots(indice, citasRepository, doctorRepository, agendaProperties, retenciones);
+    }
+
+    @Test
+    void slotsDesdeElInicioDeCadaBloqueSinLasHorasOcupadas() {
+        when(citasRepository.findHorasOcupadasByDoctorAndFechaBetween(1L, LUNES, LUNES)).thenReturn(List.of(
+                new HoraOcupada(LUNES, LocalTime.of(8, 30)),
+                new HoraOcupada(LUNES, LocalTime.of(14, 10))
+        ));
+
+        assertEquals(List.of("08:00", "09:00", "09:30"), motor.horariosLibres(1L, LUNES));
+    }
+
+    @Test
+    void duracionPorEspecialidad() {
+        agendaProperties.getDuracionPorEspecialidad().put(7L, 20);
+        when(citasRepository.findHorasOcupadasByDoctorAndFechaBetween(1L, LUNES, LUNES)).thenReturn(List.of());
+
+        assertEquals(List.of("08:00", "08:20", "08:40", "09:00", "09:20", "09:40", "14:00", "14:20", "14:40"),
+                motor.horariosLibres(1L, LUNES));
+    }
+
+    @Test
+    void rangoDeUnaSemanaConUnaSolaConsulta() {
+        LocalDate domingo = LUNES.plusDays(6);
+        when(citasRepository.findHorasOcupadasByDoctorAndFechaBetween(1L, LUNES, domingo)).thenReturn(List.of(
+                new HoraOcupada(LUNES.plusDays(1), LocalTime.of(9, 0))
+        ));
+
+        Map<LocalDate, List<String>> semana = motor.horariosLibres(1L, LUNES, domingo);
+
+        assertEquals(List.of(LUNES, LUNES.plusDays(1)), List.copyOf(semana.keySet()));
+        assertEquals(List.of("09:30"), semana.get(LUNES.plusDays(1)));
+        verify(citasRepository, times(1)).findHorasOcupadasByDoctorAndFechaBetween(eq(1L), any(), any());
+    }
+
+    @Test
+    void retenidosSoloLosVeQuienLosRetuvo() {
+        when(citasRepository.findHorasOcupadasByDoctorAndFechaBetween(1L, LUNES, LUNES)).thenReturn(List.of());
+        retenciones.retener(10L, 1L, LUNES, LocalTime.of(8, 30));
+
+        assertEquals(List.of("08:00", "09:00", "09:30", "14:00", "14:30"), motor.horariosLibres(1L, LUNES, 20L));
+        assertEquals(List.of("08:00", "09:00", "09:30", "14:00", "14:30"), motor.horariosLibres(1L, LUNES));
+        assertEquals(List.of("08:00", "08:30", "09:00", "09:30", "14:00", "14:30"), motor.horariosLibres(1L, LUNES, 10L));
+    }
+
+    @Test
+    void soloLasHorasQueSonInicioDeSlot() {
+        int duracion = motor.unidadesPorSlot(1L);
+
+        assertTrue(motor.esInicioDeSlot(1L, LUNES, LocalTime.of(8, 0), duracion));
+        assertTrue(motor.esInicioDeSlot(1L, LUNES, LocalTime.of(14, 30), duracion));
+        assertFalse(motor.esInicioDeSlot(1L, LUNES, LocalTime.of(8, 15), duracion));
+        assertFalse(motor.esInicioDeSlot(1L, LUNES, LocalTime.of(8, 2), duracion));
+        // 15:00 está dentro del bloque pero la cita terminaría a las 15:30
+        assertFalse(motor.esInicioDeSlot(1L, LUNES, LocalTime.of(15, 0), duracion));
+        assertFalse(motor.esInicioDeSlot(1L, LUNES, LocalTime.of(12, 0), duracion));
+    }
+
+    @Test
+    void seCruzaConLaCitaDeAlLado() {
+        when(citasRepository.findHorasOcupadasByDoctorAndFechaBetween(1L, LUNES, LUNES)).thenReturn(List.of(
+                new HoraOcupada(LUNES, LocalTime.of(8, 15))
+        ));
+        int duracion = motor.unidadesPorSlot(1L);
+
+        assertTrue(motor.seCruzaConOtraCita(1L, LUNES, LocalTime.of(8, 0), duracion));
+        assertTrue(motor.seCruzaConOtraCita(1L, LUNES, LocalTime.of(8, 30), duracion));
+        assertFalse(motor.seCruzaConOtraCita(1L, LUNES, LocalTime.of(9, 0), duracion));
+    }
+
+    @Test
+    void rangoDemasiadoLargo() {
+        assertThrows(IllegalArgumentException.class,
+                () -> motor.horariosLibres(1L, LUNES, LUNES.plusDays(agendaProperties.getMaxDiasRango())));
+    }
+}
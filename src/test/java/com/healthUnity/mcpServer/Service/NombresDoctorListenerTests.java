@@ -0,0 +1,71 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Models.DetallesUsuario;
+import com.healthUnity.mcpServer.Models.Doctores;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los cambios hechos por JPA a un doctor o a sus datos personales llegan al índice de nombres
+ * al confirmar la transacción, contra la base configurada.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class NombresDoctorListenerTests {
+
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private IndiceNombresDoctores indiceNombres;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long idDoctor;
+    private Long idDetalle;
+
+    @AfterEach
+    void limpiar() {
+        if (idDoctor != null) {
+            jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+            jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", idDetalle);
+            indiceNombres.actualizar(idDoctor);
+        }
+    }
+
+    @Test
+    void indexaAlCrearYAlRenombrar() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            DetallesUsuario detalles = new DetallesUsuario();
+            detalles.setNombre("Xiomara");
+            detalles.setApellido("Quintanilla");
+            Doctores doctor = new Doctores();
+            doctor.setDetallesUsuario(detalles);
+            doctorRepository.save(doctor);
+            idDoctor = doctor.getIdDoctor();
+            idDetalle = detalles.getIdDetalleUsuario();
+            // Todavía sin confirmar: el índice no lo ve
+            assertTrue(indiceNombres.buscar("xiomara quintanilla").isEmpty());
+        });
+        assertEquals(List.of(idDoctor), indiceNombres.buscar("Xiómara Quintanila"));
+
+        tx.executeWithoutResult(status ->
+                doctorRepository.findById(idDoctor).orElseThrow().getDetallesUsuario().setApellido("Zúñiga"));
+        assertEquals(List.of(idDoctor), indiceNombres.buscar("xiomara zuniga"));
+        assertTrue(indiceNombres.buscar("quintanilla").isEmpty());
+    }
+}
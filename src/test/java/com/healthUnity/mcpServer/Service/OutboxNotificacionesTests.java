@@ -0,0 +1,154 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reserva una cita contra la base configurada y comprueba que el correo sale del outbox
+ * hacia un servidor SMTP en memoria (GreenMail) en lugar de smtp.gmail.com.
+ */
+@SpringBootTest(properties = "healthunity.notificaciones.intervalo-ms=100")
+class OutboxNotificacionesTests {
+
+    private static final String ESPECIALIDAD = "Outbox Tests";
+    private static final String CORREO_PACIENTE = "paciente.outbox@localhost";
+    private static final LocalDate LUNES = LocalDate.now().plusWeeks(3).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("healthunity@localhost", "secreto"));
+
+    @DynamicPropertySource
+    static void correo(DynamicPropertyRegistry registry) {
+        registry.add("spring.mail.host", () -> "localhost");
+        registry.add("spring.mail.port", () -> ServerSetupTest.SMTP.getPort());
+        registry.add("spring.mail.username", () -> "healthunity@localhost");
+        registry.add("spring.mail.password", () -> "secreto");
+        registry.add("spring.mail.properties.mail.smtp.starttls.enable", () -> "false");
+    }
+
+    @Autowired
+    private CitasService citasService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idEspecialidad;
+    private Long idDoctor;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Ana', 'Outbox')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 1, id_detalle_usuario, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO horarios_doctor (dia_semana, hora_inicio, hora_fin, id_doctor)
+                VALUES (1, TIME '08:00', TIME '12:00', ?)
+                """, idDoctor);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido, gmail) VALUES ('Luis', 'Outbox', ?)
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class, CORREO_PACIENTE);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("""
+                DELETE FROM notificaciones_outbox
+                WHERE id_cita IN (SELECT id_cita FROM citas WHERE id_paciente = ?)
+                """, idPaciente);
+        jdbcTemplate.update("DELETE FROM notificaciones_outbox WHERE destinatario = ?", CORREO_PACIENTE);
+        jdbcTemplate.update("DELETE FROM citas WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM horarios_doctor WHERE id_doctor = ?", idDoctor);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctor, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+    }
+
+    @Test
+    void laCitaDejaElCorreoEnElOutboxYElDespachadorLoEnvia() throws Exception {
+        String respuesta = citasService.crearCitaAutomatica(idPaciente, idDoctor, LUNES.toString(), "09:00", "Control");
+        assertTrue(respuesta.startsWith("✅"), respuesta);
+
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+        MimeMessage[] recibidos = greenMail.getReceivedMessages();
+        assertEquals(1, recibidos.length);
+        assertEquals(CORREO_PACIENTE, recibidos[0].getAllRecipients()[0].toString());
+        assertEquals("Cita Confirmada", recibidos[0].getSubject());
+
+        String estado = null;
+        for (int i = 0; i < 50 && !"enviada".equals(estado); i++) {
+            Thread.sleep(100);
+            estado = jdbcTemplate.queryForObject("""
+                    SELECT o.estado FROM notificaciones_outbox o JOIN citas c ON c.id_cita = o.id_cita
+                    WHERE c.id_paciente = ?
+                    """, String.class, idPaciente);
+        }
+        assertEquals("enviada", estado);
+    }
+
+    @Test
+    void laQueAgotoSusIntentosPasaAFallidaSinEnviarse() throws Exception {
+        // Quedó en 'enviando' tras el último intento (la instancia murió antes de marcar el resultado)
+        Long idNotificacion = jdbcTemplate.queryForObject("""
+                INSERT INTO notificaciones_outbox (tipo, destinatario, payload, estado, intentos, proximo_intento)
+                VALUES ('confirmacion_cita', ?, '{}', 'enviando', 6, now() - INTERVAL '1 minute')
+                RETURNING id_notificacion
+                """, Long.class, CORREO_PACIENTE);
+
+        String estado = null;
+        for (int i = 0; i < 50 && !"fallida".equals(estado); i++) {
+            Thread.sleep(100);
+            estado = jdbcTemplate.queryForObject(
+                    "SELECT estado FROM notificaciones_outbox WHERE id_notificacion = ?", String.class, idNotificacion);
+        }
+        assertEquals("fallida", estado);
+        assertEquals(6, jdbcTemplate.queryForObject(
+                "SELECT intentos FROM notificaciones_outbox WHERE id_notificacion = ?", Integer.class, idNotificacion));
+        assertTrue(!greenMail.waitForIncomingEmail(500, 1));
+    }
+
+    @Test
+    void siLaCitaNoSeCreaNoHayCorreo() throws Exception {
+        String respuesta = citasService.crearCitaAutomatica(idPaciente, idDoctor, LUNES.toString(), "13:00", "Control");
+        assertTrue(respuesta.startsWith("❌"), respuesta);
+
+        Integer pendientes = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM notificaciones_outbox WHERE destinatario = ?", Integer.class, CORREO_PACIENTE);
+        assertEquals(0, pendientes);
+        assertTrue(!greenMail.waitForIncomingEmail(500, 1));
+    }
+}
@@ -0,0 +1,124 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.CursorDoctores;
+import com.healthUnity.mcpServer.Repositories.DoctorRepository;
+import com.healthUnity.mcpServer.Repositories.ListadoDoctoresRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 100.000 doctores con 300.000 opiniones: tiempo de una página de 20 por rating a distintas profundidades
+ * con OFFSET (findAllDoctores) y con cursor (PaginacionDoctores). El cursor de cada profundidad se arma
+ * con la fila anterior a la página, leída aparte. Siembra en una transacción que se revierte,
+ * por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class PaginacionDoctoresBenchmarkTests {
+
+    private static final String ESPECIALIDAD = "Benchmark Paginacion";
+    private static final int DOCTORES = 100_000;
+    private static final int POR_PAGINA = 20;
+    private static final int[] PAGINAS = {0, 100, 1_000, 4_900};
+    private static final int REPETICIONES = 5;
+
+    @Autowired
+    private PaginacionDoctores paginacion;
+    @Autowired
+    private DoctorRepository doctorRepository;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void offsetVsCursorSegunProfundidad() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            sembrar();
+            long total = listadoDoctoresRepository.contarParaPaginar(null, null);
+
+            for (int pagina : PAGINAS) {
+                String cursor = pagina == 0 ? null : cursorAntesDe(pagina * POR_PAGINA, total);
+
+                doctorRepository.findAllDoctores("rating", PageRequest.of(pagina, POR_PAGINA));
+                paginacion.pagina("rating", null, null, POR_PAGINA, cursor);
+
+                long msOffset = mediana(() -> assertEquals(POR_PAGINA,
+                        doctorRepository.findAllDoctores("rating", PageRequest.of(pagina, POR_PAGINA)).getContent().size()));
+                long msCursor = mediana(() -> assertEquals(POR_PAGINA,
+                        paginacion.pagina("rating", null, null, POR_PAGINA, cursor).getContent().size()));
+                System.out.printf("página %d (fila %d) | offset: %d ms | cursor: %d ms (medianas de %d)%n",
+                        pagina, pagina * POR_PAGINA, msOffset, msCursor, REPETICIONES);
+            }
+            status.setRollbackOnly();
+        });
+    }
+
+    private String cursorAntesDe(int fila, long total) {
+        Map<String, Object> anterior = jdbcTemplate.queryForMap("""
+                SELECT promedio, id_doctor FROM doctor_rating_resumen r
+                WHERE EXISTS (SELECT 1 FROM doctores d
+                              JOIN detalles_usuario du ON d.id_detalle_usuario = du.id_detalle_usuario
+                              JOIN especialidades e ON d.id_especialidad = e.id_especialidad
+                              WHERE d.id_doctor = r.id_doctor)
+                ORDER BY promedio DESC, id_doctor DESC
+                OFFSET ? LIMIT 1
+                """, fila - 1);
+        return new CursorDoctores(PaginacionDoctores.RATING, ((Number) anterior.get("promedio")).doubleValue(),
+                ((Number) anterior.get("id_doctor")).longValue(), fila / POR_PAGINA - 1, total,
+                PaginacionDoctores.filtros(null, null)).codificar();
+    }
+
+    private static long mediana(Runnable consulta) {
+        long[] tiempos = new long[REPETICIONES];
+        for (int i = 0; i < REPETICIONES; i++) {
+            long inicio = System.nanoTime();
+            consulta.run();
+            tiempos[i] = (System.nanoTime() - inicio) / 1_000_000;
+        }
+        Arrays.sort(tiempos);
+        return tiempos[REPETICIONES / 2];
+    }
+
+    private void sembrar() {
+        Long idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        Long idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Bench', 'Paciente')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido)
+                            SELECT 'Bench', 'Doctor ' || g FROM generate_series(1, ?) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT (id_detalle_usuario % 40)::int, id_detalle_usuario, ? FROM du
+                """, DOCTORES, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                SELECT 1 + (d.id_doctor * 7 + g * 3) % 5, 'Benchmark', CURRENT_DATE, d.id_doctor, ?
+                FROM doctores d, generate_series(1, 3) g
+                WHERE d.id_especialidad = ?
+                """, idPaciente, idEspecialidad);
+        jdbcTemplate.execute("""
+                ANALYZE doctores, detalles_usuario, especialidades, opiniones_doctores, doctor_rating_resumen
+                """);
+    }
+}
@@ -0,0 +1,158 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.CursorDoctores;
+import com.healthUnity.mcpServer.DTO.Response.DoctorDTOResponse;
+import com.healthUnity.mcpServer.DTO.Response.PaginatedDoctorResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recorre por cursor, contra la base configurada, los doctores de una especialidad sembrada
+ * con empates de rating, reseñas y experiencia, en páginas de 3.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class PaginacionDoctoresTests {
+
+    private static final String ESPECIALIDAD = "Paginacion Cursor Tests";
+    // estrellas de cada doctor (una opinión por valor) y su experiencia
+    private static final int[][] ESTRELLAS = {{5}, {4, 4}, {5}, {}, {3, 5}, {2}, {4}, {5, 5, 2}};
+    private static final int[] EXPERIENCIA = {3, 10, 3, 1, 7, 10, 3, 2};
+
+    @Autowired
+    private PaginacionDoctores paginacion;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private IndiceNombresDoctores indiceNombres;
+
+    private Long idEspecialidad;
+    private Long idPaciente;
+    private final List<Long> doctores = new ArrayList<>();
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Paz', 'Cursor')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        for (int i = 0; i < ESTRELLAS.length; i++) {
+            Long idDoctor = jdbcTemplate.queryForObject("""
+                    WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES (?, 'Cursor')
+                                RETURNING id_detalle_usuario)
+                    INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                    SELECT ?, id_detalle_usuario, ? FROM du
+                    RETURNING id_doctor
+                    """, Long.class, i % 2 == 0 ? "Marta" : "Luis", EXPERIENCIA[i], idEspecialidad);
+            doctores.add(idDoctor);
+            // Sembrado sin JPA: se avisa al índice de nombres igual que lo haría NombresDoctorListener
+            indiceNombres.actualizar(idDoctor);
+            for (int estrellas : ESTRELLAS[i]) {
+                jdbcTemplate.update("""
+                        INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                        VALUES (?, 'ok', CURRENT_DATE, ?, ?)
+                        """, estrellas, idDoctor, idPaciente);
+            }
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_especialidad = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idEspecialidad, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_especialidad = ?", idEspecialidad);
+        doctores.forEach(indiceNombres::actualizar);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+    }
+
+    @Test
+    void recorrePorRatingConDesempatePorId() {
+        // promedios: 5, 4, 5, 0, 4, 2, 4, 4 -> 5 (ids 2, 0), 4 (ids 7, 6, 4, 1), 2 (5), 0 (3)
+        assertEquals(List.of(d(2), d(0), d(7), d(6), d(4), d(1), d(5), d(3)), recorrer("rating", null));
+    }
+
+    @Test
+    void recorrePorReviewsYPorRelevancia() {
+        assertEquals(List.of(d(7), d(4), d(1), d(6), d(5), d(2), d(0), d(3)), recorrer("reviews", null));
+        assertEquals(List.of(d(5), d(1), d(4), d(6), d(2), d(0), d(7), d(3)), recorrer("relevancia", null));
+    }
+
+    @Test
+    void filtraPorNombreYCuentaElTotalUnaSolaVez() {
+        assertEquals(List.of(d(5), d(1), d(7), d(3)), recorrer("relevancia", "LUIS cursór"));
+
+        PaginatedDoctorResponse primera = paginacion.pagina("rating", idEspecialidad, "marta", 3, null);
+        assertEquals(4L, primera.getTotalItems());
+        assertEquals(2, primera.getTotalPages());
+        assertEquals(0, primera.getCurrentPage());
+        assertFalse(primera.getHasPrevious());
+        assertTrue(primera.getHasNext());
+
+        PaginatedDoctorResponse segunda = paginacion.pagina("rating", idEspecialidad, "marta", 3, primera.getNextCursor());
+        assertEquals(1, segunda.getCurrentPage());
+        assertEquals(4L, segunda.getTotalItems());
+        assertTrue(segunda.getHasPrevious());
+        assertFalse(segunda.getHasNext());
+        assertNull(segunda.getNextCursor());
+        assertEquals(1, segunda.getContent().size());
+    }
+
+    @Test
+    void rechazaCursoresInvalidosODeOtroOrden() {
+        String cursor = paginacion.pagina("rating", idEspecialidad, null, 3, null).getNextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> paginacion.pagina("reviews", idEspecialidad, null, 3, cursor));
+        assertThrows(IllegalArgumentException.class,
+                () -> paginacion.pagina("rating", idEspecialidad, null, 3, "no-es-un-cursor"));
+        assertThrows(IllegalArgumentException.class,
+                () -> paginacion.pagina("precio", idEspecialidad, null, 3, null));
+        // Con otros filtros el cursor apuntaría a otro listado
+        assertThrows(IllegalArgumentException.class,
+                () -> paginacion.pagina("rating", null, null, 3, cursor));
+        assertThrows(IllegalArgumentException.class,
+                () -> paginacion.pagina("rating", idEspecialidad, "ana", 3, cursor));
+        assertEquals(cursor, CursorDoctores.decodificar(cursor).codificar());
+    }
+
+    private List<Long> recorrer(String orden, String busqueda) {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            PaginatedDoctorResponse pagina = paginacion.pagina(orden, idEspecialidad, busqueda, 3, cursor);
+            assertTrue(pagina.getContent().size() <= 3);
+            pagina.getContent().stream().map(DoctorDTOResponse::getIdDoctor).forEach(ids::add);
+            cursor = pagina.getNextCursor();
+            assertEquals(pagina.getHasNext(), cursor != null);
+        } while (cursor != null);
+        return ids;
+    }
+
+    private Long d(int i) {
+        return doctores.get(i);
+    }
+}
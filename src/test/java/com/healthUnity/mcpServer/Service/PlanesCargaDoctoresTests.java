@@ -0,0 +1,226 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Models.Galeria;
+import com.healthUnity.mcpServer.Models.Imagenes;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cada herramienta carga el doctor con su plan: sentencias SQL contadas con las estadísticas de Hibernate
+ * y bytes reservados por el hilo, con un doctor cuya galería tiene IMAGENES imágenes.
+ * Solo el perfil puede traer la galería; el resto no debe crecer con ella.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+class PlanesCargaDoctoresTests {
+
+    private static final String ESPECIALIDAD = "Planes Carga Tests";
+    private static final int IMAGENES = 2_000;
+    // Bytes que puede reservar una herramienta que no muestra la galería; cargar la galería lo supera de sobra
+    private static final long PRESUPUESTO_BYTES = 1_000_000;
+    private static final LocalDate LUNES = LocalDate.now().plusWeeks(3).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private CitasService citasService;
+    @Autowired
+    private IndiceHorarios indiceHorarios;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estadisticas;
+    private Long idEspecialidad;
+    private Long idGaleria;
+    private Long idDoctor;
+    // Sin galería: calienta cada herramienta antes de medir
+    private Long idDoctorCalentamiento;
+    private Long idPaciente;
+
+    private record Medicion(String respuesta, long sentencias, long bytes) {
+    }
+
+    @BeforeEach
+    void sembrar() {
+        estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idGaleria = jdbcTemplate.queryForObject("INSERT INTO galerias DEFAULT VALUES RETURNING id_galeria", Long.class);
+        jdbcTemplate.update("""
+                INSERT INTO imagenes (url_imagen, id_galeria)
+                SELECT 'https://img.healthunity/galeria/' || g || '.jpg', ? FROM generate_series(1, ?) g
+                """, idGaleria, IMAGENES);
+        idDoctor = doctor("Galeria", idGaleria);
+        idDoctorCalentamiento = doctor("Calentamiento", null);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Luis', 'Planes')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        // Con los horarios ya en memoria solo se cuentan las consultas de la herramienta
+        indiceHorarios.recargar();
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("""
+                DELETE FROM notificaciones_outbox
+                WHERE id_cita IN (SELECT id_cita FROM citas WHERE id_paciente = ?)
+                """, idPaciente);
+        jdbcTemplate.update("DELETE FROM citas WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM favoritos_doctores WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM horarios_doctor WHERE id_doctor IN (?, ?)", idDoctor, idDoctorCalentamiento);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor IN (?, ?)
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctor, idDoctorCalentamiento, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor IN (?, ?)", idDoctor, idDoctorCalentamiento);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM imagenes WHERE id_galeria = ?", idGaleria);
+        jdbcTemplate.update("DELETE FROM galerias WHERE id_galeria = ?", idGaleria);
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+    }
+
+    @Test
+    void elPerfilTraeLaGaleriaEnUnaSolaConsulta() {
+        doctorService.verPerfilDoctor(idDoctorCalentamiento);
+
+        Medicion perfil = medir(() -> doctorService.verPerfilDoctor(idDoctor));
+
+        assertTrue(perfil.respuesta().contains("Galería (" + IMAGENES + " imágenes)"), perfil.respuesta());
+        assertEquals(1, perfil.sentencias());
+        assertEquals(IMAGENES, estadisticas.getEntityStatistics(Imagenes.class.getName()).getLoadCount());
+        // La medición de memoria sí ve la galería: las demás herramientas quedan por debajo del presupuesto
+        assertTrue(perfil.bytes() > PRESUPUESTO_BYTES, perfil.bytes() + " bytes");
+    }
+
+    @Test
+    void agregarFavoritoNoCargaLaGaleria() {
+        doctorService.añadirFavoritos(idDoctorCalentamiento, idPaciente);
+
+        Medicion agregar = medir(() -> doctorService.añadirFavoritos(idDoctor, idPaciente));
+
+        assertTrue(agregar.respuesta().startsWith("✅"), agregar.respuesta());
+        // Una sola sentencia JDBC con el INSERT y el nombre: Hibernate no prepara ninguna
+        assertEquals(0, agregar.sentencias());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        assertSinGaleria(agregar);
+    }
+
+    @Test
+    void eliminarFavoritoLeeSoloElNombreDelDoctor() {
+        Long calentamiento = favorito(idDoctorCalentamiento);
+        Long idFavorito = favorito(idDoctor);
+        doctorService.eliminarFavoritos(calentamiento);
+
+        Medicion eliminar = medir(() -> doctorService.eliminarFavoritos(idFavorito));
+
+        assertTrue(eliminar.respuesta().startsWith("✅ Doctor Ana"), eliminar.respuesta());
+        // DELETE ... RETURNING con el nombre del doctor, por JDBC
+        assertEquals(0, eliminar.sentencias());
+        assertEquals(0, estadisticas.getEntityLoadCount());
+        assertSinGaleria(eliminar);
+    }
+
+    @Test
+    void agendarCargaElDoctorConSuTarjeta() {
+        citasService.crearCitaAutomatica(idPaciente, idDoctorCalentamiento, LUNES.toString(), "09:00", "Control");
+
+        Medicion agendar = medir(() ->
+                citasService.crearCitaAutomatica(idPaciente, idDoctor, LUNES.toString(), "09:00", "Control"));
+
+        assertTrue(agendar.respuesta().startsWith("✅"), agendar.respuesta());
+        // paciente, doctor con su tarjeta, especialidad y citas del día (duración y cruces) e INSERT de la cita
+        assertEquals(5, agendar.sentencias());
+        assertSinGaleria(agendar);
+    }
+
+    @Test
+    void reprogramarCargaLaCitaConSuDoctorEnUnaConsulta() {
+        Long calentamiento = cita(idDoctorCalentamiento);
+        Long idCita = cita(idDoctor);
+        citasService.reprogramarCita(calentamiento, idPaciente, LUNES.toString(), "10:00");
+
+        Medicion reprogramar = medir(() ->
+                citasService.reprogramarCita(idCita, idPaciente, LUNES.toString(), "10:00"));
+
+        assertTrue(reprogramar.respuesta().startsWith("✅"), reprogramar.respuesta());
+        assertTrue(reprogramar.respuesta().contains("Ana Galeria (" + ESPECIALIDAD + ")"), reprogramar.respuesta());
+        // cita con doctor, nombre y especialidad; especialidad del doctor y citas del día (mismas
+        // comprobaciones que al reservar); bloqueo del slot, ¿está libre? y UPDATE
+        assertEquals(6, reprogramar.sentencias());
+        assertSinGaleria(reprogramar);
+    }
+
+    private void assertSinGaleria(Medicion medicion) {
+        assertEquals(0, estadisticas.getEntityStatistics(Galeria.class.getName()).getLoadCount());
+        assertEquals(0, estadisticas.getEntityStatistics(Imagenes.class.getName()).getLoadCount());
+        assertTrue(medicion.bytes() < PRESUPUESTO_BYTES, medicion.bytes() + " bytes");
+    }
+
+    private Medicion medir(Supplier<String> herramienta) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        estadisticas.clear();
+        long antes = hilos.getThreadAllocatedBytes(hilo);
+        String respuesta = herramienta.get();
+        long bytes = hilos.getThreadAllocatedBytes(hilo) - antes;
+        System.out.printf("%s: %d sentencias, %d bytes%n",
+                respuesta.lines().findFirst().orElse(""), estadisticas.getPrepareStatementCount(), bytes);
+        return new Medicion(respuesta, estadisticas.getPrepareStatementCount(), bytes);
+    }
+
+    private Long doctor(String apellido, Long galeria) {
+        Long id = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido, direccion)
+                            VALUES ('Ana', ?, 'Calle 1') RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad, id_galeria)
+                SELECT 5, id_detalle_usuario, ?, ? FROM du
+                RETURNING id_doctor
+                """, Long.class, apellido, idEspecialidad, galeria);
+        jdbcTemplate.update("""
+                INSERT INTO horarios_doctor (dia_semana, hora_inicio, hora_fin, id_doctor)
+                VALUES (1, TIME '08:00', TIME '12:00', ?)
+                """, id);
+        return id;
+    }
+
+    private Long favorito(Long doctor) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO favoritos_doctores (id_paciente, id_doctor) VALUES (?, ?)
+                RETURNING id_favorito_doctor
+                """, Long.class, idPaciente, doctor);
+    }
+
+    private Long cita(Long doctor) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO citas (razon, fecha, hora, estado, id_doctor, id_paciente)
+                VALUES ('Control', ?, TIME '08:00', 'pendiente', ?, ?)
+                RETURNING id_cita
+                """, Long.class, LUNES, doctor, idPaciente);
+    }
+}
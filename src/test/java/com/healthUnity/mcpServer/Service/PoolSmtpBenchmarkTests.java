@@ -0,0 +1,59 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Correos por segundo contra un SMTP local (GreenMail): un send() por correo, que abre y autentica
+ * una conexión cada vez, frente a lotes de 50 por PoolSmtp. Contra smtp.gmail.com la diferencia
+ * es mayor porque cada conexión además negocia TLS.
+ */
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class PoolSmtpBenchmarkTests {
+
+    private static final int CORREOS = 1000;
+    private static final int LOTE = 50;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("healthunity@localhost", "secreto"));
+
+    @Test
+    void correosPorSegundo() throws Exception {
+        JavaMailSenderImpl mailSender = PoolSmtpTests.remitente();
+        NotificacionesProperties properties = new NotificacionesProperties();
+        PoolSmtp pool = new PoolSmtp(mailSender, properties, new SimpleMeterRegistry());
+
+        List<MimeMessage> mensajes = PoolSmtpTests.mensajes(mailSender, CORREOS);
+        long inicio = System.nanoTime();
+        for (MimeMessage mensaje : mensajes) {
+            mailSender.send(mensaje);
+        }
+        double unoPorUno = CORREOS / ((System.nanoTime() - inicio) / 1e9);
+
+        mensajes = PoolSmtpTests.mensajes(mailSender, CORREOS);
+        inicio = System.nanoTime();
+        for (int desde = 0; desde < CORREOS; desde += LOTE) {
+            pool.enviarLote(mensajes.subList(desde, desde + LOTE));
+        }
+        double enLotes = CORREOS / ((System.nanoTime() - inicio) / 1e9);
+        pool.cerrar();
+
+        System.out.printf("send() por correo: %.0f correos/s%n", unoPorUno);
+        System.out.printf("PoolSmtp, lotes de %d con %d conexiones: %.0f correos/s%n",
+                LOTE, properties.getConexionesSmtp(), enLotes);
+        assertEquals(2 * CORREOS, greenMail.getReceivedMessages().length);
+    }
+}
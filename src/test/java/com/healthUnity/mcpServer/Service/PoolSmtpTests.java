@@ -0,0 +1,128 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.NotificacionesProperties;
+import com.icegreen.greenmail.configuration.GreenMailConfiguration;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PoolSmtpTests {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP)
+            .withConfiguration(GreenMailConfiguration.aConfig().withUser("healthunity@localhost", "secreto"));
+
+    private JavaMailSenderImpl mailSender;
+    private PoolSmtp pool;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Cada prueba cuenta solo los correos que ella envió
+        greenMail.purgeEmailFromAllMailboxes();
+        mailSender = remitente();
+        NotificacionesProperties properties = new NotificacionesProperties();
+        properties.setConexionesSmtp(2);
+        registry = new SimpleMeterRegistry();
+        pool = new PoolSmtp(mailSender, properties, registry);
+    }
+
+    @AfterEach
+    void cerrar() {
+        pool.cerrar();
+    }
+
+    @Test
+    void unLoteSeReparteEntreLasConexiones() throws Exception {
+        Exception[] errores = pool.enviarLote(mensajes(mailSender, 10));
+
+        assertTrue(Arrays.stream(errores).allMatch(Objects::isNull));
+        assertEquals(10, greenMail.getReceivedMessages().length);
+        assertEquals(2, pool.getUltimoLote().conexiones());
+        assertEquals(0, pool.getUltimoLote().fallidos());
+        assertEquals(10, registry.get("healthunity.smtp.correos").tag("resultado", "enviado").counter().count());
+    }
+
+    @Test
+    void reconectaSiElServidorCerroLasConexiones() throws Exception {
+        pool.enviarLote(mensajes(mailSender, 4));
+        // reset reinicia el servidor: las conexiones del pool quedan cerradas y hay que volver a crear el usuario
+        greenMail.reset();
+        greenMail.setUser("healthunity@localhost", "healthunity@localhost", "secreto");
+
+        Exception[] errores = pool.enviarLote(mensajes(mailSender, 4));
+
+        assertTrue(Arrays.stream(errores).allMatch(Objects::isNull));
+        assertEquals(4, greenMail.getReceivedMessages().length);
+        assertTrue(pool.getUltimoLote().reconexiones() > 0);
+    }
+
+    @Test
+    void servidorCaidoDevuelveErroresSinLanzar() throws Exception {
+        List<MimeMessage> mensajes = mensajes(mailSender, 3);
+        greenMail.stop();
+
+        Exception[] errores = pool.enviarLote(mensajes);
+
+        assertTrue(Arrays.stream(errores).allMatch(Objects::nonNull));
+        assertEquals(3, pool.getUltimoLote().fallidos());
+    }
+
+    @Test
+    void interrumpidoNoDaPorEnviadoLoQueNoTermino() throws Exception {
+        List<MimeMessage> mensajes = mensajes(mailSender, 10);
+
+        Thread.currentThread().interrupt();
+        Exception[] errores = pool.enviarLote(mensajes);
+        boolean sigueInterrumpido = Thread.interrupted();
+
+        assertTrue(sigueInterrumpido);
+        assertTrue(Arrays.stream(errores).allMatch(e -> e == null || e instanceof CancellationException));
+        // Un correo de una parte cancelada puede haber salido igual; uno marcado como enviado tiene que haber salido
+        long marcadosEnviados = Arrays.stream(errores).filter(Objects::isNull).count();
+        assertTrue(marcadosEnviados <= greenMail.getReceivedMessages().length);
+    }
+
+    static JavaMailSenderImpl remitente() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+        mailSender.setUsername("healthunity@localhost");
+        mailSender.setPassword("secreto");
+        Properties props = new Properties();
+        props.put("mail.smtp.auth", "true");
+        mailSender.setJavaMailProperties(props);
+        return mailSender;
+    }
+
+    static List<MimeMessage> mensajes(JavaMailSenderImpl mailSender, int cantidad) throws Exception {
+        List<MimeMessage> mensajes = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            MimeMessage mensaje = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(mensaje, true);
+            helper.setFrom("healthunity@localhost");
+            helper.setTo("paciente" + i + "@localhost");
+            helper.setSubject("Cita Confirmada");
+            helper.setText("<p>Cita " + i + "</p>", true);
+            mensajes.add(mensaje);
+        }
+        return mensajes;
+    }
+}
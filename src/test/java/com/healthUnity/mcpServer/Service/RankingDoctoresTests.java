@@ -0,0 +1,232 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.DTO.DoctorRanking;
+import com.healthUnity.mcpServer.DTO.FilaDoctor;
+import com.healthUnity.mcpServer.Repositories.ListadoDoctoresRepository;
+import com.healthUnity.mcpServer.Repositories.RankingDoctoresRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Comprueba contra la base configurada que el ranking en memoria devuelve lo mismo que las consultas SQL
+ * de top por especialidad y top general, al cargarse y después de aplicar solo los cambios.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000",
+        "healthunity.ranking.sincronizacion-ms=3600000"})
+class RankingDoctoresTests {
+
+    private static final String ESPECIALIDAD = "Ranking Doctores Tests";
+    private static final int DOCTORES = 12;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ListadoDoctoresRepository listadoDoctoresRepository;
+    @Autowired
+    private RankingDoctores rankingDoctores;
+
+    private Long idEspecialidad;
+    private Long idPaciente;
+    private final List<Long> doctores = new ArrayList<>();
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Paz', 'Ranking')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+        for (int i = 0; i < DOCTORES; i++) {
+            doctores.add(jdbcTemplate.queryForObject("""
+                    WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES (?, 'Ranking')
+                                RETURNING id_detalle_usuario)
+                    INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                    SELECT 1, id_detalle_usuario, ? FROM du
+                    RETURNING id_doctor
+                    """, Long.class, "Doctor " + i, idEspecialidad));
+        }
+        // Ratings repetidos para que el desempate por reseñas e id importe; el último queda sin opiniones
+        int[][] estrellas = {{5, 5}, {5, 5}, {5}, {4, 5}, {4, 5}, {3}, {3, 4, 5}, {1}, {2, 2}, {4}, {4, 4}, {}};
+        for (int i = 0; i < DOCTORES; i++) {
+            for (int e : estrellas[i]) {
+                opinion(doctores.get(i), e);
+            }
+        }
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_especialidad = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idEspecialidad, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_especialidad = ?", idEspecialidad);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        rankingDoctores.recargar();
+    }
+
+    @Test
+    void alCargarCoincideConLasConsultas() {
+        rankingDoctores.recargar();
+
+        assertIgualAlSql();
+        assertEquals(DOCTORES - 1, rankingDoctores.top(idEspecialidad, 100).size());
+        DoctorRanking primero = rankingDoctores.top(idEspecialidad, 1).get(0);
+        assertEquals(doctores.get(1), primero.idDoctor());
+        assertEquals(ESPECIALIDAD, primero.especialidad());
+        assertEquals("Doctor 1", primero.nombre());
+        assertEquals(5.0, primero.rating());
+        assertEquals(2, primero.reviews());
+    }
+
+    @Test
+    void aplicaSoloLosCambiosYSigueCoincidiendo() {
+        rankingDoctores.recargar();
+
+        // Sube uno de abajo, uno sin opiniones entra, uno se queda sin opiniones y otro cambia de estrellas
+        opinion(doctores.get(7), 5);
+        opinion(doctores.get(7), 5);
+        opinion(doctores.get(7), 5);
+        opinion(doctores.get(11), 5);
+        jdbcTemplate.update("DELETE FROM opiniones_doctores WHERE id_doctor = ?", doctores.get(2));
+        jdbcTemplate.update("UPDATE opiniones_doctores SET estrellas = 1 WHERE id_doctor = ?", doctores.get(0));
+        rankingDoctores.sincronizar();
+
+        assertIgualAlSql();
+        List<Long> ids = ids(rankingDoctores.top(idEspecialidad, 100));
+        assertFalse(ids.contains(doctores.get(2)));
+        assertTrue(ids.contains(doctores.get(11)));
+        assertEquals(doctores.get(1), ids.get(0));
+    }
+
+    @Test
+    void noPierdeCambiosQueConfirmanDespuesDeUnaSincronizacion() throws Exception {
+        rankingDoctores.recargar();
+        CountDownLatch escrita = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+
+        // Una transacción escribe antes de sincronizar y confirma después
+        CompletableFuture<Void> lenta = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    opinion(doctores.get(8), 5);
+                    opinion(doctores.get(8), 5);
+                    opinion(doctores.get(8), 5);
+                    escrita.countDown();
+                    try {
+                        assertTrue(confirmar.await(30, TimeUnit.SECONDS));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(escrita.await(30, TimeUnit.SECONDS));
+        opinion(doctores.get(9), 5);
+        rankingDoctores.sincronizar();
+        assertEquals(2.0, posicion(doctores.get(8)).rating());
+        assertEquals(4.5, posicion(doctores.get(9)).rating());
+
+        confirmar.countDown();
+        lenta.get(30, TimeUnit.SECONDS);
+        rankingDoctores.sincronizar();
+
+        assertEquals(3.8, posicion(doctores.get(8)).rating(), 1e-9);
+        assertIgualAlSql();
+    }
+
+    @Test
+    void mientrasSeMueveUnDoctorNuncaFaltaNiSeRepite() throws Exception {
+        RankingDoctoresRepository repository = mock(RankingDoctoresRepository.class);
+        RankingDoctores ranking = new RankingDoctores(repository, mock(FavoritosPacientes.class));
+        when(repository.corte()).thenReturn("0");
+        when(repository.findConOpiniones()).thenReturn(List.of(unico(3.0, 1)));
+        ranking.recargar();
+
+        AtomicBoolean seguir = new AtomicBoolean(true);
+        AtomicInteger malas = new AtomicInteger();
+        CompletableFuture<Void> lector = CompletableFuture.runAsync(() -> {
+            while (seguir.get()) {
+                if (ranking.top(77L, 5).size() != 1 || ranking.top(null, 5).size() != 1) {
+                    malas.incrementAndGet();
+                }
+            }
+        });
+        AtomicInteger vuelta = new AtomicInteger();
+        when(repository.findCambiadosDesde("0")).thenAnswer(invocacion -> {
+            int i = vuelta.incrementAndGet();
+            return List.of(unico(1 + i % 5, 1 + i % 3));
+        });
+        for (int i = 0; i < 5_000; i++) {
+            ranking.sincronizar();
+        }
+        seguir.set(false);
+        lector.get(30, TimeUnit.SECONDS);
+
+        assertEquals(0, malas.get());
+    }
+
+    // Único doctor de su especialidad
+    private static DoctorRanking unico(double rating, int reviews) {
+        return new DoctorRanking(7L, 77L, "Uno", "Solo", null, "Unica", rating, reviews);
+    }
+
+    private void assertIgualAlSql() {
+        assertEquals(
+                listadoDoctoresRepository.topPorEspecialidad(idEspecialidad, 10).stream()
+                        .map(FilaDoctor::idDoctor)
+                        .toList(),
+                ids(rankingDoctores.top(idEspecialidad, 10)));
+        assertEquals(
+                listadoDoctoresRepository.topGeneral(5).stream()
+                        .map(FilaDoctor::idDoctor)
+                        .toList(),
+                ids(rankingDoctores.top(null, 5)));
+    }
+
+    private DoctorRanking posicion(Long idDoctor) {
+        return rankingDoctores.top(idEspecialidad, 100).stream()
+                .filter(d -> d.idDoctor().equals(idDoctor))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static List<Long> ids(List<DoctorRanking> ranking) {
+        return ranking.stream().map(DoctorRanking::idDoctor).toList();
+    }
+
+    private void opinion(Long idDoctor, int estrellas) {
+        jdbcTemplate.update("""
+                INSERT INTO opiniones_doctores (estrellas, detalles, fecha, id_doctor, id_paciente)
+                VALUES (?, 'ok', CURRENT_DATE, ?, ?)
+                """, estrellas, idDoctor, idPaciente);
+    }
+}
@@ -0,0 +1,82 @@
+package com.healthUnity.mcpServer.Service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 300.000 citas en las próximas 24 horas: tiempo de encolar todos sus recordatorios por páginas
+ * y de un tramo típico de un minuto. Siembra en una transacción que se revierte,
+ * por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class RecordatoriosBenchmarkTests {
+
+    private static final int DOCTORES = 250;
+    private static final int MINUTOS = 1200;
+
+    @Autowired
+    private RecordatoriosCitas recordatorios;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void ventanaDeUnDia() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+            sembrar(ahora);
+
+            long inicio = System.nanoTime();
+            int minuto = recordatorios.encolar(ahora.plusHours(12), ahora.plusHours(12).plusMinutes(1));
+            long msMinuto = (System.nanoTime() - inicio) / 1_000_000;
+
+            inicio = System.nanoTime();
+            int dia = recordatorios.encolar(ahora, ahora.plusHours(24));
+            long msDia = (System.nanoTime() - inicio) / 1_000_000;
+
+            System.out.printf("tramo de 1 minuto: %d recordatorios en %d ms%n", minuto, msMinuto);
+            System.out.printf("ventana de 24 h: %d recordatorios en %d ms (%.0f/s)%n",
+                    dia, msDia, dia * 1000.0 / Math.max(1, msDia));
+            assertEquals(DOCTORES * MINUTOS, minuto + dia);
+            status.setRollbackOnly();
+        });
+    }
+
+    private void sembrar(LocalDateTime ahora) {
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido)
+                            SELECT 'Bench', 'Recordatorio ' || g FROM generate_series(1, ?) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario) SELECT 1, id_detalle_usuario FROM du
+                """, DOCTORES);
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido, gmail)
+                            VALUES ('Bench', 'Paciente', 'bench@localhost') RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                """);
+        // Un minuto distinto por cita dentro de cada doctor, repartidos en las próximas 24 horas
+        jdbcTemplate.update("""
+                INSERT INTO citas (razon, fecha, hora, estado, id_doctor, id_paciente)
+                SELECT 'Control', (t)::date, (t)::time, 'pendiente', d.id_doctor,
+                       (SELECT MAX(id_paciente) FROM pacientes)
+                FROM (SELECT id_doctor FROM doctores ORDER BY id_doctor DESC LIMIT ?) d
+                CROSS JOIN generate_series(1, ?) m
+                CROSS JOIN LATERAL (SELECT ?::timestamp + m * INTERVAL '1 minute' AS t) x
+                """, DOCTORES, MINUTOS, ahora);
+        jdbcTemplate.execute("ANALYZE citas");
+    }
+}
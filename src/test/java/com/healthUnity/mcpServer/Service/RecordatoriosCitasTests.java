@@ -0,0 +1,150 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthUnity.mcpServer.DTO.CorreoCita;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Recorre la ventana de recordatorios contra la base configurada, con páginas de 2 citas
+ * para pasar por varias páginas. Las tareas programadas quedan con intervalos largos para no interferir.
+ */
+@SpringBootTest(properties = {
+        "healthunity.notificaciones.recordatorios-lote=2",
+        "healthunity.notificaciones.recordatorios-intervalo-ms=3600000",
+        "healthunity.notificaciones.intervalo-ms=3600000"})
+class RecordatoriosCitasTests {
+
+    private static final String CORREO_PACIENTE = "paciente.recordatorio@localhost";
+
+    @Autowired
+    private RecordatoriosCitas recordatorios;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+    private Long idDoctor;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idDoctor = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Eva', 'Recordatorio')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario) SELECT 1, id_detalle_usuario FROM du
+                RETURNING id_doctor
+                """, Long.class);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido, gmail) VALUES ('Leo', 'Recordatorio', ?)
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class, CORREO_PACIENTE);
+
+        cita(ahora.plusHours(2), "pendiente");
+        cita(ahora.plusHours(5), "cancelada");
+        cita(ahora.plusHours(20), "pendiente");
+        cita(ahora.plusHours(23), "pendiente");
+        cita(ahora.plusHours(23).plusMinutes(30), "completada");
+        cita(ahora.plusHours(30), "pendiente");
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("""
+                DELETE FROM notificaciones_outbox
+                WHERE id_cita IN (SELECT id_cita FROM citas WHERE id_paciente = ?)
+                """, idPaciente);
+        jdbcTemplate.update("DELETE FROM citas WHERE id_paciente = ?", idPaciente);
+        List<Long> detalles = jdbcTemplate.queryForList("""
+                SELECT id_detalle_usuario FROM doctores WHERE id_doctor = ?
+                UNION ALL
+                SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?
+                """, Long.class, idDoctor, idPaciente);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_doctor = ?", idDoctor);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+    }
+
+    @Test
+    void encolaUnaVezLasCitasActivasDeLaVentana() throws Exception {
+        assertEquals(3, recordatorios.encolar(ahora, ahora.plusHours(24)));
+        assertEquals(0, recordatorios.encolar(ahora, ahora.plusHours(24)));
+
+        List<String> payloads = jdbcTemplate.queryForList("""
+                SELECT o.payload FROM notificaciones_outbox o JOIN citas c ON c.id_cita = o.id_cita
+                WHERE c.id_paciente = ? AND o.tipo = 'recordatorio_cita' AND o.destinatario = ?
+                """, String.class, idPaciente, CORREO_PACIENTE);
+        assertEquals(3, payloads.size());
+
+        // El payload se arma en SQL; debe leerse igual que el de la confirmación
+        CorreoCita correo = objectMapper.readValue(payloads.get(0), CorreoCita.class);
+        assertEquals(CORREO_PACIENTE, correo.gmail());
+        assertEquals("Leo", correo.nombrePaciente());
+        assertEquals("Eva Recordatorio", correo.nombreDoctor());
+        assertEquals("Medicina General", correo.especialidadDoctor());
+        assertEquals("Control", correo.razon());
+    }
+
+    @Test
+    void tramosConsecutivosNoRepitenNiSaltanCitas() {
+        assertEquals(1, recordatorios.encolar(ahora, ahora.plusHours(2)));
+        assertEquals(0, recordatorios.encolar(ahora.plusHours(2), ahora.plusHours(20).minusMinutes(1)));
+        assertEquals(2, recordatorios.encolar(ahora.plusHours(20).minusMinutes(1), ahora.plusHours(24)));
+    }
+
+    @Test
+    void unaCitaReprogramadaRecibeOtroRecordatorio() {
+        assertEquals(3, recordatorios.encolar(ahora, ahora.plusHours(24)));
+
+        jdbcTemplate.update("""
+                UPDATE citas SET hora = hora + INTERVAL '15 minutes'
+                WHERE id_paciente = ? AND estado = 'pendiente' AND (fecha + hora) = ?
+                """, idPaciente, ahora.plusHours(20));
+
+        assertEquals(1, recordatorios.encolar(ahora, ahora.plusHours(24)));
+    }
+
+    @Test
+    void siguePorLaMarcaGuardadaYLaAvanza() {
+        jdbcTemplate.update("""
+                INSERT INTO progreso_tareas (tarea, hasta) VALUES (?, ?)
+                ON CONFLICT (tarea) DO UPDATE SET hasta = EXCLUDED.hasta
+                """, RecordatoriosCitas.TAREA, ahora.plusHours(3));
+        try {
+            recordatorios.ejecutar();
+
+            // La cita de dentro de 2 horas quedó antes de la marca; las de 20 y 23 horas se encolan
+            Integer encolados = jdbcTemplate.queryForObject("""
+                    SELECT COUNT(*) FROM notificaciones_outbox o JOIN citas c ON c.id_cita = o.id_cita
+                    WHERE c.id_paciente = ? AND o.tipo = 'recordatorio_cita'
+                    """, Integer.class, idPaciente);
+            assertEquals(2, encolados);
+            LocalDateTime marca = jdbcTemplate.queryForObject(
+                    "SELECT hasta FROM progreso_tareas WHERE tarea = ?", LocalDateTime.class, RecordatoriosCitas.TAREA);
+            assertTrue(!marca.isBefore(ahora.plusHours(24)));
+        } finally {
+            jdbcTemplate.update("DELETE FROM progreso_tareas WHERE tarea = ?", RecordatoriosCitas.TAREA);
+        }
+    }
+
+    private void cita(LocalDateTime cuando, String estado) {
+        jdbcTemplate.update("""
+                INSERT INTO citas (razon, fecha, hora, estado, id_doctor, id_paciente)
+                VALUES ('Control', ?, ?, ?, ?, ?)
+                """, cuando.toLocalDate(), cuando.toLocalTime(), estado, idDoctor, idPaciente);
+    }
+}
@@ -0,0 +1,177 @@
+package com.healthUnity.mcpServer.Service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64 hilos reservando a la vez contra la base configurada.
+ * Los datos sembrados se confirman (las reservas compiten entre transacciones reales)
+ * y se borran al terminar, por eso solo corre con HEALTHUNITY_BENCHMARKS=true.
+ */
+@SpringBootTest
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class ReservaCitasStressTests {
+
+    private static final int HILOS = 64;
+    private static final String ESPECIALIDAD = "Stress Reservas";
+    private static final LocalDate LUNES = LocalDate.now().plusWeeks(2).with(TemporalAdjusters.next(java.time.DayOfWeek.MONDAY));
+    private static final List<LocalTime> HORAS = List.of(
+            LocalTime.of(8, 0), LocalTime.of(8, 30), LocalTime.of(9, 0), LocalTime.of(9, 30),
+            LocalTime.of(10, 0), LocalTime.of(10, 30), LocalTime.of(11, 0), LocalTime.of(11, 30));
+
+    @Autowired
+    private ReservaCitas reservaCitas;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long idEspecialidad;
+    private Long idPaciente;
+
+    @BeforeEach
+    void sembrar() {
+        idEspecialidad = jdbcTemplate.queryForObject(
+                "INSERT INTO especialidades (nombre) VALUES (?) RETURNING id_especialidad", Long.class, ESPECIALIDAD);
+        idPaciente = jdbcTemplate.queryForObject("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido) VALUES ('Stress', 'Paciente')
+                            RETURNING id_detalle_usuario)
+                INSERT INTO pacientes (id_detalle_usuario) SELECT id_detalle_usuario FROM du
+                RETURNING id_paciente
+                """, Long.class);
+    }
+
+    @AfterEach
+    void limpiar() {
+        jdbcTemplate.update("DELETE FROM citas WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("""
+                DELETE FROM horarios_doctor WHERE id_doctor IN (SELECT id_doctor FROM doctores WHERE id_especialidad = ?)
+                """, idEspecialidad);
+        List<Long> detalles = jdbcTemplate.queryForList(
+                "SELECT id_detalle_usuario FROM doctores WHERE id_especialidad = ?", Long.class, idEspecialidad);
+        jdbcTemplate.update("DELETE FROM doctores WHERE id_especialidad = ?", idEspecialidad);
+        detalles.forEach(id -> jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", id));
+        jdbcTemplate.update("DELETE FROM especialidades WHERE id_especialidad = ?", idEspecialidad);
+        Long detallePaciente = jdbcTemplate.queryForObject(
+                "SELECT id_detalle_usuario FROM pacientes WHERE id_paciente = ?", Long.class, idPaciente);
+        jdbcTemplate.update("DELETE FROM pacientes WHERE id_paciente = ?", idPaciente);
+        jdbcTemplate.update("DELETE FROM detalles_usuario WHERE id_detalle_usuario = ?", detallePaciente);
+    }
+
+    @Test
+    void slotsPopularesSinDobleReserva() throws Exception {
+        // 8 doctores × 8 slots = 64 slots; cada hilo intenta todos en orden aleatorio
+        List<Long> doctores = sembrarDoctores(8);
+        List<Runnable> intentos = new ArrayList<>();
+        AtomicInteger reservadas = new AtomicInteger();
+        for (int h = 0; h < HILOS; h++) {
+            List<long[]> slots = new ArrayList<>();
+            for (Long idDoctor : doctores) {
+                for (int i = 0; i < HORAS.size(); i++) {
+                    slots.add(new long[]{idDoctor, i});
+                }
+            }
+            Collections.shuffle(slots);
+            intentos.add(() -> slots.forEach(slot -> reservar(slot[0], HORAS.get((int) slot[1]), reservadas)));
+        }
+
+        long ms = correr(intentos);
+        int total = HILOS * doctores.size() * HORAS.size();
+        System.out.printf("contendido: %d intentos, %d reservas, %d ms, %.0f intentos/s%n",
+                total, reservadas.get(), ms, total * 1000.0 / ms);
+
+        assertEquals(doctores.size() * HORAS.size(), reservadas.get());
+        assertSinDobleReserva();
+    }
+
+    @Test
+    void doctoresDistintosNoSeSerializan() throws Exception {
+        // Cada hilo reserva los 8 slots de su propio doctor
+        List<Long> doctores = sembrarDoctores(HILOS);
+        AtomicInteger reservadas = new AtomicInteger();
+        List<Runnable> intentos = new ArrayList<>();
+        for (Long idDoctor : doctores) {
+            intentos.add(() -> HORAS.forEach(hora -> reservar(idDoctor, hora, reservadas)));
+        }
+
+        long ms = correr(intentos);
+        System.out.printf("sin contención: %d reservas, %d ms, %.0f reservas/s%n",
+                reservadas.get(), ms, reservadas.get() * 1000.0 / ms);
+
+        assertEquals(HILOS * HORAS.size(), reservadas.get());
+        assertSinDobleReserva();
+    }
+
+    private void reservar(Long idDoctor, LocalTime hora, AtomicInteger reservadas) {
+        ReservaCitas.Resultado resultado = reservaCitas.reservar(idPaciente, idDoctor, LUNES, hora, "Stress");
+        if (resultado.estado() == ReservaCitas.Estado.RESERVADA) {
+            reservadas.incrementAndGet();
+        }
+    }
+
+    private long correr(List<Runnable> intentos) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Throwable> errores = Collections.synchronizedList(new ArrayList<>());
+        for (Runnable intento : intentos) {
+            pool.execute(() -> {
+                try {
+                    salida.await();
+                    intento.run();
+                } catch (Throwable e) {
+                    errores.add(e);
+                }
+            });
+        }
+        long inicio = System.nanoTime();
+        salida.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES));
+        assertTrue(errores.isEmpty(), () -> "Errores: " + errores);
+        return Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private void assertSinDobleReserva() {
+        Integer duplicadas = jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM (
+                    SELECT id_doctor, fecha, hora FROM citas
+                    WHERE id_paciente = ? AND estado <> 'cancelada'
+                    GROUP BY id_doctor, fecha, hora HAVING COUNT(*) > 1) d
+                """, Integer.class, idPaciente);
+        assertEquals(0, duplicadas);
+    }
+
+    private List<Long> sembrarDoctores(int cantidad) {
+        jdbcTemplate.update("""
+                WITH du AS (INSERT INTO detalles_usuario (nombre, apellido)
+                            SELECT 'Stress', 'Doctor ' || g FROM generate_series(1, ?) g
+                            RETURNING id_detalle_usuario)
+                INSERT INTO doctores (experiencia, id_detalle_usuario, id_especialidad)
+                SELECT 1, id_detalle_usuario, ? FROM du
+                """, cantidad, idEspecialidad);
+        jdbcTemplate.update("""
+                INSERT INTO horarios_doctor (dia_semana, hora_inicio, hora_fin, id_doctor)
+                SELECT 1, TIME '08:00', TIME '12:00', id_doctor FROM doctores WHERE id_especialidad = ?
+                """, idEspecialidad);
+        return jdbcTemplate.queryForList(
+                "SELECT id_doctor FROM doctores WHERE id_especialidad = ? ORDER BY id_doctor", Long.class, idEspecialidad);
+    }
+}
@@ -0,0 +1,81 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.AgendaProperties;
+import com.healthUnity.mcpServer.Repositories.CitasRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReservaCitasTests {
+
+    private static final LocalDate LUNES = LocalDate.of(2030, 1, 7);
+    private static final LocalTime HORA = LocalTime.of(9, 0);
+    private static final int DURACION = 6;
+
+    private CitasRepository citasRepository;
+    private MotorSlots motorSlots;
+    private RetencionesHorario retenciones;
+    private ReservaCitas reservaCitas;
+
+    @BeforeEach
+    void setUp() {
+        citasRepository = mock(CitasRepository.class);
+        IndiceHorarios indiceHorarios = mock(IndiceHorarios.class);
+        motorSlots = mock(MotorSlots.class);
+        retenciones = new RetencionesHorario(new AgendaProperties());
+        reservaCitas = new ReservaCitas(citasRepository, indiceHorarios, motorSlots, retenciones);
+        when(indiceHorarios.trabajaEn(anyLong(), anyInt(), any())).thenReturn(true);
+        when(motorSlots.unidadesPorSlot(anyLong())).thenReturn(DURACION);
+        when(motorSlots.esInicioDeSlot(anyLong(), any(), any(), anyInt())).thenReturn(true);
+        when(citasRepository.bloquearSlot(anyLong())).thenReturn(true);
+    }
+
+    @Test
+    void noSeMueveUnaCitaAUnSlotRetenidoPorOtro() {
+        retenciones.retener(20L, 1L, LUNES, HORA);
+
+        assertEquals(ReservaCitas.Estado.OCUPADA, reservaCitas.tomarSlotParaMover(5L, 10L, 1L, LUNES, HORA).estado());
+        verify(citasRepository, never()).bloquearSlot(anyLong());
+    }
+
+    @Test
+    void quienRetieneElSlotPuedeMoverSuCitaYLaRetencionSeSuelta() {
+        retenciones.retener(10L, 1L, LUNES, HORA);
+
+        assertEquals(ReservaCitas.Estado.RESERVADA, reservaCitas.tomarSlotParaMover(5L, 10L, 1L, LUNES, HORA).estado());
+        assertFalse(retenciones.retenidoPorOtro(1L, LUNES, HORA, 30L));
+    }
+
+    @Test
+    void noSeMueveUnaCitaAUnaHoraQueNoEsInicioDeSlot() {
+        LocalTime desfasada = LocalTime.of(10, 5);
+        when(motorSlots.esInicioDeSlot(1L, LUNES, desfasada, DURACION)).thenReturn(false);
+
+        assertEquals(ReservaCitas.Estado.FUERA_DE_HORARIO,
+                reservaCitas.tomarSlotParaMover(5L, 10L, 1L, LUNES, desfasada).estado());
+        verify(citasRepository, never()).bloquearSlot(anyLong());
+    }
+
+    @Test
+    void noSeMueveUnaCitaSobreOtraSinContarseASiMisma() {
+        when(motorSlots.seCruzaConOtraCita(1L, LUNES, HORA, DURACION, 5L)).thenReturn(true);
+
+        assertEquals(ReservaCitas.Estado.OCUPADA, reservaCitas.tomarSlotParaMover(5L, 10L, 1L, LUNES, HORA).estado());
+        assertEquals(ReservaCitas.Estado.RESERVADA, reservaCitas.tomarSlotParaMover(6L, 10L, 1L, LUNES, HORA).estado());
+        verify(motorSlots, never()).seCruzaConOtraCita(anyLong(), any(), any(), anyInt());
+        verify(motorSlots).seCruzaConOtraCita(eq(1L), eq(LUNES), eq(HORA), eq(DURACION), eq(6L));
+    }
+}
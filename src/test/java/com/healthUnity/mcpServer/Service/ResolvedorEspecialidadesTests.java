@@ -0,0 +1,104 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.EspecialidadesProperties;
+import com.healthUnity.mcpServer.Models.Especialidades;
+import com.healthUnity.mcpServer.Repositories.EspecialidadesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ResolvedorEspecialidadesTests {
+
+    private EspecialidadesRepository repository;
+    private ResolvedorEspecialidades resolvedor;
+    private final List<Especialidades> especialidades = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        especialidades.add(especialidad(1L, "Cardiología"));
+        especialidades.add(especialidad(2L, "Pediatría"));
+        especialidades.add(especialidad(3L, "Dermatología"));
+        especialidades.add(especialidad(4L, "Medicina General"));
+        repository = mock(EspecialidadesRepository.class);
+        when(repository.findAll()).thenReturn(especialidades);
+
+        EspecialidadesProperties properties = new EspecialidadesProperties();
+        properties.setSinonimos(Map.of(
+                "cardiologia", List.of("cardiologo", "corazón"),
+                "Pediatría", List.of("niños", "bebe"),
+                "medicina-general", List.of("médico de cabecera")));
+        properties.setMaxDesconocidas(3);
+        resolvedor = new ResolvedorEspecialidades(repository, properties);
+        resolvedor.recargar();
+    }
+
+    @Test
+    void resuelveNombresYSinonimosSinImportarTildesNiMayusculas() {
+        assertEquals(1L, resolvedor.resolver("CARDIOLOGÍA"));
+        assertEquals(1L, resolvedor.resolver("corazon"));
+        assertEquals(1L, resolvedor.resolver("Cardiólogo"));
+        assertEquals(2L, resolvedor.resolver("niños"));
+        assertEquals(4L, resolvedor.resolver("medicina general"));
+        assertEquals(4L, resolvedor.resolver("Médico de Cabecera"));
+    }
+
+    @Test
+    void toleraErroresYTextoAlrededor() {
+        assertEquals(3L, resolvedor.resolver("dermatolgia"));
+        assertEquals(1L, resolvedor.resolver("cardio"));
+        assertEquals(1L, resolvedor.resolver("un doctor del corazón"));
+        assertEquals(2L, resolvedor.resolver("pediatra para mi bebé"));
+        assertEquals(4L, resolvedor.resolver("medico de cabezera"));
+    }
+
+    @Test
+    void noReconoceTextosSinRelacion() {
+        assertNull(resolvedor.resolver("astrología"));
+        assertNull(resolvedor.resolver("de"));
+        assertNull(resolvedor.resolver("medicina"));
+        assertNull(resolvedor.resolver("  "));
+        assertNull(resolvedor.resolver(null));
+    }
+
+    @Test
+    void laRecargaOlvidaLoNoReconocido() {
+        assertNull(resolvedor.resolver("Neurología"));
+        assertNull(resolvedor.resolver("neurologia"));
+
+        especialidades.add(especialidad(5L, "Neurología"));
+        resolvedor.recargar();
+
+        assertEquals(5L, resolvedor.resolver("neurologia"));
+        assertEquals("Neurología", resolvedor.nombre(5L));
+        assertEquals("Cardiología, Pediatría, Dermatología, Medicina General, Neurología", resolvedor.disponibles());
+    }
+
+    @Test
+    void recuerdaLoNoReconocidoSinCrecerSinLimite() {
+        assertNull(resolvedor.resolver("astrologia"));
+        assertNull(resolvedor.resolver("ASTROLOGÍA"));
+        assertEquals(1, resolvedor.enCache());
+
+        for (int i = 0; i < 10; i++) {
+            assertNull(resolvedor.resolver("desconocida " + i));
+            assertTrue(resolvedor.enCache() <= 3);
+        }
+        assertEquals(1L, resolvedor.resolver("corazon"));
+    }
+
+    private static Especialidades especialidad(Long id, String nombre) {
+        Especialidades especialidad = new Especialidades();
+        especialidad.setIdEspecialidad(id);
+        especialidad.setNombre(nombre);
+        return especialidad;
+    }
+}
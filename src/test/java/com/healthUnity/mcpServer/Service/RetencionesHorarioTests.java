@@ -0,0 +1,116 @@
+package com.healthUnity.mcpServer.Service;
+
+import com.healthUnity.mcpServer.Config.AgendaProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetencionesHorarioTests {
+
+    private static final LocalDate FECHA = LocalDate.of(2030, 1, 7);
+    private static final LocalTime NUEVE = LocalTime.of(9, 0);
+
+    private final AtomicLong ahora = new AtomicLong(1_000_000);
+    private AgendaProperties agendaProperties;
+    private RetencionesHorario retenciones;
+
+    @BeforeEach
+    void setUp() {
+        agendaProperties = new AgendaProperties();
+        agendaProperties.setRetencionSegundos(180);
+        retenciones = new RetencionesHorario(agendaProperties, ahora::get);
+    }
+
+    @Test
+    void otroPacienteNoPuedeRetenerNiVerElSlot() {
+        assertTrue(retenciones.retener(10L, 1L, FECHA, NUEVE).isPresent());
+
+        assertTrue(retenciones.retener(20L, 1L, FECHA, NUEVE).isEmpty());
+        assertTrue(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 20L));
+        assertTrue(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, null));
+        assertFalse(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 10L));
+    }
+
+    @Test
+    void vencidaSeIgnoraAunqueLaRuedaNoHayaPasado() {
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+        ahora.addAndGet(180_000);
+
+        assertFalse(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 20L));
+        assertTrue(retenciones.retener(20L, 1L, FECHA, NUEVE).isPresent());
+    }
+
+    @Test
+    void laRuedaEliminaLasVencidas() {
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+        retenciones.retener(20L, 2L, FECHA, NUEVE);
+
+        ahora.addAndGet(179_000);
+        retenciones.avanzar();
+        assertEquals(2, retenciones.tamanio());
+
+        ahora.addAndGet(1_000);
+        retenciones.avanzar();
+        assertEquals(0, retenciones.tamanio());
+    }
+
+    @Test
+    void renovarPosponeElVencimiento() {
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+        ahora.addAndGet(100_000);
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+
+        ahora.addAndGet(100_000);
+        retenciones.avanzar();
+        assertEquals(1, retenciones.tamanio());
+        assertTrue(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 20L));
+
+        ahora.addAndGet(80_000);
+        retenciones.avanzar();
+        assertEquals(0, retenciones.tamanio());
+    }
+
+    @Test
+    void plazoMayorQueUnaVueltaDeLaRueda() {
+        agendaProperties.setRetencionSegundos(RetencionesHorario.RANURAS + 100);
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+
+        for (int s = 0; s < RetencionesHorario.RANURAS + 99; s++) {
+            ahora.addAndGet(1_000);
+            retenciones.avanzar();
+        }
+        assertEquals(1, retenciones.tamanio());
+
+        ahora.addAndGet(1_000);
+        retenciones.avanzar();
+        assertEquals(0, retenciones.tamanio());
+    }
+
+    @Test
+    void unaRetencionPorPaciente() {
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+        retenciones.retener(10L, 1L, FECHA, LocalTime.of(9, 30));
+
+        assertFalse(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 20L));
+        assertTrue(retenciones.retenidoPorOtro(1L, FECHA, LocalTime.of(9, 30), 20L));
+        assertEquals(1, retenciones.tamanio());
+    }
+
+    @Test
+    void liberarSoloLaPropia() {
+        retenciones.retener(10L, 1L, FECHA, NUEVE);
+
+        retenciones.liberar(20L, 1L, FECHA, NUEVE);
+        assertTrue(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 20L));
+
+        retenciones.liberar(10L, 1L, FECHA, NUEVE);
+        assertFalse(retenciones.retenidoPorOtro(1L, FECHA, NUEVE, 20L));
+    }
+}
@@ -0,0 +1,22 @@
+package com.healthUnity.mcpServer.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class NormalizadorTextoTests {
+
+    @Test
+    void quitaTildesMayusculasYSeparadores() {
+        assertEquals("jose munoz perez", NormalizadorTexto.normalizar("  José  MUÑOZ-Pérez. "));
+        assertEquals("pediatria", NormalizadorTexto.normalizar("Pediatría"));
+        assertEquals("", NormalizadorTexto.normalizar(null));
+    }
+
+    @Test
+    void separaEnPalabras() {
+        assertArrayEquals(new String[]{"ana", "maria", "nunez"}, NormalizadorTexto.palabras("Ana María Núñez"));
+        assertArrayEquals(new String[0], NormalizadorTexto.palabras(" - "));
+    }
+}
@@ -0,0 +1,80 @@
+package com.healthUnity.mcpServer.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes asignados y tiempo por correo: plantilla compilada contra el HTML con ocho String.replace
+ * que usaba GmailService. Se mide con el contador de asignaciones por hilo de la JVM (HotSpot).
+ */
+@EnabledIfEnvironmentVariable(named = "HEALTHUNITY_BENCHMARKS", matches = "true")
+class PlantillaHtmlBenchmarkTests {
+
+    private static final String[] VARIABLES = {"nombrePaciente", "nombreDoctor", "especialidadDoctor",
+            "direccionDoctor", "fecha", "hora", "razon", "urlImagenDoctor",
+            "titulo", "encabezado", "subtitulo", "introduccion", "aviso"};
+    private static final String[] VALORES = {"María José", "Dr. Andrés López", "Cardiología",
+            "Cra 45 #10-20, Barranquilla", "2025-11-17", "09:30", "Dolor en el pecho",
+            "https://cdn.healthunity.com/doctores/42.png",
+            "Confirmación de Cita", "¡Cita Confirmada!", "Tu cita médica ha sido agendada exitosamente",
+            "Nos complace confirmar tu cita médica.", "Cancela con 24 horas de anticipación."};
+    private static final int ITERACIONES = 200_000;
+
+    @Test
+    void asignacionesPorCorreo() throws Exception {
+        String texto = new ClassPathResource("templates/cita.html").getContentAsString(StandardCharsets.UTF_8);
+        PlantillaHtml plantilla = PlantillaHtml.compilar(texto, VARIABLES);
+        // El HTML anterior: la plantilla con los valores de ejemplo que luego se reemplazaban
+        String anterior = plantilla.renderizar("Carlos", "Dr. Juan Perez", "Medicina General",
+                "Calle 85 #15-32, Consultorio 301, Soledad, Atlántico", "15 de Noviembre, 2025",
+                "9:00 - 9:30 AM", "Chequeo General de Rutina",
+                "https://via.placeholder.com/200x200/4A90E2/FFFFFF?text=Doctor",
+                VALORES[8], VALORES[9], VALORES[10], VALORES[11], VALORES[12]);
+
+        Supplier<String> conReplace = () -> anterior
+                .replace("Carlos", VALORES[0])
+                .replace("Dr. Juan Perez", VALORES[1])
+                .replace("Medicina General", VALORES[2])
+                .replace("15 de Noviembre, 2025", VALORES[4])
+                .replace("9:00 - 9:30 AM", VALORES[5])
+                .replace("Calle 85 #15-32, Consultorio 301, Soledad, Atlántico", VALORES[3])
+                .replace("Chequeo General de Rutina", VALORES[6])
+                .replace("https://via.placeholder.com/200x200/4A90E2/FFFFFF?text=Doctor", VALORES[7]);
+        Supplier<String> compilada = () -> plantilla.renderizar(VALORES);
+
+        assertEquals(conReplace.get(), compilada.get());
+
+        double[] replace = medir(conReplace);
+        double[] nueva = medir(compilada);
+        System.out.printf("replace x8:          %,.0f B/correo, %.2f µs/correo%n", replace[0], replace[1]);
+        System.out.printf("plantilla compilada: %,.0f B/correo, %.2f µs/correo (HTML de %,d caracteres)%n",
+                nueva[0], nueva[1], compilada.get().length());
+        assertTrue(nueva[0] < replace[0]);
+    }
+
+    private static double[] medir(Supplier<String> render) {
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long hilo = Thread.currentThread().getId();
+        long sumidero = 0;
+        for (int i = 0; i < ITERACIONES; i++) {
+            sumidero += render.get().length();
+        }
+        long bytes = hilos.getThreadAllocatedBytes(hilo);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ITERACIONES; i++) {
+            sumidero += render.get().length();
+        }
+        long nanos = System.nanoTime() - inicio;
+        bytes = hilos.getThreadAllocatedBytes(hilo) - bytes;
+        assertTrue(sumidero > 0);
+        return new double[]{(double) bytes / ITERACIONES, nanos / 1000.0 / ITERACIONES};
+    }
+}
@@ -0,0 +1,59 @@
+package com.healthUnity.mcpServer.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PlantillaHtmlTests {
+
+    @Test
+    void renderizaEnElOrdenDeclarado() {
+        PlantillaHtml plantilla = PlantillaHtml.compilar("<p>{{b}} y {{a}}, otra vez {{b}}</p>", "a", "b");
+
+        assertEquals("<p>dos y uno, otra vez dos</p>", plantilla.renderizar("uno", "dos"));
+    }
+
+    @Test
+    void escapaHtml() {
+        PlantillaHtml plantilla = PlantillaHtml.compilar("<b>{{nombre}}</b>", "nombre");
+
+        assertEquals("<b>&lt;script&gt;alert(&quot;x&quot;) &amp; &#39;y&#39;&lt;/script&gt;</b>",
+                plantilla.renderizar("<script>alert(\"x\") & 'y'</script>"));
+    }
+
+    @Test
+    void losValoresNoSeReinterpretanComoVariables() {
+        PlantillaHtml plantilla = PlantillaHtml.compilar("Hola {{paciente}}, te atiende {{doctor}}", "paciente", "doctor");
+
+        assertEquals("Hola {{doctor}}, te atiende Carlos", plantilla.renderizar("{{doctor}}", "Carlos"));
+    }
+
+    @Test
+    void urlSoloHttp() {
+        PlantillaHtml plantilla = PlantillaHtml.compilar("<img src=\"{{url:foto}}\">", "foto");
+
+        assertEquals("<img src=\"https://img/a?x=1&amp;y=2\">", plantilla.renderizar("https://img/a?x=1&y=2"));
+        assertEquals("<img src=\"\">", plantilla.renderizar("javascript:alert(1)"));
+        assertEquals("<img src=\"\">", plantilla.renderizar((String) null));
+    }
+
+    @Test
+    void nuloSeRenderizaVacio() {
+        assertEquals("[]", PlantillaHtml.compilar("[{{x}}]", "x").renderizar((String) null));
+    }
+
+    @Test
+    void llavesSimplesDeCssNoSonVariables() {
+        PlantillaHtml plantilla = PlantillaHtml.compilar("body { color: red; } {{x}}", "x");
+
+        assertEquals("body { color: red; } ok", plantilla.renderizar("ok"));
+    }
+
+    @Test
+    void erroresAlCompilarYRenderizar() {
+        assertThrows(IllegalArgumentException.class, () -> PlantillaHtml.compilar("{{x}}", "y"));
+        assertThrows(IllegalArgumentException.class, () -> PlantillaHtml.compilar("{{x", "x"));
+        assertThrows(IllegalArgumentException.class, () -> PlantillaHtml.compilar("{{x}}", "x").renderizar("a", "b"));
+    }
+}